@@ -0,0 +1,127 @@
+package com.example.nachos_app;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ * Tests CascadeDeleteService against the Firestore emulator.
+ *
+ * Start the emulator with `firebase emulators:start` from app/Nachosapp
+ * (firebase.json puts Firestore on port 8080). The test is skipped if the
+ * emulator can't be reached.
+ *
+ * This test:
+ *  1. Seeds an event with entrants, draws, participation entries and notifications
+ *  2. Seeds a second event that must not be touched
+ *  3. Removes the first event and checks nothing of it is left
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class CascadeDeleteEmulatorTest {
+
+    @Rule
+    public final FirestoreEmulatorRule emulator = new FirestoreEmulatorRule("cascade-delete-test");
+
+    private FirebaseFirestore db;
+
+    private String eventId;
+    private String otherEventId;
+
+    @Before
+    public void setUp() throws Exception {
+        db = emulator.db();
+
+        eventId = "cascade-" + System.currentTimeMillis();
+        otherEventId = eventId + "-other";
+        seedEvent(eventId, 300, 120);
+        seedEvent(otherEventId, 3, 3);
+    }
+
+    // Entrant lists, one draw, participation entries and notifications for an event
+    private void seedEvent(String id, int entrants, int notifications) throws Exception {
+        WriteBatch batch = db.batch();
+        int writes = 0;
+        batch.set(db.collection("events").document(id), fields("eventName", "Cascade " + id));
+
+        String[] lists = {"waitlist", "selected", "enrolled", "cancelled"};
+        for (int i = 0; i < entrants; i++) {
+            String uid = id + "-user" + i;
+            String list = lists[i % lists.length];
+            batch.set(db.collection("events").document(id).collection(list).document(uid), fields("uid", uid));
+            batch.set(db.document(ParticipationIndex.path(uid, id)), fields("eventId", id));
+            writes += 2;
+            if (writes >= 400) {
+                Tasks.await(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+        }
+        batch.set(db.collection("events").document(id).collection("draws").document(), fields("type", "lottery"));
+        for (int i = 0; i < notifications; i++) {
+            batch.set(db.collection("users").document(id + "-user" + i)
+                    .collection("notifications").document(), fields("eventId", id));
+        }
+        Tasks.await(batch.commit());
+    }
+
+    private static Map<String, Object> fields(String key, Object value) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(key, value);
+        return data;
+    }
+
+    private int count(com.google.firebase.firestore.Query query) throws Exception {
+        return Tasks.await(query.get()).size();
+    }
+
+    @Test
+    public void deleteEvent_removesEverythingForEventOnly() throws Exception {
+        long deleted = Tasks.await(new CascadeDeleteService(db).deleteEvent(eventId, null), 60, TimeUnit.SECONDS);
+
+        // 300 entrants + 1 draw + 120 notifications + the event itself
+        assertEquals(300 + 1 + 120 + 1, deleted);
+        assertFalse(Tasks.await(db.collection("events").document(eventId).get()).exists());
+        for (String list : new String[] {"waitlist", "selected", "enrolled", "cancelled", "draws"}) {
+            assertEquals(0, count(db.collection("events").document(eventId).collection(list)));
+        }
+        assertEquals(0, count(db.collectionGroup("notifications").whereEqualTo("eventId", eventId)));
+        assertEquals(0, count(db.collectionGroup("participations").whereEqualTo("eventId", eventId)));
+        assertFalse(Tasks.await(db.collection("deleteJobs").document(eventId).get()).exists());
+
+        // The other event is untouched
+        assertEquals(1, count(db.collection("events").document(otherEventId).collection("waitlist")));
+        assertEquals(3, count(db.collectionGroup("notifications").whereEqualTo("eventId", otherEventId)));
+    }
+
+    @Test
+    public void deleteEvent_resumesFromSavedJob() throws Exception {
+        // A job left behind partway through the waitlist
+        Map<String, Object> job = new HashMap<>();
+        job.put("eventId", eventId);
+        job.put("phase", "waitlist");
+        job.put("deleted", 10L);
+        Tasks.await(db.collection("deleteJobs").document(eventId).set(job));
+
+        long deleted = Tasks.await(new CascadeDeleteService(db).deleteEvent(eventId, null), 60, TimeUnit.SECONDS);
+
+        assertEquals(10 + 300 + 1 + 120 + 1, deleted);
+        assertFalse(Tasks.await(db.collection("events").document(eventId).get()).exists());
+        assertFalse(Tasks.await(db.collection("deleteJobs").document(eventId).get()).exists());
+    }
+}
@@ -0,0 +1,81 @@
+package com.example.nachos_app;
+
+import android.content.Context;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.rules.ExternalResource;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Connects a test to the Firestore emulator, skipping it if the emulator can't be reached.
+ *
+ * Start the emulator with `firebase emulators:start` from app/Nachosapp
+ * (firebase.json puts Firestore on port 8080; 10.0.2.2 is the host seen from the
+ * Android emulator).
+ *
+ * Each test class passes its own app name, so the emulator setting stays on a separate
+ * FirebaseApp and doesn't leak into other tests. The app is set up once per name.
+ */
+public class FirestoreEmulatorRule extends ExternalResource {
+
+    private static final String HOST = "10.0.2.2";
+    private static final int PORT = 8080;
+
+    // Emulator connections already set up, by app name
+    private static final Map<String, FirebaseFirestore> connections = new HashMap<>();
+
+    private final String appName;
+    private FirebaseFirestore db;
+
+    /**
+     * @param appName Name of the FirebaseApp the test's connection uses
+     */
+    public FirestoreEmulatorRule(String appName) {
+        this.appName = appName;
+    }
+
+    @Override
+    protected void before() {
+        db = connect(appName);
+
+        boolean reachable;
+        try {
+            Tasks.await(db.collection("emulatorCheck").document("ping").set(new HashMap<>()),
+                    5, TimeUnit.SECONDS);
+            reachable = true;
+        } catch (Exception e) {
+            reachable = false;
+        }
+        assumeTrue("Firestore emulator not running", reachable);
+    }
+
+    /**
+     * @return The connection to the emulator
+     */
+    public FirebaseFirestore db() {
+        return db;
+    }
+
+    private static synchronized FirebaseFirestore connect(String appName) {
+        FirebaseFirestore db = connections.get(appName);
+        if (db == null) {
+            Context context = ApplicationProvider.getApplicationContext();
+            FirebaseApp app = FirebaseApp.initializeApp(context,
+                    FirebaseApp.getInstance().getOptions(), appName);
+            db = FirebaseFirestore.getInstance(app);
+            db.useEmulator(HOST, PORT);
+            connections.put(appName, db);
+        }
+        return db;
+    }
+}
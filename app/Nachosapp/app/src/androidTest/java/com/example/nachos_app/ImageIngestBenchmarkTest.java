@@ -0,0 +1,185 @@
+package com.example.nachos_app;
+
+import android.content.ContentResolver;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.net.Uri;
+import android.os.Debug;
+import android.provider.MediaStore;
+import android.util.Log;
+
+import androidx.test.core.app.ApplicationProvider;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Compares the memory a banner upload takes before and after ImageIngestPipeline.
+ *
+ * This test:
+ *  1. Writes a 12 MP JPEG to the cache directory, like a photo from a phone camera
+ *  2. Processes it the old way (full decode, createScaledBitmap, JPEG at 70) and with
+ *     the pipeline, sampling the Java and native heap while each runs
+ *  3. Logs the peak heap growth, time and output size of each (`adb logcat -s ImageIngest`),
+ *     and checks the pipeline's output is a banner-sized WebP within the size budget
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class ImageIngestBenchmarkTest {
+
+    private static final String TAG = "ImageIngest";
+    private static final int PHOTO_WIDTH = 4000;
+    private static final int PHOTO_HEIGHT = 3000;
+    private static final int RUNS = 3;
+
+    private Context context;
+    private File photo;
+
+    /** Samples heap usage on a background thread and keeps the peak above the starting point */
+    private static class PeakHeapSampler extends Thread {
+        private final long baseline = usedHeap();
+        private volatile boolean running = true;
+        private volatile long peak;
+
+        private static long usedHeap() {
+            Runtime runtime = Runtime.getRuntime();
+            return (runtime.totalMemory() - runtime.freeMemory()) + Debug.getNativeHeapAllocatedSize();
+        }
+
+        @Override
+        public void run() {
+            while (running) {
+                peak = Math.max(peak, usedHeap() - baseline);
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        long finish() throws InterruptedException {
+            running = false;
+            join();
+            return Math.max(peak, usedHeap() - baseline);
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        context = ApplicationProvider.getApplicationContext();
+        photo = new File(context.getCacheDir(), "ingest-benchmark.jpg");
+
+        // Noise keeps the JPEG close to a real photo's size; a flat colour would compress to nothing
+        Bitmap bitmap = Bitmap.createBitmap(PHOTO_WIDTH, PHOTO_HEIGHT, Bitmap.Config.ARGB_8888);
+        Canvas canvas = new Canvas(bitmap);
+        Paint paint = new Paint();
+        Random random = new Random(42);
+        for (int y = 0; y < PHOTO_HEIGHT; y += 20) {
+            for (int x = 0; x < PHOTO_WIDTH; x += 20) {
+                paint.setColor(Color.rgb(random.nextInt(256), random.nextInt(256), random.nextInt(256)));
+                canvas.drawRect(x, y, x + 20, y + 20, paint);
+            }
+        }
+        try (FileOutputStream out = new FileOutputStream(photo)) {
+            bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+        }
+        bitmap.recycle();
+    }
+
+    @After
+    public void tearDown() {
+        if (photo != null) {
+            photo.delete();
+        }
+    }
+
+    @Test
+    public void testPipelineUsesLessMemoryThanFullDecode() throws Exception {
+        ContentResolver resolver = context.getContentResolver();
+        Uri uri = Uri.fromFile(photo);
+
+        long oldPeak = 0;
+        long newPeak = 0;
+        long oldNanos = 0;
+        long newNanos = 0;
+        byte[] oldBytes = null;
+        byte[] newBytes = null;
+        for (int i = 0; i < RUNS; i++) {
+            PeakHeapSampler sampler = startSampler();
+            long start = System.nanoTime();
+            oldBytes = measure(() -> legacyProcess(resolver, uri));
+            oldPeak = Math.max(oldPeak, sampler.finish());
+            oldNanos += System.nanoTime() - start;
+
+            sampler = startSampler();
+            start = System.nanoTime();
+            newBytes = measure(() -> Tasks.await(
+                    ImageIngestPipeline.getInstance().ingest(resolver, uri, null), 30, TimeUnit.SECONDS));
+            newPeak = Math.max(newPeak, sampler.finish());
+            newNanos += System.nanoTime() - start;
+        }
+
+        Log.i(TAG, String.format("Old path: peak %.1f MB, %d ms, %d bytes JPEG",
+                oldPeak / 1048576.0, oldNanos / RUNS / 1_000_000, oldBytes.length));
+        Log.i(TAG, String.format("Pipeline: peak %.1f MB, %d ms, %d bytes WebP",
+                newPeak / 1048576.0, newNanos / RUNS / 1_000_000, newBytes.length));
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(newBytes, 0, newBytes.length, options);
+        assertEquals("image/webp", options.outMimeType);
+        assertEquals(ImageIngestPipeline.MAX_WIDTH, options.outWidth);
+        assertEquals(ImageIngestPipeline.MAX_HEIGHT, options.outHeight);
+        assertTrue(newBytes.length <= ImageIngestPipeline.MAX_BYTES);
+        assertTrue("Pipeline peak " + newPeak + " not below old peak " + oldPeak, newPeak < oldPeak);
+    }
+
+    private static PeakHeapSampler startSampler() {
+        Runtime.getRuntime().gc();
+        PeakHeapSampler sampler = new PeakHeapSampler();
+        sampler.start();
+        return sampler;
+    }
+
+    private static byte[] measure(Callable<byte[]> upload) throws Exception {
+        byte[] bytes = upload.call();
+        assertNotNull(bytes);
+        return bytes;
+    }
+
+    // The banner processing CreateEventActivity and EventDetailsActivity did before the pipeline
+    @SuppressWarnings("deprecation")
+    private static byte[] legacyProcess(ContentResolver resolver, Uri uri) throws Exception {
+        Bitmap bitmap = MediaStore.Images.Media.getBitmap(resolver, uri);
+        float ratio = Math.min(800f / bitmap.getWidth(), 600f / bitmap.getHeight());
+        Bitmap resized = Bitmap.createScaledBitmap(bitmap,
+                Math.round(bitmap.getWidth() * ratio), Math.round(bitmap.getHeight() * ratio), true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        resized.compress(Bitmap.CompressFormat.JPEG, 70, out);
+        bitmap.recycle();
+        resized.recycle();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.nachos_app;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.core.app.ActivityScenario;
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * Measures how long the Home feed takes to show its first event once MainActivity is
+ * launched, against a server read of the same page started at the same moment.
+ *
+ * Needs a signed-in user (run after a test that registers one) and at least one event
+ * with open or upcoming registration; it is skipped otherwise.
+ *
+ * This test:
+ *  1. Reads the feed's first page from the server, so it is in Firestore's cache
+ *  2. Launches MainActivity and, at the same moment, reads the same page from the server
+ *  3. Logs both times (`adb logcat -s StartupBenchmark`) and checks the first event row
+ *     was drawn before the server read came back
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class StartupBenchmarkTest {
+
+    private static final String TAG = "StartupBenchmark";
+    private static final long TIMEOUT_MS = 15_000;
+
+    @Test
+    public void testFirstEventRowBeatsServerRoundTrip() throws Exception {
+        assumeTrue("No signed-in user", FirebaseAuth.getInstance().getCurrentUser() != null);
+
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        Query firstPage = EventSummaries.ongoingQuery(db, new Date()).limit(EventSummaries.FEED_PAGE_SIZE);
+        QuerySnapshot warm = Tasks.await(firstPage.get(Source.SERVER), 30, TimeUnit.SECONDS);
+        assumeTrue("No ongoing events to show", !warm.isEmpty());
+
+        StartupTrace.reset();
+        long launchedAt = SystemClock.uptimeMillis();
+        Task<QuerySnapshot> server = firstPage.get(Source.SERVER);
+        try (ActivityScenario<MainActivity> scenario = ActivityScenario.launch(MainActivity.class)) {
+            Tasks.await(server, 30, TimeUnit.SECONDS);
+            long serverMs = SystemClock.uptimeMillis() - launchedAt;
+
+            long deadline = SystemClock.uptimeMillis() + TIMEOUT_MS;
+            while (StartupTrace.elapsed(StartupTrace.FIRST_EVENT_ROW) < 0
+                    && SystemClock.uptimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            long firstRow = StartupTrace.elapsed(StartupTrace.FIRST_EVENT_ROW);
+            assertTrue("No event row within " + TIMEOUT_MS + " ms", firstRow >= 0);
+            // StartupTrace measures from process start; shift it to the launch
+            long firstRowMs = Process.getStartUptimeMillis() + firstRow - launchedAt;
+
+            Log.i(TAG, "Launch to first event row: " + firstRowMs + " ms; server read of the same page: "
+                    + serverMs + " ms");
+            assertTrue("First row at " + firstRowMs + " ms, server answered at " + serverMs + " ms",
+                    firstRowMs < serverMs);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.nachos_app;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests UserRemovalService against the Firestore emulator.
+ *
+ * Start the emulator with `firebase emulators:start` from app/Nachosapp.
+ * The test is skipped if the emulator can't be reached.
+ *
+ * This test:
+ *  1. Seeds a user on one event's waitlist, enrolled in another, and organizing a third
+ *  2. Removes the user
+ *  3. Checks their entries, notifications, index and organized event are gone,
+ *     the other events' counters went down, and other entrants are untouched
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class UserRemovalEmulatorTest {
+
+    @Rule
+    public final FirestoreEmulatorRule emulator = new FirestoreEmulatorRule("user-removal-test");
+
+    private FirebaseFirestore db;
+
+    private String uid;
+    private String otherUid;
+    private DocumentReference waitlistEvent;
+    private DocumentReference enrolledEvent;
+    private DocumentReference organizedEvent;
+
+    @Before
+    public void setUp() throws Exception {
+        db = emulator.db();
+
+        String run = String.valueOf(System.currentTimeMillis());
+        uid = "removed-" + run;
+        otherUid = "kept-" + run;
+        waitlistEvent = db.collection("events").document("waitlist-" + run);
+        enrolledEvent = db.collection("events").document("enrolled-" + run);
+        organizedEvent = db.collection("events").document("organized-" + run);
+
+        Tasks.await(db.collection("users").document(uid).set(fields("name", "Removed")));
+        Tasks.await(waitlistEvent.set(counters(2, 0)));
+        Tasks.await(enrolledEvent.set(counters(0, 1)));
+        Map<String, Object> organized = counters(1, 0);
+        organized.put("organizerId", uid);
+        Tasks.await(organizedEvent.set(organized));
+
+        Tasks.await(waitlistEvent.collection("waitlist").document(uid).set(fields("uid", uid)));
+        Tasks.await(waitlistEvent.collection("waitlist").document(otherUid).set(fields("uid", otherUid)));
+        Tasks.await(enrolledEvent.collection("enrolled").document(uid).set(fields("uid", uid)));
+        Tasks.await(organizedEvent.collection("waitlist").document(otherUid).set(fields("uid", otherUid)));
+
+        Tasks.await(ParticipationIndex.ref(db, uid, waitlistEvent.getId()).set(fields("status", "WAITLISTED")));
+        Tasks.await(ParticipationIndex.ref(db, uid, enrolledEvent.getId()).set(fields("status", "ENROLLED")));
+        Tasks.await(db.collection("users").document(uid).collection("notifications").document()
+                .set(fields("eventId", enrolledEvent.getId())));
+    }
+
+    private static Map<String, Object> fields(String key, Object value) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(key, value);
+        return data;
+    }
+
+    private static Map<String, Object> counters(long waitlist, long enrolled) {
+        Map<String, Object> data = new HashMap<>();
+        data.put(EventCounters.WAITLIST, waitlist);
+        data.put(EventCounters.ENROLLED, enrolled);
+        return data;
+    }
+
+    @Test
+    public void removeUser_removesFootprintAndAdjustsCounters() throws Exception {
+        Tasks.await(new UserRemovalService(db).removeUser(uid), 60, TimeUnit.SECONDS);
+
+        assertFalse(Tasks.await(db.collection("users").document(uid).get()).exists());
+        assertFalse(Tasks.await(waitlistEvent.collection("waitlist").document(uid).get()).exists());
+        assertFalse(Tasks.await(enrolledEvent.collection("enrolled").document(uid).get()).exists());
+        assertTrue(Tasks.await(ParticipationIndex.collection(db, uid).get()).isEmpty());
+        assertTrue(Tasks.await(db.collection("users").document(uid).collection("notifications").get()).isEmpty());
+
+        // Organized event is removed along with its entrants
+        assertFalse(Tasks.await(organizedEvent.get()).exists());
+        assertFalse(Tasks.await(organizedEvent.collection("waitlist").document(otherUid).get()).exists());
+
+        // Counters of the events the user was in went down by one
+        DocumentSnapshot waitlist = Tasks.await(waitlistEvent.get());
+        DocumentSnapshot enrolled = Tasks.await(enrolledEvent.get());
+        assertEquals(1, EventCounters.get(waitlist, EventCounters.WAITLIST));
+        assertEquals(0, EventCounters.get(enrolled, EventCounters.ENROLLED));
+
+        // Other entrants are untouched
+        assertTrue(Tasks.await(waitlistEvent.collection("waitlist").document(otherUid).get()).exists());
+    }
+}
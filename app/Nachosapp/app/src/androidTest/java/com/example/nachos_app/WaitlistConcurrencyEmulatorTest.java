@@ -0,0 +1,194 @@
+package com.example.nachos_app;
+
+import android.util.Log;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.filters.LargeTest;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests WaitlistService under contention against the Firestore emulator.
+ *
+ * Start the emulator with `firebase emulators:start` from app/Nachosapp.
+ * The test is skipped if the emulator can't be reached.
+ *
+ * This test:
+ *  1. Fires hundreds of joins at once at an event with a small capacity
+ *  2. Checks the waitlist never overfills and its counter matches the list
+ *  3. Mixes joins and leaves and checks the counter still matches the list
+ *  4. Fires a thousand joins at an uncapped event, logs how long they took
+ *     (`adb logcat -s WaitlistLoad`), and checks they spread over the shards and
+ *     roll up into the event's cached count, whether or not a join's own roll-up ran first
+ */
+@RunWith(AndroidJUnit4.class)
+@LargeTest
+public class WaitlistConcurrencyEmulatorTest {
+
+    private static final int JOINS = 300;
+    private static final long CAPACITY = 50;
+    private static final int LOAD_JOINS = 1000;
+
+    @Rule
+    public final FirestoreEmulatorRule emulator = new FirestoreEmulatorRule("waitlist-concurrency-test");
+
+    private FirebaseFirestore db;
+
+    private String eventId;
+    private DocumentReference eventRef;
+    private WaitlistService service;
+
+    @Before
+    public void setUp() throws Exception {
+        db = emulator.db();
+
+        eventId = "contended-" + System.currentTimeMillis();
+        eventRef = db.collection("events").document(eventId);
+        service = new WaitlistService(db);
+    }
+
+    // An event whose registration is open, with the given capacity (null for unlimited)
+    private void seedEvent(Long capacity) throws Exception {
+        long now = System.currentTimeMillis();
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventName", "Contended " + eventId);
+        event.put("registrationStartDate", new Date(now - 60_000));
+        event.put("registrationEndDate", new Date(now + 3_600_000));
+        event.put("maxParticipants", capacity);
+        event.put(EventCounters.WAITLIST, 0L);
+        Tasks.await(eventRef.set(event));
+    }
+
+    private int waitlistSize() throws Exception {
+        return Tasks.await(eventRef.collection("waitlist").get()).size();
+    }
+
+    // The event's cached count plus its shards
+    // Reads the event and its shards in one transaction, so a roll-up started by a join
+    // can't land between the two reads
+    private long waitlistTotal() throws Exception {
+        ShardedCounter shards = EventCounters.waitlistShards(eventRef);
+        return Tasks.await(db.runTransaction(transaction -> {
+            long total = EventCounters.waitlistBase(transaction.get(eventRef));
+            for (int i = 0; i < shards.size(); i++) {
+                total += ShardedCounter.count(transaction.get(shards.shard(i)));
+            }
+            return total;
+        }));
+    }
+
+    private int count(List<Task<WaitlistService.Result>> tasks, WaitlistService.Result result) {
+        int n = 0;
+        for (Task<WaitlistService.Result> task : tasks) {
+            if (task.isSuccessful() && task.getResult() == result) n++;
+        }
+        return n;
+    }
+
+    @Test
+    public void concurrentJoins_neverExceedCapacity() throws Exception {
+        seedEvent(CAPACITY);
+
+        List<Task<WaitlistService.Result>> joins = new ArrayList<>();
+        for (int i = 0; i < JOINS; i++) {
+            joins.add(service.join(eventId, eventId + "-user" + i, null, null));
+        }
+        Tasks.await(Tasks.whenAllComplete(joins), 120, TimeUnit.SECONDS);
+
+        int joined = count(joins, WaitlistService.Result.JOINED);
+        int full = count(joins, WaitlistService.Result.WAITLIST_FULL);
+
+        assertTrue("Waitlist overfilled: " + joined, joined <= CAPACITY);
+        // Anyone turned away saw a full list, so the list must have filled
+        if (full > 0) {
+            assertEquals(CAPACITY, joined);
+        }
+        assertEquals(joined, waitlistSize());
+        assertEquals(joined, waitlistTotal());
+        assertEquals(joined, Tasks.await(db.collectionGroup("participations")
+                .whereEqualTo("eventId", eventId).get()).size());
+    }
+
+    @Test
+    public void concurrentJoinsAndLeaves_keepCounterExact() throws Exception {
+        seedEvent(null);
+
+        // Half the users join first, then leave while the other half join
+        List<Task<WaitlistService.Result>> first = new ArrayList<>();
+        for (int i = 0; i < JOINS / 2; i++) {
+            first.add(service.join(eventId, eventId + "-user" + i, null, null));
+        }
+        Tasks.await(Tasks.whenAllComplete(first), 120, TimeUnit.SECONDS);
+
+        List<Task<WaitlistService.Result>> mixed = new ArrayList<>();
+        for (int i = 0; i < JOINS / 2; i++) {
+            mixed.add(service.leave(eventId, eventId + "-user" + i));
+            mixed.add(service.join(eventId, eventId + "-user" + (JOINS / 2 + i), null, null));
+            // A repeated join by the same user must not be counted twice
+            mixed.add(service.join(eventId, eventId + "-user" + (JOINS / 2 + i), null, null));
+        }
+        Tasks.await(Tasks.whenAllComplete(mixed), 120, TimeUnit.SECONDS);
+
+        int size = waitlistSize();
+        assertEquals(size, waitlistTotal());
+        int expected = count(first, WaitlistService.Result.JOINED)
+                - count(mixed, WaitlistService.Result.LEFT)
+                + count(mixed, WaitlistService.Result.JOINED);
+        assertEquals(expected, size);
+    }
+
+    @Test
+    public void shardedJoinsUnderLoad_countExactlyAndRollUp() throws Exception {
+        seedEvent(null);
+
+        long start = System.currentTimeMillis();
+        List<Task<WaitlistService.Result>> joins = new ArrayList<>();
+        for (int i = 0; i < LOAD_JOINS; i++) {
+            joins.add(service.join(eventId, eventId + "-user" + i, null, null));
+        }
+        Tasks.await(Tasks.whenAllComplete(joins), 300, TimeUnit.SECONDS);
+        Log.i("WaitlistLoad", LOAD_JOINS + " joins in " + (System.currentTimeMillis() - start) + " ms");
+
+        // Without a cap every join succeeds; the joins' own roll-ups keep the total
+        assertEquals(LOAD_JOINS, count(joins, WaitlistService.Result.JOINED));
+        assertEquals(LOAD_JOINS, waitlistTotal());
+
+        // Spread over more than one shard. Read from the entries, since a roll-up may
+        // already have set the shards back to zero
+        Set<Long> usedShards = new HashSet<>();
+        for (DocumentSnapshot entry : Tasks.await(eventRef.collection("waitlist").get())) {
+            usedShards.add(entry.getLong(WaitlistService.SHARD));
+        }
+        assertTrue(usedShards.size() > 1);
+
+        // Folding the shards into the cached count keeps the total and updates the summary
+        ShardedCounter shards = EventCounters.waitlistShards(eventRef);
+        Tasks.await(EventCounters.rollUpWaitlist(eventRef));
+        assertEquals(LOAD_JOINS, EventCounters.waitlistBase(Tasks.await(eventRef.get())));
+        assertEquals(0, Tasks.await(shards.sum()).longValue());
+        assertEquals(LOAD_JOINS, waitlistTotal());
+        assertEquals(Long.valueOf(LOAD_JOINS), Tasks.await(EventSummaries.ref(eventRef).get())
+                .getLong(EventCounters.WAITLIST));
+    }
+}
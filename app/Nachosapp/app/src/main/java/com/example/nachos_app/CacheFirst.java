@@ -0,0 +1,86 @@
+package com.example.nachos_app;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+/**
+ * Cache-first reads: answers from Firestore's local cache straight away, then again
+ * once the server has answered (or from the cache again when offline, as a normal get() would).
+ * Screens can show cached data without waiting for a network round trip and refresh
+ * it when the server result arrives. A cached result that turns up after the server's
+ * is dropped, and empty cache results are skipped.
+ */
+public class CacheFirst {
+
+    /**
+     * Receives the cached result and then the server result.
+     * @param <T> QuerySnapshot or DocumentSnapshot
+     */
+    public interface Callback<T> {
+        /**
+         * @param result The snapshot
+         * @param fromCache true for the early cached result, false for the final one
+         */
+        void onResult(T result, boolean fromCache);
+
+        /**
+         * Called if the final read fails and there was nothing in the cache to show.
+         * @param e The failure
+         */
+        default void onError(Exception e) {
+        }
+    }
+
+    private CacheFirst() {
+    }
+
+    /**
+     * Reads a query from the cache, then from the server.
+     * @param query Query to read
+     * @param callback Receives the results
+     */
+    public static void get(Query query, Callback<QuerySnapshot> callback) {
+        boolean[] state = new boolean[2]; // {cache delivered, final delivered}
+
+        query.get(Source.CACHE).addOnSuccessListener(snapshot -> {
+            if (state[1] || snapshot.isEmpty()) return;
+            state[0] = true;
+            callback.onResult(snapshot, true);
+        });
+        query.get(Source.DEFAULT)
+                .addOnSuccessListener(snapshot -> {
+                    state[1] = true;
+                    callback.onResult(snapshot, false);
+                })
+                .addOnFailureListener(e -> {
+                    if (!state[0]) callback.onError(e);
+                });
+    }
+
+    /**
+     * Reads a document from the cache, then from the server.
+     * @param ref Document to read
+     * @param callback Receives the results
+     */
+    public static void get(DocumentReference ref, Callback<DocumentSnapshot> callback) {
+        boolean[] state = new boolean[2]; // {cache delivered, final delivered}
+
+        // A document that isn't cached fails the cache read, which is fine to ignore
+        ref.get(Source.CACHE).addOnSuccessListener(snapshot -> {
+            if (state[1] || !snapshot.exists()) return;
+            state[0] = true;
+            callback.onResult(snapshot, true);
+        });
+        ref.get(Source.DEFAULT)
+                .addOnSuccessListener(snapshot -> {
+                    state[1] = true;
+                    callback.onResult(snapshot, false);
+                })
+                .addOnFailureListener(e -> {
+                    if (!state[0]) callback.onError(e);
+                });
+    }
+}
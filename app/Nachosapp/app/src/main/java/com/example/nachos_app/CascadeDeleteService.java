@@ -0,0 +1,266 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Deletes an event together with everything that belongs to it:
+ * its waitlist, selected, enrolled, cancelled and draws subcollections, each entrant's
+ * participation index entry, and every notification sent about it.
+ * Documents are deleted a page at a time in WriteBatches, and notifications are found
+ * with a single collection group query on eventId instead of one query per user.
+ * Progress is saved in deleteJobs/{eventId} in the same batch as each page, so a
+ * removal that was interrupted can be resumed where it stopped.
+ * The event document is deleted last, together with its summary, its waitlist
+ * shards and its job.
+ * The stored banner is left for ImageSweep, since other events may share it.
+ */
+public class CascadeDeleteService {
+
+    /** Writes per batch, kept under Firestore's limit of 500 */
+    static final int BATCH_SIZE = 450;
+
+    /** Steps of a removal, in order. Each one deletes every document it finds before moving on. */
+    static final List<String> PHASES = Collections.unmodifiableList(Arrays.asList(
+            "waitlist", "selected", "enrolled", "cancelled", "draws", "notifications", "event"));
+
+    // Lists whose documents are keyed by uid and have a participation index entry
+    private static final List<String> ENTRANT_LISTS = Arrays.asList("waitlist", "selected", "enrolled", "cancelled");
+
+    /**
+     * Reads and writes done by the service. Lets tests swap in a fake.
+     */
+    interface Store {
+        /**
+         * @param eventId Event ID
+         * @return Task with the saved job for the event, or null if none is running
+         */
+        Task<Map<String, Object>> readJob(String eventId);
+
+        /**
+         * Finds up to limit documents left to delete in a phase.
+         * @param eventId Event ID
+         * @param phase One of PHASES other than "event"
+         * @param limit Maximum number of documents to return
+         * @return Task with the document paths
+         */
+        Task<List<String>> listPage(String eventId, String phase, int limit);
+
+        /**
+         * Deletes documents and saves the job in one batch.
+         * @param eventId Event ID
+         * @param deletePaths Paths of the documents to delete
+         * @param job Job fields to save, or null to delete the job
+         * @return Task that completes once the batch is committed
+         */
+        Task<Void> commit(String eventId, List<String> deletePaths, @Nullable Map<String, Object> job);
+
+        /**
+         * @return Task with the IDs of events whose removal has not finished
+         */
+        Task<List<String>> pendingJobs();
+    }
+
+    /**
+     * Receives progress while an event is being removed.
+     */
+    public interface ProgressListener {
+        /**
+         * @param phase The phase that just deleted a page
+         * @param deleted Documents deleted so far, not counting participation index entries
+         */
+        void onProgress(String phase, long deleted);
+    }
+
+    private final Store store;
+
+    /**
+     * @param db The connection to the firebase database
+     */
+    public CascadeDeleteService(FirebaseFirestore db) {
+        this(new FirestoreStore(db));
+    }
+
+    CascadeDeleteService(Store store) {
+        this.store = store;
+    }
+
+    /**
+     * Removes an event and everything that belongs to it, resuming an earlier
+     * removal of the same event if one was interrupted.
+     * @param eventId Event ID
+     * @param progress Optional listener for progress updates
+     * @return Task with the number of documents deleted, not counting participation index entries
+     */
+    public Task<Long> deleteEvent(String eventId, @Nullable ProgressListener progress) {
+        return store.readJob(eventId).continueWithTask(task -> {
+            Map<String, Object> job = task.getResult();
+            if (job != null) {
+                int phase = Math.max(0, PHASES.indexOf(String.valueOf(job.get("phase"))));
+                Object deleted = job.get("deleted");
+                return runPhase(eventId, phase, deleted instanceof Number ? ((Number) deleted).longValue() : 0,
+                        progress);
+            }
+
+            // Record the job before deleting anything so resumePending() can find it
+            return store.commit(eventId, Collections.emptyList(), job(eventId, PHASES.get(0), 0))
+                    .continueWithTask(t -> {
+                        t.getResult();
+                        return runPhase(eventId, 0, 0, progress);
+                    });
+        });
+    }
+
+    /**
+     * Finishes every removal that was interrupted, one event after another.
+     * @return Task with the number of events that were resumed
+     */
+    public Task<Integer> resumePending() {
+        return store.pendingJobs().continueWithTask(task -> {
+            List<String> eventIds = task.getResult();
+            Task<Long> chain = Tasks.forResult(0L);
+            for (String eventId : eventIds) {
+                chain = chain.continueWithTask(t -> {
+                    t.getResult();
+                    return deleteEvent(eventId, null);
+                });
+            }
+            return chain.continueWith(t -> {
+                t.getResult();
+                return eventIds.size();
+            });
+        });
+    }
+
+    // Delete one page of a phase, then continue with the next page or phase
+    private Task<Long> runPhase(String eventId, int phase, long deleted, @Nullable ProgressListener progress) {
+        String name = PHASES.get(phase);
+
+        if ("event".equals(name)) {
+            // Event document, its summary, its waitlist shards and its job go in the last batch
+            List<String> deletes = new ArrayList<>(Arrays.asList("events/" + eventId, EventSummaries.path(eventId)));
+            deletes.addAll(EventCounters.waitlistShardPaths(eventId));
+            return store.commit(eventId, deletes, null)
+                    .continueWith(task -> {
+                        task.getResult();
+                        long total = deleted + 1;
+                        if (progress != null) progress.onProgress(name, total);
+                        return total;
+                    });
+        }
+
+        // Entrants take two deletes each: their list document and their index entry
+        boolean entrants = ENTRANT_LISTS.contains(name);
+        int limit = entrants ? BATCH_SIZE / 2 : BATCH_SIZE;
+
+        return store.listPage(eventId, name, limit).continueWithTask(task -> {
+            List<String> paths = task.getResult();
+            if (paths.isEmpty()) {
+                return runPhase(eventId, phase + 1, deleted, progress);
+            }
+
+            List<String> deletes = new ArrayList<>(paths);
+            if (entrants) {
+                for (String path : paths) {
+                    String uid = path.substring(path.lastIndexOf('/') + 1);
+                    deletes.add(ParticipationIndex.path(uid, eventId));
+                }
+            }
+
+            long total = deleted + paths.size();
+            return store.commit(eventId, deletes, job(eventId, name, total)).continueWithTask(t -> {
+                t.getResult();
+                if (progress != null) progress.onProgress(name, total);
+                return runPhase(eventId, phase, total, progress);
+            });
+        });
+    }
+
+    private static Map<String, Object> job(String eventId, String phase, long deleted) {
+        Map<String, Object> job = new HashMap<>();
+        job.put("eventId", eventId);
+        job.put("phase", phase);
+        job.put("deleted", deleted);
+        job.put("updatedAt", FieldValue.serverTimestamp());
+        return job;
+    }
+
+    /**
+     * Store backed by Firestore.
+     */
+    private static class FirestoreStore implements Store {
+        private final FirebaseFirestore db;
+
+        FirestoreStore(FirebaseFirestore db) {
+            this.db = db;
+        }
+
+        @Override
+        public Task<Map<String, Object>> readJob(String eventId) {
+            return db.collection("deleteJobs").document(eventId).get()
+                    .continueWith(task -> {
+                        DocumentSnapshot snapshot = task.getResult();
+                        return snapshot.exists() ? snapshot.getData() : null;
+                    });
+        }
+
+        @Override
+        public Task<List<String>> listPage(String eventId, String phase, int limit) {
+            Query query;
+            if ("notifications".equals(phase)) {
+                // Notifications live under each user; find them all with one query
+                query = db.collectionGroup("notifications").whereEqualTo("eventId", eventId);
+            } else {
+                query = db.collection("events").document(eventId).collection(phase);
+            }
+
+            return query.limit(limit).get().continueWith(task -> {
+                List<String> paths = new ArrayList<>();
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    paths.add(doc.getReference().getPath());
+                }
+                return paths;
+            });
+        }
+
+        @Override
+        public Task<Void> commit(String eventId, List<String> deletePaths, @Nullable Map<String, Object> job) {
+            WriteBatch batch = db.batch();
+            for (String path : deletePaths) {
+                batch.delete(db.document(path));
+            }
+            if (job != null) {
+                batch.set(db.collection("deleteJobs").document(eventId), job, SetOptions.merge());
+            } else {
+                batch.delete(db.collection("deleteJobs").document(eventId));
+            }
+            return batch.commit();
+        }
+
+        @Override
+        public Task<List<String>> pendingJobs() {
+            return db.collection("deleteJobs").get().continueWith(task -> {
+                List<String> eventIds = new ArrayList<>();
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    eventIds.add(doc.getId());
+                }
+                return eventIds;
+            });
+        }
+    }
+}
@@ -4,11 +4,8 @@ import android.Manifest;
 import android.app.DatePickerDialog;
 import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.graphics.Bitmap;
-import android.graphics.Color;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
@@ -26,15 +23,13 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
 
+import com.google.android.gms.tasks.CancellationTokenSource;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.WriterException;
-import com.google.zxing.common.BitMatrix;
-import com.google.zxing.qrcode.QRCodeWriter;
+import com.google.firebase.firestore.WriteBatch;
 
-import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CancellationException;
 import java.util.Date;
 import java.util.Locale;
 import java.util.Calendar;
@@ -72,6 +67,8 @@ public class CreateEventActivity extends AppCompatActivity {
     private FirebaseAuth mAuth;
 
     private Uri selectedBannerUri;
+    // Cancels the banner being processed if the screen is closed first
+    private CancellationTokenSource bannerIngest;
     private Date registrationStartDate;
     private Date registrationEndDate;
     private boolean geoLocationEnabled = false;
@@ -320,10 +317,9 @@ public class CreateEventActivity extends AppCompatActivity {
     }
 
     /**
-     * Processes the selected banner image by resizing and compressing it.
-     * Limits image size to prevent Firestore document size issues (1MB limit).
-     * Max width: 800px, max height: 600px, JPEG quality: 70%, Max size: 500KB
-     * Converts the image to base64 string format for storage in Firestore.
+     * Processes the selected banner image through ImageIngestPipeline, which scales it to
+     * at most 800x600 and encodes it as WebP under the ImageStore's size limit.
+     * Stores the compressed image in the ImageStore and saves its key on the event.
      * @param eventId ID of the event being created
      * @param eventName name of the event
      * @param description event description
@@ -334,70 +330,38 @@ public class CreateEventActivity extends AppCompatActivity {
      */
     private void processBanner(String eventId, String eventName, String description, Integer maxParticipants,
                                String organizerId, String organizerName, String eventLocation) {
-        // Process image on background thread
-        new Thread(() -> {
-            try {
-                Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), selectedBannerUri);
-
-                // Calculate new dimensions maintaining aspect ratio
-                int maxWidth = 800;
-                int maxHeight = 600;
-
-                float ratio = Math.min(
-                        (float) maxWidth / bitmap.getWidth(),
-                        (float) maxHeight / bitmap.getHeight()
-                );
-
-                int newWidth = Math.round(bitmap.getWidth() * ratio);
-                int newHeight = Math.round(bitmap.getHeight() * ratio);
-
-                Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-
-                // Convert to base64
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                resizedBitmap.compress(Bitmap.CompressFormat.JPEG, 70, baos);
-                byte[] data = baos.toByteArray();
-
-                // Check size (Firestore has 1MB limit per document)
-                if (data.length > 500000) {
-                    runOnUiThread(() -> {
-                        Toast.makeText(this, "Image too large, please select a smaller image", Toast.LENGTH_LONG).show();
-                        resetCreateButton();
-                    });
-                    return;
-                }
-
-                String base64Banner = android.util.Base64.encodeToString(data, android.util.Base64.DEFAULT);
-
-                // Save on main thread
-                runOnUiThread(() -> saveEventToFirestore(eventId, eventName, description, maxParticipants,
-                        organizerId, organizerName, base64Banner, eventLocation));
-
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Error processing banner", Toast.LENGTH_SHORT).show();
+        // Decode, scale and encode the banner on the shared ingest pipeline
+        bannerIngest = new CancellationTokenSource();
+        ImageIngestPipeline.getInstance()
+                .ingest(getContentResolver(), selectedBannerUri, bannerIngest.getToken())
+                .onSuccessTask(data -> FirestoreImageStore.getInstance().put(data))
+                .addOnSuccessListener(this, bannerRef -> saveEventToFirestore(eventId, eventName,
+                        description, maxParticipants, organizerId, organizerName, bannerRef, eventLocation))
+                .addOnFailureListener(this, e -> {
+                    if (e instanceof CancellationException) return;
+                    Toast.makeText(this, (e instanceof ImageIngestPipeline.TooLargeException)
+                            ? "Image too large, please select a smaller image"
+                            : "Error processing banner", Toast.LENGTH_LONG).show();
                     resetCreateButton();
                 });
-            }
-        }).start();
     }
 
     /**
-     * Saves the event data to Firestore.
-     * After successful save, initiates QR code generation.
+     * Saves the event data, along with its list summary, to Firestore.
+     * After successful save, closes the screen.
      * @param eventId ID for the event
      * @param eventName name of the event
      * @param description event description
      * @param maxParticipants Maximum participants allowed (null for unlimited)
      * @param organizerId organizer's user ID
      * @param organizerName organizer's name
-     * @param bannerBase64 Base64 encoded banner image (null if no banner)
+     * @param bannerRef ImageStore key of the banner image (null if no banner)
      * @param eventLocation optional event's location
      */
     private void saveEventToFirestore(String eventId, String eventName, String description,
                                       Integer maxParticipants, String organizerId,
-                                      String organizerName, String bannerBase64, String eventLocation) {
-        // Generate QR code data
+                                      String organizerName, String bannerRef, String eventLocation) {
+        // QR code data; the QR code itself is drawn from it when shown (see QrCodeService)
         String qrCodeData = "event://" + eventId;
 
         // Generate dateRange string for display
@@ -405,19 +369,19 @@ public class CreateEventActivity extends AppCompatActivity {
 
         Event event = new Event(organizerId, organizerName, eventName, description, dateRange,
                 registrationStartDate, registrationEndDate, eventDate, maxParticipants,
-                bannerBase64, null, qrCodeData, new Date(), eventLocation, geoLocationEnabled, eventLatitude, eventLongitude);
-
-        db.collection("events").document(eventId)
-                .set(event).addOnSuccessListener(aVoid -> {
-                    Toast.makeText(this, "Event created successfully!", Toast.LENGTH_SHORT).show();
-                    finish(); // Exit immediately
-
-                    // Generate QR code in background
-                    generateAndSaveQRCode(eventId, qrCodeData);
-                }).addOnFailureListener(e -> {
-                    Toast.makeText(this, "Error creating event", Toast.LENGTH_SHORT).show();
-                    resetCreateButton();
-                });
+                null, null, qrCodeData, new Date(), eventLocation, geoLocationEnabled, eventLatitude, eventLongitude);
+        event.setBannerRef(bannerRef);
+
+        // The event and its list summary are created together
+        WriteBatch batch = db.batch();
+        EventSummaries.create(batch, db.collection("events").document(eventId), event);
+        batch.commit().addOnSuccessListener(aVoid -> {
+            Toast.makeText(this, "Event created successfully!", Toast.LENGTH_SHORT).show();
+            finish(); // Exit immediately
+        }).addOnFailureListener(e -> {
+            Toast.makeText(this, "Error creating event", Toast.LENGTH_SHORT).show();
+            resetCreateButton();
+        });
     }
 
     /**
@@ -455,56 +419,6 @@ public class CreateEventActivity extends AppCompatActivity {
         return monthDay.format(startDate) + " - " + monthDay.format(endDate);
     }
 
-    /**
-     * Generates a QR code bitmap and saves it as base64 to Firestore.
-     * The QR code encodes the event URL in format: "event://[eventId]"
-     * Uses 512x512 pixel resolution.
-     * @param eventId event ID to update
-     * @param qrCodeData The data to encode in the QR code
-     */
-    private void generateAndSaveQRCode(String eventId, String qrCodeData) {
-        new Thread(() -> {
-            try {
-                // Generate QR code bitmap
-                Bitmap qrCodeBitmap = generateQRCodeBitmap(qrCodeData, 512, 512);
-
-                // Convert bitmap to base64 string
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                qrCodeBitmap.compress(Bitmap.CompressFormat.PNG, 100, baos);
-                byte[] data = baos.toByteArray();
-                String base64QrCode = android.util.Base64.encodeToString(data, android.util.Base64.DEFAULT);
-
-                // Update Firestore with QR code
-                db.collection("events").document(eventId).update("qrCodeUrl", base64QrCode);
-            } catch (Exception e) {
-                // Log error
-                android.util.Log.e("CreateEventActivity", "Failed to generate QR code for event " + eventId, e);
-            }
-        }).start();
-    }
-
-    /**
-     * Generates a QR code bitmap from the given content string.
-     * Uses ZXing library to encode the content into QR_CODE format.
-     * @param content data to encode in the QR code
-     * @param width width of the QR code in pixels
-     * @param height height of the QR code in pixels
-     * @return Bitmap representation of the QR code
-     * @throws WriterException if QR code generation fails
-     */
-    private Bitmap generateQRCodeBitmap(String content, int width, int height) throws WriterException {
-        QRCodeWriter qrCodeWriter = new QRCodeWriter();
-        BitMatrix bitMatrix = qrCodeWriter.encode(content, BarcodeFormat.QR_CODE, width, height);
-
-        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.RGB_565);
-        for (int x = 0; x < width; x++) {
-            for (int y = 0; y < height; y++) {
-                bitmap.setPixel(x, y, bitMatrix.get(x, y) ? Color.BLACK : Color.WHITE);
-            }
-        }
-        return bitmap;
-    }
-
     /**
      * Resets the create button to its default state (enabled with original text).
      * Called after errors or completion of event creation.
@@ -514,6 +428,14 @@ public class CreateEventActivity extends AppCompatActivity {
         createEventButton.setText("Create Event");
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (bannerIngest != null) {
+            bannerIngest.cancel();
+        }
+    }
+
     @Override
     public boolean onOptionsItemSelected(@NonNull MenuItem item) {
         if (item.getItemId() == android.R.id.home) {
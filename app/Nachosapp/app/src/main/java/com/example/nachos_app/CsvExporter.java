@@ -0,0 +1,269 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes one of an event's entrant lists to a CSV file as "name,uid,timestamp" rows.
+ * The list is read PAGE_SIZE entrants at a time in uid order, each page's names are
+ * resolved together through UserDirectory, and the page is written and flushed
+ * before the next one is read. Only one page is held in memory however long the
+ * list is, and the returned Task completes once every row has been written.
+ * Timestamps are written in ISO 8601 UTC so the same list always exports the same file.
+ */
+public class CsvExporter {
+
+    /** Entrants read, resolved and written per step */
+    static final int PAGE_SIZE = 500;
+    static final String HEADER = "name,uid,timestamp";
+
+    /**
+     * One entrant in the list.
+     */
+    static class Entry {
+        final String uid;
+        final Date timestamp;
+
+        Entry(String uid, @Nullable Date timestamp) {
+            this.uid = uid;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Reads done by the exporter. Lets tests swap in a fake.
+     */
+    interface Source {
+        /**
+         * Reads the next page of the list in uid order.
+         * @param afterUid Last uid of the previous page, or null for the first page
+         * @param limit Maximum number of entrants to return
+         * @return Task with the page; fewer than limit entrants means it is the last
+         */
+        Task<List<Entry>> page(@Nullable String afterUid, int limit);
+
+        /**
+         * @param uids The page's user IDs
+         * @return Task with a map from uid to name; users without a name can be left out
+         */
+        Task<Map<String, String>> names(List<String> uids);
+    }
+
+    /**
+     * Receives progress while an export runs.
+     */
+    public interface ProgressListener {
+        /**
+         * @param rows Number of rows written so far
+         */
+        void onProgress(long rows);
+    }
+
+    // Shared by every export, since each runs one write at a time; its thread exits when idle
+    private static ThreadPoolExecutor sharedWriteExecutor;
+
+    private final Source source;
+    private final Executor writeExecutor;
+
+    /**
+     * Creates an exporter for one of an event's lists, reading from Firestore.
+     * @param db The connection to the firebase database
+     * @param eventId Event ID
+     * @param listType One of "waitlist", "selected", "enrolled", "cancelled"
+     */
+    public CsvExporter(FirebaseFirestore db, String eventId, String listType) {
+        this(new FirestoreSource(db, eventId, listType), sharedWriteExecutor());
+    }
+
+    /**
+     * @return The write executor shared by exports, created on first use
+     */
+    private static synchronized Executor sharedWriteExecutor() {
+        if (sharedWriteExecutor == null) {
+            sharedWriteExecutor = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+            sharedWriteExecutor.allowCoreThreadTimeOut(true);
+        }
+        return sharedWriteExecutor;
+    }
+
+    /**
+     * @param source Source of the list and names
+     * @param writeExecutor Executor the writes run on, so they stay off the main thread
+     */
+    CsvExporter(Source source, Executor writeExecutor) {
+        this.source = source;
+        this.writeExecutor = writeExecutor;
+    }
+
+    /**
+     * Writes the whole list to a stream, then closes it.
+     * @param out Stream to write to, e.g. from ContentResolver.openOutputStream()
+     * @param progress Optional progress callback, called on the main thread after each page
+     * @return Task with the number of rows written. If a read or write fails, the stream
+     *         is closed and the task fails; the rows written so far stay in the file.
+     */
+    public Task<Long> export(OutputStream out, @Nullable ProgressListener progress) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+        return Tasks.call(writeExecutor, () -> {
+                    writer.write(HEADER);
+                    writer.write('\n');
+                    return 0L;
+                })
+                .continueWithTask(t -> exportFrom(null, t.getResult(), writer, format, progress))
+                .continueWithTask(t -> Tasks.call(writeExecutor, () -> {
+                    // Close on success and failure alike, then report the outcome
+                    try {
+                        writer.close();
+                    } catch (IOException e) {
+                        if (t.isSuccessful()) throw e;
+                    }
+                    if (!t.isSuccessful()) throw t.getException();
+                    return t.getResult();
+                }));
+    }
+
+    // Read, resolve and write one page, then continue after its last uid
+    private Task<Long> exportFrom(@Nullable String afterUid, long written, Writer writer,
+                                  SimpleDateFormat format, @Nullable ProgressListener progress) {
+        return source.page(afterUid, PAGE_SIZE).continueWithTask(pageTask -> {
+            List<Entry> page = pageTask.getResult();
+            if (page.isEmpty()) {
+                return Tasks.forResult(written);
+            }
+
+            List<String> uids = new ArrayList<>(page.size());
+            for (Entry entry : page) {
+                uids.add(entry.uid);
+            }
+
+            return source.names(uids)
+                    .continueWithTask(namesTask -> {
+                        Map<String, String> names = namesTask.getResult();
+                        return Tasks.call(writeExecutor, () -> {
+                            for (Entry entry : page) {
+                                writer.write(row(names.get(entry.uid), entry.uid,
+                                        (entry.timestamp != null) ? format.format(entry.timestamp) : ""));
+                            }
+                            writer.flush();
+                            return written + page.size();
+                        });
+                    })
+                    .continueWithTask(writeTask -> {
+                        long total = writeTask.getResult();
+                        if (progress != null) progress.onProgress(total);
+                        if (page.size() < PAGE_SIZE) {
+                            return Tasks.forResult(total);
+                        }
+                        return exportFrom(page.get(page.size() - 1).uid, total, writer, format, progress);
+                    });
+        });
+    }
+
+    /**
+     * @param name Entrant's name, or null
+     * @param uid Entrant's user ID
+     * @param timestamp Formatted timestamp, or empty
+     * @return One CSV line, with fields quoted where needed
+     */
+    static String row(@Nullable String name, String uid, String timestamp) {
+        return escape(name) + "," + escape(uid) + "," + escape(timestamp) + "\n";
+    }
+
+    /**
+     * Quotes a CSV field if it contains a comma, quote or line break.
+     * @param value Field value, or null for an empty field
+     * @return The field as written to the file
+     */
+    static String escape(@Nullable String value) {
+        if (value == null) return "";
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0
+                && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    /**
+     * @param listType One of "waitlist", "selected", "enrolled", "cancelled"
+     * @return The field holding when an entrant was added to the list
+     */
+    static String timestampField(String listType) {
+        switch (listType) {
+            case "selected":
+                return "selectedAt";
+            case "enrolled":
+                return "enrolledAt";
+            case "cancelled":
+                return "cancelledAt";
+            default:
+                return "joinedAt";
+        }
+    }
+
+    /**
+     * Source backed by Firestore: uid-ordered pages of the list, and names from UserDirectory.
+     */
+    static class FirestoreSource implements Source {
+        private final Query list;
+        private final String timestampField;
+
+        FirestoreSource(FirebaseFirestore db, String eventId, String listType) {
+            this.list = db.collection("events").document(eventId).collection(listType)
+                    .orderBy(FieldPath.documentId());
+            this.timestampField = timestampField(listType);
+        }
+
+        @Override
+        public Task<List<Entry>> page(@Nullable String afterUid, int limit) {
+            Query query = (afterUid == null) ? list : list.startAfter(afterUid);
+            return query.limit(limit).get().continueWith(task -> {
+                List<Entry> entries = new ArrayList<>();
+                for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                    Timestamp timestamp = doc.getTimestamp(timestampField);
+                    entries.add(new Entry(doc.getId(), (timestamp != null) ? timestamp.toDate() : null));
+                }
+                return entries;
+            });
+        }
+
+        @Override
+        public Task<Map<String, String>> names(List<String> uids) {
+            return UserDirectory.getInstance().getAll(uids).continueWith(task -> {
+                Map<String, String> names = new HashMap<>();
+                for (Map.Entry<String, UserDirectory.Profile> e : task.getResult().entrySet()) {
+                    names.put(e.getKey(), e.getValue().displayName(""));
+                }
+                return names;
+            });
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.Collections;
+
+/**
+ * Runs the one-off data migrations, in order, once per database.
+ * The version reached is stored at meta/migrations, so AdminMenuActivity can start them
+ * each time it opens and they only run when the database is behind. Every migration is
+ * safe to rerun, so a run that fails part way is simply started again next time.
+ * <ol>
+ *   <li>QrCodeMigration drops stored QR images (before ImageMigration, so they aren't moved first)</li>
+ *   <li>ImageMigration moves base64 banners into the ImageStore</li>
+ *   <li>EventSummaries.backfill writes the summaries Home, Dashboard and the admin lists read</li>
+ *   <li>ParticipationIndex.rebuildAll writes the participations the Dashboard reads</li>
+ *   <li>LocationMigration adds the geohashes WaitlistMapActivity queries by</li>
+ * </ol>
+ */
+public class DataMigrations {
+
+    /** Raise when a migration is added, so databases that ran the earlier ones run it too */
+    static final long CURRENT_VERSION = 5;
+
+    private DataMigrations() {
+    }
+
+    /**
+     * Result of a run: how many documents each migration updated.
+     */
+    public static class Result {
+        public final int qrCodes;
+        public final int banners;
+        public final int summaries;
+        public final int participations;
+        public final int locations;
+
+        Result(int qrCodes, int banners, int summaries, int participations, int locations) {
+            this.qrCodes = qrCodes;
+            this.banners = banners;
+            this.summaries = summaries;
+            this.participations = participations;
+            this.locations = locations;
+        }
+    }
+
+    /**
+     * Runs the migrations if the database hasn't had them yet.
+     * @param db The connection to the firebase database
+     * @return Task with the result, or null if the database is already up to date
+     */
+    public static Task<Result> runIfNeeded(FirebaseFirestore db) {
+        DocumentReference marker = db.collection("meta").document("migrations");
+        return marker.get().continueWithTask(t -> {
+            Long version = t.getResult().getLong("version");
+            if (version != null && version >= CURRENT_VERSION) {
+                return Tasks.forResult(null);
+            }
+            return run(db).onSuccessTask(result -> marker
+                    .set(Collections.singletonMap("version", CURRENT_VERSION), SetOptions.merge())
+                    .continueWith(m -> {
+                        m.getResult();
+                        return result;
+                    }));
+        });
+    }
+
+    /**
+     * Runs every migration, one after another.
+     * @param db The connection to the firebase database
+     * @return Task with how many documents each migration updated
+     */
+    public static Task<Result> run(FirebaseFirestore db) {
+        ImageStore store = FirestoreImageStore.getInstance();
+        int[] counts = new int[4];
+        return QrCodeMigration.migrateEvents(db, store)
+                .onSuccessTask(n -> {
+                    counts[0] = n;
+                    return ImageMigration.migrateEvents(db, store);
+                })
+                .onSuccessTask(n -> {
+                    counts[1] = n;
+                    return EventSummaries.backfill(db);
+                })
+                .onSuccessTask(n -> {
+                    counts[2] = n;
+                    return ParticipationIndex.rebuildAll(db);
+                })
+                .onSuccessTask(n -> {
+                    counts[3] = n;
+                    return LocationMigration.migrateWaitlists(db);
+                })
+                .continueWith(t -> new Result(counts[0], counts[1], counts[2], counts[3], t.getResult()));
+    }
+}
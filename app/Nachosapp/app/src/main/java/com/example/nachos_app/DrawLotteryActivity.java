@@ -11,27 +11,26 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Activity that allows event organizers to perform the lottery draw.
- * Randomly selects a specified number of winners from the waitlist and
- * moves them to the "selected" collection. Sends notifications to all
+ * Randomly selects a specified number of winners from the waitlist using
+ * LotteryEngine and moves them to the "selected" collection. Sends notifications to all
  * entrants about their selection status using NotificationSender.
  * Validates draw parameters against waitlist size and max participants.
  */
 public class DrawLotteryActivity extends AppCompatActivity {
 
+    private static final int WAITLIST_PAGE_SIZE = 500;
+
     private TextView eventNameText;
     private TextView waitlistCountText;
     private TextView maxParticipantsText;
@@ -112,6 +111,7 @@ public class DrawLotteryActivity extends AppCompatActivity {
                     } else {
                         notifSender.setEventName(eventName);
                     }
+                    notifSender.setOrganizerName(event.getOrganizerName());
                     loadWaitlistCount();
                 })
                 .addOnFailureListener(e -> {
@@ -121,16 +121,18 @@ public class DrawLotteryActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads the current waitlist count from Firestore.
+     * Loads the current waitlist count from Firestore using a server-side count,
+     * so no waitlist documents are downloaded.
      * Updates the waitlist count display and sets the input hint for number of winners.
      */
     private void loadWaitlistCount() {
         db.collection("events")
                 .document(eventId)
                 .collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    waitlistCount = querySnapshot.size();
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(countSnapshot -> {
+                    waitlistCount = (int) countSnapshot.getCount();
                     waitlistCountText.setText("Current Waitlist: " + waitlistCount + " entrants");
 
                     // Suggest number of winners
@@ -192,92 +194,100 @@ public class DrawLotteryActivity extends AppCompatActivity {
 
     /**
      * Executes the actual lottery draw by:
-     * 1. Fetching all waitlist entries
-     * 2. Randomly shuffling the list
-     * 3. Selecting the specified number of winners
-     * 4. Moving winners to "selected" collection
-     * 5. Sending notifications to all entrants
+     * 1. Streaming the waitlist page by page in document ID order, keeping only
+     *    each entrant's uid and join time
+     * 2. Drawing the winners' positions with a freshly seeded LotteryEngine, unless an
+     *    earlier draw was interrupted, in which case its remaining winners are moved instead
+     * 3. Moving winners to "selected" collection and recording the draw seed
+     * 4. Sending notifications to all entrants
      * @param numWinners The number of winners to select
      */
     private void executeDraw(int numWinners) {
         drawButton.setEnabled(false);
         Toast.makeText(this, "Drawing lottery...", Toast.LENGTH_SHORT).show();
 
-        // Get all waitlist entries
-        db.collection("events")
-                .document(eventId)
-                .collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<DocumentSnapshot> waitlistDocs = new ArrayList<>();
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        waitlistDocs.add(doc);
+        List<String> entrantUids = new ArrayList<>();
+        List<Object> entrantJoinedAt = new ArrayList<>();
+
+        // Stream waitlist entries in a stable order so the draw can be replayed
+        PagedCollectionLoader.forQuery(db.collection("events")
+                        .document(eventId)
+                        .collection("waitlist")
+                        .orderBy(FieldPath.documentId()), WAITLIST_PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            entrantUids.add(doc.getId());
+                            entrantJoinedAt.add(doc.get("joinedAt"));
+                        }
+                        if (!lastPage) return;
+
+                        DrawWriter writer = new DrawWriter(db, eventId);
+                        writer.findUnfinished()
+                                .addOnSuccessListener(unfinished -> {
+                                    // Finish an interrupted draw rather than drawing different winners
+                                    if (unfinished != null) {
+                                        Toast.makeText(DrawLotteryActivity.this,
+                                                "Finishing an interrupted draw...", Toast.LENGTH_SHORT).show();
+                                        moveToSelected(writer.resume(unfinished), entrantUids);
+                                        return;
+                                    }
+
+                                    // Draw winners by position
+                                    LotteryEngine engine = LotteryEngine.withRandomSeed();
+                                    int[] winnerIndices = engine.drawIndices(entrantUids.size(), numWinners);
+                                    List<String> winnerUids = new ArrayList<>(winnerIndices.length);
+                                    List<Object> winnerJoinedAt = new ArrayList<>(winnerIndices.length);
+                                    for (int index : winnerIndices) {
+                                        winnerUids.add(entrantUids.get(index));
+                                        winnerJoinedAt.add(entrantJoinedAt.get(index));
+                                    }
+
+                                    // Move winners to selected collection, then notify everyone
+                                    moveToSelected(writer.start(DrawWriter.LOTTERY, engine.getSeed(),
+                                            entrantUids.size(), winnerUids, winnerJoinedAt), entrantUids);
+                                })
+                                .addOnFailureListener(this::onError);
                     }
 
-                    // Randomly shuffle and select winners
-                    Collections.shuffle(waitlistDocs);
-                    List<DocumentSnapshot> winners = waitlistDocs.subList(0,
-                            Math.min(numWinners, waitlistDocs.size()));
-
-                    // Move winners to selected collection
-                    moveToSelected(winners);
-                    notifSender.sendSelectionNotifications(winners, waitlistDocs);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to draw lottery: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                    drawButton.setEnabled(true);
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(DrawLotteryActivity.this,
+                                "Failed to draw lottery: " + e.getMessage(),
+                                Toast.LENGTH_SHORT).show();
+                        drawButton.setEnabled(true);
+                    }
                 });
     }
 
     /**
-     * Moves selected winners from waitlist to selected collection.
-     * Uses a batch write.
-     * Updates the waitlist count in the event document.
-     * @param winners List of selected winner documents
+     * Waits for the winners to be moved from the waitlist to the selected collection.
+     * DrawWriter records the draw seed under events/{eventId}/draws so the result can be
+     * audited later, then moves the winners batch by batch, updating their participation
+     * index and the list counters as it goes.
+     * Once every winner is moved, sends win/loss notifications to every entrant.
+     * @param move Task with the winners, from DrawWriter
+     * @param entrants UIDs of every entrant on the waitlist when the draw was made
      */
-    private void moveToSelected(List<DocumentSnapshot> winners) {
-        WriteBatch batch = db.batch();
-
-        for (DocumentSnapshot doc : winners) {
-            String uid = doc.getString("uid");
-
-            // Add to selected collection
-            Map<String, Object> selectedData = new HashMap<>();
-            selectedData.put("uid", uid);
-            selectedData.put("joinedAt", doc.get("joinedAt"));
-            selectedData.put("selectedAt", FieldValue.serverTimestamp());
-
-            batch.set(db.collection("events")
-                    .document(eventId)
-                    .collection("selected")
-                    .document(uid), selectedData);
-
-            // Remove from waitlist
-            batch.delete(db.collection("events")
-                    .document(eventId)
-                    .collection("waitlist")
-                    .document(uid));
-        }
-
-        // Commit batch
-        batch.commit()
-                .addOnSuccessListener(aVoid -> {
+    private void moveToSelected(Task<List<String>> move, List<String> entrants) {
+        move.addOnSuccessListener(this, winners -> {
                     Toast.makeText(this, "Successfully selected " + winners.size() + " winners!",
                             Toast.LENGTH_LONG).show();
 
-                    // Update waitlist count
-                    db.collection("events")
-                            .document(eventId)
-                            .update("currentWaitlistCount",
-                                    FieldValue.increment(-winners.size()));
+                    // Send notifications; this screen is closed by the time they finish
+                    notifSender.sendSelectionNotificationsByUid(winners, entrants)
+                            .addOnSuccessListener(result -> Toast.makeText(getApplicationContext(),
+                                    "Notified " + result.getSent() + " entrants, skipped "
+                                            + result.getSkipped() + ", failed " + result.getFailed(),
+                                    Toast.LENGTH_SHORT).show());
 
                     drawButton.setEnabled(true);
                     finish();
                 })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to complete draw: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
+                .addOnFailureListener(this, e -> {
+                    Toast.makeText(this, "Failed to complete draw: " + e.getMessage()
+                                    + ". Draw again to finish it.", Toast.LENGTH_SHORT).show();
                     drawButton.setEnabled(true);
                 });
     }
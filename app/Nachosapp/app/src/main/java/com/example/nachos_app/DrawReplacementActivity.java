@@ -11,17 +11,14 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.AggregateSource;
 import com.google.firebase.firestore.DocumentSnapshot;
-import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
-import com.google.firebase.firestore.WriteBatch;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 /**
  * Activity for drawing replacement entrants from the waitlist.
@@ -32,6 +29,8 @@ import java.util.Map;
  */
 public class DrawReplacementActivity extends AppCompatActivity {
 
+    private static final int WAITLIST_PAGE_SIZE = 500;
+
     private TextView eventNameText;
     private TextView availableSlotsText;
     private TextView waitlistCountText;
@@ -119,7 +118,8 @@ public class DrawReplacementActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads the current waitlist count from Firestore.
+     * Loads the current waitlist count from Firestore using a server-side count,
+     * so no waitlist documents are downloaded.
      * Updates UI and disables draw button if waitlist is empty.
      * Sets input hint based on minimum of available slots and waitlist size.
      */
@@ -127,9 +127,10 @@ public class DrawReplacementActivity extends AppCompatActivity {
         db.collection("events")
                 .document(eventId)
                 .collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    waitlistCount = querySnapshot.size();
+                .count()
+                .get(AggregateSource.SERVER)
+                .addOnSuccessListener(countSnapshot -> {
+                    waitlistCount = (int) countSnapshot.getCount();
                     waitlistCountText.setText("Entrants on waitlist: " + waitlistCount);
 
                     if (waitlistCount == 0) {
@@ -186,8 +187,9 @@ public class DrawReplacementActivity extends AppCompatActivity {
     }
 
     /**
-     * Executes the replacement draw by fetching waitlist entrants,
-     * randomly shuffling them, and selecting the specified number.
+     * Executes the replacement draw by streaming waitlist entrants page by page in
+     * document ID order and drawing the specified number with a freshly seeded LotteryEngine.
+     * Only each entrant's uid and join time are kept in memory.
      * Calls moveToSelected to complete the operation.
      * @param numReplacements Number of replacement entrants to select
      */
@@ -195,113 +197,93 @@ public class DrawReplacementActivity extends AppCompatActivity {
         drawButton.setEnabled(false);
         Toast.makeText(this, "Drawing replacements...", Toast.LENGTH_SHORT).show();
 
-        // Get all waitlist entries
-        db.collection("events")
-                .document(eventId)
-                .collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<DocumentSnapshot> waitlistDocs = new ArrayList<>();
-                    for (QueryDocumentSnapshot doc : querySnapshot) {
-                        waitlistDocs.add(doc);
+        List<String> entrantUids = new ArrayList<>();
+        List<Object> entrantJoinedAt = new ArrayList<>();
+
+        // Stream waitlist entries in a stable order so the draw can be replayed
+        PagedCollectionLoader.forQuery(db.collection("events")
+                        .document(eventId)
+                        .collection("waitlist")
+                        .orderBy(FieldPath.documentId()), WAITLIST_PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            entrantUids.add(doc.getId());
+                            entrantJoinedAt.add(doc.get("joinedAt"));
+                        }
+                        if (!lastPage) return;
+
+                        if (entrantUids.isEmpty()) {
+                            Toast.makeText(DrawReplacementActivity.this,
+                                    "No entrants on waitlist", Toast.LENGTH_SHORT).show();
+                            drawButton.setEnabled(true);
+                            return;
+                        }
+
+                        DrawWriter writer = new DrawWriter(db, eventId);
+                        writer.findUnfinished()
+                                .addOnSuccessListener(unfinished -> {
+                                    // Finish an interrupted draw rather than drawing different entrants
+                                    if (unfinished != null) {
+                                        Toast.makeText(DrawReplacementActivity.this,
+                                                "Finishing an interrupted draw...", Toast.LENGTH_SHORT).show();
+                                        moveToSelected(writer.resume(unfinished));
+                                        return;
+                                    }
+
+                                    // Draw replacements by position
+                                    LotteryEngine engine = LotteryEngine.withRandomSeed();
+                                    int[] replacementIndices = engine.drawIndices(entrantUids.size(), numReplacements);
+                                    List<String> replacementUids = new ArrayList<>(replacementIndices.length);
+                                    List<Object> replacementJoinedAt = new ArrayList<>(replacementIndices.length);
+                                    for (int index : replacementIndices) {
+                                        replacementUids.add(entrantUids.get(index));
+                                        replacementJoinedAt.add(entrantJoinedAt.get(index));
+                                    }
+
+                                    // Move replacements to selected collection
+                                    moveToSelected(writer.start(DrawWriter.REPLACEMENT, engine.getSeed(),
+                                            entrantUids.size(), replacementUids, replacementJoinedAt));
+                                })
+                                .addOnFailureListener(this::onError);
                     }
 
-                    if (waitlistDocs.isEmpty()) {
-                        Toast.makeText(this, "No entrants on waitlist", Toast.LENGTH_SHORT).show();
+                    @Override
+                    public void onError(Exception e) {
+                        Toast.makeText(DrawReplacementActivity.this,
+                                "Failed to draw replacements: " + e.getMessage(),
+                                Toast.LENGTH_SHORT).show();
                         drawButton.setEnabled(true);
-                        return;
                     }
-
-                    // Randomly shuffle and select replacements
-                    Collections.shuffle(waitlistDocs);
-                    List<DocumentSnapshot> replacements = waitlistDocs.subList(0,
-                            Math.min(numReplacements, waitlistDocs.size()));
-
-                    // Move replacements to selected collection
-                    moveToSelected(replacements);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to draw replacements: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                    drawButton.setEnabled(true);
                 });
     }
 
     /**
-     * Moves replacement entrants from waitlist to selected collection.
-     * Uses a Firestore batch to:
-     * 1. Add entrants to selected collection
-     * 2. Remove from waitlist collection
-     * 3. Mark cancelled slots as filled (replacementFilled = true)
-     * Updates waitlist count and sends notifications upon success.
-     * @param replacements List of selected replacement entrants
+     * Waits for the replacement entrants to be moved from the waitlist to the selected collection.
+     * DrawWriter records the draw seed under events/{eventId}/draws for auditing, then
+     * moves the replacements batch by batch. Each batch:
+     * 1. Adds entrants to selected collection
+     * 2. Removes them from the waitlist collection and updates their participation index
+     * 3. Marks cancelled slots as filled (replacementFilled = true)
+     * 4. Moves the count from the waitlist counter to the selected counter
+     * Sends notifications upon success.
+     * @param move Task with the replacements, from DrawWriter
      */
-    private void moveToSelected(List<DocumentSnapshot> replacements) {
-        // Fetch the cancelled slots to mark as filled
-        db.collection("events")
-                .document(eventId)
-                .collection("cancelled")
-                .whereEqualTo("replacementFilled", false)
-                .limit(replacements.size())
-                .get()
-                .addOnSuccessListener(cancelledSnapshot -> {
-                    // Create the batch with all operations
-                    WriteBatch batch = db.batch();
-
-                    // Add replacements to selected and remove from waitlist
-                    for (DocumentSnapshot doc : replacements) {
-                        String uid = doc.getString("uid");
-
-                        // Add to selected collection
-                        Map<String, Object> selectedData = new HashMap<>();
-                        selectedData.put("uid", uid);
-                        selectedData.put("joinedAt", doc.get("joinedAt"));
-                        selectedData.put("selectedAt", FieldValue.serverTimestamp());
-
-                        batch.set(db.collection("events")
-                                .document(eventId)
-                                .collection("selected")
-                                .document(uid), selectedData);
-
-                        // Remove from waitlist
-                        batch.delete(db.collection("events")
-                                .document(eventId)
-                                .collection("waitlist")
-                                .document(uid));
-                    }
+    private void moveToSelected(Task<List<String>> move) {
+        move.addOnSuccessListener(this, replacements -> {
+                    Toast.makeText(this, "Successfully selected " + replacements.size() +
+                            " replacement(s)!", Toast.LENGTH_LONG).show();
 
-                    // Mark cancelled slots as filled
-                    for (DocumentSnapshot cancelledDoc : cancelledSnapshot.getDocuments()) {
-                        batch.update(cancelledDoc.getReference(), "replacementFilled", true);
-                    }
+                    // Send notifications
+                    notifSender.sendSelectionNotificationsByUid(replacements, new ArrayList<>());
 
-                    // Commit the complete batch
-                    batch.commit()
-                            .addOnSuccessListener(aVoid -> {
-                                Toast.makeText(this, "Successfully selected " + replacements.size() +
-                                        " replacement(s)!", Toast.LENGTH_LONG).show();
-
-                                // Update waitlist count
-                                db.collection("events")
-                                        .document(eventId)
-                                        .update("currentWaitlistCount",
-                                                FieldValue.increment(-replacements.size()));
-
-                                // Send notifications
-                                notifSender.sendSelectionNotifications(replacements, new ArrayList<>());
-
-                                drawButton.setEnabled(true);
-                                finish();
-                            })
-                            .addOnFailureListener(e -> {
-                                Toast.makeText(this, "Failed to complete draw: " + e.getMessage(),
-                                        Toast.LENGTH_SHORT).show();
-                                drawButton.setEnabled(true);
-                            });
+                    drawButton.setEnabled(true);
+                    finish();
                 })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to fetch cancelled slots: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
+                .addOnFailureListener(this, e -> {
+                    Toast.makeText(this, "Failed to complete draw: " + e.getMessage()
+                                    + ". Draw again to finish it.", Toast.LENGTH_SHORT).show();
                     drawButton.setEnabled(true);
                 });
     }
@@ -0,0 +1,175 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Moves a draw's winners from the waitlist to the selected list.
+ * The draw is recorded under events/{eventId}/draws first, with its seed, its winners and
+ * status "inProgress". Winners are then moved one batch after another. Each batch moves
+ * its own winners' counters and records how many winners have been moved, so the event's
+ * counters always match the lists. If a batch fails, the draw record shows how far it got;
+ * findUnfinished() finds it and resume() moves the rest, instead of drawing again.
+ * Once every winner has been moved, the waitlist shards are rolled up (see EventCounters).
+ */
+public class DrawWriter {
+
+    public static final String LOTTERY = "lottery";
+    public static final String REPLACEMENT = "replacement";
+
+    static final String IN_PROGRESS = "inProgress";
+    static final String COMPLETE = "complete";
+
+    // Each winner takes up to 4 writes (selected, waitlist, index, cancelled slot), and
+    // each batch 3 more (counters, summary, draw record), under Firestore's 500 limit
+    static final int WINNERS_PER_BATCH = 120;
+
+    private final FirebaseFirestore db;
+    private final DocumentReference eventRef;
+
+    /**
+     * @param db The connection to the firebase database
+     * @param eventId Event the draw is for
+     */
+    public DrawWriter(FirebaseFirestore db, String eventId) {
+        this.db = db;
+        this.eventRef = db.collection("events").document(eventId);
+    }
+
+    /**
+     * @return Task with the event's draw that was interrupted part way, or null if there is none
+     */
+    public Task<DocumentSnapshot> findUnfinished() {
+        return eventRef.collection("draws")
+                .whereEqualTo("status", IN_PROGRESS)
+                .limit(1)
+                .get()
+                .continueWith(t -> t.getResult().isEmpty() ? null : t.getResult().getDocuments().get(0));
+    }
+
+    /**
+     * Records a new draw and moves its winners.
+     * @param type LOTTERY, or REPLACEMENT to also mark one cancelled slot filled per winner
+     * @param seed Seed the LotteryEngine drew with
+     * @param entrantCount Number of entrants the winners were drawn from
+     * @param winners UIDs of the winners
+     * @param joinedAt Waitlist join time of each winner, in the same order
+     * @return Task with the winners, once all of them have been moved
+     */
+    public Task<List<String>> start(String type, long seed, int entrantCount,
+                                    List<String> winners, List<Object> joinedAt) {
+        DocumentReference record = eventRef.collection("draws").document();
+        Map<String, Object> data = new HashMap<>();
+        data.put("type", type);
+        data.put("seed", seed);
+        data.put("entrantCount", entrantCount);
+        data.put("winnerCount", winners.size());
+        data.put("winners", winners);
+        data.put("winnersJoinedAt", joinedAt);
+        data.put("drawnAt", FieldValue.serverTimestamp());
+        data.putAll(progress(0, winners.size()));
+
+        return record.set(data).continueWithTask(t -> {
+            t.getResult();
+            return moveFrom(record, type, winners, joinedAt, 0);
+        });
+    }
+
+    /**
+     * Moves the winners an interrupted draw hadn't moved yet.
+     * @param record Draw record returned by findUnfinished()
+     * @return Task with all of the draw's winners, once they have been moved
+     */
+    @SuppressWarnings("unchecked")
+    public Task<List<String>> resume(DocumentSnapshot record) {
+        List<String> winners = (List<String>) record.get("winners");
+        List<Object> joinedAt = (List<Object>) record.get("winnersJoinedAt");
+        Long moved = record.getLong("movedCount");
+        if (winners == null || joinedAt == null) {
+            return Tasks.forException(new IllegalStateException("Draw record has no winners"));
+        }
+        return moveFrom(record.getReference(), record.getString("type"), winners, joinedAt,
+                (moved == null) ? 0 : moved.intValue());
+    }
+
+    /**
+     * @param moved Number of winners moved so far
+     * @param total Number of winners in the draw
+     * @return Draw record fields for this point in the draw
+     */
+    static Map<String, Object> progress(int moved, int total) {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("movedCount", moved);
+        fields.put("status", (moved >= total) ? COMPLETE : IN_PROGRESS);
+        return fields;
+    }
+
+    // Moves winners[start...] one batch at a time, committing each before building the next
+    private Task<List<String>> moveFrom(DocumentReference record, @Nullable String type,
+                                        List<String> winners, List<Object> joinedAt, int start) {
+        if (start >= winners.size()) {
+            return record.update(progress(winners.size(), winners.size())).continueWith(t -> {
+                t.getResult();
+                rollUpWaitlist();
+                return winners;
+            });
+        }
+        int end = Math.min(winners.size(), start + WINNERS_PER_BATCH);
+
+        Task<List<DocumentSnapshot>> slots = REPLACEMENT.equals(type)
+                ? eventRef.collection("cancelled")
+                        .whereEqualTo("replacementFilled", false)
+                        .limit(end - start)
+                        .get()
+                        .continueWith(t -> t.getResult().getDocuments())
+                : Tasks.forResult(Collections.emptyList());
+
+        return slots.continueWithTask(t -> {
+            List<DocumentSnapshot> cancelledDocs = t.getResult();
+            WriteBatch batch = db.batch();
+            for (int i = start; i < end; i++) {
+                String uid = winners.get(i);
+
+                Map<String, Object> selectedData = new HashMap<>();
+                selectedData.put("uid", uid);
+                selectedData.put("joinedAt", joinedAt.get(i));
+                selectedData.put("selectedAt", FieldValue.serverTimestamp());
+                batch.set(eventRef.collection("selected").document(uid), selectedData);
+                batch.delete(eventRef.collection("waitlist").document(uid));
+                ParticipationIndex.set(batch, db, uid, eventRef.getId(), ParticipationIndex.SELECTED);
+
+                if (i - start < cancelledDocs.size()) {
+                    batch.update(cancelledDocs.get(i - start).getReference(), "replacementFilled", true);
+                }
+            }
+            EventCounters.move(batch, eventRef, "waitlist", "selected", end - start);
+            batch.update(record, progress(end, winners.size()));
+            return batch.commit();
+        }).continueWithTask(t -> {
+            t.getResult();
+            if (end < winners.size()) {
+                return moveFrom(record, type, winners, joinedAt, end);
+            }
+            rollUpWaitlist();
+            return Tasks.forResult(winners);
+        });
+    }
+
+    // The winners came off currentWaitlistCount while most of them joined through the
+    // shards, so fold the shards in now rather than leave the cached total below zero
+    private void rollUpWaitlist() {
+        EventCounters.rollUpWaitlist(eventRef);
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.nachos_app;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.Toast;
@@ -26,6 +27,8 @@ public class EditProfileActivity extends AppCompatActivity {
 
     private FirebaseFirestore db;
     private FirebaseUser currentUser;
+    // Name as loaded, so waitlist entries are only rewritten when it changes
+    private String loadedName;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -44,7 +47,8 @@ public class EditProfileActivity extends AppCompatActivity {
             db.collection("users").document(currentUser.getUid()).get()
                     .addOnSuccessListener(documentSnapshot -> {
                         if (documentSnapshot.exists()) {
-                            nameEditText.setText(documentSnapshot.getString("name"));
+                            loadedName = documentSnapshot.getString("name");
+                            nameEditText.setText(loadedName);
                             emailEditText.setText(documentSnapshot.getString("email"));
                             phoneEditText.setText(documentSnapshot.getString("phoneNumber"));
                         }
@@ -80,6 +84,11 @@ public class EditProfileActivity extends AppCompatActivity {
             db.collection("users").document(currentUser.getUid())
                     .update(userData)
                     .addOnSuccessListener(aVoid -> {
+                        UserDirectory.getInstance().invalidate(currentUser.getUid());
+                        if (!name.equals(loadedName)) {
+                            new WaitlistService(db).updateName(currentUser.getUid(), name)
+                                    .addOnFailureListener(e -> Log.e("EditProfile", "Failed to update waitlist names", e));
+                        }
                         Toast.makeText(EditProfileActivity.this, "Profile updated", Toast.LENGTH_SHORT).show();
                         finish(); // Close the activity after saving
                     })
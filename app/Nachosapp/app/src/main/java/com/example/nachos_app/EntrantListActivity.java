@@ -5,11 +5,12 @@ import static android.content.Intent.ACTION_CREATE_DOCUMENT;
 import android.content.Intent;
 import android.net.Uri;
 import android.os.Bundle;
-import android.os.Handler;
-import android.os.Looper;
 import android.view.MenuItem;
 import android.view.View;
+import android.widget.Button;
 import android.widget.EditText;
+import android.widget.ProgressBar;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
@@ -17,20 +18,15 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
-import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
 
 import java.io.FileNotFoundException;
-import java.io.IOException;
 import java.io.OutputStream;
 import java.util.ArrayList;
-import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -52,6 +48,14 @@ public class EntrantListActivity extends AppCompatActivity {
     private NotificationSender notifSender;
     private boolean uidsExist = true;
 
+    private static final int PAGE_SIZE = 50;
+    // Start loading the next page when this many rows are left below the screen
+    private static final int PREFETCH_DISTANCE = 10;
+    private PagedCollectionLoader<DocumentSnapshot> entrantLoader;
+    private final List<String> loadedUserIds = new ArrayList<>();
+    // Profile lookups for each page are chained so pages are appended in order
+    private Task<Void> pendingAppend = Tasks.forResult(null);
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -107,7 +111,7 @@ public class EntrantListActivity extends AppCompatActivity {
                 @Override
                 public void onClick(View v) {
                     String notificationText = notificationEditText.getText().toString().trim();
-                    notifSender.sendListNotifications(notificationText);
+                    sendToWholeList(notificationText);
 
                     if (notificationText.isEmpty()) {
                         notificationEditText.setError("Notification text is required");
@@ -160,96 +164,155 @@ public class EntrantListActivity extends AppCompatActivity {
     private void setupRecyclerView() {
         recyclerView = findViewById(R.id.entrantListRecyclerView);
         adapter = new UserAdapter(this, listType, eventId);
-        recyclerView.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+
+        // Load the next page as the user scrolls near the bottom
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView rv, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadNextPage();
+                }
+            }
+        });
     }
 
     /**
      * Loads entrants from the appropriate Firestore subcollection.
-     * Fetches all documents from events/{eventId}/{listType} collection.
-     * Extracts user IDs and relevant metadata (timestamps, status).
+     * Pages through events/{eventId}/{listType} PAGE_SIZE documents at a time,
+     * so the first rows show after a single round trip. Later pages load on scroll.
      */
     private void loadEntrants() {
-        db.collection("events")
+        entrantLoader = PagedCollectionLoader.forQuery(db.collection("events")
                 .document(eventId)
                 .collection(listType)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<String> userIds = new ArrayList<>();
-                    List<Map<String, Object>> userDataList = new ArrayList<>();
-
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        userIds.add(doc.getId());
-
-                        Map<String, Object> data = new HashMap<>();
-                        data.put("uid", doc.getString("uid"));
-
-                        // Add timestamps based on list type
-                        switch (listType) {
-                            case "waitlist":
-                                data.put("joinedAt", doc.getTimestamp("joinedAt"));
-                                break;
-                            case "selected":
-                                data.put("selectedAt", doc.getTimestamp("selectedAt"));
-                                data.put("status", doc.getString("status"));
-                                break;
-                            case "enrolled":
-                                data.put("enrolledAt", doc.getTimestamp("enrolledAt"));
-                                break;
-                            case "cancelled":
-                                data.put("cancelledAt", doc.getTimestamp("cancelledAt"));
-                                break;
-                        }
-
-                        userDataList.add(data);
-                    }
-                    notifSender.setUserIds(userIds);
-                    fetchUserProfiles(userIds, userDataList);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this, "Failed to load list: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                });
+                .orderBy(FieldPath.documentId()), PAGE_SIZE);
+        loadNextPage();
+    }
+
+    /**
+     * Requests the next page of entrants, if one isn't already loading.
+     */
+    private void loadNextPage() {
+        entrantLoader.loadNext(entrantPageListener);
     }
 
     /**
-     * Fetches user profile data (names) from Firestore for the given user IDs.
-     * Uses Tasks.whenAllSuccess to fetch all profiles in parallel.
+     * Makes sure every entrant has been loaded, then sends the notification to all of them.
+     * @param message Custom text to send to the users
+     */
+    private void sendToWholeList(String message) {
+        if (entrantLoader.isLoading()) {
+            Toast.makeText(this, "Still loading entrants, please try again", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        entrantLoader.loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+            @Override
+            public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                entrantPageListener.onPage(page, lastPage);
+                if (lastPage) {
+                    notifSender.setUserIds(new ArrayList<>(loadedUserIds));
+                    notifSender.sendListNotifications(message)
+                            .addOnSuccessListener(result -> {
+                                if (result.getFailed() > 0) {
+                                    Toast.makeText(EntrantListActivity.this, "Failed to notify "
+                                            + result.getFailed() + " entrants", Toast.LENGTH_SHORT).show();
+                                }
+                            });
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                entrantPageListener.onError(e);
+            }
+        });
+    }
+
+    // Turns each page of entrant documents into adapter rows
+    private final PagedCollectionLoader.Listener<DocumentSnapshot> entrantPageListener =
+            new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+        @Override
+        public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+            List<String> userIds = new ArrayList<>();
+            List<Map<String, Object>> userDataList = new ArrayList<>();
+
+            for (DocumentSnapshot doc : page) {
+                userIds.add(doc.getId());
+
+                Map<String, Object> data = new HashMap<>();
+                data.put("uid", doc.getString("uid"));
+
+                // Add timestamps based on list type
+                switch (listType) {
+                    case "waitlist":
+                        data.put("joinedAt", doc.getTimestamp("joinedAt"));
+                        break;
+                    case "selected":
+                        data.put("selectedAt", doc.getTimestamp("selectedAt"));
+                        data.put("status", doc.getString("status"));
+                        break;
+                    case "enrolled":
+                        data.put("enrolledAt", doc.getTimestamp("enrolledAt"));
+                        break;
+                    case "cancelled":
+                        data.put("cancelledAt", doc.getTimestamp("cancelledAt"));
+                        break;
+                }
+
+                userDataList.add(data);
+            }
+            loadedUserIds.addAll(userIds);
+
+            if (lastPage && loadedUserIds.isEmpty()) {
+                Toast.makeText(EntrantListActivity.this, "No entrants in this list", Toast.LENGTH_SHORT).show();
+                uidsExist = false;
+                return;
+            }
+            pendingAppend = pendingAppend.continueWithTask(t -> fetchUserProfiles(userIds, userDataList));
+        }
+
+        @Override
+        public void onError(Exception e) {
+            Toast.makeText(EntrantListActivity.this, "Failed to load list: " + e.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+        }
+    };
+
+    /**
+     * Fetches user profile data (names) for one page of user IDs through the shared
+     * UserDirectory, then appends the page to the adapter.
+     * Users cached by an earlier screen are answered without a read, and the rest
+     * are read in whereIn chunks.
      * Falls back to displaying user IDs if profile fetch fails.
      * @param userIds List of user IDs to fetch profiles for
      * @param userDataList List of user data maps to populate with names
+     * @return Task that completes once the page has been added to the adapter
      */
-    private void fetchUserProfiles(List<String> userIds, List<Map<String, Object>> userDataList) {
+    private Task<Void> fetchUserProfiles(List<String> userIds, List<Map<String, Object>> userDataList) {
         if (userIds.isEmpty()) {
-            adapter.setUsers(userIds, userDataList);
-            Toast.makeText(this, "No entrants in this list", Toast.LENGTH_SHORT).show();
-            uidsExist = false;
-            return;
-        }
-
-        List<Task<DocumentSnapshot>> tasks = new ArrayList<>();
-        for (String uid : userIds) {
-            tasks.add(db.collection("users").document(uid).get());
+            return Tasks.forResult(null);
         }
 
-        Tasks.whenAllSuccess(tasks)
-            .addOnSuccessListener(results -> {
-                for (int i = 0; i < results.size(); i++) {
-                    DocumentSnapshot snapshot = (DocumentSnapshot) results.get(i);
-                    String name = snapshot.getString("name");
-                    if (name != null && !name.trim().isEmpty()) {
-                        userDataList.get(i).put("name", name.trim());
+        return UserDirectory.getInstance().getAll(userIds)
+            .continueWith(task -> {
+                Map<String, UserDirectory.Profile> profiles = task.getResult();
+                for (int i = 0; i < userIds.size(); i++) {
+                    UserDirectory.Profile profile = profiles.get(userIds.get(i));
+                    String name = (profile != null) ? profile.displayName(null) : null;
+                    if (name != null) {
+                        userDataList.get(i).put("name", name);
                     }
                     // Else fallback is already ID-based from userDataList
                 }
-
-                adapter.setUsers(userIds, userDataList);
-            })
-            .addOnFailureListener(e -> {
-                // Worst case: fallback to IDs
-                adapter.setUsers(userIds, userDataList);
+                adapter.addUsers(userIds, userDataList);
+                return null;
             });
-}
+    }
 
     /**
      * Launches the system file picker to create a new CSV file.
@@ -269,115 +332,60 @@ public class EntrantListActivity extends AppCompatActivity {
     @Override
     protected void onActivityResult(int requestCode, int resultCode, Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        ArrayList<String> csvData = getCSVData();
-
-        if (requestCode == CREATE_FILE_REQUEST_CODE && resultCode == RESULT_OK) {
-            Uri uri = data.getData();
-            String filePath = uri.getPath();
-
-            if (filePath != null) {
-                // We need to give Firebase operations from getCSVData() some time to finish, so delay calling exportCSV()
-                final Handler handler = new Handler(Looper.getMainLooper());
-                handler.postDelayed(new Runnable() {
-                    @Override
-                    public void run() {
-                        exportCSV(uri, csvData);
-                    }
-                }, 5000);
-            } else Toast.makeText(this, "Failed to export CSV", Toast.LENGTH_SHORT).show();
-        }
-    }
-
-    /**
-     * Pulls data from Firestore to be used with exportCSV()
-     * @return An array list of CSV data, where each line is an entry in the array
-     */
-    //
-    private ArrayList<String> getCSVData() {
-        ArrayList<String> csvData = new ArrayList<>();
-        ArrayList<String> uids = new ArrayList<>();
-        ArrayList<String> names = new ArrayList<>();
-        ArrayList<Date> timestamps = new ArrayList<>();
-        String csvHeader = "name,uid,timestamp\n";
-
-        // Get uids and timestamps from event document
-        db.collection("events")
-                .document(eventId)
-                .collection(listType)
-                .get()
-                .addOnSuccessListener(queryDocumentSnapshots -> {
-                    //csvData.add(csvHeader);
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        String uid = doc.getId();
-                        Timestamp timestamp = (Timestamp) doc.get("enrolledAt");
-                        Date formattedTimestamp = timestamp.toDate();
-
-                        uids.add(uid);
-                        timestamps.add(formattedTimestamp);
-                    }
-                });
-
-        // Look up names by UID, delaying slightly to let uids come in
-        final Handler nameHandler = new Handler(Looper.getMainLooper());
-        nameHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                // Look up names by uid
-                for (int i = 0; i < uids.size(); i++) {
-                    final String[] name = new String[1];
-                    DocumentReference docRef = db.collection("users").document(uids.get(i));
-                    docRef.get().addOnSuccessListener(new OnSuccessListener<DocumentSnapshot>() {
-                        @Override
-                        public void onSuccess(DocumentSnapshot documentSnapshot) {
-                            if (documentSnapshot.exists()) {
-                                Map<String, Object> data = documentSnapshot.getData();
-                                name[0] = data.get("name").toString();
-                                names.add(name[0]);
-                            }
-                        }
-                    });
-                }
-
-            }
-        }, 200);
 
-        // Build csvData with a delay to let uids/names Firebase operations complete
-        final Handler csvDataHandler = new Handler(Looper.getMainLooper());
-        csvDataHandler.postDelayed(new Runnable() {
-            @Override
-            public void run() {
-                csvData.add(csvHeader);
-                for (int i = 0; i < uids.size(); i++) {
-                    String data = names.get(i) + "," + uids.get(i) + "," + timestamps.get(i) + "\n";
-                    csvData.add(data);
-                }
-            }
-        }, 400);
-        return csvData;
+        if (requestCode == CREATE_FILE_REQUEST_CODE && resultCode == RESULT_OK
+                && data != null && data.getData() != null) {
+            exportCSV(data.getData());
+        }
     }
 
     /**
      * US 02.06.05
-     * Exports user data on the enrolled list in the form of UID and timestamp CSV to an an existing file (created by createFile())
+     * Exports the enrolled list as "name,uid,timestamp" CSV to an existing file (created by createFile()).
+     * CsvExporter streams the list page by page, so the file is complete however long the
+     * list is. The button is disabled and the row count shown until the export finishes.
      * @param uri The path to a new, empty CSV file
-     * @param csvData Data to write to CSV file, with each entry of the array being one line
      */
-    private void exportCSV(Uri uri, ArrayList<String> csvData) {
+    private void exportCSV(Uri uri) {
+        OutputStream outputStream;
         try {
-            OutputStream outputStream = getContentResolver().openOutputStream(uri);
-            if (outputStream != null) {
-                try {
-                    for(int i = 0; i < csvData.size(); i++) {
-                        outputStream.write(csvData.get(i).getBytes());
-                    }
-                    outputStream.flush();
-                    outputStream.close();
-                } catch (IOException e) {
-                    Toast.makeText(this, "Failed to export CSV", Toast.LENGTH_SHORT).show();
-                }
-            }
-        } catch(FileNotFoundException e) {
+            outputStream = getContentResolver().openOutputStream(uri);
+        } catch (FileNotFoundException e) {
+            outputStream = null;
+        }
+        if (outputStream == null) {
             Toast.makeText(this, "Failed to export CSV", Toast.LENGTH_SHORT).show();
+            return;
+        }
+
+        Button csvButton = findViewById(R.id.csv_button);
+        ProgressBar progressBar = findViewById(R.id.csv_progress);
+        TextView progressText = findViewById(R.id.csv_progress_text);
+        csvButton.setEnabled(false);
+        progressBar.setVisibility(View.VISIBLE);
+        progressText.setVisibility(View.VISIBLE);
+        progressText.setText("Exporting...");
+
+        new CsvExporter(db, eventId, listType)
+                .export(outputStream, rows -> progressText.setText("Exported " + rows + " entrants..."))
+                .addOnCompleteListener(this, task -> {
+                    csvButton.setEnabled(true);
+                    progressBar.setVisibility(View.GONE);
+                    progressText.setVisibility(View.GONE);
+                    if (task.isSuccessful()) {
+                        Toast.makeText(this, "Exported " + task.getResult() + " entrants",
+                                Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Failed to export CSV", Toast.LENGTH_SHORT).show();
+                    }
+                });
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (entrantLoader != null) {
+            entrantLoader.cancel();
         }
     }
 
@@ -1,11 +1,15 @@
 package com.example.nachos_app;
 
+import com.google.firebase.firestore.Exclude;
+
 import java.util.Date;
 
 /**
  * Model class representing an event in the lottery system.
  * This class stores all event-related information including registration periods,
  * participant limits, and QR code data.
+ * Banner images live in an ImageStore; the event only keeps their keys.
+ * QR codes are drawn from qrCodeData when shown, so no QR image is stored.
  * The userParticipationStatus field is transient and not stored in Firestore,
  * used only for UI display purposes.
  */
@@ -20,11 +24,16 @@ public class Event {
     private Date eventDate; // optional
     private Integer maxParticipants; // null = unlimited
     private String eventLocation; // optional
-    private String bannerUrl; // Base64 encoded image
-    private String qrCodeUrl; // Base64 encoded QR code image
+    private String bannerUrl; // Base64 encoded image (legacy, replaced by bannerRef)
+    private String qrCodeUrl; // Base64 encoded QR code image (legacy, removed by QrCodeMigration)
+    private String bannerRef; // ImageStore key of the banner image
+    private String qrCodeRef; // ImageStore key of the QR code image (legacy, removed by QrCodeMigration)
     private String qrCodeData; // The actual data encoded in QR (event link)
     private Date createdAt;
-    private int currentWaitlistCount; // Track how many people joined
+    private int currentWaitlistCount; // Cached waitlist size; recent joins sit in shards (see EventCounters)
+    private int selectedCount; // Counters kept in sync by EventCounters
+    private int enrolledCount;
+    private int cancelledCount;
     private transient String userParticipationStatus; // Not stored in Firestore
 
     public boolean geoLocationRequired;
@@ -133,10 +142,17 @@ public class Event {
     public Date getEventDate() { return eventDate; }
     public Integer getMaxParticipants() { return maxParticipants; }
     public String getBannerUrl() { return bannerUrl; }
+    @Exclude
     public String getQrCodeUrl() { return qrCodeUrl; }
     public String getQrCodeData() { return qrCodeData; }
+    public String getBannerRef() { return bannerRef; }
+    @Exclude
+    public String getQrCodeRef() { return qrCodeRef; }
     public Date getCreatedAt() { return createdAt; }
-    public int getCurrentWaitlistCount() { return currentWaitlistCount; }
+    public int getCurrentWaitlistCount() { return Math.max(0, currentWaitlistCount); }
+    public int getSelectedCount() { return selectedCount; }
+    public int getEnrolledCount() { return enrolledCount; }
+    public int getCancelledCount() { return cancelledCount; }
     public String getEventLocation() { return eventLocation; }
     public String getUserParticipationStatus() { return userParticipationStatus; }
 
@@ -152,8 +168,13 @@ public class Event {
     public void setBannerUrl(String bannerUrl) { this.bannerUrl = bannerUrl; }
     public void setQrCodeUrl(String qrCodeUrl) { this.qrCodeUrl = qrCodeUrl; }
     public void setQrCodeData(String qrCodeData) { this.qrCodeData = qrCodeData; }
+    public void setBannerRef(String bannerRef) { this.bannerRef = bannerRef; }
+    public void setQrCodeRef(String qrCodeRef) { this.qrCodeRef = qrCodeRef; }
     public void setCreatedAt(Date createdAt) { this.createdAt = createdAt; }
     public void setCurrentWaitlistCount(int currentWaitlistCount) { this.currentWaitlistCount = currentWaitlistCount; }
+    public void setSelectedCount(int selectedCount) { this.selectedCount = selectedCount; }
+    public void setEnrolledCount(int enrolledCount) { this.enrolledCount = enrolledCount; }
+    public void setCancelledCount(int cancelledCount) { this.cancelledCount = cancelledCount; }
     public void setEventLocation(String eventLocation) { this.eventLocation = eventLocation; }
     public void setUserParticipationStatus(String status) { this.userParticipationStatus = status; }
 
@@ -162,7 +183,7 @@ public class Event {
      * @return true if waitlist is full, false otherwise (or if unlimited)
      */
     public boolean isWaitlistFull() {
-        return maxParticipants != null && currentWaitlistCount >= maxParticipants;
+        return maxParticipants != null && getCurrentWaitlistCount() >= maxParticipants;
     }
 
     /**
@@ -191,6 +212,6 @@ public class Event {
         if (maxParticipants == null) {
             return -1; // Unlimited
         }
-        return Math.max(0, maxParticipants - currentWaitlistCount);
+        return Math.max(0, maxParticipants - getCurrentWaitlistCount());
     }
 }
@@ -11,6 +11,8 @@ import android.widget.ImageView;
 import android.widget.TextView;
 
 import androidx.annotation.NonNull;
+import androidx.recyclerview.widget.AsyncListDiffer;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import java.text.SimpleDateFormat;
@@ -18,33 +20,76 @@ import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 
 /**
  * RecyclerView adapter for displaying event items in a list.
  * Shows event details including name, date range, banner image, and registration status.
  * Handles click events to navigate to event details.
+ * New lists are diffed against the current one on a background thread (AsyncListDiffer),
+ * so only rows that were added, moved or changed are rebound.
  */
 public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHolder> {
 
+    /**
+     * An event together with its ID.
+     */
+    static class Row {
+        final String id;
+        final Event event;
+
+        Row(String id, Event event) {
+            this.id = id;
+            this.event = event;
+        }
+    }
+
+    /**
+     * Rows are the same item if they have the same event ID, and have the same
+     * contents if every field the row shows is unchanged.
+     */
+    static final DiffUtil.ItemCallback<Row> DIFF_CALLBACK = new DiffUtil.ItemCallback<Row>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            return oldRow.id.equals(newRow.id);
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Row oldRow, @NonNull Row newRow) {
+            Event a = oldRow.event;
+            Event b = newRow.event;
+            return a == b || (Objects.equals(a.getEventName(), b.getEventName())
+                    && Objects.equals(a.getOrganizerName(), b.getOrganizerName())
+                    && Objects.equals(a.getEventDate(), b.getEventDate())
+                    && Objects.equals(a.getUserParticipationStatus(), b.getUserParticipationStatus())
+                    && Objects.equals(a.getRegistrationStartDate(), b.getRegistrationStartDate())
+                    && Objects.equals(a.getRegistrationEndDate(), b.getRegistrationEndDate())
+                    && Objects.equals(a.getMaxParticipants(), b.getMaxParticipants())
+                    && a.getCurrentWaitlistCount() == b.getCurrentWaitlistCount()
+                    && Objects.equals(a.getBannerRef(), b.getBannerRef())
+                    && Objects.equals(a.getBannerUrl(), b.getBannerUrl()));
+        }
+    };
+
     private Context context;
-    private List<Event> eventList;
-    private List<String> eventIdList;
+    private final AsyncListDiffer<Row> differ = new AsyncListDiffer<>(this, DIFF_CALLBACK);
 
     public EventAdapter(Context context) {
         this.context = context;
-        this.eventList = new ArrayList<>();
-        this.eventIdList = new ArrayList<>();
     }
 
     /**
      * Updates the adapter with new event data.
+     * The lists are copied, so callers may keep changing them.
      * @param events List of Event objects to display
      * @param eventIds Corresponding list of event IDs
      */
     public void setEvents(List<Event> events, List<String> eventIds) {
-        this.eventList = events;
-        this.eventIdList = eventIds;
-        notifyDataSetChanged();
+        List<Row> rows = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            rows.add(new Row(eventIds.get(i), events.get(i)));
+        }
+        differ.submitList(rows);
     }
 
     @NonNull
@@ -65,8 +110,9 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
      */
     @Override
     public void onBindViewHolder(@NonNull EventViewHolder holder, int position) {
-        Event event = eventList.get(position);
-        String eventId = eventIdList.get(position);
+        Row row = differ.getCurrentList().get(position);
+        Event event = row.event;
+        String eventId = row.id;
 
         holder.eventNameTextView.setText(event.getEventName());
 
@@ -152,7 +198,8 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         }
 
         // Load banner
-        ImageUtils.loadBase64Image(holder.bannerImageView, event.getBannerUrl(), R.drawable.ic_camera_placeholder);
+        ImageUtils.loadStoredImage(holder.bannerImageView, event.getBannerRef(), event.getBannerUrl(),
+                R.drawable.ic_camera_placeholder);
 
         // Click listener to view event details
         holder.itemView.setOnClickListener(v -> {
@@ -162,9 +209,16 @@ public class EventAdapter extends RecyclerView.Adapter<EventAdapter.EventViewHol
         });
     }
 
+    @Override
+    public void onViewRecycled(@NonNull EventViewHolder holder) {
+        super.onViewRecycled(holder);
+        // Drop the banner load for the row this view used to show
+        ImageLoader.getInstance(context).cancel(holder.bannerImageView);
+    }
+
     @Override
     public int getItemCount() {
-        return eventList.size();
+        return differ.getCurrentList().size();
     }
 
     static class EventViewHolder extends RecyclerView.ViewHolder {
@@ -0,0 +1,388 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.Timestamp;
+import com.google.firebase.firestore.AggregateQuerySnapshot;
+import com.google.firebase.firestore.AggregateSource;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the size of an event's four entrant lists on the event document itself.
+ * Every move between lists adds an increment to the same batch as the move, so
+ * screens can show all four counts with a single document read. The waitlist count
+ * is mirrored to the event's summary (see EventSummaries) in the same batch.
+ * If the counters ever drift (e.g. after an interrupted admin removal), reconcile()
+ * recounts the lists with server-side count queries and rewrites them.
+ * <p>
+ * Joins and leaves are too frequent on a popular event for one document, so they go to
+ * a ShardedCounter under the event instead (see WaitlistService). The waitlist size is
+ * then the event's currentWaitlistCount plus the sum of its shards; rollUpWaitlist()
+ * folds the shards back into currentWaitlistCount, so the event and its summary keep a
+ * cached total that list screens can show without reading the shards. Joins and leaves
+ * run it at most once a minute (rollUpWaitlistIfDue()), and a finished draw runs it right
+ * away, since drawing takes winners off currentWaitlistCount itself. A join or leave that
+ * lands inside the minute schedules a roll-up for when it ends, so a quiet event's cached
+ * total is at most about a minute behind. That timer lives in the app's process; if the
+ * process dies first, the next join, leave or view of the event's details folds them in.
+ */
+public class EventCounters {
+
+    public static final String WAITLIST = "currentWaitlistCount";
+    public static final String SELECTED = "selectedCount";
+    public static final String ENROLLED = "enrolledCount";
+    public static final String CANCELLED = "cancelledCount";
+    public static final String RECONCILED_AT = "countersReconciledAt";
+    public static final String ROLLED_UP_AT = "waitlistRolledUpAt";
+
+    /** Number of waitlist shards per event */
+    public static final int WAITLIST_SHARDS = 10;
+    private static final String WAITLIST_SHARD_COLLECTION = "waitlistShards";
+
+    /** How often the waitlist shards are folded into the cached total at most */
+    static final long ROLLUP_INTERVAL_MS = 60L * 1000;
+
+    /** How long counters are trusted before the organizer view recounts them */
+    static final long RECONCILE_INTERVAL_MS = 24L * 60 * 60 * 1000;
+
+    // Events with a roll-up scheduled, and the timer that runs them (created on first use)
+    private static final Set<String> scheduledRollUps = new HashSet<>();
+    private static ScheduledExecutorService rollUpTimer;
+
+    private EventCounters() {
+    }
+
+    /**
+     * Returns the counter field for an entrant list.
+     * @param list One of "waitlist", "selected", "enrolled", "cancelled"
+     * @return Name of the counter field on the event document
+     */
+    public static String fieldFor(String list) {
+        switch (list) {
+            case "waitlist":
+                return WAITLIST;
+            case "selected":
+                return SELECTED;
+            case "enrolled":
+                return ENROLLED;
+            case "cancelled":
+                return CANCELLED;
+            default:
+                throw new IllegalArgumentException("Unknown list: " + list);
+        }
+    }
+
+    /**
+     * Builds the counter increments for moving entrants between lists.
+     * @param from List the entrants leave, or null if they are new
+     * @param to List the entrants join, or null if they are removed
+     * @param count Number of entrants moved
+     * @return Map of counter field to FieldValue.increment
+     */
+    static Map<String, Object> moveUpdates(@Nullable String from, @Nullable String to, long count) {
+        Map<String, Object> updates = new HashMap<>();
+        if (from != null) {
+            updates.put(fieldFor(from), FieldValue.increment(-count));
+        }
+        if (to != null) {
+            updates.put(fieldFor(to), FieldValue.increment(count));
+        }
+        return updates;
+    }
+
+    /**
+     * Adds the counter updates for moving entrants between lists to a batch.
+     * @param batch Batch the move is written in
+     * @param eventRef Reference to the event document
+     * @param from List the entrants leave, or null if they are new
+     * @param to List the entrants join, or null if they are removed
+     * @param count Number of entrants moved
+     */
+    public static void move(WriteBatch batch, DocumentReference eventRef,
+                            @Nullable String from, @Nullable String to, long count) {
+        if (count == 0) return;
+        Map<String, Object> updates = moveUpdates(from, to, count);
+        batch.update(eventRef, updates);
+        EventSummaries.mirror(batch, eventRef, updates);
+    }
+
+    /**
+     * Adds the counter updates for moving entrants between lists to a transaction.
+     * @param transaction Transaction the move is written in
+     * @param eventRef Reference to the event document
+     * @param from List the entrants leave, or null if they are new
+     * @param to List the entrants join, or null if they are removed
+     * @param count Number of entrants moved
+     */
+    public static void move(Transaction transaction, DocumentReference eventRef,
+                            @Nullable String from, @Nullable String to, long count) {
+        if (count == 0) return;
+        Map<String, Object> updates = moveUpdates(from, to, count);
+        transaction.update(eventRef, updates);
+        EventSummaries.mirror(transaction, eventRef, updates);
+    }
+
+    /**
+     * Reads a counter from an event snapshot.
+     * @param snapshot Event document
+     * @param field Counter field
+     * @return The counter value, or 0 if it has never been set
+     */
+    public static long get(DocumentSnapshot snapshot, String field) {
+        Long value = snapshot.getLong(field);
+        return (value == null) ? 0 : Math.max(0, value);
+    }
+
+    /**
+     * @param eventRef Reference to the event document
+     * @return The event's waitlist shards
+     */
+    public static ShardedCounter waitlistShards(DocumentReference eventRef) {
+        return new ShardedCounter(eventRef.collection(WAITLIST_SHARD_COLLECTION), WAITLIST_SHARDS);
+    }
+
+    /**
+     * @param eventId Event ID
+     * @return Paths of the event's waitlist shard documents
+     */
+    public static List<String> waitlistShardPaths(String eventId) {
+        List<String> paths = new ArrayList<>();
+        for (int i = 0; i < WAITLIST_SHARDS; i++) {
+            paths.add("events/" + eventId + "/" + WAITLIST_SHARD_COLLECTION + "/" + i);
+        }
+        return paths;
+    }
+
+    /**
+     * Reads the waitlist counter kept on the event document itself. Unlike get(), a
+     * negative value is returned as is: once entrants who joined through the shards are
+     * drawn or removed, the event's part of the total goes below zero.
+     * @param snapshot Event document
+     * @return The event's part of the waitlist count
+     */
+    public static long waitlistBase(DocumentSnapshot snapshot) {
+        Long value = snapshot.getLong(WAITLIST);
+        return (value == null) ? 0 : value;
+    }
+
+    /**
+     * Reads an event's waitlist size: its cached total plus its shards.
+     * @param snapshot Event document
+     * @return Task with the waitlist size
+     */
+    public static Task<Long> waitlistTotal(DocumentSnapshot snapshot) {
+        long base = waitlistBase(snapshot);
+        return waitlistShards(snapshot.getReference()).sum()
+                .continueWith(task -> Math.max(0, base + task.getResult()));
+    }
+
+    /**
+     * Checks whether the waitlist shards should be folded into the cached total:
+     * they hold something and haven't been folded in the last minute.
+     * @param snapshot Event document
+     * @param shardSum Sum of the event's waitlist shards
+     * @return true if rollUpWaitlist() should be run
+     */
+    public static boolean needsRollUp(DocumentSnapshot snapshot, long shardSum) {
+        if (shardSum == 0) return false;
+        return rollUpDue(snapshot.getTimestamp(ROLLED_UP_AT), System.currentTimeMillis());
+    }
+
+    /**
+     * Folds the waitlist shards into the event's currentWaitlistCount and its summary,
+     * and sets the shards back to zero, in one transaction so no join is lost or counted twice.
+     * @param eventRef Reference to the event document
+     * @return Task that completes once the shards have been folded in
+     */
+    public static Task<Void> rollUpWaitlist(DocumentReference eventRef) {
+        ShardedCounter shards = waitlistShards(eventRef);
+        return eventRef.getFirestore().runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            List<DocumentSnapshot> shardDocs = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                shardDocs.add(transaction.get(shards.shard(i)));
+            }
+            long sum = ShardedCounter.sum(shardDocs);
+            if (!event.exists() || sum == 0) return null;
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(WAITLIST, waitlistBase(event) + sum);
+            updates.put(ROLLED_UP_AT, FieldValue.serverTimestamp());
+            transaction.update(eventRef, updates);
+            EventSummaries.mirror(transaction, eventRef, updates);
+            shards.reset(transaction);
+            return null;
+        });
+    }
+
+    /**
+     * Folds the waitlist shards into the cached total unless that was done in the last
+     * minute. Run after every join and leave, so list screens, which only read the cached
+     * total, fall behind by at most a minute of joins. Only the event is read when the
+     * roll-up isn't due; one is then scheduled for when the minute is up (scheduleRollUp()).
+     * @param eventRef Reference to the event document
+     * @return Task that completes once the shards have been folded in, or once it was found not to be due
+     */
+    public static Task<Void> rollUpWaitlistIfDue(DocumentReference eventRef) {
+        ShardedCounter shards = waitlistShards(eventRef);
+        return eventRef.getFirestore().runTransaction(transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            if (!event.exists()) return true;
+            if (!rollUpDue(event.getTimestamp(ROLLED_UP_AT), System.currentTimeMillis())) {
+                return false;
+            }
+            List<DocumentSnapshot> shardDocs = new ArrayList<>();
+            for (int i = 0; i < shards.size(); i++) {
+                shardDocs.add(transaction.get(shards.shard(i)));
+            }
+            long sum = ShardedCounter.sum(shardDocs);
+            if (sum == 0) return true;
+
+            Map<String, Object> updates = new HashMap<>();
+            updates.put(WAITLIST, waitlistBase(event) + sum);
+            updates.put(ROLLED_UP_AT, FieldValue.serverTimestamp());
+            transaction.update(eventRef, updates);
+            EventSummaries.mirror(transaction, eventRef, updates);
+            shards.reset(transaction);
+            return true;
+        }).continueWith(t -> {
+            // Not due: the change just made sits in the shards until the minute is up
+            if (!t.getResult()) scheduleRollUp(eventRef);
+            return null;
+        });
+    }
+
+    /**
+     * Runs rollUpWaitlist() once ROLLUP_INTERVAL_MS has passed, unless one is already
+     * scheduled for the event, so a burst of joins schedules a single roll-up.
+     * @param eventRef Reference to the event document
+     */
+    static synchronized void scheduleRollUp(DocumentReference eventRef) {
+        if (!scheduledRollUps.add(eventRef.getPath())) return;
+        if (rollUpTimer == null) {
+            rollUpTimer = Executors.newSingleThreadScheduledExecutor();
+        }
+        rollUpTimer.schedule(() -> {
+            synchronized (EventCounters.class) {
+                scheduledRollUps.remove(eventRef.getPath());
+            }
+            rollUpWaitlist(eventRef);
+        }, ROLLUP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param rolledUpAt When the shards were last folded in, or null if never
+     * @param now Current time in milliseconds
+     * @return true if the last roll-up is more than ROLLUP_INTERVAL_MS old
+     */
+    static boolean rollUpDue(@Nullable Timestamp rolledUpAt, long now) {
+        return rolledUpAt == null || now - rolledUpAt.toDate().getTime() > ROLLUP_INTERVAL_MS;
+    }
+
+    /**
+     * Checks whether an event's counters should be recounted.
+     * True if they have never been reconciled, were last reconciled more than a day ago,
+     * or any counter has gone negative. The waitlist counter isn't checked for that, since
+     * its part on the event document can be negative while its shards make up the rest.
+     * @param snapshot Event document
+     * @return true if reconcile() should be run
+     */
+    public static boolean needsReconcile(DocumentSnapshot snapshot) {
+        for (String field : new String[] {SELECTED, ENROLLED, CANCELLED}) {
+            Long value = snapshot.getLong(field);
+            if (value != null && value < 0) return true;
+        }
+        Timestamp reconciledAt = snapshot.getTimestamp(RECONCILED_AT);
+        return reconciledAt == null
+                || System.currentTimeMillis() - reconciledAt.toDate().getTime() > RECONCILE_INTERVAL_MS;
+    }
+
+    /**
+     * Recounts the four entrant lists with server-side count queries and rewrites the
+     * counters on the event document and its summary.
+     * The waitlist count includes joins still sitting in the shards, so its part on the
+     * event is set to the count minus the shards, and the shards are left alone. The shards
+     * are read before the counts and again in the transaction that writes them; if any
+     * changed in between, the recount may or may not include that join or leave, so nothing
+     * is written and the task fails. The counters stay due for a recount, so the next
+     * organizer view tries again.
+     * @param eventRef Reference to the event document
+     * @return Task that completes once the counters have been rewritten
+     */
+    public static Task<Void> reconcile(DocumentReference eventRef) {
+        ShardedCounter shards = waitlistShards(eventRef);
+        return shards.counts().continueWithTask(before -> {
+            List<Long> shardCounts = before.getResult();
+            Task<AggregateQuerySnapshot> waitlist = eventRef.collection("waitlist").count().get(AggregateSource.SERVER);
+            Task<AggregateQuerySnapshot> selected = eventRef.collection("selected").count().get(AggregateSource.SERVER);
+            Task<AggregateQuerySnapshot> enrolled = eventRef.collection("enrolled").count().get(AggregateSource.SERVER);
+            Task<AggregateQuerySnapshot> cancelled = eventRef.collection("cancelled").count().get(AggregateSource.SERVER);
+
+            return Tasks.whenAllSuccess(waitlist, selected, enrolled, cancelled).continueWithTask(t -> {
+                t.getResult();
+                return eventRef.getFirestore().runTransaction(transaction -> {
+                    List<Long> now = new ArrayList<>();
+                    for (int i = 0; i < shards.size(); i++) {
+                        now.add(ShardedCounter.count(transaction.get(shards.shard(i))));
+                    }
+                    if (!now.equals(shardCounts)) {
+                        throw new FirebaseFirestoreException("Waitlist changed while it was recounted",
+                                FirebaseFirestoreException.Code.ABORTED);
+                    }
+
+                    Map<String, Object> counts = reconciledCounts(waitlist.getResult().getCount(),
+                            selected.getResult().getCount(), enrolled.getResult().getCount(),
+                            cancelled.getResult().getCount(), sum(now));
+                    counts.put(RECONCILED_AT, FieldValue.serverTimestamp());
+                    transaction.update(eventRef, counts);
+                    EventSummaries.mirror(transaction, eventRef, counts);
+                    return null;
+                });
+            });
+        });
+    }
+
+    /**
+     * Builds the counters a recount writes to the event.
+     * @param waitlist Number of waitlist entries
+     * @param selected Number of selected entries
+     * @param enrolled Number of enrolled entries
+     * @param cancelled Number of cancelled entries
+     * @param shardSum Sum of the waitlist shards when the lists were counted
+     * @return Map of counter field to value; the waitlist's is the part not in the shards
+     */
+    static Map<String, Object> reconciledCounts(long waitlist, long selected, long enrolled,
+                                                long cancelled, long shardSum) {
+        Map<String, Object> counts = new HashMap<>();
+        counts.put(WAITLIST, waitlist - shardSum);
+        counts.put(SELECTED, selected);
+        counts.put(ENROLLED, enrolled);
+        counts.put(CANCELLED, cancelled);
+        return counts;
+    }
+
+    private static long sum(List<Long> counts) {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
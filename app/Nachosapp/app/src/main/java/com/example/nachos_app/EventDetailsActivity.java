@@ -1,10 +1,8 @@
 package com.example.nachos_app;
 
 import android.content.Intent;
-import android.graphics.Bitmap;
 import android.net.Uri;
 import android.os.Bundle;
-import android.provider.MediaStore;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
@@ -18,21 +16,24 @@ import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.CancellationTokenSource;
+import com.google.android.gms.tasks.OnSuccessListener;
 import com.google.android.gms.tasks.OnTokenCanceledListener;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.WriteBatch;
 
-import java.io.ByteArrayOutputStream;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 
 import android.Manifest;
 import android.content.pm.PackageManager;
@@ -90,8 +91,11 @@ public class EventDetailsActivity extends AppCompatActivity {
     private View organizerDivider;
     private ActivityResultLauncher<Intent> updateBannerLauncher;
     private Uri selectedNewBannerUri;
+    // Cancels the banner being processed if the screen is closed first
+    private CancellationTokenSource bannerIngest;
 
     private FirebaseFirestore db;
+    private WaitlistService waitlistService;
     private String uid;
     private String eventId;
     private DocumentReference eventRef;
@@ -131,6 +135,7 @@ public class EventDetailsActivity extends AppCompatActivity {
         initViews();
 
         db = FirebaseFirestore.getInstance();
+        waitlistService = new WaitlistService(db);
 
         // Get the current user
         FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
@@ -278,7 +283,7 @@ public class EventDetailsActivity extends AppCompatActivity {
 
     /**
      * Shows a dialog displaying the event's QR code.
-     * Uses QRCodeDialogFragment to display the base64 encoded QR image.
+     * Uses QRCodeDialogFragment, which draws the QR code from the event's qrCodeData.
      */
     private void showQRCodeDialog() {
         if (currentEvent == null) {
@@ -286,15 +291,15 @@ public class EventDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        String qrCodeBase64 = currentEvent.getQrCodeUrl();
-        if (qrCodeBase64 == null || qrCodeBase64.isEmpty()) {
-            Toast.makeText(this, "QR code not ready yet, please try again in a moment", Toast.LENGTH_SHORT).show();
-            return;
+        // Every event's link is event://<id>, so events missing the field still get a code
+        String qrCodeData = currentEvent.getQrCodeData();
+        if (qrCodeData == null || qrCodeData.isEmpty()) {
+            qrCodeData = "event://" + eventId;
         }
 
         QRCodeDialogFragment dialog = QRCodeDialogFragment.newInstance(
                 currentEvent.getEventName(),
-                qrCodeBase64
+                qrCodeData
         );
         dialog.show(getSupportFragmentManager(), "QRCodeDialog");
     }
@@ -303,44 +308,66 @@ public class EventDetailsActivity extends AppCompatActivity {
      * Fetches event details from Firestore and determines user role.
      * If user is the organizer, displays organizer view.
      * Otherwise, displays entrant view with join/leave button.
+     * A cached copy of the event is shown first if there is one; the role and entrant
+     * checks wait for the server's copy.
      */
     private void fetchEventDetails() {
-        eventRef.get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot == null || !snapshot.exists()) {
-                        Toast.makeText(this, "Event not found", Toast.LENGTH_SHORT).show();
-                        finish();
-                        return;
+        CacheFirst.get(eventRef, new CacheFirst.Callback<DocumentSnapshot>() {
+            @Override
+            public void onResult(DocumentSnapshot snapshot, boolean fromCache) {
+                if (fromCache) {
+                    Event cached = snapshot.toObject(Event.class);
+                    if (cached != null) {
+                        currentEvent = cached;
+                        populateUI(cached);
                     }
+                } else {
+                    showEventDetails(snapshot);
+                }
+            }
 
-                    Event event = snapshot.toObject(Event.class);
-                    if (event == null) {
-                        Toast.makeText(this, "Invalid event data", Toast.LENGTH_SHORT).show();
-                        return;
-                    }
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(EventDetailsActivity.this, "Failed to load event: " + e.getMessage(),
+                        Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
 
-                    // Store current event for QR code display
-                    currentEvent = event;
+    /**
+     * Shows the server's copy of the event and sets up the organizer or entrant view.
+     * @param snapshot Event document
+     */
+    private void showEventDetails(DocumentSnapshot snapshot) {
+        if (snapshot == null || !snapshot.exists()) {
+            Toast.makeText(this, "Event not found", Toast.LENGTH_SHORT).show();
+            finish();
+            return;
+        }
 
-                    // Check if user is the organizer
-                    isOrganizer = event.getOrganizerId().equals(uid);
+        Event event = snapshot.toObject(Event.class);
+        if (event == null) {
+            Toast.makeText(this, "Invalid event data", Toast.LENGTH_SHORT).show();
+            return;
+        }
 
-                    populateUI(event);
-                    loadEntrantWaitlistCount();
+        // Store current event for QR code display
+        currentEvent = event;
 
-                    if (isOrganizer) {
-                        showOrganizerView(event);
-                    } else {
-                        showEntrantView();
-                        checkEnrolledStatus();
-                        checkWaitlist();
-                        checkSelectedStatus();
-                    }
-                })
-                .addOnFailureListener(e ->
-                        Toast.makeText(this, "Failed to load event: " + e.getMessage(),
-                                Toast.LENGTH_SHORT).show()
-                );
+        // Check if user is the organizer
+        isOrganizer = event.getOrganizerId().equals(uid);
+
+        populateUI(event);
+        loadEntrantWaitlistCount();
+
+        if (isOrganizer) {
+            showOrganizerView(event);
+        } else {
+            showEntrantView();
+            checkEnrolledStatus();
+            checkWaitlist();
+            checkSelectedStatus();
+        }
     }
 
     /**
@@ -385,8 +412,9 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         setRegistrationText(event.getRegistrationStartDate(), event.getRegistrationEndDate());
 
-        ImageUtils.loadBase64Image(
+        ImageUtils.loadStoredImage(
                 bannerImage,
+                event.getBannerRef(),
                 event.getBannerUrl(),
                 R.drawable.ic_camera_placeholder
         );
@@ -440,50 +468,55 @@ public class EventDetailsActivity extends AppCompatActivity {
 
     /**
      * Updates the entrant count displays for organizers.
-     * Fetches counts from Firestore subcollections: waitlist, selected, enrolled, cancelled.
+     * Reads the counters kept on the event document (see EventCounters) and the
+     * waitlist shards, which together give the four counts.
      * Updates both the statistics text and button labels with current counts.
+     * Recounts the lists in the background if the counters are stale.
      */
     private void updateCounts() {
-        // Waiting count
-        eventRef.collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
-                    waitingCountText.setText("Waiting: " + count);
-                    viewWaitingListButton.setText("View Waiting List (" + count + ")");
+        eventRef.get()
+                .addOnSuccessListener(snapshot -> {
+                    if (snapshot == null || !snapshot.exists()) return;
+                    loadWaitlistTotal(snapshot, waiting -> showCounts(snapshot, waiting));
+
+                    if (EventCounters.needsReconcile(snapshot)) {
+                        EventCounters.reconcile(eventRef)
+                                .addOnSuccessListener(aVoid -> eventRef.get()
+                                        .addOnSuccessListener(fresh -> {
+                                            loadWaitlistTotal(fresh, waiting -> showCounts(fresh, waiting));
+                                            // Also rebuilds summaries of events created before they existed
+                                            EventSummaries.refresh(fresh);
+                                        }));
+                    }
                 });
+    }
 
-        // Selected count
-        eventRef.collection("selected")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
-                    selectedCountText.setText("Selected: " + count);
-                    viewSelectedButton.setText("View Selected Entrants (" + count + ")");
-                });
+    /**
+     * Shows the four list counts from an event document.
+     * @param snapshot Event document holding the counters
+     * @param waiting Waitlist size, including the waitlist shards
+     */
+    private void showCounts(DocumentSnapshot snapshot, long waiting) {
+        waitingCountText.setText("Waiting: " + waiting);
+        viewWaitingListButton.setText("View Waiting List (" + waiting + ")");
 
-        // Enrolled count
-        eventRef.collection("enrolled")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
-                    enrolledCountText.setText("Enrolled: " + count);
-                    viewEnrolledButton.setText("View Enrolled Entrants (" + count + ")");
-                });
+        long selected = EventCounters.get(snapshot, EventCounters.SELECTED);
+        selectedCountText.setText("Selected: " + selected);
+        viewSelectedButton.setText("View Selected Entrants (" + selected + ")");
 
-        // Cancelled count
-        eventRef.collection("cancelled")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
-                    cancelledCountText.setText("Cancelled: " + count);
-                    viewCancelledButton.setText("View Cancelled (" + count + ")");
-                });
+        long enrolled = EventCounters.get(snapshot, EventCounters.ENROLLED);
+        enrolledCountText.setText("Enrolled: " + enrolled);
+        viewEnrolledButton.setText("View Enrolled Entrants (" + enrolled + ")");
+
+        long cancelled = EventCounters.get(snapshot, EventCounters.CANCELLED);
+        cancelledCountText.setText("Cancelled: " + cancelled);
+        viewCancelledButton.setText("View Cancelled (" + cancelled + ")");
     }
 
     /**
      * Loads and displays the current waitlist count for entrants.
      * Shows the count in the "Waitlist" section of the event details.
+     * Reads the waitlist counter from the event document and its shards.
      * Hides the display if fetch fails.
      */
     private void loadEntrantWaitlistCount() {
@@ -491,16 +524,32 @@ public class EventDetailsActivity extends AppCompatActivity {
             return;
         }
 
-        eventRef.collection("waitlist")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    int count = querySnapshot.size();
+        eventRef.get()
+                .addOnSuccessListener(snapshot -> loadWaitlistTotal(snapshot, count -> {
                     entrantWaitlistCountText.setText("Waitlist\n" + count + " entrants");
                     entrantWaitlistCountText.setVisibility(View.VISIBLE);
-                })
+                }))
                 .addOnFailureListener(e -> entrantWaitlistCountText.setVisibility(View.GONE));
     }
 
+    /**
+     * Adds the waitlist shards to the event's cached waitlist count, and folds them into
+     * the cached count if that hasn't been done in a while.
+     * Falls back to the cached count if the shards can't be read.
+     * @param snapshot Event document
+     * @param onCount Receives the waitlist size
+     */
+    private void loadWaitlistTotal(DocumentSnapshot snapshot, OnSuccessListener<Long> onCount) {
+        EventCounters.waitlistShards(eventRef).sum()
+                .addOnSuccessListener(shardSum -> {
+                    onCount.onSuccess(Math.max(0, EventCounters.waitlistBase(snapshot) + shardSum));
+                    if (EventCounters.needsRollUp(snapshot, shardSum)) {
+                        EventCounters.rollUpWaitlist(eventRef);
+                    }
+                })
+                .addOnFailureListener(e -> onCount.onSuccess(EventCounters.get(snapshot, EventCounters.WAITLIST)));
+    }
+
     /**
      * Displays the entrant view with join/leave waitlist button.
      * Sets up real-time listener for waitlist status changes.
@@ -722,6 +771,8 @@ public class EventDetailsActivity extends AppCompatActivity {
 
                         // Remove from selected collection
                         batch.delete(selectedRef);
+                        ParticipationIndex.set(batch, db, uid, eventId, ParticipationIndex.ENROLLED);
+                        EventCounters.move(batch, eventRef, "selected", "enrolled", 1);
 
                         batch.commit()
                                 .addOnSuccessListener(aVoid -> {
@@ -753,6 +804,8 @@ public class EventDetailsActivity extends AppCompatActivity {
 
                         // Remove from selected collection
                         batch.delete(selectedRef);
+                        ParticipationIndex.set(batch, db, uid, eventId, ParticipationIndex.DECLINED);
+                        EventCounters.move(batch, eventRef, "selected", "cancelled", 1);
 
                         batch.commit()
                                 .addOnSuccessListener(aVoid -> {
@@ -897,39 +950,44 @@ public class EventDetailsActivity extends AppCompatActivity {
     /**
      * Saves the user into the Firestore waitlist collection.
      * Includes a timestamp and, if available, the user's latitude and longitude.
-     * Also increments the event's currentWaitlistCount field.
+     * Runs as one transaction (see WaitlistService) that also checks registration
+     * is open and the waitlist has room, so concurrent joins can't overfill it.
      *
      * @param location The user's GPS location, or null if not required.
      */
     private void saveToWaitlist(Location location) {
         joinButton.setEnabled(false);
 
-        // Build waitlist entry
-        Map<String, Object> data = new HashMap<>();
-        data.put("uid", uid);
-        data.put("joinedAt", FieldValue.serverTimestamp());
-
-        if (location != null) {
-            data.put("latitude", location.getLatitude());
-            data.put("longitude", location.getLongitude());
-        }
-
-        // Write waitlist entry
-        waitListRef.set(data)
-                .addOnSuccessListener(aVoid -> {
-
-                    // Atomic increment — prevents race conditions
-                    eventRef.update("currentWaitlistCount", FieldValue.increment(1))
-                            .addOnSuccessListener(aVoid2 -> {
-                                toast("You have joined this waitlist");
-                                loadEntrantWaitlistCount();
-                                joinButton.setEnabled(true);
-                            })
-                            .addOnFailureListener(err -> {
-                                toast("Joined but failed to update counter.");
-                                joinButton.setEnabled(true);
-                            });
-
+        Double latitude = (location != null) ? location.getLatitude() : null;
+        Double longitude = (location != null) ? location.getLongitude() : null;
+
+        waitlistService.join(eventId, uid, latitude, longitude)
+                .addOnSuccessListener(result -> {
+                    switch (result) {
+                        case JOINED:
+                            toast("You have joined this waitlist");
+                            break;
+                        case ALREADY_ON_WAITLIST:
+                            toast("You're already on the waitlist.");
+                            break;
+                        case ALREADY_SELECTED:
+                            toast("You have already been selected for this event");
+                            break;
+                        case ALREADY_ENROLLED:
+                            toast("You are already enrolled in this event");
+                            break;
+                        case REGISTRATION_NOT_OPEN:
+                            toast("Registration is not open");
+                            break;
+                        case WAITLIST_FULL:
+                            toast("This waitlist is full.");
+                            break;
+                        default:
+                            toast("This event no longer exists.");
+                            break;
+                    }
+                    loadEntrantWaitlistCount();
+                    joinButton.setEnabled(true);
                 })
                 .addOnFailureListener(err -> {
                     toast("Could not join waitlist.");
@@ -960,43 +1018,26 @@ public class EventDetailsActivity extends AppCompatActivity {
     }
 
     /**
-     * Removes the user from the waitlist collection.
-     * Decrements the currentWaitlistCount in the event document.
+     * Removes the user from the waitlist collection and their participation index.
+     * Takes the user's join back off the waitlist counter in the same transaction.
      */
     private void leaveWaitlist() {
         joinButton.setEnabled(false);
 
-        eventRef.get().addOnSuccessListener(eventSnap -> {
-            Long currentWaitlistCount = safeLong(eventSnap.getLong("currentWaitlistCount"), 0L);
-
-            waitListRef.get().addOnSuccessListener(wlSnap -> {
-                if (!wlSnap.exists()) {
-                    toast("You're not on the waitlist.");
-                    joinButton.setEnabled(true);
-                    return;
-                }
-
-                waitListRef.delete().addOnSuccessListener(aVoid -> {
-                    long newCount = Math.max(0, currentWaitlistCount - 1);
-                    eventRef.update("currentWaitlistCount", newCount);
-                    toast("Removed from waitlist.");
-                    loadEntrantWaitlistCount();
+        waitlistService.leave(eventId, uid)
+                .addOnSuccessListener(result -> {
+                    if (result == WaitlistService.Result.NOT_ON_WAITLIST) {
+                        toast("You're not on the waitlist.");
+                    } else {
+                        toast("Removed from waitlist.");
+                        loadEntrantWaitlistCount();
+                    }
                     joinButton.setEnabled(true);
-
-                }).addOnFailureListener(err -> {
+                })
+                .addOnFailureListener(err -> {
                     toast("Could not leave waitlist.");
                     joinButton.setEnabled(true);
                 });
-
-            }).addOnFailureListener(err -> {
-                toast("Could not check position on waitlist.");
-                joinButton.setEnabled(true);
-            });
-
-        }).addOnFailureListener(err -> {
-            toast("Could not check waitlist.");
-            joinButton.setEnabled(true);
-        });
     }
 
     /**
@@ -1010,8 +1051,8 @@ public class EventDetailsActivity extends AppCompatActivity {
 
     /**
      * Updates the event banner in Firestore.
-     * Processes the selected image by resizing and converting to base64,
-     * then updates the event document.
+     * Processes the selected image through ImageIngestPipeline (scaled to at most
+     * 800x600 and encoded as WebP), then stores it in the ImageStore and updates the event document.
      */
     private void updateEventBanner() {
         if (selectedNewBannerUri == null) {
@@ -1020,68 +1061,58 @@ public class EventDetailsActivity extends AppCompatActivity {
 
         Toast.makeText(this, "Updating banner...", Toast.LENGTH_SHORT).show();
 
-        new Thread(() -> {
-            try {
-                Bitmap bitmap = MediaStore.Images.Media.getBitmap(getContentResolver(), selectedNewBannerUri);
-
-                // Calculate new dimensions maintaining aspect ratio
-                int maxWidth = 800;
-                int maxHeight = 600;
-
-                float ratio = Math.min(
-                        (float) maxWidth / bitmap.getWidth(),
-                        (float) maxHeight / bitmap.getHeight()
-                );
-
-                int newWidth = Math.round(bitmap.getWidth() * ratio);
-                int newHeight = Math.round(bitmap.getHeight() * ratio);
-
-                Bitmap resizedBitmap = Bitmap.createScaledBitmap(bitmap, newWidth, newHeight, true);
-
-                // Convert to base64
-                ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                resizedBitmap.compress(Bitmap.CompressFormat.JPEG, 70, baos);
-                byte[] data = baos.toByteArray();
-
-                // Check size
-                if (data.length > 500000) {
-                    runOnUiThread(() -> {
+        bannerIngest = new CancellationTokenSource();
+        ImageIngestPipeline.getInstance()
+                .ingest(getContentResolver(), selectedNewBannerUri, bannerIngest.getToken())
+                .addOnSuccessListener(this, this::saveBannerToFirestore)
+                .addOnFailureListener(this, e -> {
+                    if (e instanceof CancellationException) return;
+                    if (e instanceof ImageIngestPipeline.TooLargeException) {
                         Toast.makeText(this, "Image too large, please select a smaller image",
                                 Toast.LENGTH_LONG).show();
-                    });
-                    return;
-                }
-
-                String base64Banner = android.util.Base64.encodeToString(data, android.util.Base64.DEFAULT);
-
-                // Update in Firestore
-                runOnUiThread(() -> saveBannerToFirestore(base64Banner));
-
-            } catch (Exception e) {
-                runOnUiThread(() -> {
-                    Toast.makeText(this, "Error processing image: " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
+                    } else {
+                        Toast.makeText(this, "Error processing image: " + e.getMessage(),
+                                Toast.LENGTH_SHORT).show();
+                    }
                 });
-            }
-        }).start();
     }
 
     /**
-     * Saves the new banner to Firestore and updates the UI.
-     * @param base64Banner Base64 encoded banner image
+     * Saves the new banner to the ImageStore, points the event at it and updates the UI.
+     * Any legacy base64 banner on the event document is removed, and the old stored
+     * banner is deleted unless another event shares it.
+     * @param bannerBytes Encoded banner image
      */
-    private void saveBannerToFirestore(String base64Banner) {
-        eventRef.update("bannerUrl", base64Banner)
-                .addOnSuccessListener(aVoid -> {
+    private void saveBannerToFirestore(byte[] bannerBytes) {
+        String oldKey = currentEvent != null ? currentEvent.getBannerRef() : null;
+        FirestoreImageStore.getInstance().put(bannerBytes)
+                .continueWithTask(task -> {
+                    String key = task.getResult();
+                    Map<String, Object> updates = new HashMap<>();
+                    updates.put("bannerRef", key);
+                    updates.put("bannerUrl", FieldValue.delete());
+                    return EventSummaries.update(eventRef, updates)
+                            .continueWith(t -> {
+                                t.getResult();
+                                return key;
+                            });
+                })
+                .addOnSuccessListener(key -> {
                     Toast.makeText(this, "Banner updated successfully!", Toast.LENGTH_SHORT).show();
 
+                    if (oldKey != null && !oldKey.isEmpty() && !oldKey.equals(key)) {
+                        ImageSweep.deleteIfUnreferenced(eventRef.getFirestore(),
+                                FirestoreImageStore.getInstance(), oldKey);
+                    }
+
                     // Update the current event object
                     if (currentEvent != null) {
-                        currentEvent.setBannerUrl(base64Banner);
+                        currentEvent.setBannerRef(key);
+                        currentEvent.setBannerUrl(null);
                     }
 
                     // Update the banner image view
-                    ImageUtils.loadBase64Image(bannerImage, base64Banner, R.drawable.ic_camera_placeholder);
+                    ImageUtils.loadStoredImage(bannerImage, key, null, R.drawable.ic_camera_placeholder);
 
                     // Clear the selected URI
                     selectedNewBannerUri = null;
@@ -1092,10 +1123,6 @@ public class EventDetailsActivity extends AppCompatActivity {
                 });
     }
 
-    private long safeLong(Long val, long def) {
-        return (val == null) ? def : val;
-    }
-
     /**
      * Helper method to show a short toast message.
      * @param msg The message to display
@@ -1116,6 +1143,9 @@ public class EventDetailsActivity extends AppCompatActivity {
     @Override
     protected void onDestroy() {
         super.onDestroy();
+        if (bannerIngest != null) {
+            bannerIngest.cancel();
+        }
         if (selectionStatusRegistration != null) {
             selectionStatusRegistration.remove();
             selectionStatusRegistration = null;
@@ -0,0 +1,255 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Slim copies of event documents, stored at eventSummaries/{eventId}, for list screens.
+ * A summary holds only the fields an event row shows (name, organizer, dates, capacity,
+ * waitlist count and banner key), so lists don't download descriptions or legacy
+ * base64 images. Summaries deserialize into Event with the other fields left empty.
+ * Every write to an event also writes its summary in the same batch: creation here,
+ * counter moves in EventCounters, and removal in CascadeDeleteService.
+ */
+public class EventSummaries {
+
+    public static final String COLLECTION = "eventSummaries";
+
+    /** Events per page of the Home feed */
+    public static final int FEED_PAGE_SIZE = 20;
+
+    /** Event fields copied into the summary */
+    static final List<String> FIELDS = Collections.unmodifiableList(Arrays.asList(
+            "organizerId", "organizerName", "eventName", "registrationRange",
+            "registrationStartDate", "registrationEndDate", "eventDate", "maxParticipants",
+            "eventLocation", "bannerRef", "createdAt", EventCounters.WAITLIST));
+
+    // Events are read in full here, so keep pages small
+    private static final int PAGE_SIZE = 20;
+
+    private EventSummaries() {
+    }
+
+    /**
+     * @param db The connection to the firebase database
+     * @return Reference to the summaries collection
+     */
+    public static CollectionReference collection(FirebaseFirestore db) {
+        return db.collection(COLLECTION);
+    }
+
+    /**
+     * @param eventRef Reference to the event document
+     * @return Reference to the event's summary
+     */
+    public static DocumentReference ref(DocumentReference eventRef) {
+        return eventRef.getFirestore().collection(COLLECTION).document(eventRef.getId());
+    }
+
+    /**
+     * @param eventId Event ID
+     * @return Path of the event's summary
+     */
+    public static String path(String eventId) {
+        return COLLECTION + "/" + eventId;
+    }
+
+    /**
+     * Summaries whose registration has started and not yet ended, closing soonest first.
+     * Needs the registrationEndDate, registrationStartDate index in firestore.indexes.json.
+     * @param db The connection to the firebase database
+     * @param now Current time
+     * @return The query
+     */
+    public static Query ongoingQuery(FirebaseFirestore db, Date now) {
+        return collection(db)
+                .whereLessThanOrEqualTo("registrationStartDate", now)
+                .whereGreaterThan("registrationEndDate", now)
+                .orderBy("registrationEndDate");
+    }
+
+    /**
+     * Summaries whose registration hasn't started yet, opening soonest first.
+     * @param db The connection to the firebase database
+     * @param now Current time
+     * @return The query
+     */
+    public static Query upcomingQuery(FirebaseFirestore db, Date now) {
+        return collection(db)
+                .whereGreaterThan("registrationStartDate", now)
+                .orderBy("registrationStartDate");
+    }
+
+    /**
+     * Checks that a summary was written in full and not only by a counter update
+     * on an event created before summaries existed.
+     * @param summary Summary document
+     * @return true if the summary can be shown in a list
+     */
+    public static boolean isComplete(DocumentSnapshot summary) {
+        return summary.contains("createdAt") && summary.contains("registrationStartDate")
+                && summary.contains("registrationEndDate");
+    }
+
+    /**
+     * Keeps only the fields that belong in a summary.
+     * Values are copied as they are, so FieldValue increments and deletes carry over.
+     * @param fields Event fields or updates
+     * @return The summary fields, possibly empty
+     */
+    static Map<String, Object> project(Map<String, Object> fields) {
+        Map<String, Object> summary = new HashMap<>();
+        for (String field : FIELDS) {
+            if (fields.containsKey(field)) {
+                summary.put(field, fields.get(field));
+            }
+        }
+        return summary;
+    }
+
+    /**
+     * Builds the summary of a new event.
+     * @param event The event
+     * @return The summary fields
+     */
+    static Map<String, Object> of(Event event) {
+        Map<String, Object> summary = new HashMap<>();
+        summary.put("organizerId", event.getOrganizerId());
+        summary.put("organizerName", event.getOrganizerName());
+        summary.put("eventName", event.getEventName());
+        summary.put("registrationRange", event.getRegistrationRange());
+        summary.put("registrationStartDate", event.getRegistrationStartDate());
+        summary.put("registrationEndDate", event.getRegistrationEndDate());
+        summary.put("eventDate", event.getEventDate());
+        summary.put("maxParticipants", event.getMaxParticipants());
+        summary.put("eventLocation", event.getEventLocation());
+        summary.put("bannerRef", event.getBannerRef());
+        summary.put("createdAt", event.getCreatedAt());
+        summary.put(EventCounters.WAITLIST, event.getCurrentWaitlistCount());
+        return summary;
+    }
+
+    /**
+     * Adds the event and its summary to a batch.
+     * @param batch Batch the event is created in
+     * @param eventRef Reference to the event document
+     * @param event The event
+     */
+    public static void create(WriteBatch batch, DocumentReference eventRef, Event event) {
+        batch.set(eventRef, event);
+        batch.set(ref(eventRef), of(event));
+    }
+
+    /**
+     * Updates an event and its summary together.
+     * Fields that aren't part of the summary are only written to the event.
+     * @param eventRef Reference to the event document
+     * @param updates Field updates for the event
+     * @return Task that completes once both documents are written
+     */
+    public static Task<Void> update(DocumentReference eventRef, Map<String, Object> updates) {
+        WriteBatch batch = eventRef.getFirestore().batch();
+        batch.update(eventRef, updates);
+        mirror(batch, eventRef, updates);
+        return batch.commit();
+    }
+
+    /**
+     * Adds the summary side of an event update to a batch.
+     * The summary is merged so the batch still succeeds for events whose summary
+     * hasn't been written yet.
+     * @param batch Batch the event update is written in
+     * @param eventRef Reference to the event document
+     * @param updates Field updates for the event
+     */
+    public static void mirror(WriteBatch batch, DocumentReference eventRef, Map<String, Object> updates) {
+        Map<String, Object> summary = project(updates);
+        if (!summary.isEmpty()) {
+            batch.set(ref(eventRef), summary, SetOptions.merge());
+        }
+    }
+
+    /**
+     * Adds the summary side of an event update to a transaction.
+     * @param transaction Transaction the event update is written in
+     * @param eventRef Reference to the event document
+     * @param updates Field updates for the event
+     */
+    public static void mirror(Transaction transaction, DocumentReference eventRef, Map<String, Object> updates) {
+        Map<String, Object> summary = project(updates);
+        if (!summary.isEmpty()) {
+            transaction.set(ref(eventRef), summary, SetOptions.merge());
+        }
+    }
+
+    /**
+     * Rewrites an event's summary from the full event document.
+     * @param snapshot Event document
+     * @return Task that completes once the summary is written
+     */
+    public static Task<Void> refresh(DocumentSnapshot snapshot) {
+        Map<String, Object> data = snapshot.getData();
+        if (data == null) {
+            return Tasks.forResult(null);
+        }
+        return ref(snapshot.getReference()).set(project(data));
+    }
+
+    /**
+     * Writes a summary for every event. Used once for events created before summaries
+     * existed (run by DataMigrations), and safe to rerun since each summary is rebuilt from its event.
+     * @param db The connection to the firebase database
+     * @return Task with the number of summaries written
+     */
+    public static Task<Integer> backfill(FirebaseFirestore db) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger written = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+
+        PagedCollectionLoader.forQuery(db.collection("events").orderBy(FieldPath.documentId()), PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        WriteBatch batch = db.batch();
+                        for (DocumentSnapshot doc : page) {
+                            Map<String, Object> data = doc.getData();
+                            if (data == null) continue;
+                            batch.set(ref(doc.getReference()), project(data));
+                            written.incrementAndGet();
+                        }
+                        pending.add(batch.commit());
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(written.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+}
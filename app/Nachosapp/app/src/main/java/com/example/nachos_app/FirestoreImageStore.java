@@ -0,0 +1,78 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.Blob;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.io.FileNotFoundException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ImageStore backed by the imageBlobs/{key} collection in Firestore.
+ * Each image is a single document holding the bytes as a Blob, so images must stay
+ * under Firestore's 1 MB document limit (banners are capped at 500 KB when uploaded).
+ * Pointing FirebaseFirestore at the emulator gives a local backend for testing.
+ */
+public class FirestoreImageStore implements ImageStore {
+
+    private static FirestoreImageStore instance;
+
+    private final FirebaseFirestore db;
+
+    /**
+     * @param db The connection to the firebase database
+     */
+    public FirestoreImageStore(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * @return Shared store using the default FirebaseFirestore instance
+     */
+    public static synchronized FirestoreImageStore getInstance() {
+        if (instance == null) {
+            instance = new FirestoreImageStore(FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    @Override
+    public Task<String> put(byte[] bytes) {
+        String key = ImageStore.keyFor(bytes);
+
+        Map<String, Object> blob = new HashMap<>();
+        blob.put("data", Blob.fromBytes(bytes));
+        blob.put("size", bytes.length);
+        blob.put("createdAt", FieldValue.serverTimestamp());
+
+        // Same key always means same bytes, so rewriting an existing image is harmless
+        return db.collection("imageBlobs")
+                .document(key)
+                .set(blob)
+                .continueWith(task -> {
+                    task.getResult();
+                    return key;
+                });
+    }
+
+    @Override
+    public Task<byte[]> get(String key) {
+        return db.collection("imageBlobs")
+                .document(key)
+                .get()
+                .continueWith(task -> {
+                    Blob blob = task.getResult().getBlob("data");
+                    if (blob == null) {
+                        throw new FileNotFoundException("No image stored for " + key);
+                    }
+                    return blob.toBytes();
+                });
+    }
+
+    @Override
+    public Task<Void> delete(String key) {
+        return db.collection("imageBlobs").document(key).delete();
+    }
+}
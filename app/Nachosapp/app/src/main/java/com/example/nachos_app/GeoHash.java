@@ -0,0 +1,182 @@
+package com.example.nachos_app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Geohash encoding and the hash ranges that cover a map viewport.
+ * A geohash interleaves longitude and latitude bits into a base32 string, so points
+ * that share a prefix are close together and a rectangle can be covered by a few
+ * prefix ranges. Ordering a collection by its geohash field and querying each range
+ * reads only entries in or near the rectangle.
+ */
+public final class GeoHash {
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+
+    /** Precision stored on entries, about 1 m across */
+    public static final int STORED_PRECISION = 10;
+    /** Most cells a viewport is covered with; the finest precision under this is used */
+    static final int MAX_CELLS = 16;
+    /** Sorts after every base32 character, so hash + END covers every hash with that prefix */
+    static final String END = "~";
+
+    private GeoHash() {
+    }
+
+    /**
+     * Encodes a point.
+     * @param latitude Latitude in degrees
+     * @param longitude Longitude in degrees
+     * @param precision Number of characters
+     * @return The point's geohash
+     */
+    public static String encode(double latitude, double longitude, int precision) {
+        double minLat = -90, maxLat = 90;
+        double minLng = -180, maxLng = 180;
+        StringBuilder hash = new StringBuilder(precision);
+        boolean lngBit = true;
+        int bits = 0;
+        int ch = 0;
+
+        while (hash.length() < precision) {
+            if (lngBit) {
+                double mid = (minLng + maxLng) / 2;
+                if (longitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLng = mid;
+                } else {
+                    ch <<= 1;
+                    maxLng = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (latitude >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch <<= 1;
+                    maxLat = mid;
+                }
+            }
+            lngBit = !lngBit;
+            if (++bits == 5) {
+                hash.append(BASE32.charAt(ch));
+                bits = 0;
+                ch = 0;
+            }
+        }
+        return hash.toString();
+    }
+
+    /**
+     * Finds the geohash ranges that cover a rectangle. Cells next to each other in hash
+     * order are merged into one range. A rectangle crossing the antimeridian
+     * (west > east) is covered in two halves.
+     * @param south Southern edge in degrees
+     * @param west Western edge in degrees
+     * @param north Northern edge in degrees
+     * @param east Eastern edge in degrees
+     * @return Ranges as {start, end} pairs, to query with startAt(start).endAt(end)
+     */
+    public static List<String[]> ranges(double south, double west, double north, double east) {
+        List<String> cells = new ArrayList<>();
+        if (west > east) {
+            if (!cover(south, west, north, 180, cells) || !cover(south, -180, north, east, cells)) {
+                return everything();
+            }
+        } else if (!cover(south, west, north, east, cells)) {
+            return everything();
+        }
+
+        Collections.sort(cells);
+        List<String[]> ranges = new ArrayList<>();
+        String start = null;
+        String last = null;
+        for (String cell : cells) {
+            if (cell.equals(last)) continue;
+            if (last != null && cell.length() == last.length() && cell.equals(next(last))) {
+                last = cell;
+                continue;
+            }
+            if (start != null) ranges.add(new String[] {start, last + END});
+            start = cell;
+            last = cell;
+        }
+        if (start != null) ranges.add(new String[] {start, last + END});
+        return ranges;
+    }
+
+    // Adds the cells covering a rectangle that doesn't cross the antimeridian, at the
+    // finest precision that needs at most MAX_CELLS. Returns false if even one character is too many.
+    private static boolean cover(double south, double west, double north, double east, List<String> cells) {
+        int precision = 0;
+        for (int p = 1; p <= STORED_PRECISION; p++) {
+            if (cellCount(south, west, north, east, p) > MAX_CELLS) break;
+            precision = p;
+        }
+        if (precision == 0) return false;
+
+        int lngBits = (5 * precision + 1) / 2;
+        int latBits = 5 * precision / 2;
+        double cellWidth = 360.0 / (1L << lngBits);
+        double cellHeight = 180.0 / (1L << latBits);
+
+        int firstCol = column(west, cellWidth, lngBits);
+        int lastCol = column(east, cellWidth, lngBits);
+        int firstRow = row(south, cellHeight, latBits);
+        int lastRow = row(north, cellHeight, latBits);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                // Encode the cell's centre to get its hash
+                cells.add(encode(-90 + (r + 0.5) * cellHeight, -180 + (c + 0.5) * cellWidth, precision));
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return Number of cells of the given precision needed to cover the rectangle
+     */
+    static long cellCount(double south, double west, double north, double east, int precision) {
+        int lngBits = (5 * precision + 1) / 2;
+        int latBits = 5 * precision / 2;
+        double cellWidth = 360.0 / (1L << lngBits);
+        double cellHeight = 180.0 / (1L << latBits);
+        long cols = column(east, cellWidth, lngBits) - column(west, cellWidth, lngBits) + 1;
+        long rows = row(north, cellHeight, latBits) - row(south, cellHeight, latBits) + 1;
+        return cols * rows;
+    }
+
+    private static int column(double longitude, double cellWidth, int lngBits) {
+        int col = (int) Math.floor((longitude + 180) / cellWidth);
+        return Math.max(0, Math.min((1 << lngBits) - 1, col));
+    }
+
+    private static int row(double latitude, double cellHeight, int latBits) {
+        int row = (int) Math.floor((latitude + 90) / cellHeight);
+        return Math.max(0, Math.min((1 << latBits) - 1, row));
+    }
+
+    // The hash that follows this one in sort order at the same precision, or null for the last
+    private static String next(String hash) {
+        char[] chars = hash.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int index = BASE32.indexOf(chars[i]);
+            if (index < BASE32.length() - 1) {
+                chars[i] = BASE32.charAt(index + 1);
+                return new String(chars);
+            }
+            chars[i] = BASE32.charAt(0);
+        }
+        return null;
+    }
+
+    // Viewports too large to split usefully read the whole list
+    private static List<String[]> everything() {
+        List<String[]> ranges = new ArrayList<>();
+        ranges.add(new String[] {"", END});
+        return ranges;
+    }
+}
@@ -0,0 +1,288 @@
+package com.example.nachos_app;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Matrix;
+import android.media.ExifInterface;
+import android.net.Uri;
+import android.os.Build;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.CancellationToken;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Turns a picked image into banner bytes for the ImageStore.
+ * The image's bounds are read first and it is decoded with the largest inSampleSize
+ * that still covers the banner size, so a 12 MP photo never has to fit in memory whole.
+ * The EXIF orientation is applied while scaling down to at most MAX_WIDTH x MAX_HEIGHT,
+ * in a single transform. The result is encoded as lossy WebP, with the quality found by
+ * binary search: the highest quality whose output fits TARGET_BYTES.
+ * Work runs on a small executor with a bounded queue, and stops between steps once
+ * its cancellation token is cancelled.
+ */
+public class ImageIngestPipeline {
+
+    static final int MAX_WIDTH = 800;
+    static final int MAX_HEIGHT = 600;
+    /** Size the quality search aims to stay under */
+    static final int TARGET_BYTES = 150 * 1024;
+    /** Largest banner accepted; images are stored as Firestore documents, limited to 1 MB */
+    static final int MAX_BYTES = 500_000;
+    static final int MIN_QUALITY = 40;
+    static final int MAX_QUALITY = 90;
+
+    private static final int INGEST_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 8;
+
+    private static ImageIngestPipeline instance;
+
+    private final ExecutorService executor;
+
+    /**
+     * The image can't be encoded under MAX_BYTES even at the lowest quality.
+     */
+    public static class TooLargeException extends IOException {
+        TooLargeException(int bytes) {
+            super("Image too large: " + bytes + " bytes");
+        }
+    }
+
+    /**
+     * Encodes an image at a given quality. Lets tests run the quality search without bitmaps.
+     */
+    interface Encoder {
+        /**
+         * @param quality Quality from 0 to 100
+         * @return The encoded image
+         */
+        byte[] encode(int quality);
+    }
+
+    /**
+     * @param executor Executor decoding and encoding run on
+     */
+    ImageIngestPipeline(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return Shared pipeline
+     */
+    public static synchronized ImageIngestPipeline getInstance() {
+        if (instance == null) {
+            instance = new ImageIngestPipeline(new ThreadPoolExecutor(INGEST_THREADS, INGEST_THREADS,
+                    30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY)));
+        }
+        return instance;
+    }
+
+    /**
+     * Decodes, orients, scales and encodes a picked image.
+     * @param resolver Content resolver to open the image with
+     * @param uri The picked image
+     * @param cancellationToken Token to stop the work early, or null
+     * @return Task with the WebP bytes. Fails with CancellationException if cancelled,
+     *         TooLargeException if it won't fit MAX_BYTES, or IOException if it can't be read.
+     */
+    public Task<byte[]> ingest(ContentResolver resolver, Uri uri, @Nullable CancellationToken cancellationToken) {
+        try {
+            return Tasks.call(executor, () -> process(resolver, uri, cancellationToken));
+        } catch (RejectedExecutionException e) {
+            return Tasks.forException(e);
+        }
+    }
+
+    private static byte[] process(ContentResolver resolver, Uri uri, @Nullable CancellationToken token)
+            throws IOException {
+        // Read only the dimensions
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        try (InputStream in = open(resolver, uri)) {
+            BitmapFactory.decodeStream(in, null, options);
+        }
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            throw new IOException("Not an image");
+        }
+
+        int orientation;
+        try (InputStream in = open(resolver, uri)) {
+            orientation = new ExifInterface(in).getAttributeInt(
+                    ExifInterface.TAG_ORIENTATION, ExifInterface.ORIENTATION_NORMAL);
+        }
+        boolean swapsSides = swapsSides(orientation);
+        int width = swapsSides ? options.outHeight : options.outWidth;
+        int height = swapsSides ? options.outWidth : options.outHeight;
+        checkCancelled(token);
+
+        // Sample down by a power of two while still covering the banner size
+        float scale = scale(width, height);
+        int reqWidth = Math.round(width * scale);
+        int reqHeight = Math.round(height * scale);
+        options.inSampleSize = ImageUtils.calculateInSampleSize(width, height, reqWidth, reqHeight);
+        options.inPreferredConfig = "image/jpeg".equals(options.outMimeType)
+                ? Bitmap.Config.RGB_565
+                : Bitmap.Config.ARGB_8888;
+        options.inJustDecodeBounds = false;
+
+        Bitmap sampled;
+        try (InputStream in = open(resolver, uri)) {
+            sampled = BitmapFactory.decodeStream(in, null, options);
+        }
+        if (sampled == null) {
+            throw new IOException("Failed to decode image");
+        }
+        checkCancelled(token, sampled);
+
+        // Rotate and scale down to the banner size in one transform
+        Matrix matrix = orientationMatrix(orientation);
+        int sampledWidth = swapsSides ? sampled.getHeight() : sampled.getWidth();
+        int sampledHeight = swapsSides ? sampled.getWidth() : sampled.getHeight();
+        float finalScale = Math.min(1f, Math.min((float) reqWidth / sampledWidth, (float) reqHeight / sampledHeight));
+        matrix.postScale(finalScale, finalScale);
+        Bitmap banner = Bitmap.createBitmap(sampled, 0, 0, sampled.getWidth(), sampled.getHeight(), matrix, true);
+        if (banner != sampled) {
+            sampled.recycle();
+        }
+        checkCancelled(token, banner);
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(TARGET_BYTES);
+        byte[] bytes = searchQuality(quality -> {
+            out.reset();
+            banner.compress(webp(), quality, out);
+            return out.toByteArray();
+        }, TARGET_BYTES, MIN_QUALITY, MAX_QUALITY);
+        banner.recycle();
+
+        if (bytes.length > MAX_BYTES) {
+            throw new TooLargeException(bytes.length);
+        }
+        return bytes;
+    }
+
+    /**
+     * Finds the highest quality whose output fits the target, by binary search.
+     * @param encoder Encoder to try qualities with
+     * @param targetBytes Size to stay under
+     * @param minQuality Lowest quality to try
+     * @param maxQuality Highest quality to try
+     * @return The output at the highest quality that fits, or at minQuality if none does
+     */
+    static byte[] searchQuality(Encoder encoder, int targetBytes, int minQuality, int maxQuality) {
+        byte[] best = null;
+        int low = minQuality;
+        int high = maxQuality;
+        while (low <= high) {
+            int quality = (low + high) >>> 1;
+            byte[] bytes = encoder.encode(quality);
+            if (bytes.length <= targetBytes) {
+                best = bytes;
+                low = quality + 1;
+            } else {
+                high = quality - 1;
+            }
+        }
+        return (best != null) ? best : encoder.encode(minQuality);
+    }
+
+    /**
+     * @param width Width of the upright image
+     * @param height Height of the upright image
+     * @return Factor that fits the image inside MAX_WIDTH x MAX_HEIGHT, never above 1
+     */
+    static float scale(int width, int height) {
+        return Math.min(1f, Math.min((float) MAX_WIDTH / width, (float) MAX_HEIGHT / height));
+    }
+
+    /**
+     * @param orientation EXIF orientation
+     * @return true if the image is stored on its side, so width and height swap once upright
+     */
+    static boolean swapsSides(int orientation) {
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_ROTATE_90:
+            case ExifInterface.ORIENTATION_ROTATE_270:
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    // Transform that turns an image stored with this orientation upright
+    private static Matrix orientationMatrix(int orientation) {
+        Matrix matrix = new Matrix();
+        switch (orientation) {
+            case ExifInterface.ORIENTATION_FLIP_HORIZONTAL:
+                matrix.setScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_180:
+                matrix.setRotate(180);
+                break;
+            case ExifInterface.ORIENTATION_FLIP_VERTICAL:
+                matrix.setScale(1, -1);
+                break;
+            case ExifInterface.ORIENTATION_TRANSPOSE:
+                matrix.setRotate(90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_90:
+                matrix.setRotate(90);
+                break;
+            case ExifInterface.ORIENTATION_TRANSVERSE:
+                matrix.setRotate(-90);
+                matrix.postScale(-1, 1);
+                break;
+            case ExifInterface.ORIENTATION_ROTATE_270:
+                matrix.setRotate(-90);
+                break;
+            default:
+                break;
+        }
+        return matrix;
+    }
+
+    @SuppressWarnings("deprecation")
+    private static Bitmap.CompressFormat webp() {
+        // WEBP is lossy below API 30 for qualities under 100, which is all the search uses
+        return (Build.VERSION.SDK_INT >= Build.VERSION_CODES.R)
+                ? Bitmap.CompressFormat.WEBP_LOSSY
+                : Bitmap.CompressFormat.WEBP;
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri uri) throws IOException {
+        InputStream in = resolver.openInputStream(uri);
+        if (in == null) {
+            throw new IOException("Cannot open " + uri);
+        }
+        return in;
+    }
+
+    private static void checkCancelled(@Nullable CancellationToken token) {
+        if (token != null && token.isCancellationRequested()) {
+            throw new CancellationException("Image ingest cancelled");
+        }
+    }
+
+    // Frees the bitmap before giving up, so a cancelled upload doesn't hold its pixels
+    private static void checkCancelled(@Nullable CancellationToken token, Bitmap bitmap) {
+        if (token != null && token.isCancellationRequested()) {
+            bitmap.recycle();
+            throw new CancellationException("Image ingest cancelled");
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package com.example.nachos_app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.DisplayMetrics;
+import android.util.Base64;
+import android.util.Log;
+import android.util.LruCache;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+
+import androidx.annotation.Nullable;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Loads event images into ImageViews off the main thread, with two cache tiers:
+ * an in-memory LruCache of decoded bitmaps bounded by their byte size, and a disk
+ * cache of the decoded images in the app's cache folder.
+ * Images are decoded at the size of the view showing them (see
+ * ImageUtils.decodeSampledBitmap) and cached per content hash and size, so a cached
+ * image never goes stale. Each view remembers its current request, and rebinding a recycled
+ * view cancels the old one, so a late image never lands in the wrong row.
+ */
+public class ImageLoader {
+
+    private static final String TAG = "ImageLoader";
+    private static final int DECODE_THREADS = 2;
+    private static final long MAX_DISK_BYTES = 50L * 1024 * 1024;
+
+    private static ImageLoader instance;
+
+    private final LruCache<String, Bitmap> memoryCache;
+    private final File diskDir;
+    private final ImageStore store;
+    private final ExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+
+    // Content keys of legacy base64 strings already hashed, so repeat binds skip the hash
+    private final Map<String, String> legacyKeys = Collections.synchronizedMap(new WeakHashMap<>());
+
+    /**
+     * A single load into a view. Held in the view's tag until the image arrives
+     * or the view is rebound.
+     */
+    private static class Request {
+        volatile boolean cancelled;
+        Future<?> future;
+    }
+
+    /**
+     * @param diskDir Folder for the disk cache (created if missing)
+     * @param store Store to fetch images that are not cached
+     * @param memoryBytes Maximum total size of the bitmaps kept in memory
+     * @param executor Executor the disk reads and decodes run on
+     */
+    ImageLoader(File diskDir, ImageStore store, int memoryBytes, ExecutorService executor) {
+        this.diskDir = diskDir;
+        this.store = store;
+        this.executor = executor;
+        this.memoryCache = new LruCache<String, Bitmap>(memoryBytes) {
+            @Override
+            protected int sizeOf(String key, Bitmap bitmap) {
+                return bitmap.getAllocationByteCount();
+            }
+        };
+    }
+
+    /**
+     * @param context Any context, used to find the cache folder
+     * @return Shared loader using an eighth of the app's heap for its memory cache
+     */
+    public static synchronized ImageLoader getInstance(Context context) {
+        if (instance == null) {
+            int memoryBytes = (int) Math.min(Integer.MAX_VALUE, Runtime.getRuntime().maxMemory() / 8);
+            instance = new ImageLoader(new File(context.getApplicationContext().getCacheDir(), "images"),
+                    FirestoreImageStore.getInstance(), memoryBytes, Executors.newFixedThreadPool(DECODE_THREADS));
+        }
+        return instance;
+    }
+
+    /**
+     * Shows an image in a view, decoded at the view's size.
+     * Uses the view's measured size, or its layout size if it hasn't been laid out yet.
+     * @param imageView The ImageView to load the image into
+     * @param imageKey ImageStore key, or null if the image only exists as base64
+     * @param legacyBase64 Base64 image from before the ImageStore, or null
+     * @param placeholderResId Resource ID shown while loading or if loading fails
+     */
+    public void load(ImageView imageView, @Nullable String imageKey,
+                     @Nullable String legacyBase64, int placeholderResId) {
+        DisplayMetrics metrics = imageView.getResources().getDisplayMetrics();
+        ViewGroup.LayoutParams params = imageView.getLayoutParams();
+
+        int width = imageView.getWidth();
+        if (width <= 0) width = (params != null && params.width > 0) ? params.width : metrics.widthPixels;
+        int height = imageView.getHeight();
+        if (height <= 0) height = (params != null && params.height > 0) ? params.height : metrics.heightPixels;
+
+        load(imageView, imageKey, legacyBase64, placeholderResId, width, height);
+    }
+
+    /**
+     * Shows an image in a view, from the memory cache if possible, otherwise
+     * showing the placeholder while it loads in the background.
+     * @param imageView The ImageView to load the image into
+     * @param imageKey ImageStore key, or null if the image only exists as base64
+     * @param legacyBase64 Base64 image from before the ImageStore, or null
+     * @param placeholderResId Resource ID shown while loading or if loading fails
+     * @param width Width to decode the image for, in pixels
+     * @param height Height to decode the image for, in pixels
+     */
+    public void load(ImageView imageView, @Nullable String imageKey, @Nullable String legacyBase64,
+                     int placeholderResId, int width, int height) {
+        cancel(imageView);
+
+        boolean hasKey = imageKey != null && !imageKey.isEmpty();
+        boolean hasBase64 = legacyBase64 != null && !legacyBase64.isEmpty();
+        if (!hasKey && !hasBase64) {
+            imageView.setImageResource(placeholderResId);
+            return;
+        }
+
+        String contentKey = hasKey ? imageKey : legacyKeys.get(legacyBase64);
+        if (contentKey != null) {
+            Bitmap cached = memoryCache.get(cacheKey(contentKey, width, height));
+            if (cached != null) {
+                imageView.setImageBitmap(cached);
+                return;
+            }
+        }
+
+        imageView.setImageResource(placeholderResId);
+        Request request = new Request();
+        imageView.setTag(R.id.tag_image_request, request);
+        request.future = executor.submit(() -> {
+            if (!hasKey) {
+                deliver(imageView, request, loadBase64(legacyBase64, width, height));
+                return;
+            }
+
+            String cacheKey = cacheKey(imageKey, width, height);
+            Bitmap bitmap = fromCaches(cacheKey);
+            if (bitmap != null) {
+                deliver(imageView, request, bitmap);
+                return;
+            }
+
+            // Not cached: fetch the bytes and decode them back on the executor
+            store.get(imageKey)
+                    .addOnSuccessListener(executor, bytes -> {
+                        if (request.cancelled) return;
+                        deliver(imageView, request, decodeAndCache(cacheKey, bytes, width, height));
+                    })
+                    .addOnFailureListener(e -> Log.w(TAG, "Failed to load image " + imageKey, e));
+        });
+    }
+
+    // Hand a loaded bitmap to the view on the main thread, unless the view was rebound
+    private void deliver(ImageView imageView, Request request, @Nullable Bitmap bitmap) {
+        if (bitmap == null || request.cancelled) return;
+
+        mainHandler.post(() -> {
+            if (request.cancelled || imageView.getTag(R.id.tag_image_request) != request) return;
+            imageView.setTag(R.id.tag_image_request, null);
+            imageView.setImageBitmap(bitmap);
+        });
+    }
+
+    /**
+     * Cancels the load in progress for a view, if any.
+     * @param imageView View whose request should be dropped
+     */
+    public void cancel(ImageView imageView) {
+        Object tag = imageView.getTag(R.id.tag_image_request);
+        if (tag instanceof Request) {
+            Request request = (Request) tag;
+            request.cancelled = true;
+            if (request.future != null) {
+                request.future.cancel(false);
+            }
+        }
+        imageView.setTag(R.id.tag_image_request, null);
+    }
+
+    /**
+     * Drops every bitmap held in memory. The disk cache is kept.
+     */
+    public void clearMemory() {
+        memoryCache.evictAll();
+    }
+
+    // Same image at different sizes gets separate cache entries
+    private static String cacheKey(String contentKey, int width, int height) {
+        return contentKey + "_" + width + "x" + height;
+    }
+
+    // Runs on the executor: hash the legacy image so it shares the caches with stored images
+    @Nullable
+    private Bitmap loadBase64(String base64, int width, int height) {
+        try {
+            byte[] bytes = Base64.decode(base64, Base64.DEFAULT);
+            String contentKey = ImageStore.keyFor(bytes);
+            legacyKeys.put(base64, contentKey);
+
+            String cacheKey = cacheKey(contentKey, width, height);
+            Bitmap bitmap = fromCaches(cacheKey);
+            if (bitmap != null) return bitmap;
+            return decodeAndCache(cacheKey, bytes, width, height);
+        } catch (IllegalArgumentException e) {
+            Log.w(TAG, "Invalid base64 image", e);
+            return null;
+        }
+    }
+
+    @Nullable
+    private Bitmap fromCaches(String key) {
+        Bitmap bitmap = memoryCache.get(key);
+        if (bitmap != null) return bitmap;
+
+        File file = new File(diskDir, key);
+        if (!file.exists()) return null;
+
+        // Cached files are already downsampled; opaque ones are JPEGs and decode to RGB_565
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inPreferredConfig = Bitmap.Config.RGB_565;
+        bitmap = BitmapFactory.decodeFile(file.getPath(), options);
+        if (bitmap != null) {
+            // Touch the file so disk trimming drops the least recently used images first
+            file.setLastModified(System.currentTimeMillis());
+            memoryCache.put(key, bitmap);
+        }
+        return bitmap;
+    }
+
+    @Nullable
+    private Bitmap decodeAndCache(String key, byte[] bytes, int width, int height) {
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(bytes, width, height);
+        if (bitmap == null) return null;
+
+        memoryCache.put(key, bitmap);
+        writeToDisk(key, bitmap);
+        return bitmap;
+    }
+
+    private void writeToDisk(String key, Bitmap bitmap) {
+        if (!diskDir.exists() && !diskDir.mkdirs()) return;
+
+        // Write to a temp file first so a partly written image is never read back
+        File file = new File(diskDir, key);
+        File temp = new File(diskDir, key + ".tmp");
+        try (OutputStream out = new FileOutputStream(temp)) {
+            if (bitmap.hasAlpha()) {
+                bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+            } else {
+                bitmap.compress(Bitmap.CompressFormat.JPEG, 90, out);
+            }
+        } catch (IOException e) {
+            temp.delete();
+            return;
+        }
+        if (!temp.renameTo(file)) {
+            temp.delete();
+            return;
+        }
+        trimDisk();
+    }
+
+    // Delete the least recently used files until the cache is back under its limit
+    private synchronized void trimDisk() {
+        File[] files = diskDir.listFiles();
+        if (files == null) return;
+
+        long total = 0;
+        for (File f : files) total += f.length();
+        if (total <= MAX_DISK_BYTES) return;
+
+        Arrays.sort(files, (a, b) -> Long.compare(a.lastModified(), b.lastModified()));
+        for (File f : files) {
+            if (total <= MAX_DISK_BYTES * 3 / 4) break;
+            long length = f.length();
+            if (f.delete()) total -= length;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.nachos_app;
+
+import android.util.Base64;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One-off migration that moves base64 banners out of event documents.
+ * Each legacy banner is decoded, stored in an ImageStore, and replaced on the event by
+ * its key (bannerUrl -> bannerRef). QR images aren't moved; QrCodeMigration drops them.
+ * Events that are already migrated are skipped, so the migration can be rerun safely.
+ * Run by DataMigrations.
+ */
+public class ImageMigration {
+
+    // Legacy events can be close to 1 MB each, so keep pages small
+    private static final int PAGE_SIZE = 20;
+
+    private ImageMigration() {
+    }
+
+    /**
+     * Migrates every event's legacy base64 banner into the store.
+     * @param db The connection to the firebase database
+     * @param store Store the banners are moved into
+     * @return Task with the number of events that were updated
+     */
+    public static Task<Integer> migrateEvents(FirebaseFirestore db, ImageStore store) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger migrated = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+
+        PagedCollectionLoader.forQuery(db.collection("events").orderBy(FieldPath.documentId()), PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            Task<Boolean> task = migrateEvent(doc, store);
+                            pending.add(task.continueWith(t -> {
+                                if (Boolean.TRUE.equals(t.getResult())) migrated.incrementAndGet();
+                                return null;
+                            }));
+                        }
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(migrated.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+
+    /**
+     * Moves one event's legacy banner into the store.
+     * @param doc Event document
+     * @param store Store the banner is moved into
+     * @return Task with true if the event had a banner to migrate
+     */
+    static Task<Boolean> migrateEvent(DocumentSnapshot doc, ImageStore store) {
+        String banner = doc.getString("bannerUrl");
+        if (banner == null || banner.isEmpty()) {
+            return Tasks.forResult(false);
+        }
+
+        // Only drop the base64 field once the banner is safely stored
+        return store.put(Base64.decode(banner, Base64.DEFAULT)).continueWithTask(t -> {
+            Map<String, Object> updates = new HashMap<>();
+            updates.put("bannerRef", t.getResult());
+            updates.put("bannerUrl", FieldValue.delete());
+            return EventSummaries.update(doc.getReference(), updates);
+        }).continueWith(t -> {
+            t.getResult();
+            return true;
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Stores image bytes under a key derived from their content (SHA-256, hex encoded).
+ * Event documents keep only the key, so list queries don't download the images.
+ * Since the key is the hash of the bytes, storing the same image twice is a no-op
+ * and a key always refers to the same image.
+ */
+public interface ImageStore {
+
+    /**
+     * Stores the image and returns its key.
+     * @param bytes Encoded image (JPEG, PNG, ...)
+     * @return Task with the content key for the image
+     */
+    Task<String> put(byte[] bytes);
+
+    /**
+     * Loads an image by key.
+     * @param key Content key returned by put()
+     * @return Task with the image bytes. Fails if no image is stored under the key.
+     */
+    Task<byte[]> get(String key);
+
+    /**
+     * Deletes the image stored under a key. Deleting a missing key succeeds.
+     * @param key Content key returned by put()
+     * @return Task that completes once the image is deleted
+     */
+    Task<Void> delete(String key);
+
+    /**
+     * Computes the content key for an image.
+     * @param bytes Encoded image
+     * @return Lowercase hex SHA-256 of the bytes
+     */
+    static String keyFor(byte[] bytes) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+                hex.append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.SetOptions;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deletes stored images that no event points to any more.
+ * Images are shared by content key, so one can only go once no event's bannerRef (or
+ * legacy qrCodeRef) holds its key. Replacing or removing a banner deletes the old image
+ * straight away if it is unused (deleteIfUnreferenced); removing an event leaves its banner
+ * to the sweep (deleteUnreferenced), which AdminMenuActivity starts at most once a day.
+ * <p>
+ * An image stored in the last hour is never swept, since its event may not have been
+ * written yet. The time of the last sweep is stored at meta/imageSweep.
+ */
+public class ImageSweep {
+
+    /** Images younger than this are skipped by the sweep */
+    static final long GRACE_MS = 60 * 60 * 1000L;
+    /** Least time between sweeps */
+    static final long INTERVAL_MS = 24 * 60 * 60 * 1000L;
+
+    // Images can be up to 500 KB each, so keep pages small
+    private static final int PAGE_SIZE = 10;
+
+    private ImageSweep() {
+    }
+
+    /**
+     * Sweeps the stored images if the last sweep was more than a day ago.
+     * @param db The connection to the firebase database
+     * @param store Store the images are deleted from
+     * @return Task with the number of images deleted, or null if a sweep isn't due
+     */
+    public static Task<Integer> runIfDue(FirebaseFirestore db, ImageStore store) {
+        DocumentReference marker = db.collection("meta").document("imageSweep");
+        return marker.get().continueWithTask(t -> {
+            Date now = new Date();
+            if (!isDue(t.getResult().getDate("lastRun"), now)) {
+                return Tasks.forResult(null);
+            }
+            return deleteUnreferenced(db, store).onSuccessTask(deleted -> marker
+                    .set(Collections.singletonMap("lastRun", now), SetOptions.merge())
+                    .continueWith(m -> {
+                        m.getResult();
+                        return deleted;
+                    }));
+        });
+    }
+
+    /**
+     * Deletes every stored image older than an hour that no event points to.
+     * @param db The connection to the firebase database
+     * @param store Store the images are deleted from
+     * @return Task with the number of images deleted
+     */
+    public static Task<Integer> deleteUnreferenced(FirebaseFirestore db, ImageStore store) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger deleted = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+        Date now = new Date();
+
+        PagedCollectionLoader.forQuery(db.collection("imageBlobs").orderBy(FieldPath.documentId()), PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            if (!isSweepable(doc.getDate("createdAt"), now)) continue;
+                            pending.add(deleteIfUnreferenced(db, store, doc.getId()).continueWith(t -> {
+                                if (Boolean.TRUE.equals(t.getResult())) deleted.incrementAndGet();
+                                return null;
+                            }));
+                        }
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(deleted.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+
+    /**
+     * Deletes a stored image if no event points to it.
+     * @param db The connection to the firebase database
+     * @param store Store the image is deleted from
+     * @param key Content key of the image
+     * @return Task with true if the image was deleted
+     */
+    public static Task<Boolean> deleteIfUnreferenced(FirebaseFirestore db, ImageStore store, String key) {
+        Task<QuerySnapshot> banners = db.collection("events").whereEqualTo("bannerRef", key).limit(1).get();
+        Task<QuerySnapshot> qrCodes = db.collection("events").whereEqualTo("qrCodeRef", key).limit(1).get();
+
+        return Tasks.whenAllSuccess(banners, qrCodes).continueWithTask(t -> {
+            t.getResult();
+            if (!banners.getResult().isEmpty() || !qrCodes.getResult().isEmpty()) {
+                return Tasks.forResult(false);
+            }
+            return store.delete(key).continueWith(d -> {
+                d.getResult();
+                return true;
+            });
+        });
+    }
+
+    /**
+     * @param lastRun When the last sweep finished, or null if there hasn't been one
+     * @param now Current time
+     * @return true if a sweep should run
+     */
+    static boolean isDue(@Nullable Date lastRun, Date now) {
+        return lastRun == null || now.getTime() - lastRun.getTime() >= INTERVAL_MS;
+    }
+
+    /**
+     * @param createdAt When the image was last stored, or null if unknown
+     * @param now Current time
+     * @return true if the image is old enough for the sweep to delete
+     */
+    static boolean isSweepable(@Nullable Date createdAt, Date now) {
+        return createdAt != null && now.getTime() - createdAt.getTime() >= GRACE_MS;
+    }
+}
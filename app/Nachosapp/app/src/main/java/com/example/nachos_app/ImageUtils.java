@@ -4,11 +4,17 @@ import android.graphics.Bitmap;
 import android.graphics.BitmapFactory;
 import android.widget.ImageView;
 
+import androidx.annotation.Nullable;
+
+import java.nio.charset.StandardCharsets;
+
 /**
  * Utility class for handling image operations, specifically base64 encoding/decoding.
  * Provides methods to load base64 encoded images into ImageViews and decode
  * base64 strings to Bitmaps. Used throughout the app for displaying event banners
  * and QR codes stored in Firestore.
+ * Images stored in an ImageStore are loaded by key with loadStoredImage().
+ * decodeSampledBitmap() decodes an image at roughly the size it will be shown at.
  */
 public class ImageUtils {
 
@@ -55,4 +61,110 @@ public class ImageUtils {
             return null;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Decodes an image scaled down to about the size it will be shown at.
+     * Reads the image bounds first, decodes with the largest power of two inSampleSize
+     * that keeps both sides at least as large as requested, and uses RGB_565 for images
+     * without an alpha channel (JPEGs, and WebPs whose header says so, which is what
+     * ImageIngestPipeline stores). This halves memory per pixel on top of the sampling.
+     * @param bytes Encoded image
+     * @param reqWidth Width of the target view in pixels
+     * @param reqHeight Height of the target view in pixels
+     * @return Bitmap or null if decoding fails
+     */
+    public static Bitmap decodeSampledBitmap(byte[] bytes, int reqWidth, int reqHeight) {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+
+        // Read only the dimensions and type
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inJustDecodeBounds = true;
+        BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        if (options.outWidth <= 0 || options.outHeight <= 0) {
+            return null;
+        }
+
+        options.inSampleSize = calculateInSampleSize(options.outWidth, options.outHeight, reqWidth, reqHeight);
+        options.inPreferredConfig = isOpaque(options.outMimeType, bytes)
+                ? Bitmap.Config.RGB_565
+                : Bitmap.Config.ARGB_8888;
+        options.inJustDecodeBounds = false;
+        try {
+            return BitmapFactory.decodeByteArray(bytes, 0, bytes.length, options);
+        } catch (OutOfMemoryError e) {
+            return null;
+        }
+    }
+
+    /**
+     * Checks whether an encoded image has no alpha channel, without decoding it.
+     * @param mimeType Type reported by a bounds-only decode
+     * @param bytes Encoded image
+     * @return true for JPEGs and for WebPs that carry no alpha
+     */
+    static boolean isOpaque(@Nullable String mimeType, byte[] bytes) {
+        if ("image/jpeg".equals(mimeType)) return true;
+        return "image/webp".equals(mimeType) && !webpHasAlpha(bytes);
+    }
+
+    /**
+     * Reads the alpha flag from a WebP header. Simple lossy WebPs ("VP8 ") have no alpha;
+     * extended ones ("VP8X") and lossless ones ("VP8L") carry a flag for it.
+     * @param bytes Encoded WebP
+     * @return true if the image may have alpha, including when the header can't be read
+     */
+    static boolean webpHasAlpha(byte[] bytes) {
+        if (bytes.length < 25) return true;
+        String chunk = new String(bytes, 12, 4, StandardCharsets.US_ASCII);
+        switch (chunk) {
+            case "VP8 ":
+                return false;
+            case "VP8X":
+                return (bytes[20] & 0x10) != 0;
+            case "VP8L":
+                // 14 bits width, 14 bits height, then alpha_is_used, after the 0x2f signature
+                return (bytes[24] & 0x10) != 0;
+            default:
+                return true;
+        }
+    }
+
+    /**
+     * Finds the largest power of two sample size that keeps the decoded image
+     * at least as large as the target in both dimensions.
+     * @param width Width of the full image
+     * @param height Height of the full image
+     * @param reqWidth Width of the target view (0 or less for no limit)
+     * @param reqHeight Height of the target view (0 or less for no limit)
+     * @return inSampleSize to decode with, at least 1
+     */
+    public static int calculateInSampleSize(int width, int height, int reqWidth, int reqHeight) {
+        if (reqWidth <= 0 || reqHeight <= 0) {
+            return 1;
+        }
+
+        int inSampleSize = 1;
+        while ((width / (inSampleSize * 2)) >= reqWidth && (height / (inSampleSize * 2)) >= reqHeight) {
+            inSampleSize *= 2;
+        }
+        return inSampleSize;
+    }
+
+    /**
+     * Loads an image from the shared ImageStore into an ImageView.
+     * Falls back to a legacy base64 string for events that haven't been migrated yet.
+     * Decoding happens off the main thread through ImageLoader, which caches the
+     * decoded bitmaps and cancels the load if the view is rebound first.
+     * @param imageView The ImageView to load the image into
+     * @param imageKey ImageStore key, or null if the event has no stored image
+     * @param legacyBase64 Base64 image from before the ImageStore, or null
+     * @param placeholderResId Resource ID for placeholder if loading fails
+     */
+    public static void loadStoredImage(ImageView imageView, @Nullable String imageKey,
+                                       @Nullable String legacyBase64, int placeholderResId) {
+        ImageLoader.getInstance(imageView.getContext())
+                .load(imageView, imageKey, legacyBase64, placeholderResId);
+    }
+}
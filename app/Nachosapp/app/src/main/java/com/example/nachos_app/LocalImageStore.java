@@ -0,0 +1,86 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.Executor;
+
+/**
+ * ImageStore that keeps images as files named by their content key.
+ * Used for offline development and tests, where no Firestore backend is available.
+ * File I/O runs on the given executor.
+ */
+public class LocalImageStore implements ImageStore {
+
+    private final File directory;
+    private final Executor executor;
+
+    /**
+     * @param directory Folder to keep the images in (created if missing)
+     * @param executor Executor that runs the file reads and writes
+     */
+    public LocalImageStore(File directory, Executor executor) {
+        this.directory = directory;
+        this.executor = executor;
+    }
+
+    @Override
+    public Task<String> put(byte[] bytes) {
+        return Tasks.call(executor, () -> {
+            String key = ImageStore.keyFor(bytes);
+            File file = new File(directory, key);
+            if (file.exists()) {
+                return key;
+            }
+            if (!directory.exists() && !directory.mkdirs()) {
+                throw new IOException("Could not create " + directory);
+            }
+
+            // Write to a temp file first so a partly written image is never visible under its key
+            File temp = new File(directory, key + ".tmp");
+            try (OutputStream out = new FileOutputStream(temp)) {
+                out.write(bytes);
+            }
+            if (!temp.renameTo(file)) {
+                temp.delete();
+                throw new IOException("Could not store image " + key);
+            }
+            return key;
+        });
+    }
+
+    @Override
+    public Task<byte[]> get(String key) {
+        return Tasks.call(executor, () -> {
+            File file = new File(directory, key);
+            if (!file.exists()) {
+                throw new FileNotFoundException("No image stored for " + key);
+            }
+            byte[] bytes = new byte[(int) file.length()];
+            try (InputStream in = new FileInputStream(file)) {
+                int read = 0;
+                while (read < bytes.length) {
+                    int n = in.read(bytes, read, bytes.length - read);
+                    if (n < 0) throw new IOException("Image " + key + " was truncated");
+                    read += n;
+                }
+            }
+            return bytes;
+        });
+    }
+
+    @Override
+    public Task<Void> delete(String key) {
+        return Tasks.call(executor, () -> {
+            new File(directory, key).delete();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One-off migration that adds a geohash and the user's name to located waitlist entries
+ * written before WaitlistService stored them. Without it those entrants never show on
+ * WaitlistMapActivity, which only queries by geohash.
+ * Entries that already have a geohash are skipped, so the migration can be rerun safely.
+ * Run by DataMigrations.
+ */
+public class LocationMigration {
+
+    // One page of entries is updated in a single batch
+    private static final int PAGE_SIZE = 400;
+
+    private LocationMigration() {
+    }
+
+    /**
+     * Adds the map fields to every located waitlist entry of every event.
+     * @param db The connection to the firebase database
+     * @return Task with the number of entries that were updated
+     */
+    public static Task<Integer> migrateWaitlists(FirebaseFirestore db) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger migrated = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+
+        PagedCollectionLoader.forQuery(db.collectionGroup("waitlist").orderBy(FieldPath.documentId()), PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        pending.add(migratePage(db, page).continueWith(t -> {
+                            migrated.addAndGet(t.getResult());
+                            return null;
+                        }));
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(migrated.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+
+    /**
+     * Adds the map fields to one page of waitlist entries.
+     * @param db The connection to the firebase database
+     * @param page Waitlist entry documents
+     * @return Task with the number of entries updated
+     */
+    private static Task<Integer> migratePage(FirebaseFirestore db, List<DocumentSnapshot> page) {
+        List<DocumentSnapshot> toMigrate = new ArrayList<>();
+        List<String> uids = new ArrayList<>();
+        for (DocumentSnapshot doc : page) {
+            if (needsMigration(doc.getDouble("latitude"), doc.getDouble("longitude"),
+                    doc.getString(WaitlistService.GEOHASH))) {
+                toMigrate.add(doc);
+                uids.add(doc.getId());
+            }
+        }
+        if (toMigrate.isEmpty()) {
+            return Tasks.forResult(0);
+        }
+
+        return UserDirectory.getInstance().getAll(uids).continueWithTask(task -> {
+            Map<String, UserDirectory.Profile> profiles = task.getResult();
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot doc : toMigrate) {
+                Map<String, Object> update = new HashMap<>();
+                update.put(WaitlistService.GEOHASH, GeoHash.encode(doc.getDouble("latitude"),
+                        doc.getDouble("longitude"), GeoHash.STORED_PRECISION));
+                UserDirectory.Profile profile = profiles.get(doc.getId());
+                if (profile != null && profile.getName() != null) {
+                    update.put(WaitlistService.NAME, profile.getName());
+                }
+                batch.update(doc.getReference(), update);
+            }
+            return batch.commit().continueWith(t -> {
+                t.getResult();
+                return toMigrate.size();
+            });
+        });
+    }
+
+    /**
+     * @param latitude Entry's latitude, or null
+     * @param longitude Entry's longitude, or null
+     * @param geohash Entry's geohash, or null
+     * @return true if the entry has a location but no geohash
+     */
+    static boolean needsMigration(Double latitude, Double longitude, String geohash) {
+        return latitude != null && longitude != null && geohash == null;
+    }
+}
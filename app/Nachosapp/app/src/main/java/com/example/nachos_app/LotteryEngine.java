@@ -0,0 +1,85 @@
+package com.example.nachos_app;
+
+import java.security.SecureRandom;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Draws lottery winners from a compact array of entrant IDs.
+ * Uses a partial Fisher-Yates shuffle over a sparse swap table, so a draw costs
+ * O(k) time and memory in the number of winners no matter how long the waitlist is.
+ * Draws are seeded: the same entrant order, winner count and seed always give the
+ * same winners, which lets an organizer's draw be replayed for auditing.
+ */
+public class LotteryEngine {
+
+    private final long seed;
+
+    /**
+     * Creates an engine that draws with the given seed.
+     * @param seed Seed for the random number generator (stored with the draw for replay)
+     */
+    public LotteryEngine(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Creates an engine with a cryptographically random seed.
+     * Used for real draws so organizers cannot predict the outcome.
+     * @return New LotteryEngine
+     */
+    public static LotteryEngine withRandomSeed() {
+        return new LotteryEngine(new SecureRandom().nextLong());
+    }
+
+    /**
+     * @return the seed this engine draws with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * Picks k distinct positions out of [0, n) uniformly at random.
+     * Winners are returned in draw order.
+     * @param n Number of entrants
+     * @param k Number of winners to draw (capped at n)
+     * @return Array of winning positions
+     */
+    public int[] drawIndices(int n, int k) {
+        if (n < 0 || k < 0) {
+            throw new IllegalArgumentException("Entrant and winner counts must not be negative");
+        }
+        k = Math.min(k, n);
+
+        Random random = new Random(seed);
+        // Only positions that have been swapped are stored; all others hold their own index
+        Map<Integer, Integer> swapped = new HashMap<>(k * 2);
+        int[] winners = new int[k];
+
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            Integer atI = swapped.get(i);
+            Integer atJ = swapped.get(j);
+            winners[i] = (atJ != null) ? atJ : j;
+            swapped.put(j, (atI != null) ? atI : i);
+        }
+        return winners;
+    }
+
+    /**
+     * Draws k winners from the given entrant IDs.
+     * @param uids Entrant IDs, in a stable order (e.g. sorted by document ID)
+     * @param k Number of winners to draw (capped at uids.length)
+     * @return IDs of the winners, in draw order
+     */
+    public String[] draw(String[] uids, int k) {
+        int[] indices = drawIndices(uids.length, k);
+        String[] winners = new String[indices.length];
+        for (int i = 0; i < indices.length; i++) {
+            winners[i] = uids[indices[i]];
+        }
+        return winners;
+    }
+}
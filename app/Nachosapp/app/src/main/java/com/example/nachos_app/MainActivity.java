@@ -1,6 +1,8 @@
 package com.example.nachos_app;
 
 import android.os.Bundle;
+import android.view.View;
+import android.view.ViewTreeObserver;
 
 import com.google.android.material.bottomnavigation.BottomNavigationView;
 
@@ -41,6 +43,25 @@ public class MainActivity extends AppCompatActivity {
         NavController navController = Navigation.findNavController(this, R.id.nav_host_fragment_activity_main);
         NavigationUI.setupActionBarWithNavController(this, navController, appBarConfiguration);
         NavigationUI.setupWithNavController(binding.navView, navController);
+
+        traceFirstFrame(binding.getRoot());
+    }
+
+    /**
+     * Records the startup trace's first frame the first time the root view draws.
+     * @param root The activity's root view
+     */
+    private void traceFirstFrame(View root) {
+        ViewTreeObserver.OnDrawListener onDraw = new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                StartupTrace.mark(StartupTrace.FIRST_FRAME, "MainActivity");
+                // Listeners can't be removed while the tree is dispatching onDraw
+                ViewTreeObserver.OnDrawListener self = this;
+                root.post(() -> root.getViewTreeObserver().removeOnDrawListener(self));
+            }
+        };
+        root.getViewTreeObserver().addOnDrawListener(onDraw);
     }
 
 }
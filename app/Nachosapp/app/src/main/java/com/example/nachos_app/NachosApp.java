@@ -0,0 +1,46 @@
+package com.example.nachos_app;
+
+import android.app.Application;
+
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreSettings;
+import com.google.firebase.firestore.PersistentCacheIndexManager;
+import com.google.firebase.firestore.PersistentCacheSettings;
+
+/**
+ * Application class. Configures Firestore's local cache before anything else uses
+ * Firestore, so screens can render from the cache (see CacheFirst) while the server
+ * answers in the background.
+ * Does nothing if Firebase wasn't initialised, as in Robolectric unit tests, where the
+ * merged manifest makes every test start this class.
+ */
+public class NachosApp extends Application {
+
+    /**
+     * Size of Firestore's on-disk cache. Holds event summaries, events and the user's
+     * participations; images have their own cache in ImageLoader.
+     */
+    static final long FIRESTORE_CACHE_BYTES = 200L * 1024 * 1024;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (FirebaseApp.getApps(this).isEmpty()) return;
+
+        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        db.setFirestoreSettings(new FirebaseFirestoreSettings.Builder()
+                .setLocalCacheSettings(PersistentCacheSettings.newBuilder()
+                        .setSizeBytes(FIRESTORE_CACHE_BYTES)
+                        .build())
+                .build());
+
+        // Lets cache reads of filtered queries use local indexes instead of scanning
+        PersistentCacheIndexManager indexManager = db.getPersistentCacheIndexManager();
+        if (indexManager != null) {
+            indexManager.enableIndexAutoCreation();
+        }
+
+        StartupOrchestrator.getInstance().start();
+    }
+}
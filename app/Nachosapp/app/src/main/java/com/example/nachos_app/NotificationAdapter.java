@@ -13,6 +13,8 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.google.firebase.auth.FirebaseAuth;
@@ -20,17 +22,52 @@ import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.text.DateFormat;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Adapter class to display the notifications in a Recycler View
  * Displays message, header, timestamp, and shows appropriate button
+ * New lists are diffed against the shown one (submitList), so only rows that were added,
+ * moved or changed are rebound.
  *
  * @author sampickett
  * version 1.0
  */
 public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapter.NotificationViewHolder> {
+
+    /**
+     * Notifications are the same item if they have the same document ID, and have the
+     * same contents if every field the card shows is unchanged.
+     */
+    static final DiffUtil.ItemCallback<Notification> DIFF_CALLBACK = new DiffUtil.ItemCallback<Notification>() {
+        @Override
+        public boolean areItemsTheSame(@NonNull Notification a, @NonNull Notification b) {
+            return a == b || (a.getId() != null && a.getId().equals(b.getId()));
+        }
+
+        @Override
+        public boolean areContentsTheSame(@NonNull Notification a, @NonNull Notification b) {
+            return Objects.equals(a.getMessage(), b.getMessage())
+                    && Objects.equals(a.getType(), b.getType())
+                    && Objects.equals(a.getSendTime(), b.getSendTime())
+                    && Objects.equals(a.getEventId(), b.getEventId());
+        }
+    };
+
+    /**
+     * Told when the user deletes a notification, so its owner can drop it too.
+     */
+    public interface OnDeleteListener {
+        /**
+         * @param id Firestore document ID of the deleted notification
+         */
+        void onNotificationDeleted(String id);
+    }
+
     private List<Notification> notificationList;
     private Context context;
+    @Nullable
+    private OnDeleteListener deleteListener;
 
     /**
      * Constructs the NotificationAdapter
@@ -43,6 +80,47 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
         this.notificationList = notificationList;
     }
 
+    /**
+     * @param deleteListener Told when a notification is deleted, or null to just remove its row
+     */
+    public void setOnDeleteListener(@Nullable OnDeleteListener deleteListener) {
+        this.deleteListener = deleteListener;
+    }
+
+    /**
+     * Shows a new list of notifications, rebinding only the rows that changed.
+     * The new list is copied into the one the adapter was created with. The diff runs on
+     * the calling thread, since the inbox changes a few rows at a time.
+     * @param notifications Notifications to show
+     */
+    public void submitList(List<Notification> notifications) {
+        List<Notification> oldList = notificationList;
+        DiffUtil.DiffResult diff = DiffUtil.calculateDiff(new DiffUtil.Callback() {
+            @Override
+            public int getOldListSize() {
+                return oldList.size();
+            }
+
+            @Override
+            public int getNewListSize() {
+                return notifications.size();
+            }
+
+            @Override
+            public boolean areItemsTheSame(int oldPosition, int newPosition) {
+                return DIFF_CALLBACK.areItemsTheSame(oldList.get(oldPosition), notifications.get(newPosition));
+            }
+
+            @Override
+            public boolean areContentsTheSame(int oldPosition, int newPosition) {
+                return DIFF_CALLBACK.areContentsTheSame(oldList.get(oldPosition), notifications.get(newPosition));
+            }
+        });
+        notificationList.clear();
+        notificationList.addAll(notifications);
+        diff.dispatchUpdatesTo(this);
+    }
+
     /**
      * Inflates the layout for a single notification item
      * @param parent   The ViewGroup into which the new View will be added after it is bound to
@@ -98,11 +176,15 @@ public class NotificationAdapter extends RecyclerView.Adapter<NotificationAdapte
                     .delete()
                     .addOnSuccessListener(aVoid -> {
                         Toast.makeText(context, "Notification deleted", Toast.LENGTH_SHORT).show();
-                        // Need to run these operations on their own thread to avoid crashing
-                        new Thread(() -> {
-                            notificationList.remove(adapterPosition);
-                            notifyItemRemoved(adapterPosition);
-                        });
+                        if (deleteListener != null) {
+                            deleteListener.onNotificationDeleted(item.getId());
+                            return;
+                        }
+                        // The row may have moved while the delete was in flight
+                        int index = notificationList.indexOf(item);
+                        if (index >= 0) {
+                            deleteNotification(index);
+                        }
                     })
                     .addOnFailureListener(e ->
                             Toast.makeText(context, "Failed to delete notification", Toast.LENGTH_SHORT).show()
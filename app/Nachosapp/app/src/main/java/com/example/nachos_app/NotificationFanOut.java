@@ -0,0 +1,271 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sends one notification to each of a list of users using as few round trips as possible.
+ * Notification preferences are read with whereIn queries of up to READ_CHUNK_SIZE users,
+ * and notifications are written in WriteBatches of up to WRITE_BATCH_SIZE documents.
+ * For n users that is ceil(n / 30) reads plus ceil(opted in / 500) writes, instead of
+ * one read and one write per user. At most READS_IN_FLIGHT of the reads run at once.
+ */
+public class NotificationFanOut {
+
+    /** Firestore allows at most 30 values in a whereIn filter */
+    static final int READ_CHUNK_SIZE = 30;
+    /** Preference reads running at once; the next starts as soon as one finishes */
+    static final int READS_IN_FLIGHT = 4;
+    /** Firestore allows at most 500 writes in one batch */
+    static final int WRITE_BATCH_SIZE = 500;
+
+    /**
+     * Reads and writes done by the fan-out. Lets tests swap in a fake and count round trips.
+     */
+    interface Store {
+        /**
+         * Reads the notification preference of each user in one round trip.
+         * @param uids Up to READ_CHUNK_SIZE user IDs
+         * @return Map from uid to notificationPreference (value may be null).
+         *         Users without a profile are left out.
+         */
+        Task<Map<String, String>> readPreferences(List<String> uids);
+
+        /**
+         * Writes notifications to users/{uid}/notifications in one round trip.
+         * @param notifications Up to WRITE_BATCH_SIZE notifications, each with a "uid" field
+         * @return Task that completes once the batch is committed
+         */
+        Task<Void> writeNotifications(List<Map<String, Object>> notifications);
+    }
+
+    /**
+     * Builds the notification document for a single user.
+     */
+    public interface NotificationBuilder {
+        Map<String, Object> build(String uid);
+    }
+
+    /**
+     * Receives progress while a fan-out runs.
+     */
+    public interface ProgressListener {
+        /**
+         * @param done Number of users that have been sent to, skipped, or failed
+         * @param total Number of users in the fan-out
+         */
+        void onProgress(int done, int total);
+    }
+
+    /**
+     * Outcome of a fan-out.
+     */
+    public static class Result {
+        private final int recipients;
+        private final int sent;
+        private final int skipped;
+        private final int failed;
+
+        Result(int recipients, int sent, int skipped, int failed) {
+            this.recipients = recipients;
+            this.sent = sent;
+            this.skipped = skipped;
+            this.failed = failed;
+        }
+
+        /** @return Number of distinct users the fan-out was asked to notify */
+        public int getRecipients() { return recipients; }
+        /** @return Number of notifications written */
+        public int getSent() { return sent; }
+        /** @return Number of users skipped because they opted out or have no profile */
+        public int getSkipped() { return skipped; }
+        /** @return Number of users whose preference read or notification write failed */
+        public int getFailed() { return failed; }
+
+        /**
+         * @param other Result of another send
+         * @return The two sends' counts added together
+         */
+        Result plus(Result other) {
+            return new Result(recipients + other.recipients, sent + other.sent,
+                    skipped + other.skipped, failed + other.failed);
+        }
+    }
+
+    private final Store store;
+
+    /**
+     * Creates a fan-out that reads and writes through Firestore.
+     * @param db The connection to the firebase database
+     */
+    public NotificationFanOut(FirebaseFirestore db) {
+        this(new FirestoreStore(db));
+    }
+
+    NotificationFanOut(Store store) {
+        this.store = store;
+    }
+
+    /**
+     * Sends a notification to every user who has not opted out.
+     * Users without a profile or with notificationPreference set to anything but "yes"
+     * are skipped. A missing preference counts as "yes".
+     * @param uids Users to notify (duplicates are ignored)
+     * @param builder Builds each user's notification
+     * @param progress Optional progress callback
+     * @return Task with the sent/skipped/failed counts. Individual read or write failures
+     *         are counted in the result rather than failing the task.
+     */
+    public Task<Result> send(List<String> uids, NotificationBuilder builder,
+                             @Nullable ProgressListener progress) {
+        List<String> recipients = new ArrayList<>(new LinkedHashSet<>(uids));
+        int total = recipients.size();
+        if (total == 0) {
+            return Tasks.forResult(new Result(0, 0, 0, 0));
+        }
+
+        // Read preferences, READ_CHUNK_SIZE users per query
+        List<List<String>> chunks = new ArrayList<>();
+        for (int i = 0; i < total; i += READ_CHUNK_SIZE) {
+            chunks.add(recipients.subList(i, Math.min(total, i + READ_CHUNK_SIZE)));
+        }
+        List<Task<Map<String, String>>> reads = readWindowed(chunks);
+
+        int[] counts = new int[3]; // sent, skipped, failed
+        List<Map<String, Object>> pending = new ArrayList<>();
+
+        return Tasks.whenAllComplete(reads).continueWithTask(readsDone -> {
+            for (int c = 0; c < chunks.size(); c++) {
+                Task<Map<String, String>> read = reads.get(c);
+                if (!read.isSuccessful()) {
+                    counts[2] += chunks.get(c).size();
+                    continue;
+                }
+                Map<String, String> prefs = read.getResult();
+                for (String uid : chunks.get(c)) {
+                    if (!prefs.containsKey(uid)) {
+                        counts[1]++;
+                        continue;
+                    }
+                    String pref = prefs.get(uid);
+                    // Default to "yes" if missing
+                    if (pref == null || "yes".equalsIgnoreCase(pref)) {
+                        pending.add(builder.build(uid));
+                    } else {
+                        counts[1]++;
+                    }
+                }
+            }
+            reportProgress(progress, counts, total);
+
+            // Write notifications, WRITE_BATCH_SIZE per batch
+            List<Task<Void>> writes = new ArrayList<>();
+            for (int i = 0; i < pending.size(); i += WRITE_BATCH_SIZE) {
+                List<Map<String, Object>> batch = pending.subList(i, Math.min(pending.size(), i + WRITE_BATCH_SIZE));
+                int batchSize = batch.size();
+                writes.add(store.writeNotifications(batch).addOnCompleteListener(write -> {
+                    if (write.isSuccessful()) {
+                        counts[0] += batchSize;
+                    } else {
+                        counts[2] += batchSize;
+                    }
+                    reportProgress(progress, counts, total);
+                }));
+            }
+            return Tasks.whenAllComplete(writes);
+        }).continueWith(writesDone -> new Result(total, counts[0], counts[1], counts[2]));
+    }
+
+    /**
+     * Reads the chunks' preferences, at most READS_IN_FLIGHT at a time, so a large
+     * fan-out doesn't queue hundreds of queries on the connection at once.
+     * @param chunks Users to read, READ_CHUNK_SIZE per chunk
+     * @return A task per chunk, in the same order; each completes when its read does
+     */
+    private List<Task<Map<String, String>>> readWindowed(List<List<String>> chunks) {
+        List<TaskCompletionSource<Map<String, String>>> sources = new ArrayList<>();
+        List<Task<Map<String, String>>> reads = new ArrayList<>();
+        for (int c = 0; c < chunks.size(); c++) {
+            TaskCompletionSource<Map<String, String>> source = new TaskCompletionSource<>();
+            sources.add(source);
+            reads.add(source.getTask());
+        }
+        int[] next = {Math.min(READS_IN_FLIGHT, chunks.size())};
+        for (int c = 0; c < next[0]; c++) {
+            startRead(chunks, sources, c, next);
+        }
+        return reads;
+    }
+
+    // Reads one chunk, then starts the next chunk nobody has started yet
+    private void startRead(List<List<String>> chunks, List<TaskCompletionSource<Map<String, String>>> sources,
+                           int chunk, int[] next) {
+        store.readPreferences(chunks.get(chunk)).addOnCompleteListener(read -> {
+            if (read.isSuccessful()) {
+                sources.get(chunk).setResult(read.getResult());
+            } else {
+                sources.get(chunk).setException(read.getException());
+            }
+            if (next[0] < chunks.size()) {
+                startRead(chunks, sources, next[0]++, next);
+            }
+        });
+    }
+
+    // Tell the listener how many users have been dealt with so far
+    private void reportProgress(@Nullable ProgressListener progress, int[] counts, int total) {
+        if (progress != null) {
+            progress.onProgress(counts[0] + counts[1] + counts[2], total);
+        }
+    }
+
+    /**
+     * Store backed by Firestore: whereIn queries on users and batched writes.
+     */
+    static class FirestoreStore implements Store {
+        private final FirebaseFirestore db;
+
+        FirestoreStore(FirebaseFirestore db) {
+            this.db = db;
+        }
+
+        @Override
+        public Task<Map<String, String>> readPreferences(List<String> uids) {
+            return db.collection("users")
+                    .whereIn(FieldPath.documentId(), new ArrayList<>(uids))
+                    .get()
+                    .continueWith(task -> {
+                        Map<String, String> prefs = new HashMap<>();
+                        for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                            prefs.put(doc.getId(), doc.getString("notificationPreference"));
+                        }
+                        return prefs;
+                    });
+        }
+
+        @Override
+        public Task<Void> writeNotifications(List<Map<String, Object>> notifications) {
+            WriteBatch batch = db.batch();
+            for (Map<String, Object> notif : notifications) {
+                batch.set(db.collection("users")
+                        .document((String) notif.get("uid"))
+                        .collection("notifications")
+                        .document(), notif);
+            }
+            return batch.commit();
+        }
+    }
+}
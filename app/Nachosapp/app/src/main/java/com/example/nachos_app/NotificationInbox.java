@@ -0,0 +1,132 @@
+package com.example.nachos_app;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * The notifications a user's inbox shows: a live window of the newest notifications,
+ * kept up to date from a snapshot listener's changes, followed by older pages read once
+ * as the user scrolls.
+ * A new notification pushes the oldest one out of the window; it is kept at the top of
+ * the older notifications rather than dropped, so the inbox never loses rows between
+ * the window and the pages below it. A notification is in at most one of the two lists.
+ */
+public class NotificationInbox {
+
+    private final int windowSize;
+    private final List<Notification> newest = new ArrayList<>();
+    private final List<Notification> older = new ArrayList<>();
+    // Left the window during the current batch of changes
+    private final List<Notification> removed = new ArrayList<>();
+
+    /**
+     * @param windowSize Limit of the window's query
+     */
+    public NotificationInbox(int windowSize) {
+        this.windowSize = windowSize;
+    }
+
+    /**
+     * Empties the window, e.g. before a new listener replays it from the start.
+     */
+    public void clearWindow() {
+        newest.clear();
+        removed.clear();
+    }
+
+    /**
+     * A notification entered the window.
+     * @param index Its index in the window
+     * @param notification The notification
+     */
+    public void add(int index, Notification notification) {
+        removeOlder(notification.getId());
+        newest.add(index, notification);
+    }
+
+    /**
+     * A notification in the window changed, and may have moved.
+     * @param oldIndex Its index before the change
+     * @param newIndex Its index after the change
+     * @param notification The changed notification
+     */
+    public void modify(int oldIndex, int newIndex, Notification notification) {
+        newest.remove(oldIndex);
+        newest.add(newIndex, notification);
+    }
+
+    /**
+     * A notification left the window, either deleted or pushed out by newer ones.
+     * @param oldIndex Its index before the change
+     */
+    public void remove(int oldIndex) {
+        removed.add(newest.remove(oldIndex));
+    }
+
+    /**
+     * Call after each batch of window changes. Notifications that left a full window and
+     * are no newer than its last one were pushed out, and move to the older notifications;
+     * the rest were deleted.
+     */
+    public void endChanges() {
+        if (removed.isEmpty()) return;
+        List<Notification> pushedOut = new ArrayList<>();
+        Date last = newest.isEmpty() ? null : newest.get(newest.size() - 1).getSendTime();
+        for (Notification notification : removed) {
+            Date sendTime = notification.getSendTime();
+            if (newest.size() == windowSize && last != null && sendTime != null && !sendTime.after(last)) {
+                pushedOut.add(notification);
+            }
+        }
+        removed.clear();
+        Collections.sort(pushedOut, (a, b) -> b.getSendTime().compareTo(a.getSendTime()));
+        older.addAll(0, pushedOut);
+    }
+
+    /**
+     * Appends a page read below the window. Notifications the inbox already holds are
+     * skipped: those in the window, and those pushed out of it into the older ones before
+     * the page was read (the first page starts after the window's last notification at
+     * the time, which can be newer than what was pushed out).
+     * @param page Notifications, newest first
+     */
+    public void addOlder(List<Notification> page) {
+        for (Notification notification : page) {
+            if (indexOf(newest, notification.getId()) < 0 && indexOf(older, notification.getId()) < 0) {
+                older.add(notification);
+            }
+        }
+    }
+
+    /**
+     * Drops a deleted notification from the older ones. The window doesn't need this,
+     * since its listener sees the delete.
+     * @param id Notification ID
+     */
+    public void removeOlder(String id) {
+        int index = indexOf(older, id);
+        if (index >= 0) {
+            older.remove(index);
+        }
+    }
+
+    /**
+     * @return Every notification, newest first
+     */
+    public List<Notification> items() {
+        List<Notification> items = new ArrayList<>(newest.size() + older.size());
+        items.addAll(newest);
+        items.addAll(older);
+        return items;
+    }
+
+    private static int indexOf(List<Notification> notifications, String id) {
+        if (id == null) return -1;
+        for (int i = 0; i < notifications.size(); i++) {
+            if (id.equals(notifications.get(i).getId())) return i;
+        }
+        return -1;
+    }
+}
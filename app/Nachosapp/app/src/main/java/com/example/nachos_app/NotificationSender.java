@@ -1,25 +1,38 @@
 package com.example.nachos_app;
 
+import androidx.annotation.Nullable;
+
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * NotificationSender responsible for sending win and loss notifications after the lottery
  * is drawn.
+ * Notifications are sent through NotificationFanOut, which reads preferences and writes
+ * notifications in batches instead of once per entrant.
+ * Each send is also appended to the adminLogs collection, with the event and organizer
+ * names copied in, so the admin log screen can page through it without any joins.
+ * The entry records how many notifications were sent, skipped and failed, or the error
+ * if the send failed as a whole.
  */
 public class NotificationSender {
 
     private String eventId;
     private String eventName;
+    private String organizerName;
     private FirebaseFirestore db;
+    private NotificationFanOut fanOut;
     private List<String> uids;
     private String type;
 
@@ -33,6 +46,7 @@ public class NotificationSender {
         this.db = db;
         this.eventId = eventId;
         this.eventName = eventName;
+        this.fanOut = new NotificationFanOut(db);
     }
 
     /**
@@ -40,80 +54,64 @@ public class NotificationSender {
      * Checks user's notification preferences before sending.
      * @param winners List of documents containing UIDs of selected winners
      * @param waitlist List of documents containing UIDs of waiting list
+     * @return Task with the number of notifications sent, skipped and failed
      */
-    public void sendSelectionNotifications(List<DocumentSnapshot> winners, List<DocumentSnapshot> waitlist) {
-        ArrayList<String> winnerUids = new ArrayList<>();
-        for (DocumentSnapshot doc : winners) {
-            String uid = doc.getString("uid");
-            if (uid != null) winnerUids.add(uid);
-        }
-        
-        ArrayList<String> loserUids = generateLosers(winners, waitlist);
-        
-        // Process Winners
-        for (String uid : winnerUids) {
-            db.collection("users").document(uid).get().addOnSuccessListener(userSnap -> {
-                if (userSnap.exists()) {
-                    String pref = userSnap.getString("notificationPreference");
-                    // Default to "yes" if missing
-                    if (pref == null || "yes".equalsIgnoreCase(pref)) {
-                        Map<String, Object> notif = new HashMap<>();
-                        notif.put("uid", uid);
-                        notif.put("eventId", eventId);
-                        notif.put("sendTime", new Date());
-                        notif.put("type", "lotteryWon");
-                        notif.put("message", "You have been selected for " + eventName + ". Tap to confirm or decline your spot.");
-                        
-                        db.collection("users").document(uid).collection("notifications").add(notif);
-                    }
-                }
-            });
-        }
-        
-        // Process Losers
-        for (String uid : loserUids) {
-            db.collection("users").document(uid).get().addOnSuccessListener(userSnap -> {
-                if (userSnap.exists()) {
-                    String pref = userSnap.getString("notificationPreference");
-                    // Default to "yes" if missing
-                    if (pref == null || "yes".equalsIgnoreCase(pref)) {
-                        Map<String, Object> notif = new HashMap<>();
-                        notif.put("uid", uid);
-                        notif.put("eventId", eventId);
-                        notif.put("sendTime", new Date());
-                        notif.put("type", "lotteryLost");
-                        notif.put("message", "You were not selected for " + eventName + ".");
-                        
-                        db.collection("users").document(uid).collection("notifications").add(notif);
-                    }
-                }
-            });
-        }
+    public Task<NotificationFanOut.Result> sendSelectionNotifications(List<DocumentSnapshot> winners,
+                                                                      List<DocumentSnapshot> waitlist) {
+        return sendSelectionNotificationsByUid(toUids(winners), toUids(waitlist));
     }
 
-    // Get list of all entrants, subtract winners to get losers
-    private ArrayList<String> generateLosers(List<DocumentSnapshot> winners, List<DocumentSnapshot> waitlist) {
-        ArrayList<String> listWinners = new ArrayList<>();
-        ArrayList<String> listWaiting = new ArrayList<>();
+    /**
+     * Writes win/loss notifications to winners/the rest of the entrants respectively.
+     * Takes plain UIDs so callers that stream the waitlist don't need to keep its documents.
+     * Winners and losers go out in a batched fan-out each, so each log entry gets its own counts.
+     * Checks user's notification preferences before sending.
+     * @param winnerUids UIDs of selected winners
+     * @param waitlistUids UIDs of everyone who was on the waiting list for the draw
+     * @return Task with the number of notifications sent, skipped and failed
+     */
+    public Task<NotificationFanOut.Result> sendSelectionNotificationsByUid(List<String> winnerUids,
+                                                                           List<String> waitlistUids) {
+        List<String> losers = generateLosers(winnerUids, waitlistUids);
+        String wonMessage = "You have been selected for " + eventName + ". Tap to confirm or decline your spot.";
+        String lostMessage = "You were not selected for " + eventName + ".";
+
+        Task<NotificationFanOut.Result> won = sendAndLog(winnerUids, "lotteryWon", wonMessage, null);
+        Task<NotificationFanOut.Result> lost = sendAndLog(losers, "lotteryLost", lostMessage, null);
+        return Tasks.whenAll(won, lost).continueWith(t -> {
+            t.getResult();
+            return won.getResult().plus(lost.getResult());
+        });
+    }
 
-        for (DocumentSnapshot doc : waitlist) {
+    // Pull the uid field out of each document
+    private List<String> toUids(List<DocumentSnapshot> docs) {
+        List<String> uids = new ArrayList<>(docs.size());
+        for (DocumentSnapshot doc : docs) {
             String uid = doc.getString("uid");
-            if (uid != null) listWaiting.add(uid);
+            if (uid != null) uids.add(uid);
         }
+        return uids;
+    }
 
-        for (DocumentSnapshot doc : winners) {
-            String uid = doc.getString("uid");
-            if (uid != null) listWinners.add(uid);
+    // Get list of all entrants, subtract winners to get losers
+    private List<String> generateLosers(List<String> winnerUids, List<String> waitlistUids) {
+        Set<String> winners = new HashSet<>(winnerUids);
+        List<String> losers = new ArrayList<>();
+        for (String uid : waitlistUids) {
+            if (!winners.contains(uid)) losers.add(uid);
         }
-
-        listWaiting.removeAll(listWinners);
-        return listWaiting;
+        return losers;
     }
 
     public void setEventName(String eventName) {
         this.eventName = eventName;
     }
 
+    public void setOrganizerName(String organizerName) {
+        this.organizerName = organizerName;
+    }
+
     public void setUserIds(List<String> uids) {
         this.uids = uids;
     }
@@ -122,61 +120,105 @@ public class NotificationSender {
         this.type = type;
     }
 
-    // Sends notifications to the selected, cancelled, or waiting lists
-    // Does not send notifications to users who have opted out of them
-
     /**
      * US 02.07.01, US 02.07.02, US 02.07.03
      * Sends notifications to the selected, cancelled or waiting lists.
      * Before calling this method one needs to call setUserIds and setType on their NotificationSender
      * Respects notification preferences defined by the user
      * @param message Custom text to send to the user
+     * @return Task with the number of notifications sent, skipped and failed
      */
-    public Task<Void> sendListNotifications(String message) {
+    public Task<NotificationFanOut.Result> sendListNotifications(String message) {
+        return sendListNotifications(message, null);
+    }
+
+    /**
+     * Same as sendListNotifications(String), reporting progress as users are processed.
+     * @param message Custom text to send to the user
+     * @param progress Optional progress callback
+     * @return Task with the number of notifications sent, skipped and failed
+     */
+    public Task<NotificationFanOut.Result> sendListNotifications(String message,
+                                                                 @Nullable NotificationFanOut.ProgressListener progress) {
         if (uids == null || uids.isEmpty() || type == null) {
-            return Tasks.forResult(null);
+            return Tasks.forResult(new NotificationFanOut.Result(0, 0, 0, 0));
+        }
+
+        return sendAndLog(uids, type, eventName + ": " + message, progress);
+    }
+
+    /**
+     * Sends one message to a group of users and appends its adminLogs entry once the
+     * send has finished, whether or not it succeeded. An empty group is neither sent to
+     * nor logged.
+     * @param recipients Users to notify
+     * @param type Notification type
+     * @param message Text to send
+     * @param progress Optional progress callback
+     * @return Task with the send's counts. A failed log write is not reported as a failed send.
+     */
+    private Task<NotificationFanOut.Result> sendAndLog(List<String> recipients, String type, String message,
+                                                       @Nullable NotificationFanOut.ProgressListener progress) {
+        if (recipients.isEmpty()) {
+            return Tasks.forResult(new NotificationFanOut.Result(0, 0, 0, 0));
         }
+        Task<NotificationFanOut.Result> send = fanOut.send(recipients, uid -> {
+            Map<String, Object> notif = new HashMap<>();
+            notif.put("uid", uid);
+            notif.put("eventId", eventId);
+            notif.put("sendTime", new Date());
+            notif.put("type", type);
+            notif.put("message", message);
+            return notif;
+        }, progress);
+
+        int requested = new HashSet<>(recipients).size();
+        return send.continueWithTask(sent -> resolveNames().continueWithTask(names ->
+                db.collection("adminLogs").document().set(logEntry(type, message, requested, sent))))
+                .continueWithTask(logged -> send);
+    }
 
-        List<Task<Void>> tasks = new ArrayList<>();
-
-        for (String uid : uids) {
-            Task<Void> task = db.collection("users")
-                    .document(uid)
-                    .get()
-                    .continueWithTask(userTask -> {
-                        if (!userTask.isSuccessful()) {
-                            Exception e = userTask.getException();
-                            return Tasks.forException(e != null ? e : new Exception("Failed to fetch user"));
-                        }
-
-                        DocumentSnapshot userSnap = userTask.getResult();
-                        if (userSnap != null && userSnap.exists()) {
-                            String pref = userSnap.getString("notificationPreference");
-                            // Checks user notification preferences before sending notif
-                            if (pref == null || "yes".equalsIgnoreCase(pref)) {
-                                Map<String, Object> notif = new HashMap<>();
-                                notif.put("uid", uid);
-                                notif.put("eventId", eventId);
-                                notif.put("sendTime", new Date());
-                                notif.put("type", type);
-                                notif.put("message", eventName + ": " + message);
-
-                                return db.collection("users")
-                                        .document(uid)
-                                        .collection("notifications")
-                                        .add(notif)
-                                        .continueWith(addTask -> null);
-                            }
-                        }
-
-                        // User opted out or missing user doc: treat as no-op success
-                        return Tasks.forResult(null);
-                    });
-
-            tasks.add(task);
+    /**
+     * Builds an adminLogs entry for one message sent to a group of users.
+     * @param type Notification type
+     * @param message Text sent
+     * @param requested Number of distinct users the message was meant for
+     * @param send The finished send
+     * @return The log entry
+     */
+    private Map<String, Object> logEntry(String type, String message, int requested,
+                                         Task<NotificationFanOut.Result> send) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("eventId", eventId);
+        entry.put("eventName", eventName);
+        entry.put("organizerName", organizerName);
+        entry.put("type", type);
+        entry.put("message", message);
+        entry.put("recipientCount", requested);
+        if (send.isSuccessful()) {
+            NotificationFanOut.Result result = send.getResult();
+            entry.put("sentCount", result.getSent());
+            entry.put("skippedCount", result.getSkipped());
+            entry.put("failedCount", result.getFailed());
+        } else {
+            Exception e = send.getException();
+            entry.put("error", (e != null && e.getMessage() != null) ? e.getMessage() : "Send failed");
         }
+        entry.put("sendTime", FieldValue.serverTimestamp());
+        return entry;
+    }
 
-        return Tasks.whenAll(tasks);
+    // Look up the organizer's name from the event if the caller didn't set it
+    private Task<Void> resolveNames() {
+        if (organizerName != null && eventName != null) {
+            return Tasks.forResult(null);
+        }
+        return db.collection("events").document(eventId).get().continueWith(task -> {
+            DocumentSnapshot event = task.getResult();
+            if (organizerName == null) organizerName = event.getString("organizerName");
+            if (eventName == null) eventName = event.getString("eventName");
+            return null;
+        });
     }
 
 }
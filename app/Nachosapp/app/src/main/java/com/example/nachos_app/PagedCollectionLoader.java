@@ -0,0 +1,186 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Loads a collection one page at a time using startAfter/limit cursors.
+ * Only the cursor (last item of the previous page) is kept between pages, so memory
+ * stays bounded by the page size no matter how large the collection is.
+ * Pages can be requested on demand (e.g. when a RecyclerView nears its end) with
+ * loadNext(), or streamed back to back until the collection is exhausted with loadAll().
+ * @param <T> Type of item being paged (DocumentSnapshot for Firestore queries)
+ */
+public class PagedCollectionLoader<T> {
+
+    /**
+     * Fetches a single page of items that come after the given cursor.
+     * @param <T> Type of item being paged
+     */
+    public interface PageSource<T> {
+        /**
+         * @param after Last item of the previous page, or null for the first page
+         * @param limit Maximum number of items to return
+         * @param callback Receives the page or the failure
+         */
+        void loadPage(@Nullable T after, int limit, PageCallback<T> callback);
+    }
+
+    /**
+     * Result callback for a single PageSource fetch.
+     * @param <T> Type of item being paged
+     */
+    public interface PageCallback<T> {
+        void onPage(List<T> items);
+        void onError(Exception e);
+    }
+
+    /**
+     * Receives pages as they arrive.
+     * @param <T> Type of item being paged
+     */
+    public interface Listener<T> {
+        /**
+         * @param page Items in this page (may be empty on the last page)
+         * @param lastPage true if there are no more pages after this one
+         */
+        void onPage(List<T> page, boolean lastPage);
+
+        /**
+         * Called if a page fails to load. Loading stops; loadNext() retries the same page.
+         * @param e The failure
+         */
+        default void onError(Exception e) {
+        }
+    }
+
+    private final PageSource<T> source;
+    private final int pageSize;
+    private T cursor;
+    private boolean loading = false;
+    private boolean exhausted = false;
+    private boolean cancelled = false;
+
+    /**
+     * Creates a loader over the given page source.
+     * @param source Fetches individual pages
+     * @param pageSize Number of items per page
+     */
+    public PagedCollectionLoader(PageSource<T> source, int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("Page size must be positive");
+        }
+        this.source = source;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Creates a loader that pages through a Firestore query.
+     * The query should have a stable order (Firestore defaults to document ID order).
+     * @param query Query to page through
+     * @param pageSize Number of documents per page
+     * @return New loader for the query
+     */
+    public static PagedCollectionLoader<DocumentSnapshot> forQuery(Query query, int pageSize) {
+        return new PagedCollectionLoader<>((after, limit, callback) -> {
+            Query page = (after != null) ? query.startAfter(after) : query;
+            page.limit(limit)
+                    .get()
+                    .addOnSuccessListener(snapshot -> callback.onPage(snapshot.getDocuments()))
+                    .addOnFailureListener(callback::onError);
+        }, pageSize);
+    }
+
+    /**
+     * Requests the next page.
+     * @param listener Receives the page
+     * @return false if a page is already loading or there are no more pages
+     */
+    public boolean loadNext(Listener<T> listener) {
+        if (loading || exhausted || cancelled) {
+            return false;
+        }
+        loading = true;
+
+        source.loadPage(cursor, pageSize, new PageCallback<T>() {
+            @Override
+            public void onPage(List<T> items) {
+                loading = false;
+                if (cancelled) return;
+
+                if (!items.isEmpty()) {
+                    cursor = items.get(items.size() - 1);
+                }
+                exhausted = items.size() < pageSize;
+                listener.onPage(items, exhausted);
+            }
+
+            @Override
+            public void onError(Exception e) {
+                loading = false;
+                if (cancelled) return;
+                listener.onError(e);
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Streams every remaining page to the listener, one request after another.
+     * The listener sees lastPage == true exactly once, on the final page.
+     * If a page requested with loadNext() is still in flight, the listener gets an
+     * IllegalStateException instead, since that page goes to loadNext()'s listener.
+     * A cancelled loader delivers nothing, as with loadNext().
+     * @param listener Receives each page
+     */
+    public void loadAll(Listener<T> listener) {
+        if (cancelled) return;
+        if (exhausted) {
+            listener.onPage(Collections.emptyList(), true);
+            return;
+        }
+        boolean started = loadNext(new Listener<T>() {
+            @Override
+            public void onPage(List<T> page, boolean lastPage) {
+                listener.onPage(page, lastPage);
+                if (!lastPage) {
+                    loadAll(listener);
+                }
+            }
+
+            @Override
+            public void onError(Exception e) {
+                listener.onError(e);
+            }
+        });
+        if (!started) {
+            listener.onError(new IllegalStateException("A page is already loading"));
+        }
+    }
+
+    /**
+     * Stops delivering pages. Pages already in flight are dropped.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return true if a page request is in flight
+     */
+    public boolean isLoading() {
+        return loading;
+    }
+
+    /**
+     * @return true once the last page has been delivered
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+}
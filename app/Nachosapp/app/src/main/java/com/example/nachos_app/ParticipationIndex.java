@@ -0,0 +1,215 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-user index of the events a user takes part in, stored at
+ * users/{uid}/participations/{eventId}.
+ * Each entry holds the user's current status in that event, so the dashboard can list
+ * a user's events with one query instead of checking every event's four lists.
+ * Entries are written in the same batch as the move between lists that changes them.
+ */
+public class ParticipationIndex {
+
+    // Events are rebuilt one page at a time
+    private static final int EVENT_PAGE_SIZE = 20;
+
+    public static final String WAITLISTED = "WAITLISTED";
+    public static final String SELECTED = "SELECTED";
+    public static final String ENROLLED = "ENROLLED";
+    public static final String DECLINED = "DECLINED";
+    public static final String CANCELLED = "CANCELLED";
+
+    private ParticipationIndex() {
+    }
+
+    /**
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @return Reference to the user's participations collection
+     */
+    public static CollectionReference collection(FirebaseFirestore db, String uid) {
+        return db.collection("users").document(uid).collection("participations");
+    }
+
+    /**
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @param eventId Event ID
+     * @return Reference to the user's entry for the event
+     */
+    public static DocumentReference ref(FirebaseFirestore db, String uid, String eventId) {
+        return collection(db, uid).document(eventId);
+    }
+
+    /**
+     * @param uid User ID
+     * @param eventId Event ID
+     * @return Path of the user's entry for the event
+     */
+    public static String path(String uid, String eventId) {
+        return "users/" + uid + "/participations/" + eventId;
+    }
+
+    /**
+     * Adds a write to the batch that records the user's status in the event.
+     * @param batch Batch the list move is written in
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @param eventId Event ID
+     * @param status One of WAITLISTED, SELECTED, ENROLLED, DECLINED, CANCELLED
+     */
+    public static void set(WriteBatch batch, FirebaseFirestore db, String uid, String eventId, String status) {
+        batch.set(ref(db, uid, eventId), entry(eventId, status));
+    }
+
+    /**
+     * Adds a delete to the batch that removes the user's entry for the event.
+     * @param batch Batch the list move is written in
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @param eventId Event ID
+     */
+    public static void remove(WriteBatch batch, FirebaseFirestore db, String uid, String eventId) {
+        batch.delete(ref(db, uid, eventId));
+    }
+
+    /**
+     * Adds a write to the transaction that records the user's status in the event.
+     * @param transaction Transaction the list move is written in
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @param eventId Event ID
+     * @param status One of WAITLISTED, SELECTED, ENROLLED, DECLINED, CANCELLED
+     */
+    public static void set(Transaction transaction, FirebaseFirestore db, String uid, String eventId, String status) {
+        transaction.set(ref(db, uid, eventId), entry(eventId, status));
+    }
+
+    /**
+     * Adds a delete to the transaction that removes the user's entry for the event.
+     * @param transaction Transaction the list move is written in
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @param eventId Event ID
+     */
+    public static void remove(Transaction transaction, FirebaseFirestore db, String uid, String eventId) {
+        transaction.delete(ref(db, uid, eventId));
+    }
+
+    /**
+     * Status to record for a user who was moved to the cancelled list.
+     * @param reason The reason stored on the cancelled document
+     * @return DECLINED if the user declined their invitation, otherwise CANCELLED
+     */
+    public static String cancelledStatus(String reason) {
+        return "declined".equals(reason) ? DECLINED : CANCELLED;
+    }
+
+    // Build the document stored in the index
+    private static Map<String, Object> entry(String eventId, String status) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("eventId", eventId);
+        data.put("status", status);
+        data.put("updatedAt", FieldValue.serverTimestamp());
+        return data;
+    }
+
+    /**
+     * Rebuilds the index entries for every user in an event from its four lists.
+     * Used to backfill events created before the index existed (see rebuildAll).
+     * @param db The connection to the firebase database
+     * @param eventId Event ID
+     * @return Task that completes once every entry has been written
+     */
+    public static Task<Void> rebuildForEvent(FirebaseFirestore db, String eventId) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        Task<List<DocumentSnapshot>> waitlist = eventRef.collection("waitlist").get()
+                .continueWith(t -> t.getResult().getDocuments());
+        Task<List<DocumentSnapshot>> selected = eventRef.collection("selected").get()
+                .continueWith(t -> t.getResult().getDocuments());
+        Task<List<DocumentSnapshot>> enrolled = eventRef.collection("enrolled").get()
+                .continueWith(t -> t.getResult().getDocuments());
+        Task<List<DocumentSnapshot>> cancelled = eventRef.collection("cancelled").get()
+                .continueWith(t -> t.getResult().getDocuments());
+
+        return Tasks.whenAllSuccess(waitlist, selected, enrolled, cancelled).continueWithTask(t -> {
+            Map<String, String> statuses = new HashMap<>();
+            for (DocumentSnapshot doc : cancelled.getResult()) {
+                statuses.put(doc.getId(), cancelledStatus(doc.getString("reason")));
+            }
+            // Later lists win if a user somehow appears in more than one
+            for (DocumentSnapshot doc : waitlist.getResult()) statuses.put(doc.getId(), WAITLISTED);
+            for (DocumentSnapshot doc : selected.getResult()) statuses.put(doc.getId(), SELECTED);
+            for (DocumentSnapshot doc : enrolled.getResult()) statuses.put(doc.getId(), ENROLLED);
+
+            // Write in batches of up to 500
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int inBatch = 0;
+            for (Map.Entry<String, String> e : statuses.entrySet()) {
+                set(batch, db, e.getKey(), eventId, e.getValue());
+                if (++inBatch == 500) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                    inBatch = 0;
+                }
+            }
+            if (inBatch > 0) {
+                commits.add(batch.commit());
+            }
+            return Tasks.whenAll(commits);
+        });
+    }
+
+    /**
+     * Rebuilds the index entries of every event. Used once for entries made before the
+     * index existed (run by DataMigrations), and safe to rerun since each entry is rebuilt from the lists.
+     * @param db The connection to the firebase database
+     * @return Task with the number of events rebuilt
+     */
+    public static Task<Integer> rebuildAll(FirebaseFirestore db) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger rebuilt = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+
+        PagedCollectionLoader.forQuery(db.collection("events").orderBy(FieldPath.documentId()), EVENT_PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            pending.add(rebuildForEvent(db, doc.getId())
+                                    .addOnSuccessListener(aVoid -> rebuilt.incrementAndGet()));
+                        }
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(rebuilt.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+}
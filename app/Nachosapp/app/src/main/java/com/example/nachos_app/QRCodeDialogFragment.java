@@ -1,7 +1,6 @@
 package com.example.nachos_app;
 
 import android.app.Dialog;
-import android.graphics.Bitmap;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -17,27 +16,31 @@ import android.widget.Button;
 /**
  * Dialog fragment for displaying an event's QR code.
  * Shows the event name and QR code image in a full-screen dialog.
+ * The QR code is drawn from the event's qrCodeData by QrCodeService at the screen's
+ * density, so no image is stored or downloaded.
  * Users can close the dialog with a close button.
  */
 public class QRCodeDialogFragment extends DialogFragment {
 
     private static final String ARG_EVENT_NAME = "event_name";
-    private static final String ARG_QR_CODE_BASE64 = "qr_code_base64";
+    private static final String ARG_QR_CODE_DATA = "qr_code_data";
+    // Matches the size of qrCodeImageView in dialog_qr_code.xml
+    private static final int QR_CODE_SIZE_DP = 280;
 
     private String eventName;
-    private String qrCodeBase64;
+    private String qrCodeData;
 
     /**
      * Creates a new instance of QRCodeDialogFragment with event data.
      * @param eventName The name of the event
-     * @param qrCodeBase64 Base64 encoded QR code image
+     * @param qrCodeData The data encoded in the QR code (event:// URL)
      * @return New QRCodeDialogFragment instance
      */
-    public static QRCodeDialogFragment newInstance(String eventName, String qrCodeBase64) {
+    public static QRCodeDialogFragment newInstance(String eventName, String qrCodeData) {
         QRCodeDialogFragment fragment = new QRCodeDialogFragment();
         Bundle args = new Bundle();
         args.putString(ARG_EVENT_NAME, eventName);
-        args.putString(ARG_QR_CODE_BASE64, qrCodeBase64);
+        args.putString(ARG_QR_CODE_DATA, qrCodeData);
         fragment.setArguments(args);
         return fragment;
     }
@@ -47,7 +50,7 @@ public class QRCodeDialogFragment extends DialogFragment {
         super.onCreate(savedInstanceState);
         if (getArguments() != null) {
             eventName = getArguments().getString(ARG_EVENT_NAME);
-            qrCodeBase64 = getArguments().getString(ARG_QR_CODE_BASE64);
+            qrCodeData = getArguments().getString(ARG_QR_CODE_DATA);
         }
     }
 
@@ -64,13 +67,11 @@ public class QRCodeDialogFragment extends DialogFragment {
         // Set title
         titleTextView.setText(eventName);
 
-        // Load QR code
-        Bitmap qrBitmap = ImageUtils.decodeBase64ToBitmap(qrCodeBase64);
-        if (qrBitmap != null) {
-            qrCodeImageView.setImageBitmap(qrBitmap);
-        } else {
-            // Use a placeholder if decoding fails
-            qrCodeImageView.setImageResource(R.drawable.ic_camera_placeholder);
+        // Draw the QR code, showing the placeholder until it is ready or if drawing fails
+        qrCodeImageView.setImageResource(R.drawable.ic_camera_placeholder);
+        if (qrCodeData != null && !qrCodeData.isEmpty()) {
+            QrCodeService.getInstance().render(requireContext(), qrCodeData, QR_CODE_SIZE_DP)
+                    .addOnSuccessListener(qrCodeImageView::setImageBitmap);
         }
 
         // Close button
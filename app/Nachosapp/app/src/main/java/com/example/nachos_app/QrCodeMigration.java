@@ -0,0 +1,118 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One-off migration that drops stored QR code images from events.
+ * QR codes are now drawn from qrCodeData when shown, so the base64 qrCodeUrl and the
+ * ImageStore image behind qrCodeRef are no longer read. Each event loses both fields
+ * (gaining qrCodeData if it was missing), and the stored image is deleted afterwards.
+ * Events without stored QR images are skipped, so the migration can be rerun safely.
+ * Run by DataMigrations.
+ */
+public class QrCodeMigration {
+
+    // Legacy events can be close to 1 MB each, so keep pages small
+    private static final int PAGE_SIZE = 20;
+
+    private QrCodeMigration() {
+    }
+
+    /**
+     * Drops the stored QR images of every event.
+     * @param db The connection to the firebase database
+     * @param store Store holding the QR images referenced by qrCodeRef
+     * @return Task with the number of events that were updated
+     */
+    public static Task<Integer> migrateEvents(FirebaseFirestore db, ImageStore store) {
+        TaskCompletionSource<Integer> result = new TaskCompletionSource<>();
+        AtomicInteger migrated = new AtomicInteger();
+        List<Task<Void>> pending = new ArrayList<>();
+
+        PagedCollectionLoader.forQuery(db.collection("events").orderBy(FieldPath.documentId()), PAGE_SIZE)
+                .loadAll(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+                    @Override
+                    public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                        for (DocumentSnapshot doc : page) {
+                            Task<Boolean> task = migrateEvent(doc, store);
+                            pending.add(task.continueWith(t -> {
+                                if (Boolean.TRUE.equals(t.getResult())) migrated.incrementAndGet();
+                                return null;
+                            }));
+                        }
+                        if (!lastPage) return;
+
+                        Tasks.whenAll(pending)
+                                .addOnSuccessListener(aVoid -> result.setResult(migrated.get()))
+                                .addOnFailureListener(result::setException);
+                    }
+
+                    @Override
+                    public void onError(Exception e) {
+                        result.setException(e);
+                    }
+                });
+
+        return result.getTask();
+    }
+
+    /**
+     * Drops one event's stored QR images.
+     * @param doc Event document
+     * @param store Store holding the image behind qrCodeRef
+     * @return Task with true if the event had stored QR images
+     */
+    static Task<Boolean> migrateEvent(DocumentSnapshot doc, ImageStore store) {
+        String qrCodeRef = doc.getString("qrCodeRef");
+        Map<String, Object> updates = updates(doc.getId(), doc.getString("qrCodeUrl"),
+                qrCodeRef, doc.getString("qrCodeData"));
+        if (updates == null) {
+            return Tasks.forResult(false);
+        }
+
+        // Delete the image only once nothing points at it
+        return doc.getReference().update(updates).continueWithTask(t -> {
+            t.getResult();
+            if (qrCodeRef == null || qrCodeRef.isEmpty()) {
+                return Tasks.forResult(true);
+            }
+            return store.delete(qrCodeRef).continueWith(d -> true);
+        });
+    }
+
+    /**
+     * @param eventId Event ID
+     * @param qrCodeUrl The event's base64 QR image, or null
+     * @param qrCodeRef The event's QR image key, or null
+     * @param qrCodeData The event's QR data, or null
+     * @return The fields to update, or null if the event stores no QR image
+     */
+    @Nullable
+    static Map<String, Object> updates(String eventId, @Nullable String qrCodeUrl,
+                                       @Nullable String qrCodeRef, @Nullable String qrCodeData) {
+        if (qrCodeUrl == null && qrCodeRef == null) {
+            return null;
+        }
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("qrCodeUrl", FieldValue.delete());
+        updates.put("qrCodeRef", FieldValue.delete());
+        if (qrCodeData == null || qrCodeData.isEmpty()) {
+            updates.put("qrCodeData", "event://" + eventId);
+        }
+        return updates;
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.nachos_app;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Color;
+import android.util.LruCache;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Renders QR codes for event links off the main thread.
+ * The text is encoded once into its modules (one bit per QR square, quiet zone included)
+ * and the modules are cached per text, so a QR code can be drawn at whatever size the
+ * screen needs without encoding it again. Drawing scales the modules by a whole number
+ * into an int array and hands it to the bitmap in one setPixels call, instead of one
+ * setPixel per pixel. Rendered bitmaps are cached per text and size.
+ * Work runs on a small executor with a bounded queue, so a burst of requests can't
+ * start a thread each.
+ */
+public class QrCodeService {
+
+    private static final int ENCODE_THREADS = 2;
+    private static final int QUEUE_CAPACITY = 32;
+    private static final int MAX_CACHED_MODULES = 64;
+    private static final int MAX_CACHED_BITMAP_BYTES = 4 * 1024 * 1024;
+
+    private static QrCodeService instance;
+
+    private final QRCodeWriter writer = new QRCodeWriter();
+    private final ExecutorService executor;
+    private final LruCache<String, BitMatrix> modulesCache = new LruCache<>(MAX_CACHED_MODULES);
+    private final LruCache<String, Bitmap> bitmapCache =
+            new LruCache<String, Bitmap>(MAX_CACHED_BITMAP_BYTES) {
+                @Override
+                protected int sizeOf(String key, Bitmap bitmap) {
+                    return bitmap.getAllocationByteCount();
+                }
+            };
+
+    /**
+     * @param executor Executor encoding and drawing run on
+     */
+    QrCodeService(ExecutorService executor) {
+        this.executor = executor;
+    }
+
+    /**
+     * @return Shared service
+     */
+    public static synchronized QrCodeService getInstance() {
+        if (instance == null) {
+            instance = new QrCodeService(new ThreadPoolExecutor(ENCODE_THREADS, ENCODE_THREADS,
+                    30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(QUEUE_CAPACITY)));
+        }
+        return instance;
+    }
+
+    /**
+     * Draws a QR code at a given size.
+     * @param data Text to encode, e.g. the event's qrCodeData
+     * @param sizePx Width and height of the bitmap, in pixels
+     * @return Task with the bitmap. Fails if the text can't be encoded or the queue is full.
+     */
+    public Task<Bitmap> render(String data, int sizePx) {
+        String key = sizePx + "/" + data;
+        Bitmap cached = bitmapCache.get(key);
+        if (cached != null) {
+            return Tasks.forResult(cached);
+        }
+        try {
+            return Tasks.call(executor, () -> {
+                Bitmap bitmap = Bitmap.createBitmap(sizePx, sizePx, Bitmap.Config.RGB_565);
+                bitmap.setPixels(pixels(modules(data), sizePx), 0, sizePx, 0, 0, sizePx, sizePx);
+                bitmapCache.put(key, bitmap);
+                return bitmap;
+            });
+        } catch (RejectedExecutionException e) {
+            return Tasks.forException(e);
+        }
+    }
+
+    /**
+     * Draws a QR code at a size given in dp, so it is sharp at the screen's density.
+     * @param context Any context, used for the display density
+     * @param data Text to encode
+     * @param sizeDp Width and height, in dp
+     * @return Task with the bitmap
+     */
+    public Task<Bitmap> render(Context context, String data, int sizeDp) {
+        float density = context.getResources().getDisplayMetrics().density;
+        return render(data, Math.round(sizeDp * density));
+    }
+
+    /**
+     * @param data Text to encode
+     * @return The text's modules, encoded once and then cached
+     * @throws WriterException if the text can't be encoded
+     */
+    BitMatrix modules(String data) throws WriterException {
+        BitMatrix modules = modulesCache.get(data);
+        if (modules == null) {
+            modules = encode(writer, data);
+            modulesCache.put(data, modules);
+        }
+        return modules;
+    }
+
+    /**
+     * Encodes text at one pixel per module.
+     * @param writer Encoder to use; QRCodeWriter keeps no state, so one is shared
+     * @param data Text to encode
+     * @return The modules, quiet zone included
+     * @throws WriterException if the text can't be encoded
+     */
+    static BitMatrix encode(QRCodeWriter writer, String data) throws WriterException {
+        // A size of 0 asks for the smallest matrix, one pixel per module
+        return writer.encode(data, BarcodeFormat.QR_CODE, 0, 0);
+    }
+
+    /**
+     * Scales modules up to a square image. Each module becomes a block of
+     * size / modules pixels, and the leftover pixels are split evenly as white margin.
+     * @param modules QR modules, one bit per module
+     * @param size Width and height of the image, in pixels
+     * @return Pixels in row order, ready for Bitmap.setPixels
+     */
+    static int[] pixels(BitMatrix modules, int size) {
+        int count = modules.getWidth();
+        int scale = Math.max(1, size / count);
+        int offset = Math.max(0, (size - count * scale) / 2);
+
+        int[] pixels = new int[size * size];
+        Arrays.fill(pixels, Color.WHITE);
+        int[] row = new int[size];
+        for (int y = 0; y < count; y++) {
+            Arrays.fill(row, Color.WHITE);
+            for (int x = 0; x < count; x++) {
+                if (!modules.get(x, y)) continue;
+                int start = offset + x * scale;
+                Arrays.fill(row, Math.min(size, start), Math.min(size, start + scale), Color.BLACK);
+            }
+            // Every pixel row of a module row is the same, so copy it rather than redraw it
+            for (int dy = 0; dy < scale; dy++) {
+                int py = offset + y * scale + dy;
+                if (py >= size) break;
+                System.arraycopy(row, 0, pixels, py * size, size);
+            }
+        }
+        return pixels;
+    }
+}
@@ -0,0 +1,162 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.SetOptions;
+import com.google.firebase.firestore.Transaction;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * A counter spread over a fixed number of shard documents, {0..n-1} in one collection,
+ * each holding a "count" field.
+ * Firestore sustains about one write a second to a single document, so a counter that
+ * many clients bump at once is incremented on a randomly chosen shard instead, and read
+ * back by summing the shards. Shards are created by their first increment.
+ * A capacity can be split between the shards with share(), so a writer only has to
+ * read the shard it increments to know the total stays within it.
+ */
+public class ShardedCounter {
+
+    public static final String COUNT = "count";
+
+    private static final Random random = new Random();
+
+    private final CollectionReference shards;
+    private final int numShards;
+
+    /**
+     * @param shards Collection holding the shard documents
+     * @param numShards Number of shards; must stay the same for the counter's lifetime
+     */
+    public ShardedCounter(CollectionReference shards, int numShards) {
+        this.shards = shards;
+        this.numShards = numShards;
+    }
+
+    /**
+     * @return Number of shards
+     */
+    public int size() {
+        return numShards;
+    }
+
+    /**
+     * @param shard Shard index
+     * @return Reference to the shard document
+     */
+    public DocumentReference shard(int shard) {
+        return shards.document(String.valueOf(shard));
+    }
+
+    /**
+     * @return A shard index chosen at random
+     */
+    public int randomShard() {
+        synchronized (random) {
+            return random.nextInt(numShards);
+        }
+    }
+
+    /**
+     * Every shard, starting from a random one and wrapping around, so writers that
+     * need to search for a shard with room spread out instead of all trying shard 0.
+     * @return Shard indexes in the order to try them
+     */
+    public List<Integer> probeOrder() {
+        List<Integer> order = new ArrayList<>();
+        int start = randomShard();
+        for (int i = 0; i < numShards; i++) {
+            order.add((start + i) % numShards);
+        }
+        return order;
+    }
+
+    /**
+     * Adds an increment of one shard to a transaction.
+     * @param transaction Transaction the change is written in
+     * @param shard Shard index
+     * @param delta Amount to add (negative to subtract)
+     */
+    public void increment(Transaction transaction, int shard, long delta) {
+        transaction.set(shard(shard), Collections.singletonMap(COUNT, FieldValue.increment(delta)),
+                SetOptions.merge());
+    }
+
+    /**
+     * Adds a write to the transaction that sets every shard back to zero.
+     * @param transaction Transaction the reset is written in
+     */
+    public void reset(Transaction transaction) {
+        for (int i = 0; i < numShards; i++) {
+            transaction.set(shard(i), Collections.singletonMap(COUNT, 0L));
+        }
+    }
+
+    /**
+     * Reads every shard and adds them up.
+     * @return Task with the counter's value
+     */
+    public Task<Long> sum() {
+        return shards.get().continueWith(task -> sum(task.getResult().getDocuments()));
+    }
+
+    /**
+     * Reads every shard on its own, so the counts line up with shard indexes.
+     * @return Task with each shard's count, by shard index
+     */
+    public Task<List<Long>> counts() {
+        List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < numShards; i++) {
+            reads.add(shard(i).get());
+        }
+        return Tasks.whenAllSuccess(reads).continueWith(task -> {
+            List<Long> counts = new ArrayList<>();
+            for (Object doc : task.getResult()) {
+                counts.add(count((DocumentSnapshot) doc));
+            }
+            return counts;
+        });
+    }
+
+    /**
+     * @param shardDocs Shard documents; missing ones count as zero
+     * @return Sum of their counts
+     */
+    public static long sum(Iterable<DocumentSnapshot> shardDocs) {
+        long total = 0;
+        for (DocumentSnapshot doc : shardDocs) {
+            total += count(doc);
+        }
+        return total;
+    }
+
+    /**
+     * @param shardDoc Shard document
+     * @return Its count, or 0 if it doesn't exist yet
+     */
+    public static long count(DocumentSnapshot shardDoc) {
+        Long value = shardDoc.exists() ? shardDoc.getLong(COUNT) : null;
+        return (value == null) ? 0 : value;
+    }
+
+    /**
+     * Splits a capacity between shards as evenly as possible. The shares always add up
+     * to the capacity, so keeping every shard within its share keeps the total within it.
+     * @param capacity Total capacity, clamped to 0 if negative
+     * @param shard Shard index
+     * @param numShards Number of shards
+     * @return The shard's share of the capacity
+     */
+    static long share(long capacity, int shard, int numShards) {
+        long total = Math.max(0, capacity);
+        return total / numShards + (shard < total % numShards ? 1 : 0);
+    }
+}
@@ -7,7 +7,6 @@ import androidx.appcompat.app.AppCompatActivity;
 
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
-import com.google.firebase.firestore.FirebaseFirestore;
 
 /**
  * SplashActivity serves as the initial entry point of the application.
@@ -18,6 +17,8 @@ import com.google.firebase.firestore.FirebaseFirestore;
  * we check firebase for an existing UID. If the document doesn't exist, it likely means an admin has
  * removed their account, so we make them register again.
  * If the document does exist, they are sent directly to the {@link MainActivity}.
+ * A profile found in the local cache lets them in right away, and the server's answer
+ * is checked in the background by {@link StartupOrchestrator}.
  * <p>
  * If no user is signed in, they are directed to the {@link RegistrationActivity} to create an account.
  * This activity has no UI and finishes immediately after starting the next activity.
@@ -47,12 +48,29 @@ public class SplashActivity extends AppCompatActivity {
         }
 
         // existing user logic
+        // The profile read was already started at process start by StartupOrchestrator
         String uid = currentUser.getUid();
-        FirebaseFirestore db = FirebaseFirestore.getInstance();
+        StartupOrchestrator startup = StartupOrchestrator.getInstance();
 
-        db.collection("users")
-                .document(uid)
-                .get()
+        // A cached profile is enough to open the app; the server's answer is checked in the background
+        startup.cachedProfile(uid).addOnCompleteListener(cached -> {
+            if (cached.isSuccessful() && cached.getResult().exists()) {
+                startup.verifyProfile(this, uid);
+                startActivity(new Intent(this, MainActivity.class));
+                finish();
+                return;
+            }
+            checkProfile(startup, uid);
+        });
+    }
+
+    /**
+     * Waits for the profile read and routes the user based on whether their document exists.
+     * @param startup Orchestrator holding the profile read
+     * @param uid User ID
+     */
+    private void checkProfile(StartupOrchestrator startup, String uid) {
+        startup.profile(uid)
                 .addOnSuccessListener(doc -> {
                     if (doc.exists()) {
                         // Firestore user document exists → treat as a normal logged-in user
@@ -78,7 +96,5 @@ public class SplashActivity extends AppCompatActivity {
                     startActivity(intent);
                     finish();
                 });
-
-
     }
 }
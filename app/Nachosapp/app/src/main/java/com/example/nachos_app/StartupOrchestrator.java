@@ -0,0 +1,189 @@
+package com.example.nachos_app;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.auth.FirebaseAuth;
+import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
+
+import java.util.Date;
+
+/**
+ * Starts the reads every launch needs in parallel as soon as the process starts,
+ * instead of one after another as each screen opens:
+ * the signed-in user's profile, the first page of each Home feed query, and a
+ * listener on the user's newest notifications.
+ * SplashActivity uses the profile read started here, the Home feed
+ * answers from the cache these reads fill, and NotificationsFragment takes the
+ * notifications listener's latest snapshot. That listener only stays attached until the
+ * server has answered, or WARM_LISTENER_TIMEOUT_MS if it doesn't, so a user who never
+ * opens the inbox isn't kept listening for the rest of the session.
+ * The profile and notifications belong to the user signed in at process start; screens
+ * for any other user read for themselves.
+ */
+public class StartupOrchestrator {
+
+    /** Number of newest notifications the inbox keeps a listener on */
+    public static final int NOTIFICATIONS_PAGE_SIZE = 30;
+
+    /** How long the warm notifications listener waits for the server before it is removed */
+    static final long WARM_LISTENER_TIMEOUT_MS = 30_000;
+
+    private static StartupOrchestrator instance;
+
+    private final FirebaseFirestore db;
+    @Nullable
+    private String uid;
+    private Task<DocumentSnapshot> profile;
+    private ListenerRegistration notificationsListener;
+    private QuerySnapshot latestNotifications;
+    @Nullable
+    private String notificationsUid;
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Runnable detachNotifications = this::detachNotifications;
+
+    private StartupOrchestrator(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * @return The process-wide orchestrator
+     */
+    public static synchronized StartupOrchestrator getInstance() {
+        if (instance == null) {
+            instance = new StartupOrchestrator(FirebaseFirestore.getInstance());
+        }
+        return instance;
+    }
+
+    /**
+     * Starts the startup reads. Does nothing if no user is signed in, since the
+     * registration screen needs none of them.
+     */
+    public synchronized void start() {
+        FirebaseUser user = FirebaseAuth.getInstance().getCurrentUser();
+        if (user == null) return;
+        uid = user.getUid();
+
+        profile = db.collection("users").document(uid).get();
+        profile.addOnCompleteListener(task -> StartupTrace.mark(StartupTrace.PROFILE_READY,
+                task.isSuccessful() ? "from " + (task.getResult().getMetadata().isFromCache() ? "cache" : "server")
+                        : "failed"));
+
+        // Fills the cache the Home feed's listeners answer from first
+        Date now = new Date();
+        EventSummaries.ongoingQuery(db, now).limit(EventSummaries.FEED_PAGE_SIZE).get();
+        EventSummaries.upcomingQuery(db, now).limit(EventSummaries.FEED_PAGE_SIZE).get();
+
+        // Metadata changes are included so a server answer matching the cache is still seen
+        notificationsUid = uid;
+        notificationsListener = newestNotificationsQuery(db, uid)
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshot, e) -> {
+                    if (snapshot == null) return;
+                    latestNotifications = snapshot;
+                    if (!snapshot.getMetadata().isFromCache()) detachNotifications();
+                });
+        handler.postDelayed(detachNotifications, WARM_LISTENER_TIMEOUT_MS);
+    }
+
+    /**
+     * Removes the warm notifications listener. Its latest snapshot is kept for
+     * takeNotifications(), and the server's answer stays in the cache the inbox reads first.
+     */
+    private synchronized void detachNotifications() {
+        handler.removeCallbacks(detachNotifications);
+        if (notificationsListener != null) {
+            notificationsListener.remove();
+            notificationsListener = null;
+        }
+    }
+
+    /**
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @return The user's notifications, newest first
+     */
+    public static Query notificationsQuery(FirebaseFirestore db, String uid) {
+        return db.collection("users").document(uid).collection("notifications")
+                .orderBy("sendTime", Query.Direction.DESCENDING);
+    }
+
+    /**
+     * @param db The connection to the firebase database
+     * @param uid User ID
+     * @return The user's newest notifications, the window the inbox listens to
+     */
+    public static Query newestNotificationsQuery(FirebaseFirestore db, String uid) {
+        return notificationsQuery(db, uid).limit(NOTIFICATIONS_PAGE_SIZE);
+    }
+
+    /**
+     * Returns the profile read started at process start, or starts a new one for a
+     * different user or if that read failed.
+     * @param uid User ID
+     * @return Task with the user's profile document
+     */
+    public synchronized Task<DocumentSnapshot> profile(String uid) {
+        boolean failed = profile != null && profile.isComplete() && !profile.isSuccessful();
+        if (profile == null || failed || !uid.equals(this.uid)) {
+            this.uid = uid;
+            profile = db.collection("users").document(uid).get();
+        }
+        return profile;
+    }
+
+    /**
+     * Reads the user's profile from the local cache only.
+     * @param uid User ID
+     * @return Task with the cached profile; fails if it isn't cached
+     */
+    public Task<DocumentSnapshot> cachedProfile(String uid) {
+        return db.collection("users").document(uid).get(Source.CACHE);
+    }
+
+    /**
+     * Sends the user back to registration if the server says their profile is gone
+     * (e.g. an admin removed them). Used when the app was let in on a cached profile.
+     * @param context Any context; the application context is used
+     * @param uid User ID
+     */
+    public void verifyProfile(Context context, String uid) {
+        Context app = context.getApplicationContext();
+        profile(uid).addOnSuccessListener(doc -> {
+            if (doc.exists() || doc.getMetadata().isFromCache()) return;
+            FirebaseAuth.getInstance().signOut();
+            Intent intent = new Intent(app, RegistrationActivity.class);
+            intent.addFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK);
+            app.startActivity(intent);
+        });
+    }
+
+    /**
+     * Hands over the warm notifications listener's latest snapshot, removing the listener
+     * if it is still attached. Call after attaching the screen's own listener to
+     * newestNotificationsQuery, so Firestore keeps the query active in between.
+     * @param uid User ID of the screen's listener
+     * @return The latest notifications snapshot, or null if there is none for this user
+     */
+    @Nullable
+    public synchronized QuerySnapshot takeNotifications(String uid) {
+        if (!uid.equals(notificationsUid)) return null;
+        detachNotifications();
+        notificationsUid = null;
+        QuerySnapshot snapshot = latestNotifications;
+        latestNotifications = null;
+        return snapshot;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.nachos_app;
+
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Records how long after process start each startup milestone is reached.
+ * Each milestone is recorded once per process and logged under the "StartupTrace" tag,
+ * e.g. `adb logcat -s StartupTrace`. Once the first frame, the first event row and the
+ * profile are all ready, a one-line cold-start summary is logged as well.
+ */
+public class StartupTrace {
+
+    public static final String FIRST_FRAME = "first_frame";
+    public static final String FIRST_EVENT_ROW = "first_event_row";
+    public static final String PROFILE_READY = "profile_ready";
+
+    private static final String TAG = "StartupTrace";
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+
+    private StartupTrace() {
+    }
+
+    /**
+     * Records a milestone if it hasn't been recorded yet in this process.
+     * @param milestone Name of the milestone
+     * @param detail Extra information to log with it (e.g. where the data came from)
+     * @return true if this call recorded the milestone
+     */
+    public static synchronized boolean mark(String milestone, String detail) {
+        if (marks.containsKey(milestone)) return false;
+        long elapsed = SystemClock.uptimeMillis() - Process.getStartUptimeMillis();
+        marks.put(milestone, elapsed);
+        Log.i(TAG, milestone + ": " + elapsed + " ms after process start (" + detail + ")");
+
+        if (marks.containsKey(FIRST_FRAME) && marks.containsKey(FIRST_EVENT_ROW)
+                && marks.containsKey(PROFILE_READY)) {
+            Log.i(TAG, summary());
+        }
+        return true;
+    }
+
+    /**
+     * @param milestone Name of the milestone
+     * @return Milliseconds after process start, or -1 if it hasn't been reached
+     */
+    public static synchronized long elapsed(String milestone) {
+        Long value = marks.get(milestone);
+        return (value == null) ? -1 : value;
+    }
+
+    /**
+     * Forgets every milestone, so a test can measure a launch in a process that already had one.
+     */
+    static synchronized void reset() {
+        marks.clear();
+    }
+
+    /**
+     * @return One line with the three cold-start milestones, -1 for any not yet reached
+     */
+    public static synchronized String summary() {
+        return "Cold start: first frame " + elapsed(FIRST_FRAME) + " ms, first event row "
+                + elapsed(FIRST_EVENT_ROW) + " ms, profile ready " + elapsed(PROFILE_READY) + " ms";
+    }
+}
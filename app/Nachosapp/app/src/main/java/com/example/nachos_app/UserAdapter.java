@@ -60,6 +60,19 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
         notifyDataSetChanged();
     }
 
+    /**
+     * Appends a page of users to the end of the list.
+     * Only the new rows are bound, so earlier rows are not redrawn.
+     * @param ids List of user IDs to append
+     * @param dataList List of user data maps, in the same order as ids
+     */
+    public void addUsers(List<String> ids, List<Map<String, Object>> dataList) {
+        int start = userIds.size();
+        userIds.addAll(ids);
+        userDataList.addAll(dataList);
+        notifyItemRangeInserted(start, ids.size());
+    }
+
     @NonNull
     @Override
     public UserViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
@@ -143,6 +156,8 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
      * Uses Firestore batch to:
      * 1. Create document in cancelled collection with reason and timestamps
      * 2. Delete document from source collection (selected or enrolled)
+     * 3. Mark the entrant as cancelled in their participation index
+     * 4. Move the count from the source list's counter to the cancelled counter
      * Preserves all historical timestamps (joinedAt, selectedAt, enrolledAt).
      * Sets replacementFilled to false to allow drawing replacements.
      * Deletes selection notification if cancelling from selected list.
@@ -190,6 +205,9 @@ public class UserAdapter extends RecyclerView.Adapter<UserAdapter.UserViewHolder
             batch.set(cancelledRef, cancelledData);
 
             batch.delete(sourceRef);
+            ParticipationIndex.set(batch, db, uid, eventId, ParticipationIndex.cancelledStatus(reason));
+            EventCounters.move(batch, db.collection("events").document(eventId),
+                    displayMode, "cancelled", 1);
 
             batch.commit()
                     .addOnSuccessListener(aVoid -> {
@@ -0,0 +1,266 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Resolves user IDs to the profile fields list screens show (name, email and
+ * notification preference), shared by every screen in the process.
+ * Lookups that miss the cache are read with whereIn queries of up to READ_CHUNK_SIZE
+ * users instead of one read per user. Results are kept in a bounded LRU cache for
+ * TTL_MS, users without a profile included, so moving between screens doesn't
+ * read the same users again. A lookup for a user whose read is already in flight
+ * waits for that read instead of starting another.
+ * NotificationFanOut still reads preferences itself, since a cached opt-out could be
+ * minutes out of date.
+ */
+public class UserDirectory {
+
+    /** Firestore allows at most 30 values in a whereIn filter */
+    static final int READ_CHUNK_SIZE = 30;
+    /** Most users kept in the cache */
+    static final int MAX_ENTRIES = 1000;
+    /** How long a cached user is trusted */
+    static final long TTL_MS = 5L * 60 * 1000;
+
+    /**
+     * The fields of a user's profile that list screens need.
+     */
+    public static class Profile {
+        private final String name;
+        private final String email;
+        private final String notificationPreference;
+
+        Profile(@Nullable String name, @Nullable String email, @Nullable String notificationPreference) {
+            this.name = name;
+            this.email = email;
+            this.notificationPreference = notificationPreference;
+        }
+
+        /** @return The user's name, or null if unset */
+        @Nullable
+        public String getName() { return name; }
+        /** @return The user's email, or null if unset */
+        @Nullable
+        public String getEmail() { return email; }
+        /** @return The user's notification preference, or null if unset */
+        @Nullable
+        public String getNotificationPreference() { return notificationPreference; }
+
+        /**
+         * @param fallback Returned if the user has no name
+         * @return The trimmed name, or the fallback
+         */
+        public String displayName(String fallback) {
+            return (name == null || name.trim().isEmpty()) ? fallback : name.trim();
+        }
+    }
+
+    /**
+     * Reads done by the directory. Lets tests swap in a fake and count round trips.
+     */
+    interface Store {
+        /**
+         * Reads the profiles of up to READ_CHUNK_SIZE users in one round trip.
+         * @param uids User IDs
+         * @return Map from uid to profile. Users without a profile are left out.
+         */
+        Task<Map<String, Profile>> read(List<String> uids);
+    }
+
+    /**
+     * Source of the current time. Lets tests move time forward.
+     */
+    interface Clock {
+        long now();
+    }
+
+    // A cached lookup; profile is null for users without one
+    private static class Entry {
+        final Profile profile;
+        final long fetchedAt;
+
+        Entry(@Nullable Profile profile, long fetchedAt) {
+            this.profile = profile;
+            this.fetchedAt = fetchedAt;
+        }
+    }
+
+    private static UserDirectory instance;
+
+    private final Store store;
+    private final Clock clock;
+    private final int maxEntries;
+    private final long ttlMs;
+
+    // Access-ordered, so the least recently used user is evicted first
+    private final LinkedHashMap<String, Entry> cache;
+    private final Map<String, Task<Profile>> inFlight = new HashMap<>();
+
+    UserDirectory(Store store, Clock clock, int maxEntries, long ttlMs) {
+        this.store = store;
+        this.clock = clock;
+        this.maxEntries = maxEntries;
+        this.ttlMs = ttlMs;
+        this.cache = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > UserDirectory.this.maxEntries;
+            }
+        };
+    }
+
+    /**
+     * @return The directory shared by every screen, reading from Firestore
+     */
+    public static synchronized UserDirectory getInstance() {
+        if (instance == null) {
+            instance = new UserDirectory(new FirestoreStore(FirebaseFirestore.getInstance()),
+                    System::currentTimeMillis, MAX_ENTRIES, TTL_MS);
+        }
+        return instance;
+    }
+
+    /**
+     * Looks up one user.
+     * @param uid User ID
+     * @return Task with the user's profile, or null if they have none
+     */
+    public Task<Profile> get(String uid) {
+        List<String> uids = new ArrayList<>();
+        uids.add(uid);
+        return lookups(uids).get(0);
+    }
+
+    /**
+     * Looks up many users at once. Cached users are answered straight away and the rest
+     * are read in whereIn chunks.
+     * @param uids User IDs (duplicates are ignored)
+     * @return Task with a map from uid to profile. Users without a profile, and users
+     *         whose read failed, are left out; the task itself never fails.
+     */
+    public Task<Map<String, Profile>> getAll(Collection<String> uids) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(uids));
+        List<Task<Profile>> lookups = lookups(distinct);
+        return Tasks.whenAllComplete(lookups).continueWith(done -> {
+            Map<String, Profile> profiles = new HashMap<>();
+            for (int i = 0; i < distinct.size(); i++) {
+                Task<Profile> lookup = lookups.get(i);
+                if (lookup.isSuccessful() && lookup.getResult() != null) {
+                    profiles.put(distinct.get(i), lookup.getResult());
+                }
+            }
+            return profiles;
+        });
+    }
+
+    /**
+     * Drops a cached user, e.g. after their profile was edited or removed.
+     * @param uid User ID
+     */
+    public synchronized void invalidate(String uid) {
+        cache.remove(uid);
+    }
+
+    /**
+     * @return Number of users currently cached
+     */
+    synchronized int cachedCount() {
+        return cache.size();
+    }
+
+    // One task per uid: a cached profile, a read already in flight, or a new read
+    private synchronized List<Task<Profile>> lookups(List<String> uids) {
+        long now = clock.now();
+        List<Task<Profile>> lookups = new ArrayList<>();
+        Map<String, TaskCompletionSource<Profile>> toRead = new LinkedHashMap<>();
+
+        for (String uid : uids) {
+            Entry entry = cache.get(uid);
+            if (entry != null && now - entry.fetchedAt < ttlMs) {
+                lookups.add(Tasks.forResult(entry.profile));
+                continue;
+            }
+            Task<Profile> pending = inFlight.get(uid);
+            if (pending == null) {
+                TaskCompletionSource<Profile> source = toRead.get(uid);
+                if (source == null) {
+                    source = new TaskCompletionSource<>();
+                    toRead.put(uid, source);
+                    inFlight.put(uid, source.getTask());
+                }
+                pending = source.getTask();
+            }
+            lookups.add(pending);
+        }
+
+        List<String> missing = new ArrayList<>(toRead.keySet());
+        for (int i = 0; i < missing.size(); i += READ_CHUNK_SIZE) {
+            List<String> chunk = new ArrayList<>(missing.subList(i, Math.min(missing.size(), i + READ_CHUNK_SIZE)));
+            store.read(chunk).addOnCompleteListener(read -> finishRead(chunk, read, toRead));
+        }
+        return lookups;
+    }
+
+    // Cache a chunk's results and complete everyone waiting on them
+    private void finishRead(List<String> chunk, Task<Map<String, Profile>> read,
+                            Map<String, TaskCompletionSource<Profile>> sources) {
+        synchronized (this) {
+            long now = clock.now();
+            for (String uid : chunk) {
+                inFlight.remove(uid);
+                if (read.isSuccessful()) {
+                    cache.put(uid, new Entry(read.getResult().get(uid), now));
+                }
+            }
+        }
+        // Outside the lock, since waiters may look up more users straight away
+        for (String uid : chunk) {
+            if (read.isSuccessful()) {
+                sources.get(uid).setResult(read.getResult().get(uid));
+            } else {
+                sources.get(uid).setException(read.getException());
+            }
+        }
+    }
+
+    /**
+     * Store backed by Firestore: whereIn queries on users' document IDs.
+     */
+    static class FirestoreStore implements Store {
+        private final FirebaseFirestore db;
+
+        FirestoreStore(FirebaseFirestore db) {
+            this.db = db;
+        }
+
+        @Override
+        public Task<Map<String, Profile>> read(List<String> uids) {
+            return db.collection("users")
+                    .whereIn(FieldPath.documentId(), uids)
+                    .get()
+                    .continueWith(task -> {
+                        Map<String, Profile> profiles = new HashMap<>();
+                        for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                            profiles.put(doc.getId(), new Profile(doc.getString("name"),
+                                    doc.getString("email"), doc.getString("notificationPreference")));
+                        }
+                        return profiles;
+                    });
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Removes a user and everything that belongs to them:
+ * the events they organize (through CascadeDeleteService), their entries in other
+ * events' waitlist, selected, enrolled and cancelled lists, their notifications,
+ * their participation index, and finally their profile.
+ * Entries are found with one collection group query per list filtered on uid, so the
+ * cost grows with the user's own footprint rather than with the number of events.
+ * Each event's list counters are decremented in the same batch as its entries are deleted.
+ */
+public class UserRemovalService {
+
+    /** Writes per batch, kept under Firestore's limit of 500 */
+    static final int BATCH_SIZE = 450;
+
+    /** Firestore allows at most 30 values in a whereIn filter */
+    private static final int EVENT_CHUNK_SIZE = 30;
+
+    private static final String[] LISTS = {"waitlist", "selected", "enrolled", "cancelled"};
+
+    private final FirebaseFirestore db;
+    private final CascadeDeleteService eventDeleter;
+
+    /**
+     * @param db The connection to the firebase database
+     */
+    public UserRemovalService(FirebaseFirestore db) {
+        this.db = db;
+        this.eventDeleter = new CascadeDeleteService(db);
+    }
+
+    /**
+     * Removes a user and everything that belongs to them.
+     * @param uid User ID
+     * @return Task that completes once the user's profile has been deleted
+     */
+    public Task<Void> removeUser(String uid) {
+        DocumentReference userRef = db.collection("users").document(uid);
+
+        // Organized events go first so their entrants' counters aren't adjusted needlessly
+        return deleteOrganizedEvents(uid)
+                .continueWithTask(t -> {
+                    t.getResult();
+                    return removeEntries(uid);
+                })
+                .continueWithTask(t -> {
+                    t.getResult();
+                    return deleteCollection(userRef.collection("notifications"));
+                })
+                .continueWithTask(t -> {
+                    t.getResult();
+                    return deleteCollection(ParticipationIndex.collection(db, uid));
+                })
+                .continueWithTask(t -> {
+                    t.getResult();
+                    return userRef.delete();
+                });
+    }
+
+    // Remove each event the user organizes, one after another
+    private Task<Void> deleteOrganizedEvents(String uid) {
+        return db.collection("events").whereEqualTo("organizerId", uid).get().continueWithTask(task -> {
+            Task<Long> chain = Tasks.forResult(0L);
+            for (DocumentSnapshot doc : task.getResult().getDocuments()) {
+                String eventId = doc.getId();
+                chain = chain.continueWithTask(t -> {
+                    t.getResult();
+                    return eventDeleter.deleteEvent(eventId, null);
+                });
+            }
+            return chain.continueWith(t -> {
+                t.getResult();
+                return null;
+            });
+        });
+    }
+
+    /**
+     * Deletes the user's entries from every event list and decrements the counters
+     * of the events they were in.
+     * @param uid User ID
+     * @return Task that completes once every batch is committed
+     */
+    Task<Void> removeEntries(String uid) {
+        List<Task<QuerySnapshot>> queries = new ArrayList<>();
+        for (String list : LISTS) {
+            queries.add(db.collectionGroup(list).whereEqualTo("uid", uid).get());
+        }
+
+        return Tasks.whenAllSuccess(queries).continueWithTask(task -> {
+            // Group entries by event, keeping the list each one is in
+            Map<String, List<DocumentSnapshot>> entriesByEvent = new LinkedHashMap<>();
+            for (int i = 0; i < LISTS.length; i++) {
+                for (DocumentSnapshot entry : queries.get(i).getResult().getDocuments()) {
+                    String eventId = entry.getReference().getParent().getParent().getId();
+                    List<DocumentSnapshot> entries = entriesByEvent.get(eventId);
+                    if (entries == null) {
+                        entries = new ArrayList<>();
+                        entriesByEvent.put(eventId, entries);
+                    }
+                    entries.add(entry);
+                }
+            }
+            if (entriesByEvent.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+
+            return existingEvents(new ArrayList<>(entriesByEvent.keySet()))
+                    .continueWithTask(t -> commitRemovals(entriesByEvent, t.getResult()));
+        });
+    }
+
+    // Counters can only be updated on events that still exist
+    private Task<Set<String>> existingEvents(List<String> eventIds) {
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (int i = 0; i < eventIds.size(); i += EVENT_CHUNK_SIZE) {
+            List<String> chunk = eventIds.subList(i, Math.min(i + EVENT_CHUNK_SIZE, eventIds.size()));
+            reads.add(db.collection("events").whereIn(FieldPath.documentId(), new ArrayList<>(chunk)).get());
+        }
+
+        return Tasks.whenAllSuccess(reads).continueWith(task -> {
+            Set<String> existing = new HashSet<>();
+            for (Task<QuerySnapshot> read : reads) {
+                for (DocumentSnapshot doc : read.getResult().getDocuments()) {
+                    existing.add(doc.getId());
+                }
+            }
+            return existing;
+        });
+    }
+
+    // Each event's entries and its counter update always go in the same batch
+    private Task<Void> commitRemovals(Map<String, List<DocumentSnapshot>> entriesByEvent, Set<String> existing) {
+        List<Task<Void>> commits = new ArrayList<>();
+        WriteBatch batch = db.batch();
+        int writes = 0;
+
+        for (Map.Entry<String, List<DocumentSnapshot>> e : entriesByEvent.entrySet()) {
+            List<DocumentSnapshot> entries = e.getValue();
+            boolean eventExists = existing.contains(e.getKey());
+            // The counter update also goes to the event's summary
+            int needed = entries.size() + (eventExists ? 2 : 0);
+            if (writes + needed > BATCH_SIZE) {
+                commits.add(batch.commit());
+                batch = db.batch();
+                writes = 0;
+            }
+
+            Map<String, Object> counterUpdates = new HashMap<>();
+            for (DocumentSnapshot entry : entries) {
+                batch.delete(entry.getReference());
+                counterUpdates.putAll(EventCounters.moveUpdates(entry.getReference().getParent().getId(), null, 1));
+            }
+            if (eventExists) {
+                DocumentReference eventRef = db.collection("events").document(e.getKey());
+                batch.update(eventRef, counterUpdates);
+                EventSummaries.mirror(batch, eventRef, counterUpdates);
+            }
+            writes += needed;
+        }
+        if (writes > 0) {
+            commits.add(batch.commit());
+        }
+        return Tasks.whenAll(commits);
+    }
+
+    // Delete every document in a collection, a batch at a time
+    private Task<Void> deleteCollection(CollectionReference collection) {
+        return collection.limit(BATCH_SIZE).get().continueWithTask(task -> {
+            List<DocumentSnapshot> docs = task.getResult().getDocuments();
+            if (docs.isEmpty()) {
+                return Tasks.forResult(null);
+            }
+
+            WriteBatch batch = db.batch();
+            for (DocumentSnapshot doc : docs) {
+                batch.delete(doc.getReference());
+            }
+            return batch.commit().continueWithTask(t -> {
+                t.getResult();
+                return deleteCollection(collection);
+            });
+        });
+    }
+}
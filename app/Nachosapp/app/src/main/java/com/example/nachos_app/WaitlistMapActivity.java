@@ -1,19 +1,33 @@
 package com.example.nachos_app;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.appcompat.app.AppCompatActivity;
 
 import android.os.Bundle;
 import android.util.Log;
+import android.widget.Toast;
 
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.OnMapReadyCallback;
 import com.google.android.gms.maps.CameraUpdateFactory;
 import com.google.android.gms.maps.model.LatLng;
-import com.google.android.gms.maps.model.MarkerOptions;
+import com.google.android.gms.maps.model.LatLngBounds;
 
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
+import com.google.maps.android.clustering.ClusterItem;
+import com.google.maps.android.clustering.ClusterManager;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Creates an activity where the users on the waitlist are displayed on a google map api
@@ -25,6 +39,66 @@ public class WaitlistMapActivity extends AppCompatActivity implements OnMapReady
     private GoogleMap mMap;
     private String eventId;
     private FirebaseFirestore db;
+    private CollectionReference waitlist;
+    private ClusterManager<EntrantMarker> clusterManager;
+
+    // Entrants read per query
+    private static final int PAGE_SIZE = 500;
+    // Most entrants read per viewport, so a crowded viewport can't exhaust memory
+    private static final int MAX_PER_VIEWPORT = 5000;
+    // Bumped on every camera move so a slow viewport load can't overwrite a newer one
+    private int viewportGeneration = 0;
+
+    /**
+     * The entrants read so far for one viewport. Only touched from the main thread.
+     */
+    private static class ViewportLoad {
+        final LatLngBounds bounds;
+        final int generation;
+        final Map<String, EntrantMarker> markers = new LinkedHashMap<>();
+        int read = 0;
+        boolean truncated = false;
+
+        ViewportLoad(LatLngBounds bounds, int generation) {
+            this.bounds = bounds;
+            this.generation = generation;
+        }
+    }
+
+    /**
+     * A located entrant, drawn by the cluster manager as a marker or part of a cluster.
+     */
+    static class EntrantMarker implements ClusterItem {
+        private final LatLng position;
+        private final String title;
+
+        EntrantMarker(LatLng position, String title) {
+            this.position = position;
+            this.title = title;
+        }
+
+        @NonNull
+        @Override
+        public LatLng getPosition() {
+            return position;
+        }
+
+        @Override
+        public String getTitle() {
+            return title;
+        }
+
+        @Override
+        public String getSnippet() {
+            return null;
+        }
+
+        @Nullable
+        @Override
+        public Float getZIndex() {
+            return null;
+        }
+    }
 
     /**
      * Initializes the activity, sets up the layout, configures the action bar,
@@ -44,6 +118,7 @@ public class WaitlistMapActivity extends AppCompatActivity implements OnMapReady
 
         db = FirebaseFirestore.getInstance();
         eventId = getIntent().getStringExtra("eventId");
+        waitlist = db.collection("events").document(eventId).collection("waitlist");
 
         // Create the map fragment manually
         SupportMapFragment mapFragment = SupportMapFragment.newInstance();
@@ -58,7 +133,8 @@ public class WaitlistMapActivity extends AppCompatActivity implements OnMapReady
 
     /**
      * Callback triggered when the Google Map is fully initialized and ready.
-     * Stores the map reference and begins loading entrant locations from Firestore.
+     * Sets up marker clustering, reloads the entrants in view whenever the camera
+     * stops moving, and moves the camera to the first entrant.
      *
      * @param googleMap the initialized {@link GoogleMap} instance
      */
@@ -66,79 +142,121 @@ public class WaitlistMapActivity extends AppCompatActivity implements OnMapReady
     public void onMapReady(@NonNull GoogleMap googleMap) {
         mMap = googleMap;
 
-        loadEntrantLocations();
+        clusterManager = new ClusterManager<>(this, mMap);
+        mMap.setOnMarkerClickListener(clusterManager);
+
+        centerOnFirstEntrant();
     }
 
     /**
-     * Loads the geographic locations of all entrants in the event waitlist from Firestore.
-     * <p>For each entrant:
-     * <ul>
-     *   <li>Reads the latitude and longitude from the waitlist document</li>
-     *   <li>Fetches the corresponding user's name from the "users" collection</li>
-     *   <li>Adds a marker to the map if a valid location exists</li>
-     * </ul>
-     *
-     * <p>If at least one entrant has a location, the camera centers on the first one.
-     * Otherwise, it falls back to a default location (Edmonton coordinates).
+     * Moves the camera to an entrant with a location, reading a single entry.
+     * Falls back to a default location (Edmonton coordinates) if no entrant has one.
+     * Entrants are only loaded once the camera is there, not for the whole world first.
      */
-    private void loadEntrantLocations() {
-        db.collection("events")
-                .document(eventId)
-                .collection("waitlist")
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    boolean hasAtLeastOneLocation = false;
-
-                    for (var doc : snapshot) {
-
-                        Double lat = doc.getDouble("latitude");
-                        Double lng = doc.getDouble("longitude");
-                        String uid = doc.getId();
-                        // Skip entrants without location
-                        if (lat == null || lng == null)
-                            continue;
-
-                        hasAtLeastOneLocation = true;
-
-                        LatLng pos = new LatLng(lat, lng);
-
-                        db.collection("users")
-                                .document(uid)
-                                .get()
-                                        .addOnSuccessListener(userSnap -> {
-                                            String userName = userSnap.getString("name");
-                                            if (userName == null){
-                                                userName = "Unknown User";
-                                            }
-
-                                        mMap.addMarker(new MarkerOptions()
-                                                        .position(pos)
-                                                        .title(userName));
-                                        });
-
+    private void centerOnFirstEntrant() {
+        waitlist.orderBy(WaitlistService.GEOHASH).limit(1).get()
+                .addOnCompleteListener(this, task -> {
+                    LatLng pos = null;
+                    if (!task.isSuccessful()) {
+                        Log.e("WaitlistMap", "Failed to load entrant locations", task.getException());
+                    } else if (!task.getResult().isEmpty()) {
+                        pos = position(task.getResult().getDocuments().get(0));
                     }
 
-                    if (hasAtLeastOneLocation) {
-                        for (var doc : snapshot) {
-                            Double firstLat = doc.getDouble("latitude");
-                            Double firstLng = doc.getDouble("longitude");
-                            if (firstLat != null && firstLng != null) {
-                                mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(
-                                        new LatLng(firstLat, firstLng), 11
-                                ));
-                                break;
-                            }
-                        }
+                    mMap.setOnCameraIdleListener(() -> {
+                        loadVisibleEntrants();
+                        clusterManager.onCameraIdle();
+                    });
+                    if (pos != null) {
+                        mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(pos, 11));
                     } else {
-
                         // No markers → center on default view
                         mMap.moveCamera(CameraUpdateFactory.newLatLngZoom(new LatLng(53.5461, -113.4938), 9));
                     }
-                })
-                .addOnFailureListener(err -> {
-                    // Optionally toast but avoid breaking UI
                 });
     }
+
+    /**
+     * Loads the entrants inside the visible part of the map and hands them to the cluster
+     * manager in place of the previous viewport's.
+     * <p>The viewport is covered by a few geohash ranges (see {@link GeoHash}) and each is
+     * queried on the waitlist's geohash field, so reads grow with the entrants in view rather
+     * than the whole waitlist. Names come from the entries themselves, so no profiles are read.
+     * Entries in the ranges but outside the viewport are dropped.
+     * <p>Each range is read PAGE_SIZE entries at a time until it runs out. Once
+     * MAX_PER_VIEWPORT entries have been read the rest are left unread, so a crowded or
+     * zoomed-out view can't exhaust memory, and the organizer is told to zoom in.
+     */
+    private void loadVisibleEntrants() {
+        ViewportLoad load = new ViewportLoad(mMap.getProjection().getVisibleRegion().latLngBounds,
+                ++viewportGeneration);
+
+        List<Task<Void>> reads = new ArrayList<>();
+        for (String[] range : GeoHash.ranges(load.bounds.southwest.latitude, load.bounds.southwest.longitude,
+                load.bounds.northeast.latitude, load.bounds.northeast.longitude)) {
+            Query inRange = waitlist.orderBy(WaitlistService.GEOHASH).endAt(range[1]);
+            reads.add(readRange(load, inRange, inRange.startAt(range[0])));
+        }
+
+        Tasks.whenAll(reads).addOnCompleteListener(this, task -> {
+            if (load.generation != viewportGeneration) return;
+            if (!task.isSuccessful()) {
+                Log.e("WaitlistMap", "Failed to load entrant locations", task.getException());
+                return;
+            }
+            if (load.truncated) {
+                Toast.makeText(this, "Too many entrants here to show them all. Zoom in to see the rest.",
+                        Toast.LENGTH_LONG).show();
+            }
+
+            clusterManager.clearItems();
+            clusterManager.addItems(load.markers.values());
+            clusterManager.cluster();
+        });
+    }
+
+    /**
+     * Reads one geohash range a page at a time, adding its entrants in view to the load.
+     * @param load The viewport being loaded
+     * @param inRange Query for the range, without its start
+     * @param page Query for the next page
+     * @return Task that completes once the range is read, the viewport's budget is spent,
+     *         or a newer viewport has started loading
+     */
+    private Task<Void> readRange(ViewportLoad load, Query inRange, Query page) {
+        return page.limit(PAGE_SIZE).get().onSuccessTask(snapshot -> {
+            List<DocumentSnapshot> docs = snapshot.getDocuments();
+            load.read += docs.size();
+            for (DocumentSnapshot doc : docs) {
+                LatLng pos = position(doc);
+                if (pos == null || !load.bounds.contains(pos)) continue;
+                String name = doc.getString(WaitlistService.NAME);
+                load.markers.put(doc.getId(), new EntrantMarker(pos,
+                        (name == null || name.trim().isEmpty()) ? "Unknown User" : name.trim()));
+            }
+
+            if (docs.size() < PAGE_SIZE || load.generation != viewportGeneration) {
+                return Tasks.forResult(null);
+            }
+            if (load.read >= MAX_PER_VIEWPORT) {
+                load.truncated = true;
+                return Tasks.forResult(null);
+            }
+            return readRange(load, inRange, inRange.startAfter(docs.get(docs.size() - 1)));
+        });
+    }
+
+    /**
+     * @param doc Waitlist entry
+     * @return Where the entrant joined from, or null if the entry has no location
+     */
+    @Nullable
+    private static LatLng position(DocumentSnapshot doc) {
+        Double lat = doc.getDouble("latitude");
+        Double lng = doc.getDouble("longitude");
+        return (lat == null || lng == null) ? null : new LatLng(lat, lng);
+    }
+
     /**
      * Handles the action bar "Up" button press by closing the activity
      * and returning to the previous screen.
@@ -0,0 +1,292 @@
+package com.example.nachos_app;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.Transaction;
+import com.google.firebase.firestore.TransactionOptions;
+import com.google.firebase.firestore.WriteBatch;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Joins and leaves an event's waitlist in a single Firestore transaction each.
+ * A join reads the event and the user's entries in the waitlist, selected and enrolled
+ * lists, checks registration is open and the waitlist has room, and writes the waitlist
+ * entry, the user's participation index entry and the counter increment together.
+ * <p>
+ * The count goes to one of the event's waitlist shards (see EventCounters) rather than
+ * the event document, so joins don't all queue on one document. For a capped event,
+ * each shard gets a share of the room left, and a join only reads shards until it finds
+ * one below its share; the transaction reruns if that shard changes underneath it,
+ * so concurrent joins can't push the waitlist past maxParticipants.
+ * The shard is stored on the entry so a leave takes it back off the same shard.
+ * Once a join or leave has gone through, the shards are folded into the event's cached
+ * total if that hasn't been done in the last minute, or when the minute is up if it has
+ * (EventCounters.rollUpWaitlistIfDue()).
+ * <p>
+ * A join with a location also stores the location's geohash and the user's name, so
+ * WaitlistMapActivity can read just the entrants in view without reading their profiles.
+ * A profile rename copies the new name onto the user's located entries (updateName()).
+ */
+public class WaitlistService {
+
+    /** Field on a waitlist entry holding the shard its join was counted on */
+    static final String SHARD = "shard";
+    /** Field on a located waitlist entry holding its geohash, which the map queries by */
+    static final String GEOHASH = "geohash";
+    /** Field on a located waitlist entry holding the user's name, so the map needn't read profiles */
+    static final String NAME = "name";
+
+    /** Outcome of a join or leave */
+    public enum Result {
+        JOINED,
+        LEFT,
+        ALREADY_ON_WAITLIST,
+        NOT_ON_WAITLIST,
+        ALREADY_SELECTED,
+        ALREADY_ENROLLED,
+        REGISTRATION_NOT_OPEN,
+        WAITLIST_FULL,
+        EVENT_NOT_FOUND
+    }
+
+    /**
+     * Attempts per transaction. Joins to a nearly full event end up on the last few
+     * shards with room, so some are rerun; the default of 5 gives up too early.
+     */
+    static final int MAX_ATTEMPTS = 25;
+
+    private final FirebaseFirestore db;
+    private final TransactionOptions options = new TransactionOptions.Builder()
+            .setMaxAttempts(MAX_ATTEMPTS)
+            .build();
+
+    /**
+     * @param db The connection to the firebase database
+     */
+    public WaitlistService(FirebaseFirestore db) {
+        this.db = db;
+    }
+
+    /**
+     * Adds a user to an event's waitlist if registration is open and there is room.
+     * @param eventId Event ID
+     * @param uid User ID
+     * @param latitude Where the user joined from, or null if the event doesn't need it
+     * @param longitude Where the user joined from, or null if the event doesn't need it
+     * @return Task with JOINED, or the reason the user wasn't added
+     */
+    public Task<Result> join(String eventId, String uid, @Nullable Double latitude, @Nullable Double longitude) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference waitlistRef = eventRef.collection("waitlist").document(uid);
+        DocumentReference selectedRef = eventRef.collection("selected").document(uid);
+        DocumentReference enrolledRef = eventRef.collection("enrolled").document(uid);
+        ShardedCounter shards = EventCounters.waitlistShards(eventRef);
+
+        return db.runTransaction(options, transaction -> {
+            DocumentSnapshot event = transaction.get(eventRef);
+            boolean onWaitlist = transaction.get(waitlistRef).exists();
+            boolean selected = transaction.get(selectedRef).exists();
+            boolean enrolled = transaction.get(enrolledRef).exists();
+
+            Result result = checkJoin(event.exists(),
+                    event.getDate("registrationStartDate"), event.getDate("registrationEndDate"),
+                    onWaitlist, selected, enrolled, new Date());
+            if (result != Result.JOINED) {
+                return result;
+            }
+
+            // Read before any writes, as transactions require
+            String name = null;
+            if (latitude != null && longitude != null) {
+                name = transaction.get(db.collection("users").document(uid)).getString("name");
+            }
+
+            int shard = pickShard(transaction, shards, event.getLong("maxParticipants"),
+                    EventCounters.waitlistBase(event));
+            if (shard < 0) {
+                return Result.WAITLIST_FULL;
+            }
+
+            Map<String, Object> data = new HashMap<>();
+            data.put("uid", uid);
+            data.put("joinedAt", FieldValue.serverTimestamp());
+            data.put(SHARD, shard);
+            if (latitude != null && longitude != null) {
+                data.put("latitude", latitude);
+                data.put("longitude", longitude);
+                data.put(GEOHASH, GeoHash.encode(latitude, longitude, GeoHash.STORED_PRECISION));
+                if (name != null) data.put(NAME, name);
+            }
+
+            transaction.set(waitlistRef, data);
+            ParticipationIndex.set(transaction, db, uid, eventId, ParticipationIndex.WAITLISTED);
+            shards.increment(transaction, shard, 1);
+            return Result.JOINED;
+        }).addOnSuccessListener(result -> rollUpAfter(eventRef, result));
+    }
+
+    /**
+     * Removes a user from an event's waitlist.
+     * @param eventId Event ID
+     * @param uid User ID
+     * @return Task with LEFT, or NOT_ON_WAITLIST if there was nothing to remove
+     */
+    public Task<Result> leave(String eventId, String uid) {
+        DocumentReference eventRef = db.collection("events").document(eventId);
+        DocumentReference waitlistRef = eventRef.collection("waitlist").document(uid);
+
+        return db.runTransaction(options, transaction -> {
+            // Decrementing only when the entry exists keeps repeated leaves from
+            // taking the counter below the real size of the list
+            DocumentSnapshot entry = transaction.get(waitlistRef);
+            if (!entry.exists()) {
+                return Result.NOT_ON_WAITLIST;
+            }
+            transaction.delete(waitlistRef);
+            ParticipationIndex.remove(transaction, db, uid, eventId);
+
+            // Entries from before the shards were counted on the event document
+            Long shard = entry.getLong(SHARD);
+            if (shard != null) {
+                EventCounters.waitlistShards(eventRef).increment(transaction, shard.intValue(), -1);
+            } else {
+                EventCounters.move(transaction, eventRef, "waitlist", null, 1);
+            }
+            return Result.LEFT;
+        }).addOnSuccessListener(result -> rollUpAfter(eventRef, result));
+    }
+
+    /**
+     * Copies a user's new name onto their located waitlist entries, found through the
+     * participation index, so the map doesn't keep showing the old one.
+     * @param uid User ID
+     * @param name The user's new name
+     * @return Task with the number of entries updated
+     */
+    public Task<Integer> updateName(String uid, String name) {
+        return ParticipationIndex.collection(db, uid)
+                .whereEqualTo("status", ParticipationIndex.WAITLISTED)
+                .get()
+                .onSuccessTask(participations -> {
+                    List<Task<DocumentSnapshot>> reads = new ArrayList<>();
+                    for (DocumentSnapshot doc : participations.getDocuments()) {
+                        reads.add(db.collection("events").document(doc.getId())
+                                .collection("waitlist").document(uid).get());
+                    }
+                    return Tasks.<DocumentSnapshot>whenAllSuccess(reads);
+                })
+                .onSuccessTask(entries -> {
+                    // Write in batches of up to 500
+                    List<Task<Void>> commits = new ArrayList<>();
+                    WriteBatch batch = db.batch();
+                    int inBatch = 0;
+                    int updated = 0;
+                    for (DocumentSnapshot entry : entries) {
+                        // Only located entries carry a name
+                        if (!entry.exists() || entry.getString(GEOHASH) == null) continue;
+                        batch.update(entry.getReference(), NAME, name);
+                        updated++;
+                        if (++inBatch == 500) {
+                            commits.add(batch.commit());
+                            batch = db.batch();
+                            inBatch = 0;
+                        }
+                    }
+                    if (inBatch > 0) {
+                        commits.add(batch.commit());
+                    }
+                    int total = updated;
+                    return Tasks.whenAll(commits).continueWith(t -> {
+                        if (!t.isSuccessful()) throw t.getException();
+                        return total;
+                    });
+                });
+    }
+
+    /**
+     * Starts a throttled roll-up of the waitlist shards after a join or leave went through,
+     * so the cached total list screens show doesn't fall behind. A failed roll-up is left
+     * to the next join or leave.
+     * @param eventRef Reference to the event document
+     * @param result Outcome of the join or leave
+     */
+    private static void rollUpAfter(DocumentReference eventRef, Result result) {
+        if (result == Result.JOINED || result == Result.LEFT) {
+            EventCounters.rollUpWaitlistIfDue(eventRef);
+        }
+    }
+
+    /**
+     * Finds a shard to count a join on. Uncapped events take a random shard without
+     * reading any; capped ones read shards in random order until one is below its share
+     * of the room left.
+     * @param transaction Transaction the join is written in
+     * @param shards The event's waitlist shards
+     * @param maxParticipants Waitlist capacity, or null for unlimited
+     * @param base The event document's part of the waitlist count
+     * @return Shard index, or -1 if the waitlist is full
+     */
+    private static int pickShard(Transaction transaction, ShardedCounter shards,
+                                 @Nullable Long maxParticipants, long base)
+            throws FirebaseFirestoreException {
+        if (maxParticipants == null) {
+            return shards.randomShard();
+        }
+        for (int shard : shards.probeOrder()) {
+            long count = ShardedCounter.count(transaction.get(shards.shard(shard)));
+            if (hasRoom(maxParticipants, base, shard, shards.size(), count)) {
+                return shard;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a shard can take one more join without the waitlist passing capacity.
+     * @param maxParticipants Waitlist capacity
+     * @param base The event document's part of the waitlist count
+     * @param shard Shard index
+     * @param numShards Number of shards
+     * @param shardCount The shard's current count
+     * @return true if the shard is below its share of the room left
+     */
+    static boolean hasRoom(long maxParticipants, long base, int shard, int numShards, long shardCount) {
+        return shardCount < ShardedCounter.share(maxParticipants - base, shard, numShards);
+    }
+
+    /**
+     * Decides whether a user may join a waitlist, apart from its capacity.
+     * @param eventExists Whether the event document exists
+     * @param registrationStart Start of registration
+     * @param registrationEnd End of registration
+     * @param onWaitlist Whether the user is already on the waitlist
+     * @param selected Whether the user has been selected
+     * @param enrolled Whether the user is enrolled
+     * @param now Current time
+     * @return JOINED if the user may join, otherwise the reason they can't
+     */
+    static Result checkJoin(boolean eventExists, @Nullable Date registrationStart, @Nullable Date registrationEnd,
+                            boolean onWaitlist, boolean selected, boolean enrolled, Date now) {
+        if (!eventExists) return Result.EVENT_NOT_FOUND;
+        if (enrolled) return Result.ALREADY_ENROLLED;
+        if (selected) return Result.ALREADY_SELECTED;
+        if (onWaitlist) return Result.ALREADY_ON_WAITLIST;
+        if (registrationStart == null || registrationEnd == null
+                || !now.after(registrationStart) || !now.before(registrationEnd)) {
+            return Result.REGISTRATION_NOT_OPEN;
+        }
+        return Result.JOINED;
+    }
+}
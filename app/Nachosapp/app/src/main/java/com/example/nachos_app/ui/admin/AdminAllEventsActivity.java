@@ -11,9 +11,10 @@ import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.nachos_app.CascadeDeleteService;
+import com.example.nachos_app.EventSummaries;
 import com.example.nachos_app.R;
 import com.google.firebase.Timestamp;
-import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
@@ -26,7 +27,7 @@ import java.util.List;
 /**
  * Admin screen displaying all events from firebase
  * <p>
- * Reads the events collection and binds the fields to a
+ * Reads the event summaries and binds the fields to a
  * recyclerView
  * Computes the event status from the start and end timestamps
  * </p>
@@ -34,6 +35,7 @@ import java.util.List;
 public class AdminAllEventsActivity extends AppCompatActivity {
     private EventAdminAdapter adapter;
     private FirebaseFirestore db;
+    private CascadeDeleteService deleteService;
 
 
     /**
@@ -66,18 +68,25 @@ public class AdminAllEventsActivity extends AppCompatActivity {
 
         // load data
         db = FirebaseFirestore.getInstance();
+        deleteService = new CascadeDeleteService(db);
         loadEvents();
+
+        // finish any event removal that was interrupted, then refresh the list
+        deleteService.resumePending()
+                .addOnSuccessListener(resumed -> {
+                    if (resumed > 0) loadEvents();
+                });
     }
 
 
 
     /**
-     * Loads all event documents ordered by creation time (descending)
+     * Loads all event summaries ordered by creation time (descending)
      * and updates the RecyclerView adapter
      */
 
     private void loadEvents() {
-        db.collection("events")
+        EventSummaries.collection(db)
                 .orderBy("createdAt", Query.Direction.DESCENDING)
                 .get()
                 .addOnSuccessListener(snap -> {
@@ -128,63 +137,20 @@ public class AdminAllEventsActivity extends AppCompatActivity {
     }
 
     /**
-     * Remove an event and its subcollections from Firestore and update the adapter.
-     * This will:
-     *  - delete documents in the event's subcollections first
-     *  - find notifications associated with that event, and then remove them
+     * Remove an event and everything that belongs to it from Firestore and update the adapter.
+     * The removal is done by CascadeDeleteService, which will:
+     *  - delete documents in the event's subcollections in batches, along with
+     *    each entrant's participation index entry
+     *  - find notifications associated with that event with one collection group query,
+     *    and then remove them
      *  - delete the event document itself
+     * If the app is closed partway, the removal is finished the next time this screen opens.
      */
     private void removeEvent(EventAdminAdapter.Row row, int position) {
         if (row == null || row.id == null) return;
 
-        String eventId = row.id;
-
-        // Reference to the event document
-        DocumentReference eventRef = db.collection("events").document(row.id);
-
-        // Subcollections used by this event (waitlist / selection flows)
-        String[] subcollections = new String[] {
-                "waitlist",
-                "selected",
-                "enrolled",
-                "cancelled"
-        };
-
-        // delete all subcollections, if any
-        for (String sub : subcollections) {
-            eventRef.collection(sub)
-                    .get()
-                    .addOnSuccessListener(snap -> {
-                        for (DocumentSnapshot doc : snap.getDocuments()) {
-                            doc.getReference().delete();
-                        }
-                    });
-        }
-
-        // delete any notifications from the event to be deleted
-        db.collection("users")
-                .get()
-                .addOnSuccessListener(usersSnap -> {
-                    for (DocumentSnapshot userDoc : usersSnap.getDocuments()) {
-                        String uid = userDoc.getId();
-
-                        db.collection("users")
-                                .document(uid)
-                                .collection("notifications")
-                                .whereEqualTo("eventId", eventId)
-                                .get()
-                                .addOnSuccessListener(notifSnap -> {
-                                    for (DocumentSnapshot notifDoc : notifSnap.getDocuments()) {
-                                        notifDoc.getReference().delete();
-                                    }
-                                });
-                    }
-                });
-
-
-        // Now delete the event document itself
-        eventRef.delete()
-                .addOnSuccessListener(aVoid -> {
+        deleteService.deleteEvent(row.id, null)
+                .addOnSuccessListener(deleted -> {
                     adapter.removeAt(position);
                     Toast.makeText(this,
                             getString(R.string.admin_remove_event_success),
@@ -12,7 +12,7 @@ import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nachos_app.R;
-import com.google.firebase.firestore.DocumentReference;
+import com.example.nachos_app.UserRemovalService;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.Query;
@@ -115,101 +115,20 @@ public class AdminAllUsersActivity extends AppCompatActivity {
 
     /**
      * Removes the user from any events they're in, their notification
-     * subcollection, and all events they may have created
+     * subcollection, and all events they may have created.
+     * Done by UserRemovalService, which finds the user's entries with collection
+     * group queries and adjusts each event's counters as it deletes them.
      */
     private void removeUser(UserAdminAdapter.UserRow row, int position) {
         if (row == null || row.id == null) return;
 
-        String userId = row.id;
-
-        // delete user's notification subcollection
-        db.collection("users")
-                .document(userId)
-                .collection("notifications")
-                .get()
-                .addOnSuccessListener(notifSnap -> {
-                    for (DocumentSnapshot d : notifSnap.getDocuments()) {
-                        d.getReference().delete();
-                    }
-                });
-
-        // call helper to remove them from all event subcollections they may be in
-        removeUserFromAllEventSubcollections(userId);
-
-        // Find events created by this user and delete them,
-        // then delete the user document itself.
-        db.collection("events")
-                .whereEqualTo("organizerId", userId)
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    List<String> organizerEventIds = new ArrayList<>();
-                    // For each event they created, delete its subcollections
-                    String[] subcollections = new String[] {
-                            "waitlist",
-                            "selected",
-                            "enrolled",
-                            "cancelled"
-                    };
-
-                    for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                        organizerEventIds.add(doc.getId());
-                        DocumentReference eventRef = doc.getReference();
-                        for (String sub : subcollections) {
-                            eventRef.collection(sub)
-                                    .get()
-                                    .addOnSuccessListener(subSnap -> {
-                                        for (DocumentSnapshot s : subSnap.getDocuments()) {
-                                            s.getReference().delete();
-                                        }
-                                    });
-                        }
-                    }
-
-                    // Remove notifications for those events which were deleted from all users
-                    if (!organizerEventIds.isEmpty()) {
-                        db.collection("users")
-                                .get()
-                                .addOnSuccessListener(usersSnap -> {
-                                    for (DocumentSnapshot userDoc : usersSnap) {
-                                        String uid = userDoc.getId();
-                                        db.collection("users").document(uid)
-                                                .collection("notifications")
-                                                .whereIn("eventId", organizerEventIds)
-                                                .get()
-                                                .addOnSuccessListener(notifSnap -> {
-                                                    for (DocumentSnapshot n : notifSnap) n.getReference().delete();
-                                                });
-                                    }
-                                });
-                    }
-                    
-                    // Then delete those event documents
-                    db.runBatch(batch -> {
-                        for (DocumentSnapshot doc : querySnapshot.getDocuments()) {
-                            batch.delete(doc.getReference());
-                        }
-                    }).addOnSuccessListener(unusedBatch -> {
-
-                        // Finally, delete the user document itself
-                        db.collection("users")
-                                .document(userId)
-                                .delete()
-                                .addOnSuccessListener(unusedUser -> {
-                                    // Remove from adapter so it disappears from the list
-                                    adapter.removeAt(position);
-                                    Toast.makeText(this,
-                                            getString(R.string.admin_remove_user_success),
-                                            Toast.LENGTH_SHORT).show();
-                                })
-                                .addOnFailureListener(e ->
-                                        Toast.makeText(this,
-                                                getString(R.string.admin_remove_user_fail) + ": " + e.getMessage(),
-                                                Toast.LENGTH_SHORT).show());
-
-                    }).addOnFailureListener(e ->
-                            Toast.makeText(this,
-                                    getString(R.string.admin_remove_user_fail) + ": " + e.getMessage(),
-                                    Toast.LENGTH_SHORT).show());
+        new UserRemovalService(db).removeUser(row.id)
+                .addOnSuccessListener(unused -> {
+                    // Remove from adapter so it disappears from the list
+                    adapter.removeAt(position);
+                    Toast.makeText(this,
+                            getString(R.string.admin_remove_user_success),
+                            Toast.LENGTH_SHORT).show();
                 })
                 .addOnFailureListener(e ->
                         Toast.makeText(this,
@@ -218,47 +137,4 @@ public class AdminAllUsersActivity extends AppCompatActivity {
     }
 
 
-    /**
-     * Removes a user from all event subcollections where they may appear as an entrant
-     * <p>
-     * This scans all events and, for each one:
-     *  - delete a doc with ID == userId in waitlist/selected/enrolled/cancelled
-     *  - delete any docs where the "uid" field equals userId
-     * </p>
-     *
-     * @param userId Firestore document ID in the users collection (same as uid)
-     */
-    private void removeUserFromAllEventSubcollections(String userId) {
-        String[] subcollections = new String[] {
-                "waitlist",
-                "selected",
-                "enrolled",
-                "cancelled"
-        };
-
-        db.collection("events")
-                .get()
-                .addOnSuccessListener(eventsSnap -> {
-                    for (DocumentSnapshot eventDoc : eventsSnap.getDocuments()) {
-                        DocumentReference eventRef = eventDoc.getReference();
-
-                        // delete all references to this user from each event
-                        for (String sub : subcollections) {
-                            eventRef.collection(sub)
-                                    .document(userId)
-                                    .delete();
-                            eventRef.collection(sub)
-                                    .whereEqualTo("uid", userId)
-                                    .get()
-                                    .addOnSuccessListener(subSnap -> {
-                                        for (DocumentSnapshot d : subSnap.getDocuments()) {
-                                            d.getReference().delete();
-                                        }
-                                    });
-                        }
-                    }
-                });
-    }
-
-
 }
@@ -10,12 +10,21 @@ import androidx.recyclerview.widget.GridLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nachos_app.Event;
+import com.example.nachos_app.EventSummaries;
+import com.example.nachos_app.FirestoreImageStore;
+import com.example.nachos_app.ImageSweep;
 import com.example.nachos_app.R;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
-import java.util.List;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * Admin-only screen that shows all uploaded pictures along with the name of the event
@@ -67,35 +76,48 @@ public class AdminEventImagesActivity extends AppCompatActivity {
     }
 
     /**
-     * Loads all events from firebase and gets the events with an image present
+     * Loads the events with a banner present
+     * <p>
+     * Stored banners are found through the event summaries, which hold the banner key,
+     * so the full events aren't read. Only events still holding a legacy base64 banner
+     * are read in full, since the image is in the event document itself.
+     * </p>
      */
     private void loadEventImages() {
-        db.collection("events")
-                .get()
-                .addOnSuccessListener(querySnapshot -> {
-                    // list to hold the rows
-                    List<AdminEventImagesAdapter.Row> rows = new ArrayList<>();
-
-                    for (DocumentSnapshot doc : querySnapshot) {
+        Task<QuerySnapshot> stored = EventSummaries.collection(db)
+                .whereGreaterThan("bannerRef", "")
+                .get();
+        Task<QuerySnapshot> legacy = db.collection("events")
+                .whereGreaterThan("bannerUrl", "")
+                .get();
+
+        Tasks.whenAllSuccess(stored, legacy)
+                .addOnSuccessListener(results -> {
+                    // rows by event id, so an event with both banners is only shown once
+                    Map<String, AdminEventImagesAdapter.Row> rows = new LinkedHashMap<>();
+
+                    for (DocumentSnapshot summary : stored.getResult()) {
+                        AdminEventImagesAdapter.Row row = new AdminEventImagesAdapter.Row();
+                        row.eventId = summary.getId();
+                        row.eventName = summary.getString("eventName");
+                        row.bannerRef = summary.getString("bannerRef");
+                        rows.put(row.eventId, row);
+                    }
 
+                    for (DocumentSnapshot doc : legacy.getResult()) {
+                        if (rows.containsKey(doc.getId())) continue;
                         Event event = doc.toObject(Event.class);
                         if (event == null) continue;
 
-                        // get the banner
-                        String banner = event.getBannerUrl();
-
-                        // only get events where there is an image present
-                        if (banner != null && !banner.isEmpty()) {
-                            AdminEventImagesAdapter.Row row = new AdminEventImagesAdapter.Row();
-                            row.eventId = doc.getId();
-                            row.eventName = event.getEventName();
-                            row.bannerBase64 = banner;
-                            rows.add(row);
-                        }
+                        AdminEventImagesAdapter.Row row = new AdminEventImagesAdapter.Row();
+                        row.eventId = doc.getId();
+                        row.eventName = event.getEventName();
+                        row.bannerBase64 = event.getBannerUrl();
+                        rows.put(row.eventId, row);
                     }
 
                     // update adapter
-                    adapter.set(rows);
+                    adapter.set(new ArrayList<>(rows.values()));
 
                     // if there aren't any images present, show a toast
                     if (rows.isEmpty()) {
@@ -132,7 +154,8 @@ public class AdminEventImagesActivity extends AppCompatActivity {
     /**
      * Clears the banner image from the given event in Firestore and updates UI
      * <p>
-     * This method sets the bannerUrl field of the chosen event to null.
+     * This method sets the bannerUrl field of the chosen event to null and removes
+     * its bannerRef. The stored image is deleted too unless another event shares it.
      * When the update goes through it refreshes the adapter so the UI and
      * firebase are in sync
      * </p>
@@ -142,11 +165,15 @@ public class AdminEventImagesActivity extends AppCompatActivity {
             return;
         }
 
-        // edit the bannerUrl field in firebase and display toast for confirmation
-        db.collection("events")
-                .document(row.eventId)
-                .update("bannerUrl", null)
+        // edit the banner fields in firebase and display toast for confirmation
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("bannerUrl", null);
+        updates.put("bannerRef", FieldValue.delete());
+        EventSummaries.update(db.collection("events").document(row.eventId), updates)
                 .addOnSuccessListener(aVoid -> {
+                    if (row.bannerRef != null && !row.bannerRef.isEmpty()) {
+                        ImageSweep.deleteIfUnreferenced(db, FirestoreImageStore.getInstance(), row.bannerRef);
+                    }
                     adapter.removeAt(position);
                     Toast.makeText(this,
                             getString(R.string.admin_remove_image_success),
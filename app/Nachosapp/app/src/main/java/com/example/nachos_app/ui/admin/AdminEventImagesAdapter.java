@@ -9,6 +9,7 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
+import com.example.nachos_app.ImageLoader;
 import com.example.nachos_app.ImageUtils;
 import com.example.nachos_app.R;
 
@@ -29,6 +30,7 @@ public class AdminEventImagesAdapter extends RecyclerView.Adapter<AdminEventImag
         public String eventId;
         public String eventName;
         public String bannerBase64;
+        public String bannerRef;
     }
 
     /**
@@ -118,8 +120,9 @@ public class AdminEventImagesAdapter extends RecyclerView.Adapter<AdminEventImag
         );
 
         // load the image
-        ImageUtils.loadBase64Image(
+        ImageUtils.loadStoredImage(
                 holder.bannerImage,
+                row.bannerRef,
                 row.bannerBase64,
                 R.drawable.ic_camera_placeholder
         );
@@ -135,6 +138,16 @@ public class AdminEventImagesAdapter extends RecyclerView.Adapter<AdminEventImag
         });
     }
 
+    /**
+     * Cancels the banner load of a row that scrolled off screen.
+     * @param holder the recycled ViewHolder
+     */
+    @Override
+    public void onViewRecycled(@NonNull VH holder) {
+        super.onViewRecycled(holder);
+        ImageLoader.getInstance(holder.itemView.getContext()).cancel(holder.bannerImage);
+    }
+
     /**
      * @return total number of rows in the adapter.
      */
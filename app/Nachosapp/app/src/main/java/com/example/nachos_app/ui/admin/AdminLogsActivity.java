@@ -5,46 +5,39 @@ import android.view.View;
 import android.widget.TextView;
 import android.widget.Toast;
 
+import androidx.annotation.NonNull;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.example.nachos_app.Notification;
+import com.example.nachos_app.PagedCollectionLoader;
 import com.example.nachos_app.R;
+import com.google.firebase.Timestamp;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.Query;
 
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
-import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * AdminLogsActivity
  * <p>
  *     Admin-only screen that shows a log of notifications
  *     sent by organizers to entrants.
+ *     Reads the adminLogs collection, which NotificationSender appends to on every send,
+ *     newest first and one page at a time as the admin scrolls.
  * </p>
  */
 public class AdminLogsActivity extends AppCompatActivity {
+    private static final int PAGE_SIZE = 30;
+    // Start loading the next page when this many rows are left below the screen
+    private static final int PREFETCH_DISTANCE = 10;
+
     private FirebaseFirestore db;
     private AdminLogsAdapter adapter;
     private TextView tvEmpty;
-
-    /**
-     * Small helper class to hold event name and organizer name
-     */
-    private static class EventMeta {
-        final String eventName;
-        final String organizerName;
-
-        EventMeta(String eventName, String organizerName) {
-            this.eventName = eventName;
-            this.organizerName = organizerName;
-        }
-    }
+    private PagedCollectionLoader<DocumentSnapshot> logLoader;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,149 +61,85 @@ public class AdminLogsActivity extends AppCompatActivity {
         tvEmpty = findViewById(R.id.tv_logs_empty);
 
         RecyclerView rv = findViewById(R.id.rv_admin_logs);
-        rv.setLayoutManager(new LinearLayoutManager(this));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(this);
+        rv.setLayoutManager(layoutManager);
         adapter = new AdminLogsAdapter(this);
         rv.setAdapter(adapter);
 
-        loadAllNotifications();
-    }
+        // load more logs as the admin nears the bottom of the list
+        rv.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    logLoader.loadNext(logPageListener);
+                }
+            }
+        });
 
-    /**
-     * Loads all organizer to entrant notifications.
-     *
-     * Step 1: Load all events so we can resolve eventId
-     * Step 2: For each user, load their notifications subcollection and keep only
-     *         notifications that have a non-null eventId. (because we're only interested in
-     *         notifications sent to entrants from organizers)
-     */
-    private void loadAllNotifications() {
-        // load events
-        db.collection("events")
-                .get()
-                .addOnSuccessListener(eventsSnap -> {
-                    Map<String, EventMeta> eventMetaMap = new HashMap<>();
-                    for (DocumentSnapshot doc : eventsSnap.getDocuments()) {
-                        String eventId = doc.getId();
-                        String eventName = doc.getString("eventName");
-                        String organizerName = doc.getString("organizerName");
-                        eventMetaMap.put(eventId, new EventMeta(eventName, organizerName));
-                    }
-                    // load notifications for all users
-                    loadOrganizerToEntrantNotifications(eventMetaMap);
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this,
-                            getString(R.string.admin_logs_load_fail) + ": " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                    // still try to load notifications with an empty event map
-                    loadOrganizerToEntrantNotifications(new HashMap<>());
-                });
+        logLoader = PagedCollectionLoader.forQuery(db.collection("adminLogs")
+                .orderBy("sendTime", Query.Direction.DESCENDING), PAGE_SIZE);
+        logLoader.loadNext(logPageListener);
     }
 
     /**
-     * Loads notifications from all users, filters for event-based notifications
-     * and maps them into rows for the adapter.
-     *
-     * @param eventMetaMap mapping from eventId to event metadata
+     * Appends each page of log entries to the list.
      */
-    private void loadOrganizerToEntrantNotifications(Map<String, EventMeta> eventMetaMap) {
-        db.collection("users")
-                .get()
-                .addOnSuccessListener(usersSnap -> {
-
-                    // List that will hold all rows from all users
-                    List<AdminLogsAdapter.Row> rows = new ArrayList<>();
-
-                    // If there are no users, we are done
-                    if (usersSnap.isEmpty()) {
-                        applyRows(rows);
-                        return;
-                    }
-
-                    // we need to know when all user notification queries finish
-                    // so remaining here = number of user docs whose notifications are still loading
-                    AtomicInteger remaining = new AtomicInteger(usersSnap.size());
-
-                    for (DocumentSnapshot userDoc : usersSnap.getDocuments()) {
-                        String uid = userDoc.getId();
-
-                        // get user name
-                        final String recipientName = userDoc.getString("name");
-
-                        db.collection("users")
-                                .document(uid)
-                                .collection("notifications")
-                                .get()
-                                .addOnSuccessListener(notifSnap -> {
-                                    for (DocumentSnapshot notifDoc : notifSnap) {
-                                        Notification n = notifDoc.toObject(Notification.class);
-                                        if (n == null) continue;
-
-                                        String eventId = n.getEventId();
-
-                                        // Only keep notifications tied to an event:
-                                        // these are the organizer to entrant ones
-                                        if (eventId == null || eventId.isEmpty()) {
-                                            continue;
-                                        }
-
-                                        EventMeta meta = eventMetaMap.get(eventId);
-                                        if (meta == null) {
-                                            // Event was deleted or not found
-                                            continue;
-                                        }
-
-                                        // set up the data to be displayed
-                                        AdminLogsAdapter.Row r = new AdminLogsAdapter.Row();
-                                        r.eventName = meta.eventName;
-                                        r.senderName = meta.organizerName;
-                                        r.recipientName = recipientName;
-                                        r.message = n.getMessage();
-                                        r.sendTime = n.getSendTime();
-                                        rows.add(r);
-                                    }
-                                    // decrement the remaining counter
-                                    // once it gets to 0 we can sort and display the notifications
-                                    if (remaining.decrementAndGet() == 0) {
-                                        applyRows(rows);
-                                    }
-                                })
-                                .addOnFailureListener(e -> {
-                                    // this part makes sure that if one persons notifs fail to load
-                                    // we can still display the ones that didn't
-                                    if (remaining.decrementAndGet() == 0) {
-                                        applyRows(rows);
-                                    }
-                                });
-                    }
-                })
-                .addOnFailureListener(e -> {
-                    Toast.makeText(this,
-                            getString(R.string.admin_logs_load_fail) + ": " + e.getMessage(),
-                            Toast.LENGTH_SHORT).show();
-                    applyRows(new ArrayList<>());
-                });
-    }
+    private final PagedCollectionLoader.Listener<DocumentSnapshot> logPageListener =
+            new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+        @Override
+        public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+            List<AdminLogsAdapter.Row> rows = new ArrayList<>(page.size());
+            for (DocumentSnapshot doc : page) {
+                rows.add(toRow(doc));
+            }
+            adapter.append(rows);
+
+            tvEmpty.setVisibility(adapter.getItemCount() == 0 ? TextView.VISIBLE : TextView.GONE);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            Toast.makeText(AdminLogsActivity.this,
+                    getString(R.string.admin_logs_load_fail) + ": " + e.getMessage(),
+                    Toast.LENGTH_SHORT).show();
+            tvEmpty.setVisibility(adapter.getItemCount() == 0 ? TextView.VISIBLE : TextView.GONE);
+        }
+    };
 
     /**
-     * Sorts the given rows and passes them to the adapter.
+     * Maps an adminLogs entry to a row for the adapter.
      *
-     * @param rows list of rows to display (may be empty)
+     * @param doc log entry
+     * @return row to display
      */
-    private void applyRows(List<AdminLogsAdapter.Row> rows) {
-        Collections.sort(rows, (o1, o2) -> {
-            if (o1.sendTime == null && o2.sendTime == null) return 0;
-            if (o1.sendTime == null) return 1;
-            if (o2.sendTime == null) return -1;
-            return o2.sendTime.compareTo(o1.sendTime);
-        });
+    private AdminLogsAdapter.Row toRow(DocumentSnapshot doc) {
+        AdminLogsAdapter.Row r = new AdminLogsAdapter.Row();
+        r.eventName = doc.getString("eventName");
+        r.senderName = doc.getString("organizerName");
+        r.message = doc.getString("message");
+
+        Long count = doc.getLong("recipientCount");
+        Long sent = doc.getLong("sentCount");
+        if (doc.getString("error") != null) {
+            r.recipientName = "Failed: " + doc.getString("error");
+        } else if (count != null && sent != null) {
+            r.recipientName = sent + " of " + count + (count == 1 ? " entrant" : " entrants");
+        } else if (count != null) {
+            r.recipientName = count + (count == 1 ? " entrant" : " entrants");
+        }
 
-        adapter.set(rows);
+        Timestamp sendTime = doc.getTimestamp("sendTime");
+        r.sendTime = (sendTime != null) ? sendTime.toDate() : null;
+        return r;
+    }
 
-        if (rows.isEmpty()) {
-            tvEmpty.setVisibility(TextView.VISIBLE);
-        } else {
-            tvEmpty.setVisibility(TextView.GONE);
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if (logLoader != null) {
+            logLoader.cancel();
         }
     }
 }
@@ -21,7 +21,7 @@ import java.util.List;
  * <p>
  * Each row shows:
  *  - Event name
- *  - Recipient name
+ *  - Recipients (a name, or how many entrants the message went to)
  *  - Notification message content
  *  - Sender name
  *  - Time the notification was sent
@@ -66,6 +66,18 @@ public class AdminLogsAdapter extends RecyclerView.Adapter<AdminLogsAdapter.VH>
         notifyDataSetChanged();
     }
 
+    /**
+     * Adds rows to the end of the list, e.g. the next page of logs
+     *
+     * @param items list of rows to add
+     */
+    public void append(List<Row> items) {
+        if (items == null || items.isEmpty()) return;
+        int start = rows.size();
+        rows.addAll(items);
+        notifyItemRangeInserted(start, items.size());
+    }
+
     /**
      * Creates a new ViewHolder instance
      */
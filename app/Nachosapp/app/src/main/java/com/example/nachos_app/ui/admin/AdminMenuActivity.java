@@ -4,11 +4,17 @@ package com.example.nachos_app.ui.admin;
 
 import android.content.Intent;
 import android.os.Bundle;
+import android.util.Log;
+import android.widget.Toast;
 
 
 import androidx.appcompat.app.AppCompatActivity;
 
+import com.example.nachos_app.DataMigrations;
+import com.example.nachos_app.FirestoreImageStore;
+import com.example.nachos_app.ImageSweep;
 import com.example.nachos_app.R;
+import com.google.firebase.firestore.FirebaseFirestore;
 
 
 /**
@@ -17,6 +23,11 @@ import com.example.nachos_app.R;
  * Shows buttons to navigate to different parts of the project
  * includes exit admin mode button to return
  * </p>
+ * <p>
+ * Opening it also brings the database's data up to date (see DataMigrations), since
+ * admins can write every event; the migrations only run if they haven't already.
+ * It also sweeps unused stored images at most once a day (see ImageSweep).
+ * </p>
  *
  * @author Darius
  */
@@ -55,5 +66,40 @@ public class AdminMenuActivity extends AppCompatActivity {
 
         // return to previous screen
         findViewById(R.id.btn_exit_admin).setOnClickListener(v -> finish());
+
+        runMigrations();
+        sweepImages();
+    }
+
+    /**
+     * Runs the one-off data migrations if this database hasn't had them yet.
+     */
+    private void runMigrations() {
+        DataMigrations.runIfNeeded(FirebaseFirestore.getInstance())
+                .addOnSuccessListener(result -> {
+                    if (result == null) return;
+                    String summary = "Migrated " + result.summaries + " event summaries, "
+                            + result.participations + " events' participations, "
+                            + result.banners + " banners, " + result.qrCodes + " QR codes, "
+                            + result.locations + " waitlist locations";
+                    Log.i("DataMigrations", summary);
+                    Toast.makeText(getApplicationContext(), summary, Toast.LENGTH_LONG).show();
+                })
+                .addOnFailureListener(e -> {
+                    Log.e("DataMigrations", "Migration failed", e);
+                    Toast.makeText(getApplicationContext(), "Data migration failed; it will retry next time",
+                            Toast.LENGTH_SHORT).show();
+                });
+    }
+
+    /**
+     * Deletes stored images no event uses any more, if that hasn't been done today.
+     */
+    private void sweepImages() {
+        ImageSweep.runIfDue(FirebaseFirestore.getInstance(), FirestoreImageStore.getInstance())
+                .addOnSuccessListener(deleted -> {
+                    if (deleted != null) Log.i("ImageSweep", "Deleted " + deleted + " unused images");
+                })
+                .addOnFailureListener(e -> Log.e("ImageSweep", "Image sweep failed", e));
     }
 }
@@ -5,26 +5,42 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.nachos_app.Event;
-import com.google.firebase.auth.FirebaseAuth;
-import com.google.firebase.firestore.DocumentReference;
+import com.example.nachos_app.EventSummaries;
+import com.example.nachos_app.ParticipationIndex;
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
+import com.google.firebase.firestore.Source;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * ViewModel for the Dashboard Fragment.
  * Manages loading and filtering of events relevant to the current user.
  * Filters events based on user participation status (organizer, waitlist, selected, enrolled, cancelled).
- * Uses Firestore to fetch all events and check user's involvement in each one.
+ * Reads the user's participation index instead of checking every event's lists,
+ * and the events' summaries instead of their full documents.
+ * Everything is read from the local cache first and shown straight away, then read
+ * again from the server.
  */
 public class DashboardViewModel extends ViewModel {
+    // Firestore allows at most 30 values in a whereIn filter
+    private static final int EVENT_CHUNK_SIZE = 30;
+
     private final MutableLiveData<List<Event>> mEvents;
     private final MutableLiveData<List<String>> mEventIds;
     private final MutableLiveData<Boolean> mLoading;
     private final MutableLiveData<String> mError;
     private final FirebaseFirestore db;
+    // Bumped on every load so results of an older load are ignored
+    private int loadGeneration = 0;
+    private boolean serverLoaded;
 
     public DashboardViewModel() {
         mEvents = new MutableLiveData<>();
@@ -51,8 +67,11 @@ public class DashboardViewModel extends ViewModel {
     }
 
     /**
-     * Loads all events and filters them to show only those relevant to the current user.
-     * Retrieves all events from Firestore, then checks user's participation status.
+     * Loads the events relevant to the current user.
+     * Runs two queries whose cost depends only on the user's own events:
+     * events they organize, and their entries in users/{uid}/participations.
+     * The participated events' summaries are then read in whereIn chunks of up to 30.
+     * The cached results are shown first if there are any, then replaced by the server's.
      * @param currentUserId The ID of the currently logged-in user
      */
     public void loadMyEvents(String currentUserId) {
@@ -64,144 +83,104 @@ public class DashboardViewModel extends ViewModel {
         mLoading.setValue(true);
         mError.setValue(null);
 
-        db.collection("events")
-                .get().addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<String> allEventIds = new ArrayList<>();
-                    List<Event> allEvents = new ArrayList<>();
+        int generation = ++loadGeneration;
+        serverLoaded = false;
+        load(currentUserId, Source.CACHE, generation);
+        load(currentUserId, Source.DEFAULT, generation);
+    }
 
-                    for (QueryDocumentSnapshot doc : queryDocumentSnapshots) {
-                        allEventIds.add(doc.getId());
-                        allEvents.add(doc.toObject(Event.class));
+    /**
+     * Runs the two queries and the summary reads against one source.
+     * @param currentUserId The ID of the currently logged-in user
+     * @param source Source.CACHE, or Source.DEFAULT for the server
+     * @param generation Load this read belongs to
+     */
+    private void load(String currentUserId, Source source, int generation) {
+        Task<QuerySnapshot> organizedTask = EventSummaries.collection(db)
+                .whereEqualTo("organizerId", currentUserId)
+                .get(source);
+        Task<QuerySnapshot> participationsTask = ParticipationIndex.collection(db, currentUserId)
+                .get(source);
+
+        Tasks.whenAllSuccess(organizedTask, participationsTask)
+                .addOnSuccessListener(results -> {
+                    List<Event> userEvents = new ArrayList<>();
+                    List<String> userEventIds = new ArrayList<>();
+
+                    // Events the user organizes
+                    for (QueryDocumentSnapshot doc : organizedTask.getResult()) {
+                        if (!EventSummaries.isComplete(doc)) continue;
+                        userEvents.add(doc.toObject(Event.class));
+                        userEventIds.add(doc.getId());
                     }
 
-                    filterUserEvents(allEventIds, allEvents, currentUserId);
+                    // Events the user takes part in, with their status in each
+                    Map<String, String> statuses = new HashMap<>();
+                    for (QueryDocumentSnapshot doc : participationsTask.getResult()) {
+                        if (!userEventIds.contains(doc.getId())) {
+                            statuses.put(doc.getId(), doc.getString("status"));
+                        }
+                    }
+
+                    loadParticipatedEvents(statuses, userEvents, userEventIds, source, generation);
                 })
-                .addOnFailureListener(e -> {
-                    mError.setValue("Failed to load events: " + e.getMessage());
-                    mLoading.setValue(false);
-                });
+                .addOnFailureListener(e -> onLoadFailed(e, source, generation));
     }
 
     /**
-     * Filters events to include only those where the user is involved.
-     * Checks if user is organizer or participant in any capacity.
-     * @param allEventIds List of all event IDs from Firestore
-     * @param allEvents List of all event objects
-     * @param currentUserId The current user's ID
+     * Reads the summaries of the events the user takes part in and adds them to the results.
+     * Events are read in whereIn chunks of up to 30 IDs. Index entries whose event
+     * no longer exists, or whose summary hasn't been fully written yet, are skipped.
+     * @param statuses Map from event ID to the user's participation status
+     * @param userEvents List of events to add to (already holds organized events)
+     * @param userEventIds List of event IDs to add to, in the same order as userEvents
+     * @param source Source.CACHE, or Source.DEFAULT for the server
+     * @param generation Load this read belongs to
      */
-    private void filterUserEvents(List<String> allEventIds, List<Event> allEvents, String currentUserId) {
-        final List<Event> userEvents = new ArrayList<>();
-        final List<String> userEventIds = new ArrayList<>();
-        final int totalEvents = allEventIds.size();
-        final int[] processedCount = {0};
-
-        if (totalEvents == 0) {
-            mEvents.setValue(userEvents);
-            mEventIds.setValue(userEventIds);
-            mLoading.setValue(false);
-            return;
+    private void loadParticipatedEvents(Map<String, String> statuses,
+                                        List<Event> userEvents,
+                                        List<String> userEventIds,
+                                        Source source,
+                                        int generation) {
+        List<String> ids = new ArrayList<>(statuses.keySet());
+        List<Task<QuerySnapshot>> chunks = new ArrayList<>();
+        for (int i = 0; i < ids.size(); i += EVENT_CHUNK_SIZE) {
+            chunks.add(EventSummaries.collection(db)
+                    .whereIn(FieldPath.documentId(), ids.subList(i, Math.min(ids.size(), i + EVENT_CHUNK_SIZE)))
+                    .get(source));
         }
 
-        for (int i = 0; i < allEventIds.size(); i++) {
-            final String eventId = allEventIds.get(i);
-            final Event event = allEvents.get(i);
+        Tasks.whenAllSuccess(chunks)
+                .addOnSuccessListener(results -> {
+                    for (Task<QuerySnapshot> chunk : chunks) {
+                        for (QueryDocumentSnapshot doc : chunk.getResult()) {
+                            if (!EventSummaries.isComplete(doc)) continue;
+                            Event event = doc.toObject(Event.class);
+                            event.setUserParticipationStatus(statuses.get(doc.getId()));
+                            userEvents.add(event);
+                            userEventIds.add(doc.getId());
+                        }
+                    }
 
-            // Check if user is organizer
-            if (event.getOrganizerId().equals(currentUserId)) {
-                userEvents.add(event);
-                userEventIds.add(eventId);
+                    if (generation != loadGeneration) return;
+                    if (source == Source.CACHE) {
+                        // Cached results are only a preview; never replace the server's or show an empty cache
+                        if (serverLoaded || userEvents.isEmpty()) return;
+                    } else {
+                        serverLoaded = true;
+                    }
 
-                processedCount[0]++;
-                if (processedCount[0] == totalEvents) {
                     mEvents.setValue(userEvents);
                     mEventIds.setValue(userEventIds);
                     mLoading.setValue(false);
-                }
-                continue;
-            }
-
-            // Check if user is participant
-            checkIfUserIsParticipant(eventId, event, userEvents, userEventIds, () -> {
-                processedCount[0]++;
-                if (processedCount[0] == totalEvents) {
-                    mEvents.setValue(userEvents);
-                    mEventIds.setValue(userEventIds);
-                    mLoading.setValue(false);
-                }
-            });
-        }
+                })
+                .addOnFailureListener(e -> onLoadFailed(e, source, generation));
     }
 
-    /**
-     * Checks if the user is a participant in an event.
-     * Sequentially checks waitlist, selected, enrolled, and cancelled collections.
-     * @param eventId The event ID to check
-     * @param event The event object
-     * @param userEvents List to add event to if user is participant
-     * @param userEventIds List to add event ID to if user is participant
-     * @param onComplete Callback to run when check is complete
-     */
-    private void checkIfUserIsParticipant(String eventId, Event event,
-                                          List<Event> userEvents,
-                                          List<String> userEventIds,
-                                          Runnable onComplete) {
-        String currentUserId = FirebaseAuth.getInstance().getCurrentUser().getUid();
-        DocumentReference eventRef = db.collection("events").document(eventId);
-
-        eventRef.collection("waitlist").document(currentUserId)
-                .get()
-                .addOnSuccessListener(snapshot -> {
-                    if (snapshot.exists()) {
-                        event.setUserParticipationStatus("WAITLISTED");
-                        userEvents.add(event);
-                        userEventIds.add(eventId);
-                        onComplete.run();
-                        return;
-                    }
-
-                    eventRef.collection("selected").document(currentUserId)
-                            .get()
-                            .addOnSuccessListener(selectedSnapshot -> {
-                                if (selectedSnapshot.exists()) {
-                                    event.setUserParticipationStatus("SELECTED");
-                                    userEvents.add(event);
-                                    userEventIds.add(eventId);
-                                    onComplete.run();
-                                    return;
-                                }
-
-                                eventRef.collection("enrolled").document(currentUserId)
-                                        .get()
-                                        .addOnSuccessListener(enrolledSnapshot -> {
-                                            if (enrolledSnapshot.exists()) {
-                                                event.setUserParticipationStatus("ENROLLED");
-                                                userEvents.add(event);
-                                                userEventIds.add(eventId);
-                                                onComplete.run();
-                                                return;
-                                            }
-
-                                            eventRef.collection("cancelled").document(currentUserId)
-                                                    .get()
-                                                    .addOnSuccessListener(cancelledSnapshot -> {
-                                                        if (cancelledSnapshot.exists()) {
-                                                            String reason = cancelledSnapshot.getString("reason");
-                                                            if ("declined".equals(reason)) {
-                                                                event.setUserParticipationStatus("DECLINED");
-                                                            } else {
-                                                                event.setUserParticipationStatus("CANCELLED");
-                                                            }
-                                                            userEvents.add(event);
-                                                            userEventIds.add(eventId);
-                                                        }
-                                                        onComplete.run();
-                                                    })
-                                                    .addOnFailureListener(e -> onComplete.run());
-                                        })
-                                        .addOnFailureListener(e -> onComplete.run());
-                            })
-                            .addOnFailureListener(e -> onComplete.run());
-                })
-                .addOnFailureListener(e -> onComplete.run());
+    // Failed cache reads are expected (nothing cached yet); only failures of the final read are shown
+    private void onLoadFailed(Exception e, Source source, int generation) {
+        if (source == Source.CACHE || generation != loadGeneration) return;
+        mError.setValue("Failed to load events: " + e.getMessage());
+        mLoading.setValue(false);
     }
-}
\ No newline at end of file
+}
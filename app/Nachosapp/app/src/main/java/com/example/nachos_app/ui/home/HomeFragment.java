@@ -12,12 +12,14 @@ import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
 import androidx.lifecycle.ViewModelProvider;
 import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 import androidx.activity.result.ActivityResultLauncher;
 
 import com.example.nachos_app.CreateEventActivity;
 import com.example.nachos_app.Event;
 import com.example.nachos_app.EventAdapter;
 import com.example.nachos_app.EventDetailsActivity;
+import com.example.nachos_app.StartupTrace;
 import com.example.nachos_app.databinding.FragmentHomeBinding;
 
 import com.journeyapps.barcodescanner.ScanContract;
@@ -30,20 +32,22 @@ import java.util.List;
  * Main home screen fragment displaying available events.
  * Shows events with open registration and provides options to:
  * - Create new events
- * - Filter events (upcoming feature)
+ * - Filter events by registration status
  * - Scan QR codes to view event details
- * Automatically refreshes event list when fragment is resumed.
+ * The event list updates live while the fragment is shown.
+ * Filtering is done by HomeViewModel's queries; more events are loaded as the user scrolls.
  */
 public class HomeFragment extends Fragment {
 
     private static final String QR_PREFIX = "event://";
+    // Start loading the next page when this many rows are left below the screen
+    private static final int PREFETCH_DISTANCE = 5;
     private FragmentHomeBinding binding;
     private EventAdapter eventAdapter;
     private HomeViewModel homeViewModel;
 
     private List<Event> allEvents = new ArrayList<>();
     private List<String> allEventIds = new ArrayList<>();
-    private String currentFilter = "All";
 
     public View onCreateView(@NonNull LayoutInflater inflater,
                              ViewGroup container, Bundle savedInstanceState) {
@@ -53,10 +57,23 @@ public class HomeFragment extends Fragment {
         View root = binding.getRoot();
 
         // Setup RecyclerView
-        binding.eventsRecyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        binding.eventsRecyclerView.setLayoutManager(layoutManager);
         eventAdapter = new EventAdapter(getContext());
         binding.eventsRecyclerView.setAdapter(eventAdapter);
 
+        // Load more events as the user nears the bottom of the list
+        binding.eventsRecyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= eventAdapter.getItemCount() - PREFETCH_DISTANCE) {
+                    homeViewModel.loadMore();
+                }
+            }
+        });
+
         // Setup button listeners
         binding.createEventButton.setOnClickListener(v -> {
             Intent intent = new Intent(getContext(), CreateEventActivity.class);
@@ -65,13 +82,12 @@ public class HomeFragment extends Fragment {
 
         binding.filterButton.setOnClickListener(v -> {
             PopupMenu popup = new PopupMenu(requireContext(), binding.filterButton);
-            popup.getMenu().add("All");
-            popup.getMenu().add("Ongoing");
-            popup.getMenu().add("Future");
+            popup.getMenu().add(HomeViewModel.FILTER_ALL);
+            popup.getMenu().add(HomeViewModel.FILTER_ONGOING);
+            popup.getMenu().add(HomeViewModel.FILTER_FUTURE);
 
             popup.setOnMenuItemClickListener(item -> {
-                currentFilter = item.getTitle().toString();
-                applyFilter(currentFilter);
+                homeViewModel.setFilter(item.getTitle().toString());
                 return true;
             });
             popup.show();
@@ -82,17 +98,15 @@ public class HomeFragment extends Fragment {
         // Observe ViewModel
         observeViewModel();
 
-        // Load events
-        homeViewModel.loadEvents();
-
+        // Events are loaded in onResume
         return root;
     }
 
     @Override
     public void onResume() {
         super.onResume();
-        // Reload events when returning to this fragment
-        homeViewModel.loadEvents();
+        // The feed stays live through snapshot listeners, so it's only loaded the first time
+        homeViewModel.startListening();
     }
 
     /**
@@ -153,50 +167,20 @@ public class HomeFragment extends Fragment {
             return;
         }
         
-        applyFilter(currentFilter);
-    }
-
-    /**
-     * Applies the selected filter to the events list.
-     * Filters events based on registration status: All, Ongoing (open), or Future (upcoming).
-     * Updates the RecyclerView with filtered results.
-     * @param filter The filter to apply ("All", "Ongoing", or "Future")
-     */
-    private void applyFilter(String filter) {
-        List<Event> filteredEvents = new ArrayList<>();
-        List<String> filteredIds = new ArrayList<>();
-
-        for (int i = 0; i < allEvents.size(); i++) {
-            Event event = allEvents.get(i);
-            String id = allEventIds.get(i);
-            boolean matches = false;
-
-            switch (filter) {
-                case "All":
-                    matches = true;
-                    break;
-                case "Ongoing": // Registration Open
-                    matches = event.isRegistrationOpen();
-                    break;
-                case "Future": // Registration Upcoming
-                    matches = event.isRegistrationUpcoming();
-                    break;
-            }
-
-            if (matches) {
-                filteredEvents.add(event);
-                filteredIds.add(id);
-            }
-        }
-
-        if (filteredEvents.isEmpty()) {
+        if (allEvents.isEmpty()) {
             binding.emptyStateTextView.setVisibility(View.VISIBLE);
             binding.emptyStateTextView.setText("No events match your filter.");
             binding.eventsRecyclerView.setVisibility(View.GONE);
         } else {
             binding.emptyStateTextView.setVisibility(View.GONE);
             binding.eventsRecyclerView.setVisibility(View.VISIBLE);
-            eventAdapter.setEvents(filteredEvents, filteredIds);
+            eventAdapter.setEvents(allEvents, allEventIds);
+
+            boolean fromCache = Boolean.TRUE.equals(homeViewModel.getFromCache().getValue());
+            if (StartupTrace.mark(StartupTrace.FIRST_EVENT_ROW, fromCache ? "from cache" : "from server")
+                    && getActivity() != null) {
+                getActivity().reportFullyDrawn();
+            }
         }
     }
 
@@ -5,31 +5,81 @@ import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
 import com.example.nachos_app.Event;
+import com.example.nachos_app.EventSummaries;
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.FirebaseFirestoreException;
+import com.google.firebase.firestore.ListenerRegistration;
 import com.google.firebase.firestore.Query;
-import com.google.firebase.firestore.QueryDocumentSnapshot;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * ViewModel for the Home Fragment.
  * Manages loading and filtering of available events.
  * Shows only events with open registration (and not full) or upcoming registration.
+ * Each filter is answered by indexed range queries on the registration dates, read one
+ * page at a time, so the cost of a page doesn't depend on how many events exist.
+ * Every loaded page keeps a snapshot listener; its DocumentChanges are applied to the
+ * page in place, so spot counts and new or removed events show up without a reload.
+ * Once a full page has loaded, its listener is anchored to end at the page's own last
+ * event instead of a limit, and the next page starts right after that event. An event
+ * added inside a page then grows that page rather than pushing its last event out of
+ * it and into the gap before the next page.
+ * Listeners answer from Firestore's local cache first, so a cold start shows the last
+ * known feed before the server responds.
  */
 public class HomeViewModel extends ViewModel {
 
+    public static final String FILTER_ALL = "All";
+    public static final String FILTER_ONGOING = "Ongoing";
+    public static final String FILTER_FUTURE = "Future";
+
+    static final int PAGE_SIZE = EventSummaries.FEED_PAGE_SIZE;
+
     private final MutableLiveData<List<Event>> mEvents;
     private final MutableLiveData<List<String>> mEventIds;
     private final MutableLiveData<Boolean> mLoading;
     private final MutableLiveData<String> mError;
+    private final MutableLiveData<Boolean> mFromCache;
     private final FirebaseFirestore db;
 
+    /**
+     * One page of a query, kept up to date by its snapshot listener.
+     */
+    private static class Page {
+        final List<String> ids = new ArrayList<>();
+        // null for summaries that can't be shown yet
+        final List<Event> events = new ArrayList<>();
+        // Query the page reads, from its start and without a limit
+        Query query;
+        ListenerRegistration registration;
+        boolean loaded = false;
+        // Set when the listener is swapped, whose first snapshot replays the whole page
+        boolean replaying = false;
+    }
+
+    // Queries the filter needs, read one after another
+    private final List<Query> queries = new ArrayList<>();
+    private final List<Page> pages = new ArrayList<>();
+    private int currentQuery;
+    // Last document of the newest page, where the next page of the current query starts
+    private DocumentSnapshot cursor;
+    private boolean loadingPage = false;
+    private String filter = FILTER_ALL;
+
     public HomeViewModel() {
         mEvents = new MutableLiveData<>();
         mEventIds = new MutableLiveData<>();
         mLoading = new MutableLiveData<>();
         mError = new MutableLiveData<>();
+        mFromCache = new MutableLiveData<>();
         db = FirebaseFirestore.getInstance();
     }
 
@@ -50,46 +100,236 @@ public class HomeViewModel extends ViewModel {
     }
 
     /**
-     * Loads all events from Firestore and filters them for display on home screen.
-     * Shows events with:
-     * - Open registration that are not full (not at max waitlist capacity)
-     * - Upcoming registration (not yet started)
-     * Orders results by creation date (newest first).
-     * Open events are displayed before upcoming events.
+     * @return Whether the events currently shown came from the local cache
+     */
+    public LiveData<Boolean> getFromCache() {
+        return mFromCache;
+    }
+
+    public String getFilter() {
+        return filter;
+    }
+
+    /**
+     * Switches the filter and reloads the feed from the first page.
+     * @param filter One of FILTER_ALL, FILTER_ONGOING, FILTER_FUTURE
+     */
+    public void setFilter(String filter) {
+        if (filter.equals(this.filter)) return;
+        this.filter = filter;
+        loadEvents();
+    }
+
+    /**
+     * Reloads the feed from the first page.
+     * Ongoing events (registration open) are read first, ordered by closing date,
+     * then upcoming events ordered by opening date. Ongoing events whose waitlist is
+     * full are left out.
      */
     public void loadEvents() {
+        stopListening();
+        queries.clear();
+        currentQuery = 0;
+        cursor = null;
+
+        Date now = new Date();
+        if (!FILTER_FUTURE.equals(filter)) {
+            queries.add(EventSummaries.ongoingQuery(db, now));
+        }
+        if (!FILTER_ONGOING.equals(filter)) {
+            queries.add(EventSummaries.upcomingQuery(db, now));
+        }
+
         mLoading.setValue(true);
         mError.setValue(null);
+        loadMore();
+    }
+
+    /**
+     * Loads the feed unless it is already loaded and listening for changes.
+     */
+    public void startListening() {
+        if (pages.isEmpty()) {
+            loadEvents();
+        }
+    }
+
+    /**
+     * Requests the next page of the feed. Does nothing if a page is already loading
+     * or every page has been read.
+     */
+    public void loadMore() {
+        if (loadingPage || currentQuery >= queries.size()) return;
+        loadingPage = true;
+
+        Query query = queries.get(currentQuery);
+        if (cursor != null) {
+            query = query.startAfter(cursor);
+        }
+        Page page = new Page();
+        page.query = query;
+        pages.add(page);
+        page.registration = query.limit(PAGE_SIZE)
+                .addSnapshotListener((snapshot, e) -> onPageSnapshot(page, snapshot, e));
+    }
 
-        db.collection("events")
-                .orderBy("createdAt", Query.Direction.DESCENDING)
-                .get().addOnSuccessListener(queryDocumentSnapshots -> {
-                    List<Event> openEvents = new ArrayList<>();
-                    List<String> openIds = new ArrayList<>();
-                    List<Event> upcomingEvents = new ArrayList<>();
-                    List<String> upcomingIds = new ArrayList<>();
-
-                    for (QueryDocumentSnapshot document : queryDocumentSnapshots) {
-                        Event event = document.toObject(Event.class);
-
-                        // Only show events with open registration and available spots
-                        if (event.isRegistrationOpen() && !event.isWaitlistFull()) {
-                            openEvents.add(event);
-                            openIds.add(document.getId());
-                        } else if (event.isRegistrationUpcoming()) {
-                            upcomingEvents.add(event);
-                            upcomingIds.add(document.getId());
-                        }
-                    }
-
-                    openEvents.addAll(upcomingEvents);
-                    openIds.addAll(upcomingIds);
-                    mEvents.setValue(openEvents);
-                    mEventIds.setValue(openIds);
-                    mLoading.setValue(false);
-                }).addOnFailureListener(e -> {
-                    mError.setValue("Failed to load events: " + e.getMessage());
-                    mLoading.setValue(false);
-                });
-    }
-}
\ No newline at end of file
+    /**
+     * Applies a page's changes, then moves the cursor on once the server has answered
+     * for the page. Cached results are shown straight away, but paging waits for the
+     * server so a partly cached page isn't mistaken for the end of its query.
+     */
+    private void onPageSnapshot(Page page, QuerySnapshot snapshot, FirebaseFirestoreException e) {
+        if (!pages.contains(page)) return;
+        if (e != null) {
+            mError.setValue("Failed to load events: " + e.getMessage());
+            mLoading.setValue(false);
+            if (!page.loaded) {
+                // Drop the page so loadMore() can retry it
+                page.registration.remove();
+                pages.remove(page);
+                loadingPage = false;
+            }
+            return;
+        }
+
+        if (page.replaying) {
+            page.replaying = false;
+            page.ids.clear();
+            page.events.clear();
+        }
+        int added = applyChanges(page, snapshot.getDocumentChanges());
+        boolean fromCache = snapshot.getMetadata().isFromCache();
+
+        if (page.loaded) {
+            publish(fromCache);
+            return;
+        }
+        if (fromCache) {
+            if (added > 0) publish(true);
+            return;
+        }
+
+        page.loaded = true;
+        loadingPage = false;
+        List<DocumentSnapshot> docs = snapshot.getDocuments();
+        if (docs.size() < PAGE_SIZE) {
+            currentQuery++;
+            cursor = null;
+        } else {
+            cursor = docs.get(docs.size() - 1);
+            anchor(page, cursor);
+        }
+
+        boolean done = currentQuery >= queries.size();
+        int shown = publish(false);
+        // Keep going if this page shows nothing, or the first query ran out before filling a page
+        if (!done && (countShown(page) == 0 || (cursor == null && shown < PAGE_SIZE))) {
+            loadMore();
+        }
+    }
+
+    /**
+     * Swaps a full page's limit for an end cursor on its own last document, the same one
+     * the next page starts after, so the pages stay back to back however events are
+     * added or removed inside them.
+     * @param page A page whose first server result filled it
+     * @param last The page's last document
+     */
+    private void anchor(Page page, DocumentSnapshot last) {
+        page.registration.remove();
+        page.replaying = true;
+        page.registration = page.query.endAt(last)
+                .addSnapshotListener((snapshot, e) -> onPageSnapshot(page, snapshot, e));
+    }
+
+    private static int countShown(Page page) {
+        int shown = 0;
+        for (Event event : page.events) {
+            if (event != null) shown++;
+        }
+        return shown;
+    }
+
+    /**
+     * Applies DocumentChanges to a page in order. Indexes in each change refer to the
+     * page as it is after the changes before it have been applied.
+     * @return Number of showable events the page gained
+     */
+    private static int applyChanges(Page page, List<DocumentChange> changes) {
+        int added = 0;
+        for (DocumentChange change : changes) {
+            DocumentSnapshot doc = change.getDocument();
+            switch (change.getType()) {
+                case ADDED:
+                    Event event = toShowable(doc);
+                    page.ids.add(change.getNewIndex(), doc.getId());
+                    page.events.add(change.getNewIndex(), event);
+                    if (event != null) added++;
+                    break;
+                case MODIFIED:
+                    page.ids.remove(change.getOldIndex());
+                    page.events.remove(change.getOldIndex());
+                    page.ids.add(change.getNewIndex(), doc.getId());
+                    page.events.add(change.getNewIndex(), toShowable(doc));
+                    break;
+                case REMOVED:
+                    page.ids.remove(change.getOldIndex());
+                    page.events.remove(change.getOldIndex());
+                    break;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * @return The event, or null if its summary isn't complete or its waitlist is full
+     */
+    private static Event toShowable(DocumentSnapshot doc) {
+        if (!EventSummaries.isComplete(doc)) return null;
+        Event event = doc.toObject(Event.class);
+        // Comparing two fields can't be done in the query, so full events are dropped here
+        if (event == null || (event.isRegistrationOpen() && event.isWaitlistFull())) return null;
+        return event;
+    }
+
+    /**
+     * Flattens the loaded pages into the LiveData lists.
+     * @param fromCache true if the change being shown came from the local cache
+     * @return Number of events shown
+     */
+    private int publish(boolean fromCache) {
+        List<Event> events = new ArrayList<>();
+        List<String> eventIds = new ArrayList<>();
+        // An event that moved across a page boundary can briefly be in two pages
+        Set<String> seen = new HashSet<>();
+        for (Page page : pages) {
+            for (int i = 0; i < page.events.size(); i++) {
+                Event event = page.events.get(i);
+                if (event == null || !seen.add(page.ids.get(i))) continue;
+                events.add(event);
+                eventIds.add(page.ids.get(i));
+            }
+        }
+        mFromCache.setValue(fromCache);
+        mEventIds.setValue(eventIds);
+        mEvents.setValue(events);
+        mLoading.setValue(false);
+        return events.size();
+    }
+
+    private void stopListening() {
+        for (Page page : pages) {
+            if (page.registration != null) {
+                page.registration.remove();
+            }
+        }
+        pages.clear();
+        loadingPage = false;
+    }
+
+    @Override
+    protected void onCleared() {
+        super.onCleared();
+        stopListening();
+    }
+}
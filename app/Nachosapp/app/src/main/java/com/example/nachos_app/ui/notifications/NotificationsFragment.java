@@ -1,6 +1,5 @@
 package com.example.nachos_app.ui.notifications;
 
-import android.annotation.SuppressLint;
 import android.os.Bundle;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -14,13 +13,18 @@ import androidx.recyclerview.widget.RecyclerView;
 
 import com.example.nachos_app.Notification;
 import com.example.nachos_app.NotificationAdapter;
+import com.example.nachos_app.NotificationInbox;
+import com.example.nachos_app.PagedCollectionLoader;
+import com.example.nachos_app.StartupOrchestrator;
 import com.example.nachos_app.databinding.FragmentNotificationsBinding;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
+import com.google.firebase.firestore.DocumentChange;
 import com.google.firebase.firestore.DocumentSnapshot;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.ListenerRegistration;
-import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.MetadataChanges;
+import com.google.firebase.firestore.QuerySnapshot;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -28,17 +32,27 @@ import java.util.List;
 /**
  * Refactored Fragment for displaying the notifications of a current user
  * Data fetching is injectable for unit testing
+ * Only the newest page of notifications is listened to; its DocumentChanges are applied
+ * to a NotificationInbox, and the adapter diffs each result so only changed rows are
+ * rebound. Older pages are read once, as the list is scrolled near its end.
  */
 public class NotificationsFragment extends Fragment {
 
+    private static final int PAGE_SIZE = StartupOrchestrator.NOTIFICATIONS_PAGE_SIZE;
+    private static final int PREFETCH_DISTANCE = 10;
+
     private FragmentNotificationsBinding binding;
     private List<Notification> notificationList = new ArrayList<>();
     private NotificationAdapter adapter = new NotificationAdapter(null, notificationList);
-    
+    private NotificationInbox inbox = new NotificationInbox(PAGE_SIZE);
 
     private FirebaseAuth mAuth;
     private FirebaseFirestore db;
     private ListenerRegistration listener;
+    // Reads the pages below the window; null until the server has answered for the window
+    private PagedCollectionLoader<DocumentSnapshot> olderLoader;
+    private boolean windowLoaded = false;
+    private boolean windowFromServer = false;
 
     public NotificationsFragment() {
         // default constructor
@@ -65,8 +79,23 @@ public class NotificationsFragment extends Fragment {
         RecyclerView recyclerView = binding.recyclerNotifications;
         notificationList = new ArrayList<>();
         adapter = new NotificationAdapter(getContext(), notificationList);
-        recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
+        adapter.setOnDeleteListener(id -> {
+            inbox.removeOlder(id);
+            adapter.submitList(inbox.items());
+        });
+        LinearLayoutManager layoutManager = new LinearLayoutManager(getContext());
+        recyclerView.setLayoutManager(layoutManager);
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (dy <= 0) return;
+                int lastVisible = layoutManager.findLastVisibleItemPosition();
+                if (lastVisible >= adapter.getItemCount() - PREFETCH_DISTANCE) {
+                    loadOlder();
+                }
+            }
+        });
 
 
         // Fetch notifications
@@ -78,7 +107,6 @@ public class NotificationsFragment extends Fragment {
     /**
      * Fetch notifications from repository
      */
-    @SuppressLint("NotifyDataSetChanged")
     private void fetchNotifications() {
         FirebaseUser currentUser = mAuth.getCurrentUser();
         if (currentUser == null) {
@@ -86,32 +114,110 @@ public class NotificationsFragment extends Fragment {
             return;
         }
 
-        listener = db.collection("users")
-                .document(currentUser.getUid())
-                .collection("notifications")
-                .orderBy("sendTime", Query.Direction.DESCENDING)
-                .addSnapshotListener((snapshots, e) -> {
+        String uid = currentUser.getUid();
+        inbox = new NotificationInbox(PAGE_SIZE);
+        olderLoader = null;
+        windowLoaded = false;
+        windowFromServer = false;
+
+        // Metadata changes are included so the switch from cached to server results is seen
+        listener = StartupOrchestrator.newestNotificationsQuery(db, uid)
+                .addSnapshotListener(MetadataChanges.INCLUDE, (snapshots, e) -> {
                     if (e != null || snapshots == null) {
                         Toast.makeText(getContext(), "Failed to load notifications.", Toast.LENGTH_SHORT).show();
                         return;
                     }
-
-                    notificationList.clear();
-                    for (DocumentSnapshot doc : snapshots) {
-                        Notification notif = doc.toObject(Notification.class);
-                        if (notif != null) {
-                            notif.setId(doc.getId()); // store document ID for deletion
-                            notificationList.add(notif);
-                        }
-                    }
-                    adapter.notifyDataSetChanged();
+                    onWindowSnapshot(uid, snapshots);
                 });
+
+        // Show what the listener started at launch already has while ours catches up
+        QuerySnapshot warm = StartupOrchestrator.getInstance().takeNotifications(uid);
+        if (warm != null && !windowLoaded) {
+            List<DocumentSnapshot> docs = warm.getDocuments();
+            for (int i = 0; i < docs.size(); i++) {
+                inbox.add(i, toNotification(docs.get(i)));
+            }
+            adapter.submitList(inbox.items());
+        }
+    }
+
+    /**
+     * Applies the window's changes. Once the server has answered for the window, older
+     * pages start after its last notification; anything pushed out of the window after
+     * that is kept by the inbox, so nothing falls between the two.
+     * @param uid User ID
+     * @param snapshots The user's newest notifications
+     */
+    private void onWindowSnapshot(String uid, QuerySnapshot snapshots) {
+        if (!windowLoaded) {
+            // The first snapshot lists the whole window as added, replacing the warm one
+            inbox.clearWindow();
+            windowLoaded = true;
+        }
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            switch (change.getType()) {
+                case ADDED:
+                    inbox.add(change.getNewIndex(), toNotification(change.getDocument()));
+                    break;
+                case MODIFIED:
+                    inbox.modify(change.getOldIndex(), change.getNewIndex(), toNotification(change.getDocument()));
+                    break;
+                case REMOVED:
+                    inbox.remove(change.getOldIndex());
+                    break;
+            }
+        }
+        inbox.endChanges();
+
+        if (!windowFromServer && !snapshots.getMetadata().isFromCache()) {
+            windowFromServer = true;
+            List<DocumentSnapshot> docs = snapshots.getDocuments();
+            if (docs.size() == PAGE_SIZE) {
+                olderLoader = PagedCollectionLoader.forQuery(StartupOrchestrator.notificationsQuery(db, uid)
+                        .startAfter(docs.get(docs.size() - 1)), PAGE_SIZE);
+            }
+        }
+        adapter.submitList(inbox.items());
+    }
+
+    /**
+     * Reads the next page below the window. Does nothing if a page is already loading,
+     * the window hasn't loaded from the server yet, or there are no older notifications.
+     */
+    private void loadOlder() {
+        if (olderLoader == null) return;
+        olderLoader.loadNext(new PagedCollectionLoader.Listener<DocumentSnapshot>() {
+            @Override
+            public void onPage(List<DocumentSnapshot> page, boolean lastPage) {
+                List<Notification> notifications = new ArrayList<>(page.size());
+                for (DocumentSnapshot doc : page) {
+                    notifications.add(toNotification(doc));
+                }
+                inbox.addOlder(notifications);
+                adapter.submitList(inbox.items());
+            }
+
+            @Override
+            public void onError(Exception e) {
+                Toast.makeText(getContext(), "Failed to load older notifications.", Toast.LENGTH_SHORT).show();
+            }
+        });
+    }
+
+    private static Notification toNotification(DocumentSnapshot doc) {
+        Notification notif = doc.toObject(Notification.class);
+        if (notif == null) {
+            notif = new Notification();
+        }
+        notif.setId(doc.getId()); // store document ID for deletion
+        return notif;
     }
 
     @Override
     public void onDestroyView() {
         super.onDestroyView();
         if (listener != null) listener.remove(); // stop Firestore listener
+        if (olderLoader != null) olderLoader.cancel();
         binding = null;
     }
     // For test injection
@@ -4,6 +4,7 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.ViewModel;
 
+import com.example.nachos_app.UserDirectory;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.firestore.FirebaseFirestore;
@@ -90,6 +91,7 @@ public class ProfileViewModel extends ViewModel {
             String userId = currentUser.getUid();
             db.collection("users").document(userId)
                     .update("notificationPreference", preference);
+            UserDirectory.getInstance().invalidate(userId);
         }
     }
 
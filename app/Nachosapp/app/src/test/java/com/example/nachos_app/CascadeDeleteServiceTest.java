@@ -0,0 +1,234 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Unit tests for CascadeDeleteService against an in-memory fake of Firestore.
+ * Checks that everything belonging to an event is removed in bounded batches,
+ * that other events are left alone, and that an interrupted removal resumes.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+public class CascadeDeleteServiceTest {
+
+    /**
+     * Fake store holding document paths and recording every batch.
+     */
+    private static class FakeStore implements CascadeDeleteService.Store {
+        final TreeSet<String> docs = new TreeSet<>();
+        final Map<String, String> notificationEvents = new HashMap<>();
+        final Map<String, Map<String, Object>> jobs = new HashMap<>();
+        final List<List<String>> commits = new ArrayList<>();
+        int failOnCommit = -1;
+
+        @Override
+        public Task<Map<String, Object>> readJob(String eventId) {
+            return Tasks.forResult(jobs.get(eventId));
+        }
+
+        @Override
+        public Task<List<String>> listPage(String eventId, String phase, int limit) {
+            List<String> page = new ArrayList<>();
+            for (String path : docs) {
+                if (page.size() == limit) break;
+                boolean match;
+                if ("notifications".equals(phase)) {
+                    match = eventId.equals(notificationEvents.get(path));
+                } else {
+                    String prefix = "events/" + eventId + "/" + phase + "/";
+                    match = path.startsWith(prefix) && path.indexOf('/', prefix.length()) < 0;
+                }
+                if (match) page.add(path);
+            }
+            return Tasks.forResult(page);
+        }
+
+        @Override
+        public Task<Void> commit(String eventId, List<String> deletePaths, @Nullable Map<String, Object> job) {
+            int call = commits.size();
+            commits.add(new ArrayList<>(deletePaths));
+            if (call == failOnCommit) {
+                return Tasks.forException(new Exception("Connection lost"));
+            }
+            docs.removeAll(deletePaths);
+            if (job != null) {
+                jobs.put(eventId, new HashMap<>(job));
+            } else {
+                jobs.remove(eventId);
+            }
+            return Tasks.forResult(null);
+        }
+
+        @Override
+        public Task<List<String>> pendingJobs() {
+            return Tasks.forResult(new ArrayList<>(jobs.keySet()));
+        }
+    }
+
+    private FakeStore store;
+
+    // Documents belonging to event "e1", not counting participation entries
+    private static final int EVENT_DOCS = 600 + 10 + 3 + 2 + 1 + 700 + 1;
+
+    @Before
+    public void setUp() {
+        store = new FakeStore();
+        addEvent("e1", 600, 10, 3, 2, 1, 700);
+        addEvent("e2", 5, 0, 1, 0, 0, 5);
+    }
+
+    private void addEvent(String eventId, int waitlist, int selected, int enrolled,
+                          int cancelled, int draws, int notifications) {
+        store.docs.add("events/" + eventId);
+        addEntrants(eventId, "waitlist", waitlist);
+        addEntrants(eventId, "selected", selected);
+        addEntrants(eventId, "enrolled", enrolled);
+        addEntrants(eventId, "cancelled", cancelled);
+        for (int i = 0; i < draws; i++) {
+            store.docs.add("events/" + eventId + "/draws/draw" + i);
+        }
+        for (int i = 0; i < notifications; i++) {
+            String path = "users/user" + i + "/notifications/" + eventId + "-n" + i;
+            store.docs.add(path);
+            store.notificationEvents.put(path, eventId);
+        }
+    }
+
+    private void addEntrants(String eventId, String list, int count) {
+        for (int i = 0; i < count; i++) {
+            String uid = list + i;
+            store.docs.add("events/" + eventId + "/" + list + "/" + uid);
+            store.docs.add(ParticipationIndex.path(uid, eventId));
+        }
+    }
+
+    private boolean anyLeftFor(String eventId) {
+        for (String path : store.docs) {
+            if (path.startsWith("events/" + eventId) || path.endsWith("/participations/" + eventId)
+                    || eventId.equals(store.notificationEvents.get(path))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Run the task's continuations, which are posted to the main looper
+    private static <T> Task<T> finish(Task<T> task) {
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue("Removal should have finished", task.isComplete());
+        return task;
+    }
+
+    @Test
+    public void testRemovesEverythingForEventOnly() {
+        int otherDocs = 0;
+        for (String path : store.docs) {
+            if (!path.startsWith("events/e1") && !path.endsWith("/participations/e1")
+                    && !"e1".equals(store.notificationEvents.get(path))) {
+                otherDocs++;
+            }
+        }
+
+        Task<Long> task = finish(new CascadeDeleteService(store).deleteEvent("e1", null));
+
+        assertEquals(Long.valueOf(EVENT_DOCS), task.getResult());
+        assertFalse(anyLeftFor("e1"));
+        assertEquals(otherDocs, store.docs.size());
+        assertTrue("Job should be removed with the event", store.jobs.isEmpty());
+    }
+
+    @Test
+    public void testBatchesStayUnderWriteLimit() {
+        finish(new CascadeDeleteService(store).deleteEvent("e1", null));
+
+        for (List<String> batch : store.commits) {
+            // One extra write per batch for the job document
+            assertTrue(batch.size() + 1 <= 500);
+        }
+        // 600 waitlist entrants at 225 per batch, notifications at 450 per batch
+        int pages = 0;
+        for (List<String> batch : store.commits) {
+            if (!batch.isEmpty()) pages++;
+        }
+        assertEquals(3 + 1 + 1 + 1 + 1 + 2 + 1, pages);
+    }
+
+    @Test
+    public void testInterruptedRemovalResumes() {
+        store.failOnCommit = 3; // job record, then two waitlist pages, then fail
+
+        Task<Long> first = finish(new CascadeDeleteService(store).deleteEvent("e1", null));
+        assertFalse(first.isSuccessful());
+        Map<String, Object> job = store.jobs.get("e1");
+        assertNotNull("Job should survive the interruption", job);
+        assertEquals("waitlist", job.get("phase"));
+        assertEquals(450L, job.get("deleted"));
+
+        int commitsBefore = store.commits.size();
+        Task<Integer> resumed = finish(new CascadeDeleteService(store).resumePending());
+
+        assertEquals(Integer.valueOf(1), resumed.getResult());
+        assertFalse(anyLeftFor("e1"));
+        assertTrue(store.jobs.isEmpty());
+        // Resuming doesn't record a new job before continuing
+        assertFalse(store.commits.get(commitsBefore).isEmpty());
+    }
+
+    @Test
+    public void testResumedCountIncludesEarlierProgress() {
+        store.failOnCommit = 2;
+        finish(new CascadeDeleteService(store).deleteEvent("e1", null));
+
+        Task<Long> task = finish(new CascadeDeleteService(store).deleteEvent("e1", null));
+
+        assertEquals(Long.valueOf(EVENT_DOCS), task.getResult());
+    }
+
+    @Test
+    public void testProgressNeverGoesBackwards() {
+        List<Long> progress = new ArrayList<>();
+        List<String> phases = new ArrayList<>();
+
+        finish(new CascadeDeleteService(store).deleteEvent("e1", (phase, deleted) -> {
+            phases.add(phase);
+            progress.add(deleted);
+        }));
+
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue(progress.get(i) > progress.get(i - 1));
+        }
+        assertEquals(Long.valueOf(EVENT_DOCS), progress.get(progress.size() - 1));
+        assertEquals("event", phases.get(phases.size() - 1));
+    }
+
+    @Test
+    public void testNothingPendingResumesNothing() {
+        Task<Integer> task = finish(new CascadeDeleteService(store).resumePending());
+
+        assertEquals(Integer.valueOf(0), task.getResult());
+        assertTrue(store.commits.isEmpty());
+    }
+}
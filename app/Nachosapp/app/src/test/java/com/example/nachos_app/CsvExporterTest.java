@@ -0,0 +1,231 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for CsvExporter against a fake list generated on demand.
+ * Exports 100,000 rows and checks every row is written once and in order, that the
+ * list is read one page at a time with each page written before the next is read,
+ * and that fields and timestamps are written the same way every time.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+public class CsvExporterTest {
+
+    private static final long START = 1_700_000_000_000L;
+
+    /**
+     * Fake list of uids "user000000" upwards, made up a page at a time as it is read.
+     * Every tenth user has no name. Records each read and how many lines had been
+     * written when it was made.
+     */
+    private static class FakeSource implements CsvExporter.Source {
+        final int size;
+        final LineCountingStream out;
+        final List<Integer> pageSizes = new ArrayList<>();
+        final List<Long> linesAtRead = new ArrayList<>();
+        int failAtPage = -1;
+
+        FakeSource(int size, LineCountingStream out) {
+            this.size = size;
+            this.out = out;
+        }
+
+        static String uid(int i) {
+            return String.format("user%06d", i);
+        }
+
+        @Override
+        public Task<List<CsvExporter.Entry>> page(@Nullable String afterUid, int limit) {
+            linesAtRead.add(out.lines);
+            if (pageSizes.size() == failAtPage) {
+                return Tasks.forException(new Exception("Read failed"));
+            }
+            int from = (afterUid == null) ? 0 : Integer.parseInt(afterUid.substring(4)) + 1;
+            List<CsvExporter.Entry> page = new ArrayList<>();
+            for (int i = from; i < Math.min(size, from + limit); i++) {
+                page.add(new CsvExporter.Entry(uid(i), new Date(START + i * 1000L)));
+            }
+            pageSizes.add(page.size());
+            return Tasks.forResult(page);
+        }
+
+        @Override
+        public Task<Map<String, String>> names(List<String> uids) {
+            Map<String, String> names = new HashMap<>();
+            for (String uid : uids) {
+                int i = Integer.parseInt(uid.substring(4));
+                if (i % 10 != 0) names.put(uid, "Name " + i);
+            }
+            return Tasks.forResult(names);
+        }
+    }
+
+    /**
+     * Stream that counts lines instead of keeping them, apart from the first few.
+     */
+    private static class LineCountingStream extends OutputStream {
+        final StringBuilder head = new StringBuilder();
+        String lastLine = "";
+        StringBuilder current = new StringBuilder();
+        long lines;
+        boolean closed;
+
+        @Override
+        public void write(int b) {
+            if (lines < 3) head.append((char) b);
+            if (b == '\n') {
+                lastLine = current.toString();
+                current = new StringBuilder();
+                lines++;
+            } else {
+                current.append((char) b);
+            }
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+        }
+    }
+
+    // Writes run straight away, so the test only has to run the main looper
+    private static CsvExporter exporter(CsvExporter.Source source) {
+        return new CsvExporter(source, Runnable::run);
+    }
+
+    private static <T> Task<T> await(Task<T> task) {
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue("Export should have finished", task.isComplete());
+        return task;
+    }
+
+    @Test
+    public void testExportsHundredThousandRowsPageByPage() {
+        int rows = 100_000;
+        LineCountingStream out = new LineCountingStream();
+        FakeSource source = new FakeSource(rows, out);
+        List<Long> progress = new ArrayList<>();
+
+        Task<Long> export = await(exporter(source).export(out, progress::add));
+
+        assertTrue(export.isSuccessful());
+        assertEquals(Long.valueOf(rows), export.getResult());
+        assertEquals("Header plus one line per row", rows + 1, out.lines);
+        assertTrue(out.closed);
+
+        // Header, then rows in uid order with UTC timestamps; user0 has no name
+        assertEquals("name,uid,timestamp\n"
+                + ",user000000,2023-11-14T22:13:20Z\n"
+                + "Name 1,user000001,2023-11-14T22:13:21Z\n", out.head.toString());
+        assertEquals("Name 99999,user099999,2023-11-16T01:59:59Z", out.lastLine);
+
+        // One page in memory at a time: each read happens after the previous page was written
+        for (int i = 1; i < source.linesAtRead.size(); i++) {
+            assertTrue(source.pageSizes.get(i) <= CsvExporter.PAGE_SIZE);
+            assertEquals(1L + (long) i * CsvExporter.PAGE_SIZE, source.linesAtRead.get(i).longValue());
+        }
+        // 200 full pages, then an empty read to find the end
+        assertEquals(rows / CsvExporter.PAGE_SIZE + 1, source.linesAtRead.size());
+
+        assertEquals(rows / CsvExporter.PAGE_SIZE, progress.size());
+        assertEquals(Long.valueOf(CsvExporter.PAGE_SIZE), progress.get(0));
+        assertEquals(Long.valueOf(rows), progress.get(progress.size() - 1));
+    }
+
+    @Test
+    public void testShortLastPageEndsExportWithoutAnotherRead() {
+        LineCountingStream out = new LineCountingStream();
+        FakeSource source = new FakeSource(CsvExporter.PAGE_SIZE + 7, out);
+
+        Task<Long> export = await(exporter(source).export(out, null));
+
+        assertEquals(Long.valueOf(CsvExporter.PAGE_SIZE + 7), export.getResult());
+        assertEquals(2, source.linesAtRead.size());
+    }
+
+    @Test
+    public void testEmptyListWritesOnlyHeader() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        FakeSource source = new FakeSource(0, new LineCountingStream());
+
+        Task<Long> export = await(exporter(source).export(out, null));
+
+        assertEquals(Long.valueOf(0), export.getResult());
+        assertEquals("name,uid,timestamp\n", out.toString(StandardCharsets.UTF_8.name()));
+    }
+
+    @Test
+    public void testFailedReadFailsExportAndClosesStream() {
+        LineCountingStream out = new LineCountingStream();
+        FakeSource source = new FakeSource(10_000, out);
+        source.failAtPage = 3;
+
+        Task<Long> export = await(exporter(source).export(out, null));
+
+        assertFalse(export.isSuccessful());
+        assertEquals("Read failed", export.getException().getMessage());
+        assertTrue(out.closed);
+        // The pages written before the failure are kept
+        assertEquals(1 + 3 * CsvExporter.PAGE_SIZE, out.lines);
+    }
+
+    @Test
+    public void testFailedWriteFailsExport() {
+        OutputStream broken = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Disk full");
+            }
+        };
+        FakeSource source = new FakeSource(CsvExporter.PAGE_SIZE * 3, new LineCountingStream());
+
+        Task<Long> export = await(exporter(source).export(broken, null));
+
+        assertFalse(export.isSuccessful());
+        assertTrue(source.linesAtRead.size() <= 1);
+    }
+
+    @Test
+    public void testFieldsAreEscaped() {
+        assertEquals("Ada", CsvExporter.escape("Ada"));
+        assertEquals("\"Lovelace, Ada\"", CsvExporter.escape("Lovelace, Ada"));
+        assertEquals("\"Ada \"\"The Countess\"\"\"", CsvExporter.escape("Ada \"The Countess\""));
+        assertEquals("\"Two\nLines\"", CsvExporter.escape("Two\nLines"));
+        assertEquals("", CsvExporter.escape(null));
+        assertEquals("\"A, B\",uid1,\n", CsvExporter.row("A, B", "uid1", ""));
+    }
+
+    @Test
+    public void testTimestampFieldFollowsListType() {
+        assertEquals("joinedAt", CsvExporter.timestampField("waitlist"));
+        assertEquals("selectedAt", CsvExporter.timestampField("selected"));
+        assertEquals("enrolledAt", CsvExporter.timestampField("enrolled"));
+        assertEquals("cancelledAt", CsvExporter.timestampField("cancelled"));
+    }
+}
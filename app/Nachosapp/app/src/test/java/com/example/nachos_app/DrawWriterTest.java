@@ -0,0 +1,36 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the progress DrawWriter records on a draw, which is how an interrupted
+ * draw is found and resumed.
+ */
+public class DrawWriterTest {
+
+    @Test
+    public void testDrawIsInProgressUntilEveryWinnerIsMoved() {
+        Map<String, Object> start = DrawWriter.progress(0, 300);
+        assertEquals(0, start.get("movedCount"));
+        assertEquals(DrawWriter.IN_PROGRESS, start.get("status"));
+
+        Map<String, Object> partway = DrawWriter.progress(DrawWriter.WINNERS_PER_BATCH, 300);
+        assertEquals(DrawWriter.WINNERS_PER_BATCH, partway.get("movedCount"));
+        assertEquals(DrawWriter.IN_PROGRESS, partway.get("status"));
+
+        Map<String, Object> done = DrawWriter.progress(300, 300);
+        assertEquals(300, done.get("movedCount"));
+        assertEquals(DrawWriter.COMPLETE, done.get("status"));
+    }
+
+    @Test
+    public void testBatchStaysUnderFirestoreWriteLimit() {
+        // 4 writes per winner, plus the counters, the summary and the draw record
+        assertTrue(DrawWriter.WINNERS_PER_BATCH * 4 + 3 <= 500);
+    }
+}
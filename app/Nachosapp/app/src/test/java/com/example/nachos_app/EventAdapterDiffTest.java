@@ -0,0 +1,58 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for EventAdapter's diff callback.
+ * Checks that rows are matched by event ID and only count as changed when a shown field changes.
+ */
+public class EventAdapterDiffTest {
+
+    private Event event(int waitlistCount) {
+        Event event = new Event("org1", "Organizer", "Swim Lessons", "Description",
+                "Dec 10-15", new Date(1000), new Date(2000), null, 20,
+                null, null, "event://e1", new Date(500), "Pool", false, null, null);
+        event.setCurrentWaitlistCount(waitlistCount);
+        return event;
+    }
+
+    @Test
+    public void testRowsMatchedById() {
+        EventAdapter.Row a = new EventAdapter.Row("e1", event(1));
+        EventAdapter.Row b = new EventAdapter.Row("e1", event(5));
+        EventAdapter.Row c = new EventAdapter.Row("e2", event(1));
+
+        assertTrue(EventAdapter.DIFF_CALLBACK.areItemsTheSame(a, b));
+        assertFalse(EventAdapter.DIFF_CALLBACK.areItemsTheSame(a, c));
+    }
+
+    @Test
+    public void testEqualCopiesHaveSameContents() {
+        EventAdapter.Row a = new EventAdapter.Row("e1", event(3));
+        EventAdapter.Row b = new EventAdapter.Row("e1", event(3));
+
+        assertTrue(EventAdapter.DIFF_CALLBACK.areContentsTheSame(a, b));
+    }
+
+    @Test
+    public void testSpotCountChangeIsAChange() {
+        EventAdapter.Row a = new EventAdapter.Row("e1", event(3));
+        EventAdapter.Row b = new EventAdapter.Row("e1", event(4));
+
+        assertFalse(EventAdapter.DIFF_CALLBACK.areContentsTheSame(a, b));
+    }
+
+    @Test
+    public void testHiddenFieldChangeIsNotAChange() {
+        Event changed = event(3);
+        changed.setDescription("A new description");
+        EventAdapter.Row a = new EventAdapter.Row("e1", event(3));
+        EventAdapter.Row b = new EventAdapter.Row("e1", changed);
+
+        assertTrue(EventAdapter.DIFF_CALLBACK.areContentsTheSame(a, b));
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.nachos_app;
+
+import com.google.firebase.Timestamp;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the EventCounters helpers that don't need Firestore.
+ * Checks the list to counter mapping, which counters a move touches, how often the
+ * waitlist shards are rolled up and what a recount writes.
+ */
+public class EventCountersTest {
+
+    @Test
+    public void testFieldForEachList() {
+        assertEquals("currentWaitlistCount", EventCounters.fieldFor("waitlist"));
+        assertEquals("selectedCount", EventCounters.fieldFor("selected"));
+        assertEquals("enrolledCount", EventCounters.fieldFor("enrolled"));
+        assertEquals("cancelledCount", EventCounters.fieldFor("cancelled"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknownListRejected() {
+        EventCounters.fieldFor("draws");
+    }
+
+    @Test
+    public void testMoveTouchesBothLists() {
+        Map<String, Object> updates = EventCounters.moveUpdates("selected", "enrolled", 1);
+
+        assertEquals("A move should update exactly two counters", 2, updates.size());
+        assertTrue(updates.containsKey(EventCounters.SELECTED));
+        assertTrue(updates.containsKey(EventCounters.ENROLLED));
+    }
+
+    @Test
+    public void testJoinAndLeaveTouchOnlyWaitlist() {
+        Map<String, Object> join = EventCounters.moveUpdates(null, "waitlist", 1);
+        Map<String, Object> leave = EventCounters.moveUpdates("waitlist", null, 1);
+
+        assertEquals(1, join.size());
+        assertTrue(join.containsKey(EventCounters.WAITLIST));
+        assertEquals(1, leave.size());
+        assertTrue(leave.containsKey(EventCounters.WAITLIST));
+    }
+
+    @Test
+    public void testRollUpDueOncePerInterval() {
+        long now = 10 * EventCounters.ROLLUP_INTERVAL_MS;
+        Timestamp recent = new Timestamp(new Date(now - EventCounters.ROLLUP_INTERVAL_MS / 2));
+        Timestamp old = new Timestamp(new Date(now - EventCounters.ROLLUP_INTERVAL_MS - 1));
+
+        assertTrue("Never rolled up", EventCounters.rollUpDue(null, now));
+        assertFalse(EventCounters.rollUpDue(recent, now));
+        assertTrue(EventCounters.rollUpDue(old, now));
+    }
+
+    @Test
+    public void testReconcileLeavesShardsOutOfWaitlistBase() {
+        Map<String, Object> counts = EventCounters.reconciledCounts(12, 3, 2, 1, 5);
+
+        // Base plus the untouched shards gives the recounted waitlist
+        assertEquals(7L, counts.get(EventCounters.WAITLIST));
+        assertEquals(3L, counts.get(EventCounters.SELECTED));
+        assertEquals(2L, counts.get(EventCounters.ENROLLED));
+        assertEquals(1L, counts.get(EventCounters.CANCELLED));
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the EventSummaries helpers that don't need Firestore.
+ * Checks which fields a summary keeps and which event updates reach it.
+ */
+public class EventSummariesTest {
+
+    private Event sampleEvent() {
+        Event event = new Event("org1", "Organizer", "Swim Lessons", "A long description",
+                "Dec 10-15", new Date(1000), new Date(2000), new Date(3000), 20,
+                "big base64 banner", "big base64 qr code", "event://e1", new Date(500),
+                "Pool", false, null, null);
+        event.setBannerRef("abc123");
+        event.setCurrentWaitlistCount(4);
+        return event;
+    }
+
+    @Test
+    public void testSummaryLeavesOutLargeFields() {
+        Map<String, Object> summary = EventSummaries.of(sampleEvent());
+
+        assertFalse(summary.containsKey("description"));
+        assertFalse(summary.containsKey("bannerUrl"));
+        assertFalse(summary.containsKey("qrCodeUrl"));
+        assertFalse(summary.containsKey("qrCodeData"));
+        assertEquals("Swim Lessons", summary.get("eventName"));
+        assertEquals("abc123", summary.get("bannerRef"));
+        assertEquals(4, summary.get(EventCounters.WAITLIST));
+    }
+
+    @Test
+    public void testSummaryHoldsOnlyProjectedFields() {
+        Map<String, Object> summary = EventSummaries.of(sampleEvent());
+
+        assertEquals(EventSummaries.FIELDS.size(), summary.size());
+        assertTrue(EventSummaries.FIELDS.containsAll(summary.keySet()));
+    }
+
+    @Test
+    public void testProjectKeepsSummaryFieldsOnly() {
+        Map<String, Object> updates = new HashMap<>();
+        updates.put("bannerRef", "def456");
+        updates.put("bannerUrl", null);
+        updates.put("description", "New description");
+
+        Map<String, Object> summary = EventSummaries.project(updates);
+
+        assertEquals(1, summary.size());
+        assertEquals("def456", summary.get("bannerRef"));
+    }
+
+    @Test
+    public void testWaitlistMovesReachSummary() {
+        Map<String, Object> join = EventSummaries.project(EventCounters.moveUpdates(null, "waitlist", 1));
+        Map<String, Object> enrol = EventSummaries.project(EventCounters.moveUpdates("selected", "enrolled", 1));
+
+        assertTrue(join.containsKey(EventCounters.WAITLIST));
+        assertTrue("Moves outside the waitlist don't change the summary", enrol.isEmpty());
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for GeoHash encoding and the ranges that cover a map viewport.
+ */
+public class GeoHashTest {
+
+    private static boolean inRanges(String hash, List<String[]> ranges) {
+        for (String[] range : ranges) {
+            if (hash.compareTo(range[0]) >= 0 && hash.compareTo(range[1]) <= 0) return true;
+        }
+        return false;
+    }
+
+    @Test
+    public void testEncodesKnownPoints() {
+        assertEquals("ezs42", GeoHash.encode(42.605, -5.603, 5));
+        assertEquals("u4pruydqqv", GeoHash.encode(57.64911, 10.40744, 10));
+        // Edmonton
+        assertEquals("c3x2", GeoHash.encode(53.5461, -113.4938, 4));
+    }
+
+    @Test
+    public void testRangesCoverEveryPointInViewport() {
+        double south = 53.40, west = -113.70, north = 53.70, east = -113.30;
+        List<String[]> ranges = GeoHash.ranges(south, west, north, east);
+
+        Random random = new Random(42);
+        for (int i = 0; i < 10_000; i++) {
+            double lat = south + random.nextDouble() * (north - south);
+            double lng = west + random.nextDouble() * (east - west);
+            assertTrue(inRanges(GeoHash.encode(lat, lng, GeoHash.STORED_PRECISION), ranges));
+        }
+    }
+
+    @Test
+    public void testRangesExcludeFarAwayPoints() {
+        List<String[]> ranges = GeoHash.ranges(53.40, -113.70, 53.70, -113.30);
+
+        // Calgary and Toronto are outside an Edmonton viewport
+        assertFalse(inRanges(GeoHash.encode(51.0447, -114.0719, GeoHash.STORED_PRECISION), ranges));
+        assertFalse(inRanges(GeoHash.encode(43.6532, -79.3832, GeoHash.STORED_PRECISION), ranges));
+    }
+
+    @Test
+    public void testViewportNeedsFewQueries() {
+        for (double span : new double[] {0.001, 0.05, 1, 20}) {
+            List<String[]> ranges = GeoHash.ranges(53.5 - span, -113.5 - span, 53.5 + span, -113.5 + span);
+            assertTrue("span " + span + ": " + ranges.size(), ranges.size() <= GeoHash.MAX_CELLS);
+        }
+    }
+
+    @Test
+    public void testAntimeridianViewportCoversBothSides() {
+        List<String[]> ranges = GeoHash.ranges(-20, 175, -10, -175);
+
+        assertTrue(inRanges(GeoHash.encode(-15, 178, GeoHash.STORED_PRECISION), ranges));
+        assertTrue(inRanges(GeoHash.encode(-15, -178, GeoHash.STORED_PRECISION), ranges));
+        assertFalse(inRanges(GeoHash.encode(-15, 0, GeoHash.STORED_PRECISION), ranges));
+    }
+
+    @Test
+    public void testWholeWorldFallsBackToOneRange() {
+        List<String[]> ranges = GeoHash.ranges(-85, -180, 85, 180);
+
+        assertEquals(1, ranges.size());
+        assertTrue(inRanges(GeoHash.encode(0, 0, GeoHash.STORED_PRECISION), ranges));
+    }
+}
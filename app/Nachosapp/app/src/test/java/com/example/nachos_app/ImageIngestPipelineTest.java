@@ -0,0 +1,78 @@
+package com.example.nachos_app;
+
+import android.media.ExifInterface;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for ImageIngestPipeline's quality search, banner scaling and orientation handling.
+ */
+public class ImageIngestPipelineTest {
+
+    /** Encoder whose output shrinks as quality drops, recording the qualities tried */
+    private static class FakeEncoder implements ImageIngestPipeline.Encoder {
+        final int bytesPerQuality;
+        final List<Integer> tried = new ArrayList<>();
+
+        FakeEncoder(int bytesPerQuality) {
+            this.bytesPerQuality = bytesPerQuality;
+        }
+
+        @Override
+        public byte[] encode(int quality) {
+            tried.add(quality);
+            return new byte[quality * bytesPerQuality];
+        }
+    }
+
+    @Test
+    public void testSearchFindsHighestQualityUnderTarget() {
+        FakeEncoder encoder = new FakeEncoder(2000);
+
+        byte[] bytes = ImageIngestPipeline.searchQuality(encoder, 150_000, 40, 90);
+
+        // 75 * 2000 = 150,000 fits, 76 * 2000 doesn't
+        assertEquals(150_000, bytes.length);
+        assertTrue("Binary search, not a linear scan: " + encoder.tried, encoder.tried.size() <= 6);
+    }
+
+    @Test
+    public void testSearchKeepsMaxQualityWhenEverythingFits() {
+        byte[] bytes = ImageIngestPipeline.searchQuality(new FakeEncoder(10), 150_000, 40, 90);
+
+        assertEquals(900, bytes.length);
+    }
+
+    @Test
+    public void testSearchFallsBackToMinQualityWhenNothingFits() {
+        byte[] bytes = ImageIngestPipeline.searchQuality(new FakeEncoder(10_000), 150_000, 40, 90);
+
+        assertEquals(400_000, bytes.length);
+    }
+
+    @Test
+    public void testScaleFitsBannerAndNeverEnlarges() {
+        // A 12 MP landscape photo is limited by its width, a portrait one by its height
+        assertEquals(0.2f, ImageIngestPipeline.scale(4000, 3000), 1e-6);
+        assertEquals(0.15f, ImageIngestPipeline.scale(3000, 4000), 1e-6);
+        assertEquals(1f, ImageIngestPipeline.scale(400, 300), 1e-6);
+    }
+
+    @Test
+    public void testSidewaysOrientationsSwapSides() {
+        assertTrue(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_ROTATE_90));
+        assertTrue(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_ROTATE_270));
+        assertTrue(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_TRANSPOSE));
+        assertTrue(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_TRANSVERSE));
+        assertFalse(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_NORMAL));
+        assertFalse(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_ROTATE_180));
+        assertFalse(ImageIngestPipeline.swapsSides(ExifInterface.ORIENTATION_UNDEFINED));
+    }
+}
@@ -0,0 +1,232 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.os.Looper;
+import android.util.Base64;
+import android.widget.ImageView;
+
+import androidx.test.core.app.ApplicationProvider;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Unit tests for ImageLoader's memory and disk caches and stale-bind cancellation.
+ * Uses a fake ImageStore that counts fetches and an executor the test runs by hand.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+public class ImageLoaderTest {
+
+    // No placeholder drawable, so a view only shows a bitmap once its image has loaded
+    private static final int PLACEHOLDER = 0;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    /**
+     * Executor that queues tasks until the test runs them.
+     */
+    private static class QueueExecutor extends AbstractExecutorService {
+        final Queue<Runnable> queue = new ArrayDeque<>();
+
+        @Override
+        public void execute(Runnable command) {
+            queue.add(command);
+        }
+
+        void runAll() {
+            while (!queue.isEmpty()) {
+                queue.poll().run();
+            }
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return false;
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return false;
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) {
+            return true;
+        }
+    }
+
+    /**
+     * In-memory store recording every key fetched.
+     */
+    private static class FakeStore implements ImageStore {
+        final Map<String, byte[]> images = new HashMap<>();
+        final List<String> gets = new ArrayList<>();
+
+        @Override
+        public Task<String> put(byte[] bytes) {
+            String key = ImageStore.keyFor(bytes);
+            images.put(key, bytes);
+            return Tasks.forResult(key);
+        }
+
+        @Override
+        public Task<byte[]> get(String key) {
+            gets.add(key);
+            return Tasks.forResult(images.get(key));
+        }
+
+        @Override
+        public Task<Void> delete(String key) {
+            images.remove(key);
+            return Tasks.forResult(null);
+        }
+    }
+
+    private File diskDir;
+    private FakeStore store;
+    private QueueExecutor executor;
+    private ImageLoader loader;
+
+    @Before
+    public void setUp() {
+        diskDir = new File(folder.getRoot(), "images");
+        store = new FakeStore();
+        executor = new QueueExecutor();
+        loader = new ImageLoader(diskDir, store, 8 * 1024 * 1024, executor);
+    }
+
+    private static byte[] png(int color) {
+        Bitmap bitmap = Bitmap.createBitmap(8, 8, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        return out.toByteArray();
+    }
+
+    private ImageView newView() {
+        return new ImageView(ApplicationProvider.getApplicationContext());
+    }
+
+    // Run the background work, then the main thread callbacks it posted
+    private void finishLoads() {
+        executor.runAll();
+        shadowOf(Looper.getMainLooper()).idle();
+    }
+
+    private static boolean showsBitmap(ImageView view) {
+        return view.getDrawable() instanceof BitmapDrawable
+                && ((BitmapDrawable) view.getDrawable()).getBitmap() != null;
+    }
+
+    @Test
+    public void testSecondBindServedFromMemory() {
+        String key = store.put(png(0xFFFF0000)).getResult();
+        ImageView first = newView();
+
+        loader.load(first, key, null, PLACEHOLDER);
+        finishLoads();
+
+        assertTrue(showsBitmap(first));
+        assertEquals(1, store.gets.size());
+
+        // A cached image is set right away, without queuing any work
+        ImageView second = newView();
+        loader.load(second, key, null, PLACEHOLDER);
+        assertTrue(executor.queue.isEmpty());
+        assertTrue(showsBitmap(second));
+        assertEquals(1, store.gets.size());
+    }
+
+    @Test
+    public void testDiskCacheSurvivesNewLoader() {
+        String key = store.put(png(0xFF00FF00)).getResult();
+        loader.load(newView(), key, null, PLACEHOLDER);
+        finishLoads();
+        assertNotNull(diskDir.listFiles());
+        assertEquals(1, diskDir.listFiles().length);
+
+        // Fresh memory cache, same disk folder
+        FakeStore freshStore = new FakeStore();
+        ImageLoader reloaded = new ImageLoader(diskDir, freshStore, 8 * 1024 * 1024, executor);
+        ImageView view = newView();
+        reloaded.load(view, key, null, PLACEHOLDER);
+        finishLoads();
+
+        assertTrue(showsBitmap(view));
+        assertTrue("Disk hit should not fetch from the store", freshStore.gets.isEmpty());
+    }
+
+    @Test
+    public void testRebindCancelsStaleLoad() {
+        String oldKey = store.put(png(0xFF0000FF)).getResult();
+        String newKey = store.put(png(0xFFFFFF00)).getResult();
+        ImageView view = newView();
+
+        // Recycled view bound to a new row before the first load ran
+        loader.load(view, oldKey, null, PLACEHOLDER);
+        loader.load(view, newKey, null, PLACEHOLDER);
+        finishLoads();
+
+        assertEquals(Collections.singletonList(newKey), store.gets);
+        assertTrue(showsBitmap(view));
+    }
+
+    @Test
+    public void testLegacyBase64LoadsWithoutStore() {
+        String base64 = Base64.encodeToString(png(0xFF00FFFF), Base64.DEFAULT);
+        ImageView view = newView();
+
+        loader.load(view, null, base64, PLACEHOLDER);
+        finishLoads();
+
+        assertTrue(showsBitmap(view));
+        assertTrue(store.gets.isEmpty());
+    }
+
+    @Test
+    public void testNoImageShowsPlaceholder() {
+        ImageView view = newView();
+
+        loader.load(view, null, null, PLACEHOLDER);
+
+        assertTrue(executor.queue.isEmpty());
+        assertTrue(!showsBitmap(view));
+    }
+}
@@ -0,0 +1,157 @@
+package com.example.nachos_app;
+
+import com.google.android.gms.tasks.Task;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the content-addressed ImageStore, using the local file backend.
+ * Also measures how many bytes a list of events costs to load before and after
+ * moving the images out of the event documents.
+ */
+public class ImageStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalImageStore store;
+
+    @Before
+    public void setUp() {
+        // Run file I/O on the calling thread so the tasks finish before put/get return
+        store = new LocalImageStore(folder.getRoot(), Runnable::run);
+    }
+
+    private static byte[] image(int size, long seed) {
+        byte[] bytes = new byte[size];
+        new Random(seed).nextBytes(bytes);
+        return bytes;
+    }
+
+    private static <T> T result(Task<T> task) {
+        assertTrue("Task should have finished", task.isComplete());
+        if (!task.isSuccessful()) {
+            throw new AssertionError("Task failed", task.getException());
+        }
+        return task.getResult();
+    }
+
+    @Test
+    public void testKeyIsHexSha256() {
+        String key = ImageStore.keyFor("abc".getBytes(StandardCharsets.UTF_8));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", key);
+        assertEquals(64, ImageStore.keyFor(new byte[0]).length());
+    }
+
+    @Test
+    public void testPutThenGetRoundTrips() {
+        byte[] banner = image(50_000, 1);
+
+        String key = result(store.put(banner));
+
+        assertEquals(ImageStore.keyFor(banner), key);
+        assertArrayEquals(banner, result(store.get(key)));
+    }
+
+    @Test
+    public void testSameImageStoredOnce() {
+        byte[] banner = image(10_000, 2);
+
+        String first = result(store.put(banner));
+        String second = result(store.put(Arrays.copyOf(banner, banner.length)));
+
+        assertEquals(first, second);
+        assertEquals(1, folder.getRoot().listFiles().length);
+    }
+
+    @Test
+    public void testDifferentImagesGetDifferentKeys() {
+        assertNotEquals(result(store.put(image(1000, 3))), result(store.put(image(1000, 4))));
+    }
+
+    @Test
+    public void testDeleteRemovesImage() {
+        String key = result(store.put(image(1000, 5)));
+
+        result(store.delete(key));
+
+        assertFalse(store.get(key).isSuccessful());
+        // Deleting again is not an error
+        assertTrue(store.delete(key).isSuccessful());
+    }
+
+    @Test
+    public void testMissingKeyFails() {
+        Task<byte[]> task = store.get(ImageStore.keyFor(new byte[] {1}));
+        assertTrue(task.isComplete());
+        assertFalse(task.isSuccessful());
+    }
+
+    // Firestore's documented storage size: field names and strings are UTF-8 bytes + 1,
+    // numbers 8 bytes, booleans and nulls 1 byte, plus 32 bytes per document
+    private static int documentSize(Map<String, Object> fields) {
+        int size = 32;
+        for (Map.Entry<String, Object> e : fields.entrySet()) {
+            size += e.getKey().getBytes(StandardCharsets.UTF_8).length + 1;
+            Object value = e.getValue();
+            if (value instanceof String) {
+                size += ((String) value).getBytes(StandardCharsets.UTF_8).length + 1;
+            } else if (value instanceof Number) {
+                size += 8;
+            } else {
+                size += 1;
+            }
+        }
+        return size;
+    }
+
+    private static Map<String, Object> eventFields() {
+        Map<String, Object> event = new HashMap<>();
+        event.put("eventName", "Swimming Lessons");
+        event.put("description", "Beginner swimming lessons for children ages 6 to 10.");
+        event.put("organizerName", "City Rec Centre");
+        event.put("dateRange", "Dec 10-15");
+        event.put("maxParticipants", 20);
+        event.put("currentWaitlistCount", 120);
+        event.put("qrCodeData", "event://abc123");
+        event.put("geolocationRequired", false);
+        return event;
+    }
+
+    @Test
+    public void testListLoadBytesShrinkWithImageRefs() {
+        byte[] banner = image(300_000, 6);
+        byte[] qrCode = image(20_000, 7);
+        int events = 20;
+
+        // Before: images inlined as base64 (same line-wrapped encoding as android.util.Base64.DEFAULT)
+        Map<String, Object> legacy = eventFields();
+        legacy.put("bannerUrl", Base64.getMimeEncoder().encodeToString(banner));
+        legacy.put("qrCodeUrl", Base64.getMimeEncoder().encodeToString(qrCode));
+
+        // After: only the banner's content key; the QR image is dropped (drawn from qrCodeData)
+        Map<String, Object> migrated = eventFields();
+        migrated.put("bannerRef", result(store.put(banner)));
+
+        long before = (long) events * documentSize(legacy);
+        long after = (long) events * documentSize(migrated);
+
+        // Base64 alone makes each inline event over 400 KB
+        assertTrue(documentSize(legacy) > 400_000);
+        // The refs-only list should be under 1% of the inline list
+        assertTrue("Expected at least a 100x reduction, got " + before + " -> " + after,
+                after * 100 < before);
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for when ImageSweep runs and which images it may delete.
+ */
+public class ImageSweepTest {
+
+    private final Date now = new Date(1_700_000_000_000L);
+
+    @Test
+    public void testFirstSweepIsDue() {
+        assertTrue(ImageSweep.isDue(null, now));
+    }
+
+    @Test
+    public void testSweepIsDueOnceADay() {
+        assertFalse(ImageSweep.isDue(new Date(now.getTime() - ImageSweep.INTERVAL_MS + 1), now));
+        assertTrue(ImageSweep.isDue(new Date(now.getTime() - ImageSweep.INTERVAL_MS), now));
+    }
+
+    @Test
+    public void testRecentImagesAreKept() {
+        // Its event may not have been written yet
+        assertFalse(ImageSweep.isSweepable(new Date(now.getTime() - ImageSweep.GRACE_MS + 1), now));
+        assertTrue(ImageSweep.isSweepable(new Date(now.getTime() - ImageSweep.GRACE_MS), now));
+    }
+
+    @Test
+    public void testImagesWithoutTimestampAreKept() {
+        // createdAt is a server timestamp, so it is missing until the write lands
+        assertFalse(ImageSweep.isSweepable(null, now));
+    }
+}
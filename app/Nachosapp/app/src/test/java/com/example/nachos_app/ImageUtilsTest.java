@@ -0,0 +1,151 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import android.graphics.Bitmap;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.GraphicsMode;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Unit tests for ImageUtils' target-size decoding.
+ * Uses Robolectric's native graphics so images are really encoded and decoded.
+ * Also compares the heap each list row's banner takes with and without downsampling.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+@GraphicsMode(GraphicsMode.Mode.NATIVE)
+public class ImageUtilsTest {
+
+    // Event list row: a 200dp tall banner on a 1080px wide xxhdpi screen
+    private static final int ROW_WIDTH = 1080;
+    private static final int ROW_HEIGHT = 525;
+
+    private static byte[] encode(int width, int height, Bitmap.CompressFormat format) {
+        return encode(width, height, format, 0xFF3366CC);
+    }
+
+    private static byte[] encode(int width, int height, Bitmap.CompressFormat format, int color) {
+        Bitmap bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        bitmap.eraseColor(color);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bitmap.compress(format, 90, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void testSampleSizeKeepsBothSidesAtLeastTarget() {
+        assertEquals(1, ImageUtils.calculateInSampleSize(800, 600, 800, 600));
+        assertEquals(2, ImageUtils.calculateInSampleSize(1600, 1200, 800, 600));
+        assertEquals(2, ImageUtils.calculateInSampleSize(1600, 1200, 540, 300));
+        assertEquals(4, ImageUtils.calculateInSampleSize(4000, 3000, 540, 300));
+        // Width limits the sample size even though height would allow more
+        assertEquals(1, ImageUtils.calculateInSampleSize(800, 2000, 500, 200));
+    }
+
+    @Test
+    public void testSampleSizeWithoutTarget() {
+        assertEquals(1, ImageUtils.calculateInSampleSize(4000, 3000, 0, 0));
+        assertEquals(1, ImageUtils.calculateInSampleSize(100, 100, 400, 400));
+    }
+
+    @Test
+    public void testJpegDecodedSmallerAndWithoutAlpha() {
+        byte[] jpeg = encode(1600, 1200, Bitmap.CompressFormat.JPEG);
+
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(jpeg, 540, 300);
+
+        assertNotNull(bitmap);
+        assertEquals(800, bitmap.getWidth());
+        assertEquals(600, bitmap.getHeight());
+        assertEquals(Bitmap.Config.RGB_565, bitmap.getConfig());
+    }
+
+    @Test
+    public void testPngKeepsAlphaConfig() {
+        byte[] png = encode(64, 64, Bitmap.CompressFormat.PNG);
+
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(png, 16, 16);
+
+        assertNotNull(bitmap);
+        assertEquals(16, bitmap.getWidth());
+        assertEquals(Bitmap.Config.ARGB_8888, bitmap.getConfig());
+    }
+
+    @Test
+    public void testOpaqueWebpDecodedWithoutAlpha() {
+        // What ImageIngestPipeline stores for a photo
+        byte[] webp = encode(800, 600, Bitmap.CompressFormat.WEBP_LOSSY);
+
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(webp, 400, 300);
+
+        assertNotNull(bitmap);
+        assertEquals(400, bitmap.getWidth());
+        assertEquals(Bitmap.Config.RGB_565, bitmap.getConfig());
+    }
+
+    @Test
+    public void testTranslucentWebpKeepsAlphaConfig() {
+        byte[] webp = encode(64, 64, Bitmap.CompressFormat.WEBP_LOSSY, 0x803366CC);
+
+        Bitmap bitmap = ImageUtils.decodeSampledBitmap(webp, 16, 16);
+
+        assertNotNull(bitmap);
+        assertEquals(Bitmap.Config.ARGB_8888, bitmap.getConfig());
+    }
+
+    @Test
+    public void testWebpHeaderAlphaFlag() {
+        assertFalse(ImageUtils.webpHasAlpha(webpHeader("VP8 ", 0)));
+        assertFalse(ImageUtils.webpHasAlpha(webpHeader("VP8X", 0)));
+        assertTrue(ImageUtils.webpHasAlpha(webpHeader("VP8X", 20)));
+        assertFalse(ImageUtils.webpHasAlpha(webpHeader("VP8L", 0)));
+        assertTrue(ImageUtils.webpHasAlpha(webpHeader("VP8L", 24)));
+        assertTrue("Unreadable headers are assumed to have alpha", ImageUtils.webpHasAlpha(new byte[12]));
+    }
+
+    // RIFF/WEBP header with the given first chunk, and the 0x10 bit set at alphaByte (0 for none)
+    private static byte[] webpHeader(String chunk, int alphaByte) {
+        byte[] bytes = new byte[30];
+        System.arraycopy("RIFF".getBytes(StandardCharsets.US_ASCII), 0, bytes, 0, 4);
+        System.arraycopy("WEBP".getBytes(StandardCharsets.US_ASCII), 0, bytes, 8, 4);
+        System.arraycopy(chunk.getBytes(StandardCharsets.US_ASCII), 0, bytes, 12, 4);
+        if (alphaByte > 0) bytes[alphaByte] = 0x10;
+        return bytes;
+    }
+
+    @Test
+    public void testInvalidBytesReturnNull() {
+        assertNull(ImageUtils.decodeSampledBitmap(new byte[] {1, 2, 3}, 100, 100));
+        assertNull(ImageUtils.decodeSampledBitmap(new byte[0], 100, 100));
+        assertNull(ImageUtils.decodeSampledBitmap(null, 100, 100));
+    }
+
+    @Test
+    public void testRowHeapReduction() {
+        // An uploaded banner (capped at 800x600) and a large legacy photo
+        byte[] banner = encode(800, 600, Bitmap.CompressFormat.JPEG);
+        byte[] photo = encode(3200, 2400, Bitmap.CompressFormat.JPEG);
+
+        long bannerFull = ImageUtils.decodeSampledBitmap(banner, 0, 0).getAllocationByteCount();
+        long bannerRow = ImageUtils.decodeSampledBitmap(banner, ROW_WIDTH, ROW_HEIGHT).getAllocationByteCount();
+        long photoFull = (long) 3200 * 2400 * 4; // ARGB_8888, as the old decodeByteArray produced
+        long photoRow = ImageUtils.decodeSampledBitmap(photo, ROW_WIDTH, ROW_HEIGHT).getAllocationByteCount();
+
+        // RGB_565 alone halves an opaque banner already at display size
+        assertEquals(bannerFull, bannerRow);
+        assertEquals(800 * 600 * 2, bannerRow);
+        // Sampling by 2 and RGB_565 together cut a large photo by 8x
+        assertTrue("Photo row: " + photoFull + " -> " + photoRow + " bytes", photoRow * 8 <= photoFull);
+    }
+}
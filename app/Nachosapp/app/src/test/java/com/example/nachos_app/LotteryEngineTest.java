@@ -0,0 +1,105 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the LotteryEngine draw algorithm.
+ * Checks that draws are distinct, reproducible from their seed, uniform,
+ * and cheap enough to run against very large waitlists.
+ * User Stories Tested:
+ * - US 02.05.02: Sample specified number of attendees
+ */
+public class LotteryEngineTest {
+
+    @Test
+    public void testDrawReturnsDistinctWinnersInRange() {
+        int[] winners = new LotteryEngine(42L).drawIndices(100, 30);
+
+        assertEquals("Should draw the requested number of winners", 30, winners.length);
+        Set<Integer> seen = new HashSet<>();
+        for (int w : winners) {
+            assertTrue("Winner should be a valid position", w >= 0 && w < 100);
+            assertTrue("Winners should be distinct", seen.add(w));
+        }
+    }
+
+    @Test
+    public void testSameSeedReplaysSameDraw() {
+        String[] uids = {"a", "b", "c", "d", "e", "f", "g", "h"};
+
+        String[] first = new LotteryEngine(1234L).draw(uids, 3);
+        String[] replay = new LotteryEngine(1234L).draw(uids, 3);
+
+        assertArrayEquals("Same seed should give the same winners", first, replay);
+    }
+
+    @Test
+    public void testWinnerCountCappedAtWaitlistSize() {
+        int[] winners = new LotteryEngine(7L).drawIndices(5, 10);
+
+        assertEquals("Cannot draw more winners than entrants", 5, winners.length);
+        Set<Integer> seen = new HashSet<>();
+        for (int w : winners) {
+            seen.add(w);
+        }
+        assertEquals("Drawing everyone should return every entrant once", 5, seen.size());
+    }
+
+    @Test
+    public void testEmptyWaitlist() {
+        assertEquals("Empty waitlist should have no winners",
+                0, new LotteryEngine(7L).drawIndices(0, 3).length);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeWinnerCountRejected() {
+        new LotteryEngine(7L).drawIndices(10, -1);
+    }
+
+    @Test
+    public void testDrawIsUniform() {
+        int entrants = 10;
+        int winnersPerDraw = 3;
+        int trials = 50000;
+        int[] timesSelected = new int[entrants];
+
+        for (int t = 0; t < trials; t++) {
+            for (int w : new LotteryEngine(t).drawIndices(entrants, winnersPerDraw)) {
+                timesSelected[w]++;
+            }
+        }
+
+        // Chi-squared goodness of fit against the uniform distribution
+        double expected = (double) trials * winnersPerDraw / entrants;
+        double chiSquared = 0;
+        for (int count : timesSelected) {
+            chiSquared += (count - expected) * (count - expected) / expected;
+        }
+        // Critical value for 9 degrees of freedom at p = 0.001
+        assertTrue("Selection counts should be uniform, chi^2 = " + chiSquared, chiSquared < 27.88);
+    }
+
+    @Test
+    public void testDrawScalesToOneMillionEntrants() {
+        int entrants = 1_000_000;
+        String[] uids = new String[entrants];
+        for (int i = 0; i < entrants; i++) {
+            uids[i] = "user" + i;
+        }
+
+        long start = System.nanoTime();
+        String[] winners = LotteryEngine.withRandomSeed().draw(uids, 1000);
+        long elapsedMs = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals("Should draw 1000 winners", 1000, winners.length);
+        assertEquals("Winners should be distinct", 1000, new HashSet<>(Arrays.asList(winners)).size());
+        // Cost depends on winners, not entrants, so this stays far below a full shuffle
+        assertTrue("Draw took " + elapsedMs + "ms", elapsedMs < 1000);
+    }
+}
@@ -23,6 +23,7 @@ import org.robolectric.annotation.Config;
 import org.robolectric.shadows.ShadowApplication;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
 import java.util.List;
 import java.util.Date;
@@ -90,6 +91,49 @@ public class NotificationAdapterTest {
         assertFalse(holder.itemView.isClickable());
     }
 
+    @Test
+    public void diffCallback_matchesByIdAndComparesShownFields() {
+        Notification a = buildNotification("event1", "waitlist");
+        a.setId("n1");
+        Notification b = buildNotification("event1", "waitlist");
+        b.setId("n1");
+        b.setSendTime(a.getSendTime());
+        Notification c = buildNotification("event1", "waitlist");
+        c.setId("n2");
+
+        assertTrue(NotificationAdapter.DIFF_CALLBACK.areItemsTheSame(a, b));
+        assertFalse(NotificationAdapter.DIFF_CALLBACK.areItemsTheSame(a, c));
+        assertTrue(NotificationAdapter.DIFF_CALLBACK.areContentsTheSame(a, b));
+
+        b.setMessage("Updated message");
+        assertFalse(NotificationAdapter.DIFF_CALLBACK.areContentsTheSame(a, b));
+    }
+
+    @Test
+    public void submitList_updatesTheAdaptersList() {
+        List<Notification> shown = new ArrayList<>();
+        NotificationAdapter adapter = new NotificationAdapter(context, shown);
+        recyclerView.setAdapter(adapter);
+
+        Notification first = buildNotification("event1", "waitlist");
+        first.setId("n1");
+        Notification second = buildNotification("event2", "lotteryWon");
+        second.setId("n2");
+        adapter.submitList(Arrays.asList(first, second));
+        layoutRecyclerView();
+
+        assertEquals(2, adapter.getItemCount());
+        assertEquals(Arrays.asList(first, second), shown);
+
+        Notification newest = buildNotification("event3", "selected");
+        newest.setId("n3");
+        adapter.submitList(Arrays.asList(newest, second));
+        layoutRecyclerView();
+
+        assertEquals(Arrays.asList(newest, second), shown);
+        assertNotNull(recyclerView.findViewHolderForAdapterPosition(1));
+    }
+
     private NotificationAdapter.NotificationViewHolder bind(Notification notification) {
         List<Notification> singleItem = new ArrayList<>();
         singleItem.add(notification);
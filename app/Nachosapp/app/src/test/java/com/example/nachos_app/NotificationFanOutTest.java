@@ -0,0 +1,250 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Unit tests for NotificationFanOut against an in-memory fake of Firestore.
+ * Counts the round trips a large fan-out makes and checks that opted-out users
+ * are skipped and failures are counted instead of aborting the fan-out.
+ * User Stories Tested:
+ * - US 02.05.01: Notify chosen entrants
+ * - US 02.07.01: Send notifications to all entrants on the waiting list
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+public class NotificationFanOutTest {
+
+    /**
+     * Fake store holding user preferences in a map and recording every read and write.
+     */
+    private static class FakeStore implements NotificationFanOut.Store {
+        final Map<String, String> preferences = new HashMap<>();
+        final List<List<String>> reads = new ArrayList<>();
+        final List<List<Map<String, Object>>> writes = new ArrayList<>();
+        final Set<Integer> failingReads = new HashSet<>();
+        final Set<Integer> failingWrites = new HashSet<>();
+        // When set, reads stay in flight until releaseRead() answers them
+        boolean holdReads = false;
+        final List<Runnable> heldReads = new ArrayList<>();
+
+        @Override
+        public Task<Map<String, String>> readPreferences(List<String> uids) {
+            int call = reads.size();
+            reads.add(new ArrayList<>(uids));
+            if (failingReads.contains(call)) {
+                return Tasks.forException(new Exception("Read failed"));
+            }
+            Map<String, String> result = new HashMap<>();
+            for (String uid : uids) {
+                if (preferences.containsKey(uid)) {
+                    result.put(uid, preferences.get(uid));
+                }
+            }
+            if (holdReads) {
+                TaskCompletionSource<Map<String, String>> held = new TaskCompletionSource<>();
+                heldReads.add(() -> held.setResult(result));
+                return held.getTask();
+            }
+            return Tasks.forResult(result);
+        }
+
+        void releaseRead() {
+            heldReads.remove(0).run();
+        }
+
+        @Override
+        public Task<Void> writeNotifications(List<Map<String, Object>> notifications) {
+            int call = writes.size();
+            writes.add(new ArrayList<>(notifications));
+            if (failingWrites.contains(call)) {
+                return Tasks.forException(new Exception("Write failed"));
+            }
+            return Tasks.forResult(null);
+        }
+    }
+
+    private static List<String> users(FakeStore store, int count, String preference) {
+        List<String> uids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String uid = "user" + i;
+            store.preferences.put(uid, preference);
+            uids.add(uid);
+        }
+        return uids;
+    }
+
+    private static NotificationFanOut.NotificationBuilder builder() {
+        return uid -> {
+            Map<String, Object> notif = new HashMap<>();
+            notif.put("uid", uid);
+            notif.put("type", "lotteryLost");
+            return notif;
+        };
+    }
+
+    // Run the task's continuations, which are posted to the main looper
+    private static <T> T await(Task<T> task) {
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue("Fan-out should have finished", task.isComplete());
+        return task.getResult();
+    }
+
+    @Test
+    public void testFiveThousandEntrantsUseBatchedRoundTrips() {
+        FakeStore store = new FakeStore();
+        List<String> uids = users(store, 5000, "yes");
+
+        NotificationFanOut.Result result = await(new NotificationFanOut(store).send(uids, builder(), null));
+
+        // ceil(5000 / 30) preference reads and ceil(5000 / 500) batch writes
+        assertEquals(167, store.reads.size());
+        assertEquals(10, store.writes.size());
+        for (List<String> read : store.reads) {
+            assertTrue("whereIn is limited to 30 values", read.size() <= NotificationFanOut.READ_CHUNK_SIZE);
+        }
+        for (List<Map<String, Object>> write : store.writes) {
+            assertTrue("Batches are limited to 500 writes", write.size() <= NotificationFanOut.WRITE_BATCH_SIZE);
+        }
+        assertEquals(5000, result.getRecipients());
+        assertEquals(5000, result.getSent());
+        assertEquals(0, result.getSkipped());
+        assertEquals(0, result.getFailed());
+    }
+
+    @Test
+    public void testOptedOutAndMissingUsersSkipped() {
+        FakeStore store = new FakeStore();
+        List<String> uids = users(store, 40, "yes");
+        store.preferences.put("user1", "no");
+        store.preferences.put("user2", null); // missing preference defaults to yes
+        store.preferences.remove("user3");    // no profile
+
+        NotificationFanOut.Result result = await(new NotificationFanOut(store).send(uids, builder(), null));
+
+        assertEquals(38, result.getSent());
+        assertEquals(2, result.getSkipped());
+        Set<Object> notified = new HashSet<>();
+        for (List<Map<String, Object>> write : store.writes) {
+            for (Map<String, Object> notif : write) {
+                notified.add(notif.get("uid"));
+            }
+        }
+        assertTrue(notified.contains("user2"));
+        assertTrue(!notified.contains("user1") && !notified.contains("user3"));
+    }
+
+    @Test
+    public void testDuplicateUidsNotifiedOnce() {
+        FakeStore store = new FakeStore();
+        List<String> uids = users(store, 10, "yes");
+        uids.addAll(new ArrayList<>(uids));
+
+        NotificationFanOut.Result result = await(new NotificationFanOut(store).send(uids, builder(), null));
+
+        assertEquals(10, result.getRecipients());
+        assertEquals(10, result.getSent());
+        assertEquals(1, store.reads.size());
+    }
+
+    @Test
+    public void testFailuresCountedWithoutStoppingFanOut() {
+        FakeStore store = new FakeStore();
+        List<String> uids = users(store, 1100, "yes");
+        store.failingReads.add(0);  // first 30 users
+        store.failingWrites.add(1); // second batch of 500
+
+        NotificationFanOut.Result result = await(new NotificationFanOut(store).send(uids, builder(), null));
+
+        assertEquals(37, store.reads.size());
+        assertEquals(3, store.writes.size());
+        assertEquals(30 + 500, result.getFailed());
+        assertEquals(1100 - 30 - 500, result.getSent());
+    }
+
+    @Test
+    public void testProgressReachesTotal() {
+        FakeStore store = new FakeStore();
+        List<String> uids = users(store, 1200, "yes");
+        List<Integer> progress = new ArrayList<>();
+
+        await(new NotificationFanOut(store).send(uids, builder(), (done, total) -> {
+            assertEquals(1200, total);
+            progress.add(done);
+        }));
+
+        assertEquals(Integer.valueOf(1200), progress.get(progress.size() - 1));
+        for (int i = 1; i < progress.size(); i++) {
+            assertTrue("Progress should never go backwards", progress.get(i) >= progress.get(i - 1));
+        }
+    }
+
+    @Test
+    public void testEmptyListMakesNoRoundTrips() {
+        FakeStore store = new FakeStore();
+
+        NotificationFanOut.Result result = await(
+                new NotificationFanOut(store).send(new ArrayList<>(), builder(), null));
+
+        assertEquals(0, result.getRecipients());
+        assertTrue(store.reads.isEmpty());
+        assertTrue(store.writes.isEmpty());
+    }
+
+    @Test
+    public void testReadsLimitedInFlight() {
+        FakeStore store = new FakeStore();
+        store.holdReads = true;
+        List<String> uids = users(store, 10 * NotificationFanOut.READ_CHUNK_SIZE, "yes");
+
+        Task<NotificationFanOut.Result> send = new NotificationFanOut(store).send(uids, builder(), null);
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(NotificationFanOut.READS_IN_FLIGHT, store.reads.size());
+
+        // Each finished read starts one more
+        store.releaseRead();
+        shadowOf(Looper.getMainLooper()).idle();
+        assertEquals(NotificationFanOut.READS_IN_FLIGHT + 1, store.reads.size());
+        assertEquals(NotificationFanOut.READS_IN_FLIGHT, store.heldReads.size());
+
+        while (!store.heldReads.isEmpty()) {
+            store.releaseRead();
+            shadowOf(Looper.getMainLooper()).idle();
+        }
+        NotificationFanOut.Result result = await(send);
+        assertEquals(10, store.reads.size());
+        assertEquals(10 * NotificationFanOut.READ_CHUNK_SIZE, result.getSent());
+    }
+
+    @Test
+    public void testResultsAddUp() {
+        NotificationFanOut.Result won = new NotificationFanOut.Result(2, 1, 1, 0);
+        NotificationFanOut.Result lost = new NotificationFanOut.Result(5, 3, 1, 1);
+
+        NotificationFanOut.Result both = won.plus(lost);
+
+        assertEquals(7, both.getRecipients());
+        assertEquals(4, both.getSent());
+        assertEquals(2, both.getSkipped());
+        assertEquals(1, both.getFailed());
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for NotificationInbox.
+ * Replays the changes a listener on the newest notifications would see, and checks the
+ * inbox keeps every notification exactly once, newest first.
+ */
+public class NotificationInboxTest {
+
+    private static final int WINDOW = 3;
+
+    private static Notification notification(int time) {
+        Notification notification = new Notification("u1", "e1", "Message " + time, "waitlist", new Date(time));
+        notification.setId("n" + time);
+        return notification;
+    }
+
+    private static List<String> ids(NotificationInbox inbox) {
+        List<String> ids = new ArrayList<>();
+        for (Notification notification : inbox.items()) {
+            ids.add(notification.getId());
+        }
+        return ids;
+    }
+
+    // Window holding n5, n4, n3 and older pages holding n2, n1
+    private static NotificationInbox fullInbox() {
+        NotificationInbox inbox = new NotificationInbox(WINDOW);
+        inbox.add(0, notification(5));
+        inbox.add(1, notification(4));
+        inbox.add(2, notification(3));
+        inbox.endChanges();
+        inbox.addOlder(Arrays.asList(notification(2), notification(1)));
+        return inbox;
+    }
+
+    @Test
+    public void testNewNotificationPushesOldestIntoOlderPages() {
+        NotificationInbox inbox = fullInbox();
+
+        // Listener: n6 added at the top, n3 falls out of the limit
+        inbox.add(0, notification(6));
+        inbox.remove(3);
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n6", "n5", "n4", "n3", "n2", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testDeletedNotificationIsDroppedAndWindowBackfills() {
+        NotificationInbox inbox = fullInbox();
+
+        // Listener: n4 deleted, n2 pulled up into the window
+        inbox.remove(1);
+        inbox.add(2, notification(2));
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n5", "n3", "n2", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testDeletingLastOfWindowIsNotMistakenForPushOut() {
+        NotificationInbox inbox = fullInbox();
+
+        inbox.remove(2);
+        inbox.add(2, notification(2));
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n5", "n4", "n2", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testDeleteFromWindowThatIsNotFull() {
+        NotificationInbox inbox = new NotificationInbox(WINDOW);
+        inbox.add(0, notification(2));
+        inbox.add(1, notification(1));
+        inbox.endChanges();
+
+        inbox.remove(1);
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n2"), ids(inbox));
+    }
+
+    @Test
+    public void testModifiedNotificationMovesWithinWindow() {
+        NotificationInbox inbox = fullInbox();
+
+        Notification resent = notification(3);
+        resent.setSendTime(new Date(10));
+        inbox.modify(2, 0, resent);
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n3", "n5", "n4", "n2", "n1"), ids(inbox));
+        assertEquals(new Date(10), inbox.items().get(0).getSendTime());
+    }
+
+    @Test
+    public void testOlderPageSkipsNotificationsAlreadyInWindow() {
+        NotificationInbox inbox = new NotificationInbox(WINDOW);
+        inbox.add(0, notification(5));
+        inbox.add(1, notification(4));
+        inbox.add(2, notification(3));
+        inbox.endChanges();
+
+        // The window backfilled n2 before the older page holding it arrived
+        inbox.remove(0);
+        inbox.add(2, notification(2));
+        inbox.endChanges();
+        inbox.addOlder(Arrays.asList(notification(2), notification(1)));
+
+        assertEquals(Arrays.asList("n4", "n3", "n2", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testRemoveOlderDropsDeletedPageItem() {
+        NotificationInbox inbox = fullInbox();
+
+        inbox.removeOlder("n2");
+        inbox.removeOlder("n5");
+
+        assertEquals(Arrays.asList("n5", "n4", "n3", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testClearWindowLetsListenerReplayIt() {
+        NotificationInbox inbox = fullInbox();
+
+        inbox.clearWindow();
+        inbox.add(0, notification(5));
+        inbox.add(1, notification(4));
+        inbox.add(2, notification(3));
+        inbox.endChanges();
+
+        assertEquals(Arrays.asList("n5", "n4", "n3", "n2", "n1"), ids(inbox));
+    }
+
+    @Test
+    public void testFirstOlderPageSkipsNotificationsPushedOutByServerSnapshot() {
+        NotificationInbox inbox = new NotificationInbox(WINDOW);
+
+        // Cached window
+        inbox.add(0, notification(5));
+        inbox.add(1, notification(4));
+        inbox.add(2, notification(3));
+        inbox.endChanges();
+
+        // Server snapshot: n7 and n6 arrived while offline and push n4 and n3 out
+        inbox.remove(2);
+        inbox.remove(1);
+        inbox.add(0, notification(7));
+        inbox.add(1, notification(6));
+        inbox.endChanges();
+
+        // The first older page starts after the window's last notification, n5
+        inbox.addOlder(Arrays.asList(notification(4), notification(3), notification(2), notification(1)));
+
+        assertEquals(Arrays.asList("n7", "n6", "n5", "n4", "n3", "n2", "n1"), ids(inbox));
+    }
+}
@@ -0,0 +1,282 @@
+package com.example.nachos_app;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for PagedCollectionLoader using a fake in-memory page source.
+ * Checks that pages follow the cursor, stop at the end of the collection,
+ * never overlap, and that failures and cancellation are handled.
+ */
+public class PagedCollectionLoaderTest {
+
+    /**
+     * Page source over the integers [0, size) that records each request.
+     * Pages can be held back to simulate a request that is still in flight.
+     */
+    private static class FakeSource implements PagedCollectionLoader.PageSource<Integer> {
+        final int size;
+        final List<Integer> requestedCursors = new ArrayList<>();
+        boolean holdPages = false;
+        boolean failNext = false;
+        PagedCollectionLoader.PageCallback<Integer> heldCallback;
+        List<Integer> heldPage;
+
+        FakeSource(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void loadPage(Integer after, int limit, PagedCollectionLoader.PageCallback<Integer> callback) {
+            requestedCursors.add(after);
+            if (failNext) {
+                failNext = false;
+                callback.onError(new Exception("Network error"));
+                return;
+            }
+
+            int start = (after == null) ? 0 : after + 1;
+            List<Integer> page = new ArrayList<>();
+            for (int i = start; i < Math.min(size, start + limit); i++) {
+                page.add(i);
+            }
+
+            if (holdPages) {
+                heldCallback = callback;
+                heldPage = page;
+            } else {
+                callback.onPage(page);
+            }
+        }
+
+        void releasePage() {
+            heldCallback.onPage(heldPage);
+        }
+    }
+
+    /**
+     * Listener that records every page it receives.
+     */
+    private static class RecordingListener implements PagedCollectionLoader.Listener<Integer> {
+        final List<List<Integer>> pages = new ArrayList<>();
+        final List<Boolean> lastPageFlags = new ArrayList<>();
+        final List<Exception> errors = new ArrayList<>();
+
+        @Override
+        public void onPage(List<Integer> page, boolean lastPage) {
+            pages.add(page);
+            lastPageFlags.add(lastPage);
+        }
+
+        @Override
+        public void onError(Exception e) {
+            errors.add(e);
+        }
+
+        List<Integer> allItems() {
+            List<Integer> all = new ArrayList<>();
+            for (List<Integer> page : pages) {
+                all.addAll(page);
+            }
+            return all;
+        }
+    }
+
+    private RecordingListener listener;
+
+    @Before
+    public void setUp() {
+        listener = new RecordingListener();
+    }
+
+    @Test
+    public void testLoadNextReturnsOnePageAtATime() {
+        FakeSource source = new FakeSource(25);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        assertTrue(loader.loadNext(listener));
+
+        assertEquals("Only one request should be made for the first page", 1, source.requestedCursors.size());
+        assertNull("First page should start with no cursor", source.requestedCursors.get(0));
+        assertEquals(10, listener.pages.get(0).size());
+        assertFalse("More pages remain", listener.lastPageFlags.get(0));
+        assertFalse(loader.isExhausted());
+    }
+
+    @Test
+    public void testNextPageStartsAfterLastItem() {
+        FakeSource source = new FakeSource(25);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadNext(listener);
+        loader.loadNext(listener);
+
+        assertEquals("Second page should use the last item as its cursor",
+                Integer.valueOf(9), source.requestedCursors.get(1));
+        assertEquals(Integer.valueOf(10), listener.pages.get(1).get(0));
+    }
+
+    @Test
+    public void testLoadAllStreamsWholeCollectionWithoutOverlap() {
+        FakeSource source = new FakeSource(25);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadAll(listener);
+
+        List<Integer> all = listener.allItems();
+        assertEquals("Every item should be delivered once", 25, all.size());
+        for (int i = 0; i < 25; i++) {
+            assertEquals("Items should arrive in order", Integer.valueOf(i), all.get(i));
+        }
+        assertEquals("25 items at 10 per page should take 3 requests", 3, source.requestedCursors.size());
+        for (List<Integer> page : listener.pages) {
+            assertTrue("No page should exceed the page size", page.size() <= 10);
+        }
+        assertEquals(Boolean.TRUE, listener.lastPageFlags.get(listener.lastPageFlags.size() - 1));
+        assertTrue(loader.isExhausted());
+    }
+
+    @Test
+    public void testExactMultipleOfPageSizeEndsWithEmptyPage() {
+        FakeSource source = new FakeSource(20);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadAll(listener);
+
+        assertEquals(20, listener.allItems().size());
+        assertEquals("A full last page needs one more request to detect the end",
+                3, source.requestedCursors.size());
+        assertTrue(listener.pages.get(2).isEmpty());
+        assertTrue(listener.lastPageFlags.get(2));
+    }
+
+    @Test
+    public void testLastPageFlaggedExactlyOnce() {
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(new FakeSource(35), 10);
+
+        loader.loadAll(listener);
+
+        int lastPages = 0;
+        for (boolean last : listener.lastPageFlags) {
+            if (last) lastPages++;
+        }
+        assertEquals(1, lastPages);
+    }
+
+    @Test
+    public void testEmptyCollection() {
+        FakeSource source = new FakeSource(0);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadAll(listener);
+
+        assertEquals(1, listener.pages.size());
+        assertTrue(listener.pages.get(0).isEmpty());
+        assertTrue(listener.lastPageFlags.get(0));
+    }
+
+    @Test
+    public void testNoRequestsAfterExhausted() {
+        FakeSource source = new FakeSource(5);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadNext(listener);
+
+        assertFalse("Exhausted loader should not request more pages", loader.loadNext(listener));
+        assertEquals(1, source.requestedCursors.size());
+    }
+
+    @Test
+    public void testLoadNextIgnoredWhileLoading() {
+        FakeSource source = new FakeSource(25);
+        source.holdPages = true;
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        assertTrue(loader.loadNext(listener));
+        assertTrue(loader.isLoading());
+        assertFalse("Should not request a page while one is in flight", loader.loadNext(listener));
+        assertEquals(1, source.requestedCursors.size());
+
+        source.releasePage();
+        assertFalse(loader.isLoading());
+        assertEquals(1, listener.pages.size());
+    }
+
+    @Test
+    public void testErrorThenRetryLoadsSamePage() {
+        FakeSource source = new FakeSource(25);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadNext(listener);
+        source.failNext = true;
+        loader.loadNext(listener);
+
+        assertEquals(1, listener.errors.size());
+        assertFalse(loader.isLoading());
+
+        loader.loadNext(listener);
+        assertEquals("Retry should use the same cursor",
+                source.requestedCursors.get(1), source.requestedCursors.get(2));
+        assertEquals(Integer.valueOf(10), listener.pages.get(1).get(0));
+    }
+
+    @Test
+    public void testCancelDropsInFlightPage() {
+        FakeSource source = new FakeSource(25);
+        source.holdPages = true;
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.loadNext(listener);
+        loader.cancel();
+        source.releasePage();
+
+        assertTrue("Cancelled loader should not deliver pages", listener.pages.isEmpty());
+        assertFalse(loader.loadNext(listener));
+    }
+
+    @Test
+    public void testLoadAllWhileLoadingReportsError() {
+        FakeSource source = new FakeSource(25);
+        source.holdPages = true;
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+        RecordingListener pageListener = new RecordingListener();
+
+        loader.loadNext(pageListener);
+        loader.loadAll(listener);
+
+        assertEquals(1, listener.errors.size());
+        assertTrue(listener.errors.get(0) instanceof IllegalStateException);
+        assertEquals("No second request while one is in flight", 1, source.requestedCursors.size());
+
+        // The in-flight page still goes to loadNext's listener, and loadAll works afterwards
+        source.releasePage();
+        source.holdPages = false;
+        loader.loadAll(listener);
+        assertEquals(1, pageListener.pages.size());
+        assertEquals(2, listener.pages.size());
+        assertEquals(Boolean.TRUE, listener.lastPageFlags.get(1));
+    }
+
+    @Test
+    public void testLoadAllOnCancelledLoaderDeliversNothing() {
+        FakeSource source = new FakeSource(25);
+        PagedCollectionLoader<Integer> loader = new PagedCollectionLoader<>(source, 10);
+
+        loader.cancel();
+        loader.loadAll(listener);
+
+        assertTrue(listener.pages.isEmpty());
+        assertTrue(listener.errors.isEmpty());
+        assertTrue(source.requestedCursors.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testPageSizeMustBePositive() {
+        new PagedCollectionLoader<>(new FakeSource(5), 0);
+    }
+}
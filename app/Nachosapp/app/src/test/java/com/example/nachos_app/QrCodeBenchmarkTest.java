@@ -0,0 +1,84 @@
+package com.example.nachos_app;
+
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.util.Base64;
+
+import javax.imageio.ImageIO;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * JVM benchmark comparing the old QR path (encode at 512x512, then one setPixel call per
+ * pixel) with QrCodeService's (encode the modules once, then scale them into an int array).
+ * Checks that redrawing from cached modules beats the old path, and that storing only
+ * qrCodeData is far smaller than the base64 PNG; the measured numbers are in the messages.
+ */
+public class QrCodeBenchmarkTest {
+
+    private static final int SIZE = 512;
+    private static final int WARMUP = 50;
+    private static final int ROUNDS = 200;
+
+    private static String data(int i) {
+        return String.format("event://event%015d", i);
+    }
+
+    @Test
+    public void compareEncodeTimeAndOutputSize() throws Exception {
+        QRCodeWriter writer = new QRCodeWriter();
+
+        for (int i = 0; i < WARMUP; i++) {
+            QrCodeServiceTest.legacyPixels(data(i), SIZE);
+            QrCodeService.pixels(QrCodeService.encode(writer, data(i)), SIZE);
+        }
+
+        long start = System.nanoTime();
+        int[] legacy = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            legacy = QrCodeServiceTest.legacyPixels(data(i), SIZE);
+        }
+        long legacyNanos = (System.nanoTime() - start) / ROUNDS;
+
+        start = System.nanoTime();
+        int[] scaled = null;
+        for (int i = 0; i < ROUNDS; i++) {
+            scaled = QrCodeService.pixels(QrCodeService.encode(writer, data(i)), SIZE);
+        }
+        long scaledNanos = (System.nanoTime() - start) / ROUNDS;
+
+        // Redrawing a cached code, e.g. at a new size, skips the encode
+        BitMatrix cached = QrCodeService.encode(writer, data(0));
+        start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            QrCodeService.pixels(cached, SIZE);
+        }
+        long cachedNanos = (System.nanoTime() - start) / ROUNDS;
+
+        assertArrayEquals(legacy, scaled);
+
+        int pngBytes = png(scaled).length;
+        int base64Bytes = Base64.getEncoder().encodeToString(png(scaled)).length();
+        assertTrue("QR " + SIZE + "px: legacy " + legacyNanos / 1000 + " us, "
+                        + "modules + setPixels " + scaledNanos / 1000 + " us, "
+                        + "cached modules " + cachedNanos / 1000 + " us",
+                cachedNanos < legacyNanos);
+        assertTrue("QR output: PNG " + pngBytes + " B (" + base64Bytes + " B as base64), "
+                        + "qrCodeData " + data(0).length() + " B",
+                data(0).length() * 10 < base64Bytes);
+    }
+
+    private static byte[] png(int[] pixels) throws Exception {
+        BufferedImage image = new BufferedImage(SIZE, SIZE, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, SIZE, SIZE, pixels, 0, SIZE);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.nachos_app;
+
+import com.google.firebase.firestore.FieldValue;
+
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+
+/**
+ * Unit tests for which fields QrCodeMigration removes from an event.
+ */
+public class QrCodeMigrationTest {
+
+    @Test
+    public void testEventWithoutStoredQrCodeIsSkipped() {
+        assertNull(QrCodeMigration.updates("e1", null, null, "event://e1"));
+    }
+
+    @Test
+    public void testStoredQrCodeFieldsAreDeleted() {
+        for (String[] stored : new String[][] {{"base64", null}, {null, "key"}, {"base64", "key"}}) {
+            Map<String, Object> updates = QrCodeMigration.updates("e1", stored[0], stored[1], "event://e1");
+
+            assertEquals(FieldValue.delete(), updates.get("qrCodeUrl"));
+            assertEquals(FieldValue.delete(), updates.get("qrCodeRef"));
+            assertFalse("qrCodeData is kept as it is", updates.containsKey("qrCodeData"));
+        }
+    }
+
+    @Test
+    public void testMissingQrCodeDataIsFilledIn() {
+        Map<String, Object> updates = QrCodeMigration.updates("e1", "base64", null, null);
+
+        assertEquals("event://e1", updates.get("qrCodeData"));
+    }
+}
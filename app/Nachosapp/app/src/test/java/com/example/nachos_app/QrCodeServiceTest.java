@@ -0,0 +1,58 @@
+package com.example.nachos_app;
+
+import android.graphics.Color;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for how QrCodeService encodes QR modules and scales them to pixels.
+ */
+public class QrCodeServiceTest {
+
+    private static final String DATA = "event://AbCdEfGhIjKlMnOpQrSt";
+
+    // The image the old per-pixel loop drew, one setPixel per pixel
+    static int[] legacyPixels(String data, int size) throws Exception {
+        BitMatrix matrix = new QRCodeWriter().encode(data, BarcodeFormat.QR_CODE, size, size);
+        int[] pixels = new int[size * size];
+        for (int x = 0; x < size; x++) {
+            for (int y = 0; y < size; y++) {
+                pixels[y * size + x] = matrix.get(x, y) ? Color.BLACK : Color.WHITE;
+            }
+        }
+        return pixels;
+    }
+
+    @Test
+    public void testPixelsMatchLegacyRendering() throws Exception {
+        BitMatrix modules = QrCodeService.encode(new QRCodeWriter(), DATA);
+
+        for (int size : new int[] {512, 300, 841}) {
+            assertArrayEquals("size " + size, legacyPixels(DATA, size), QrCodeService.pixels(modules, size));
+        }
+    }
+
+    @Test
+    public void testModulesAreOnePixelEach() throws Exception {
+        BitMatrix modules = QrCodeService.encode(new QRCodeWriter(), DATA);
+
+        // Version 2 (25 modules) plus a quiet zone of 4 on each side
+        assertEquals(33, modules.getWidth());
+        assertEquals(modules.getWidth(), modules.getHeight());
+    }
+
+    @Test
+    public void testSmallerThanModulesStillFillsImage() throws Exception {
+        BitMatrix modules = QrCodeService.encode(new QRCodeWriter(), DATA);
+
+        int[] pixels = QrCodeService.pixels(modules, 20);
+        assertEquals(400, pixels.length);
+    }
+}
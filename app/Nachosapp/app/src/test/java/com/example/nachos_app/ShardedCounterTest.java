@@ -0,0 +1,42 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Unit tests for how ShardedCounter splits a capacity between its shards.
+ */
+public class ShardedCounterTest {
+
+    @Test
+    public void testSharesAddUpToCapacity() {
+        for (long capacity : new long[] {0, 1, 9, 10, 11, 57, 1000}) {
+            long total = 0;
+            for (int shard = 0; shard < 10; shard++) {
+                total += ShardedCounter.share(capacity, shard, 10);
+            }
+            assertEquals("capacity " + capacity, capacity, total);
+        }
+    }
+
+    @Test
+    public void testSharesDifferByAtMostOne() {
+        long min = Long.MAX_VALUE;
+        long max = Long.MIN_VALUE;
+        for (int shard = 0; shard < 10; shard++) {
+            long share = ShardedCounter.share(57, shard, 10);
+            min = Math.min(min, share);
+            max = Math.max(max, share);
+        }
+        assertEquals(5, min);
+        assertEquals(6, max);
+    }
+
+    @Test
+    public void testNegativeCapacityGivesNoRoom() {
+        for (int shard = 0; shard < 10; shard++) {
+            assertEquals(0, ShardedCounter.share(-3, shard, 10));
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.example.nachos_app;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.robolectric.Shadows.shadowOf;
+
+import android.os.Looper;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.TaskCompletionSource;
+import com.google.android.gms.tasks.Tasks;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Unit tests for UserDirectory against an in-memory fake of Firestore.
+ * Counts the reads made for a large lookup and checks caching, expiry, eviction
+ * and that concurrent lookups of the same user share one read.
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(manifest = Config.NONE, sdk = 34)
+public class UserDirectoryTest {
+
+    /**
+     * Fake store holding user names in a map and recording every read.
+     * Reads can be held open to test lookups made while one is in flight.
+     */
+    private static class FakeStore implements UserDirectory.Store {
+        final Map<String, String> names = new HashMap<>();
+        final List<List<String>> reads = new ArrayList<>();
+        final List<TaskCompletionSource<Map<String, UserDirectory.Profile>>> held = new ArrayList<>();
+        boolean hold;
+        boolean fail;
+
+        @Override
+        public Task<Map<String, UserDirectory.Profile>> read(List<String> uids) {
+            reads.add(new ArrayList<>(uids));
+            if (fail) {
+                return Tasks.forException(new Exception("Read failed"));
+            }
+            if (hold) {
+                TaskCompletionSource<Map<String, UserDirectory.Profile>> source = new TaskCompletionSource<>();
+                held.add(source);
+                return source.getTask();
+            }
+            return Tasks.forResult(result(uids));
+        }
+
+        Map<String, UserDirectory.Profile> result(List<String> uids) {
+            Map<String, UserDirectory.Profile> profiles = new HashMap<>();
+            for (String uid : uids) {
+                if (names.containsKey(uid)) {
+                    profiles.put(uid, new UserDirectory.Profile(names.get(uid), uid + "@mail.com", "yes"));
+                }
+            }
+            return profiles;
+        }
+    }
+
+    /** Clock the tests move by hand */
+    private static class FakeClock implements UserDirectory.Clock {
+        long now = 1_000_000L;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private final FakeStore store = new FakeStore();
+    private final FakeClock clock = new FakeClock();
+
+    private UserDirectory directory(int maxEntries) {
+        return new UserDirectory(store, clock, maxEntries, UserDirectory.TTL_MS);
+    }
+
+    private List<String> users(int count) {
+        List<String> uids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            store.names.put("user" + i, "Name " + i);
+            uids.add("user" + i);
+        }
+        return uids;
+    }
+
+    // Run the task's continuations, which are posted to the main looper
+    private static <T> T await(Task<T> task) {
+        shadowOf(Looper.getMainLooper()).idle();
+        assertTrue("Lookup should have finished", task.isComplete());
+        return task.getResult();
+    }
+
+    @Test
+    public void testLookupsAreReadInWhereInChunks() {
+        List<String> uids = users(75);
+
+        Map<String, UserDirectory.Profile> profiles = await(directory(1000).getAll(uids));
+
+        // ceil(75 / 30) reads instead of 75
+        assertEquals(3, store.reads.size());
+        for (List<String> read : store.reads) {
+            assertTrue("whereIn is limited to 30 values", read.size() <= UserDirectory.READ_CHUNK_SIZE);
+        }
+        assertEquals(75, profiles.size());
+        assertEquals("Name 42", profiles.get("user42").getName());
+    }
+
+    @Test
+    public void testCachedUsersAreNotReadAgain() {
+        UserDirectory directory = directory(1000);
+        await(directory.getAll(users(40)));
+        int readsBefore = store.reads.size();
+
+        // Another screen asks for some of the same users and one new one
+        store.names.put("newcomer", "New");
+        Map<String, UserDirectory.Profile> profiles =
+                await(directory.getAll(Arrays.asList("user1", "user39", "newcomer")));
+
+        assertEquals(readsBefore + 1, store.reads.size());
+        assertEquals(Arrays.asList("newcomer"), store.reads.get(store.reads.size() - 1));
+        assertEquals(3, profiles.size());
+    }
+
+    @Test
+    public void testExpiredUsersAreReadAgain() {
+        UserDirectory directory = directory(1000);
+        await(directory.getAll(users(5)));
+
+        clock.now += UserDirectory.TTL_MS + 1;
+        store.names.put("user0", "Renamed");
+        Map<String, UserDirectory.Profile> profiles = await(directory.getAll(Arrays.asList("user0")));
+
+        assertEquals(2, store.reads.size());
+        assertEquals("Renamed", profiles.get("user0").getName());
+    }
+
+    @Test
+    public void testLeastRecentlyUsedUserIsEvicted() {
+        UserDirectory directory = directory(3);
+        users(4);
+        await(directory.getAll(Arrays.asList("user0", "user1", "user2")));
+        await(directory.get("user0")); // user1 is now the least recently used
+        await(directory.get("user3"));
+
+        assertEquals(3, directory.cachedCount());
+        int readsBefore = store.reads.size();
+        await(directory.get("user0"));
+        assertEquals(readsBefore, store.reads.size());
+        await(directory.get("user1"));
+        assertEquals(readsBefore + 1, store.reads.size());
+    }
+
+    @Test
+    public void testConcurrentLookupsShareOneRead() {
+        UserDirectory directory = directory(1000);
+        users(3);
+        store.hold = true;
+
+        Task<UserDirectory.Profile> first = directory.get("user1");
+        Task<Map<String, UserDirectory.Profile>> second = directory.getAll(Arrays.asList("user1", "user2"));
+        Task<UserDirectory.Profile> third = directory.get("user1");
+
+        // user1 is read once; the second lookup only reads user2
+        assertEquals(2, store.reads.size());
+        assertEquals(Arrays.asList("user1"), store.reads.get(0));
+        assertEquals(Arrays.asList("user2"), store.reads.get(1));
+
+        store.held.get(0).setResult(store.result(store.reads.get(0)));
+        store.held.get(1).setResult(store.result(store.reads.get(1)));
+
+        assertEquals("Name 1", await(first).getName());
+        assertEquals("Name 1", await(third).getName());
+        assertEquals(2, await(second).size());
+    }
+
+    @Test
+    public void testMissingUsersAreCachedButFailuresAreNot() {
+        UserDirectory directory = directory(1000);
+
+        assertNull(await(directory.get("ghost")));
+        await(directory.get("ghost"));
+        assertEquals("A user without a profile is only read once", 1, store.reads.size());
+
+        store.fail = true;
+        Map<String, UserDirectory.Profile> profiles = await(directory.getAll(Arrays.asList("flaky")));
+        assertTrue(profiles.isEmpty());
+        store.fail = false;
+        store.names.put("flaky", "Flaky");
+        assertEquals("Flaky", await(directory.get("flaky")).getName());
+        assertEquals(3, store.reads.size());
+    }
+
+    @Test
+    public void testInvalidateForcesReread() {
+        UserDirectory directory = directory(1000);
+        users(1);
+        await(directory.get("user0"));
+
+        store.names.put("user0", "Edited");
+        directory.invalidate("user0");
+
+        assertEquals("Edited", await(directory.get("user0")).getName());
+        assertEquals(2, store.reads.size());
+    }
+}
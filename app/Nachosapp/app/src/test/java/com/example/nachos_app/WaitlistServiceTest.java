@@ -0,0 +1,78 @@
+package com.example.nachos_app;
+
+import org.junit.Test;
+
+import java.util.Date;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Unit tests for the join checks WaitlistService runs inside its transaction,
+ * including how capacity is split between the waitlist shards.
+ */
+public class WaitlistServiceTest {
+
+    private static final Date START = new Date(1_000_000L);
+    private static final Date END = new Date(2_000_000L);
+    private static final Date DURING = new Date(1_500_000L);
+
+    private static WaitlistService.Result check(Date now) {
+        return WaitlistService.checkJoin(true, START, END, false, false, false, now);
+    }
+
+    @Test
+    public void testJoinsWhenOpen() {
+        assertEquals(WaitlistService.Result.JOINED, check(DURING));
+    }
+
+    @Test
+    public void testClosedRegistrationRejected() {
+        assertEquals(WaitlistService.Result.REGISTRATION_NOT_OPEN, check(new Date(500_000L)));
+        assertEquals(WaitlistService.Result.REGISTRATION_NOT_OPEN, check(new Date(2_500_000L)));
+        assertEquals(WaitlistService.Result.REGISTRATION_NOT_OPEN,
+                WaitlistService.checkJoin(true, null, null, false, false, false, DURING));
+    }
+
+    @Test
+    public void testExistingEntriesReported() {
+        assertEquals(WaitlistService.Result.ALREADY_ON_WAITLIST,
+                WaitlistService.checkJoin(true, START, END, true, false, false, DURING));
+        assertEquals(WaitlistService.Result.ALREADY_SELECTED,
+                WaitlistService.checkJoin(true, START, END, false, true, false, DURING));
+        assertEquals(WaitlistService.Result.ALREADY_ENROLLED,
+                WaitlistService.checkJoin(true, START, END, false, false, true, DURING));
+    }
+
+    @Test
+    public void testShardsNeverAdmitPastCapacity() {
+        // Fill every shard as far as it allows and check the total lands exactly on capacity
+        for (long base : new long[] {0, 7, -5, 60}) {
+            long admitted = 0;
+            for (int shard = 0; shard < 10; shard++) {
+                long count = 0;
+                while (WaitlistService.hasRoom(50, base, shard, 10, count)) {
+                    count++;
+                }
+                admitted += count;
+            }
+            assertEquals("base " + base, Math.max(0, 50 - base), admitted);
+        }
+    }
+
+    @Test
+    public void testFullShardRejected() {
+        // 50 places over 10 shards is 5 per shard
+        assertTrue(WaitlistService.hasRoom(50, 0, 3, 10, 4));
+        assertFalse(WaitlistService.hasRoom(50, 0, 3, 10, 5));
+        // Once the event document holds everyone, no shard has room
+        assertFalse(WaitlistService.hasRoom(50, 50, 0, 10, 0));
+    }
+
+    @Test
+    public void testMissingEvent() {
+        assertEquals(WaitlistService.Result.EVENT_NOT_FOUND,
+                WaitlistService.checkJoin(false, null, null, false, false, false, DURING));
+    }
+}